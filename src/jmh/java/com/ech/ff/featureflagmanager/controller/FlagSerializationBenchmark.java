@@ -0,0 +1,74 @@
+package com.ech.ff.featureflagmanager.controller;
+
+import com.ech.ff.featureflagmanager.controller.support.NdjsonStreaming;
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost of writing the feature flags of an environment as a JSON array, like {@code GET /env/ff}, and as NDJSON,
+ * like {@code GET /env/ff/stream}, for environments of different sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FlagSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int flagCount;
+
+    private ObjectMapper objectMapper;
+    private List<FeatureFlag> flags;
+    private ByteArrayOutputStream output;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        flags = new ArrayList<>(flagCount);
+        for (int i = 0; i < flagCount; i++) {
+            flags.add(FeatureFlag.builder()
+                    .envName("production")
+                    .featureName("feature-" + i)
+                    .type("PERCENTAGE_ROLLOUT")
+                    .config("{\"enabled\": true, \"rolloutPercentage\": " + (i % 100) + ", \"salt\": \"2024-q3\"}")
+                    .userId("user-1")
+                    .version((long) i)
+                    .build());
+        }
+        output = new ByteArrayOutputStream(flagCount * 256);
+    }
+
+    @Benchmark
+    public byte[] jsonArray() throws IOException {
+        return objectMapper.writeValueAsBytes(flags);
+    }
+
+    @Benchmark
+    public int ndjson() throws IOException {
+        output.reset();
+        NdjsonStreaming.of(Stream.of(flags), objectMapper).writeTo(output);
+        return output.size();
+    }
+}
@@ -0,0 +1,322 @@
+package com.ech.ff.featureflagmanager.dynamodb;
+
+import software.amazon.awssdk.core.pagination.sync.SdkIterable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClientExtension;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory {@link DynamoDbTable} for benchmarking the repositories without a network.
+ * <p>
+ * Items are stored as attribute maps, so every read and write pays the same mapping cost as with the
+ * real client. Tables and global secondary indexes with string keys are supported. Key conditions and
+ * filter expressions may only be conjunctions of equalities, which covers {@code QueryConditional.keyEqualTo}
+ * and the filters of the repositories. Like DynamoDB, the page limit applies before the filter expression.
+ * Operations that are not implemented throw {@link UnsupportedOperationException}.
+ *
+ * @param <T> The entity type
+ */
+public class InMemoryDynamoDbTable<T> implements DynamoDbTable<T> {
+
+    private static final String KEY_SEPARATOR = "\u0000";
+
+    private final String tableName;
+    private final TableSchema<T> tableSchema;
+    private final String partitionKeyName;
+    private final String sortKeyName;
+    private final Map<String, ConcurrentSkipListMap<String, Map<String, AttributeValue>>> partitions =
+            new ConcurrentHashMap<>();
+    private final Map<String, Map<String, ConcurrentSkipListMap<String, Map<String, AttributeValue>>>> indexes =
+            new HashMap<>();
+
+    /**
+     * Constructs a new InMemoryDynamoDbTable.
+     *
+     * @param tableName The table name
+     * @param tableSchema The schema of the entities
+     * @param indexNames The global secondary indexes of the table to maintain
+     */
+    public InMemoryDynamoDbTable(String tableName, TableSchema<T> tableSchema, String... indexNames) {
+        this.tableName = tableName;
+        this.tableSchema = tableSchema;
+        TableMetadata metadata = tableSchema.tableMetadata();
+        this.partitionKeyName = metadata.primaryPartitionKey();
+        this.sortKeyName = metadata.primarySortKey().orElse(null);
+        for (String indexName : indexNames) {
+            indexes.put(indexName, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Override
+    public DynamoDbEnhancedClientExtension mapperExtension() {
+        return new DynamoDbEnhancedClientExtension() {
+        };
+    }
+
+    @Override
+    public TableSchema<T> tableSchema() {
+        return tableSchema;
+    }
+
+    @Override
+    public String tableName() {
+        return tableName;
+    }
+
+    @Override
+    public Key keyFrom(T item) {
+        return tableSchema.createKey(item);
+    }
+
+    @Override
+    public void putItem(T item) {
+        Map<String, AttributeValue> attributes = tableSchema.itemToMap(item, true);
+        Map<String, AttributeValue> previous = partitions
+                .computeIfAbsent(attributes.get(partitionKeyName).s(), pk -> new ConcurrentSkipListMap<>())
+                .put(sortKey(attributes), attributes);
+        if (previous != null) {
+            unindex(previous);
+        }
+        index(attributes);
+    }
+
+    @Override
+    public T getItem(Key key) {
+        Map<String, AttributeValue> attributes = find(key);
+        return attributes == null ? null : tableSchema.mapToItem(attributes);
+    }
+
+    @Override
+    public T getItem(T keyItem) {
+        return getItem(keyFrom(keyItem));
+    }
+
+    @Override
+    public T deleteItem(Key key) {
+        ConcurrentSkipListMap<String, Map<String, AttributeValue>> partition =
+                partitions.get(key.partitionKeyValue().s());
+        Map<String, AttributeValue> removed = partition == null ? null
+                : partition.remove(key.sortKeyValue().map(AttributeValue::s).orElse(""));
+        if (removed == null) {
+            return null;
+        }
+        unindex(removed);
+        return tableSchema.mapToItem(removed);
+    }
+
+    @Override
+    public T deleteItem(T keyItem) {
+        return deleteItem(keyFrom(keyItem));
+    }
+
+    @Override
+    public PageIterable<T> query(QueryEnhancedRequest request) {
+        Map<String, AttributeValue> keyCondition = equalities(
+                request.queryConditional().expression(tableSchema, TableMetadata.primaryIndexName()));
+        ConcurrentSkipListMap<String, Map<String, AttributeValue>> partition =
+                partitions.get(keyCondition.get(partitionKeyName).s());
+        List<Map<String, AttributeValue>> items = partition == null ? List.of() : matching(partition, keyCondition);
+        return pages(items, request.limit(), request.exclusiveStartKey(), request.filterExpression());
+    }
+
+    @Override
+    public PageIterable<T> scan(ScanEnhancedRequest request) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (Map<String, Map<String, AttributeValue>> partition : new TreeMap<>(partitions).values()) {
+            for (Map<String, AttributeValue> item : partition.values()) {
+                if (request.totalSegments() == null
+                        || Math.floorMod(primaryKey(item).hashCode(), request.totalSegments()) == request.segment()) {
+                    items.add(item);
+                }
+            }
+        }
+        return pages(items, request.limit(), request.exclusiveStartKey(), request.filterExpression());
+    }
+
+    @Override
+    public PageIterable<T> scan() {
+        return scan(ScanEnhancedRequest.builder().build());
+    }
+
+    @Override
+    public DynamoDbIndex<T> index(String indexName) {
+        Map<String, ConcurrentSkipListMap<String, Map<String, AttributeValue>>> index = indexes.get(indexName);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown index " + indexName + " of table " + tableName);
+        }
+        return new DynamoDbIndex<>() {
+            @Override
+            public PageIterable<T> query(QueryEnhancedRequest request) {
+                Map<String, AttributeValue> keyCondition = equalities(
+                        request.queryConditional().expression(tableSchema, indexName));
+                ConcurrentSkipListMap<String, Map<String, AttributeValue>> partition =
+                        index.get(keyCondition.get(tableSchema.tableMetadata().indexPartitionKey(indexName)).s());
+                List<Map<String, AttributeValue>> items = partition == null ? List.of() : matching(partition, keyCondition);
+                return pages(items, request.limit(), request.exclusiveStartKey(), request.filterExpression());
+            }
+
+            @Override
+            public DynamoDbEnhancedClientExtension mapperExtension() {
+                return InMemoryDynamoDbTable.this.mapperExtension();
+            }
+
+            @Override
+            public TableSchema<T> tableSchema() {
+                return tableSchema;
+            }
+
+            @Override
+            public String tableName() {
+                return tableName;
+            }
+
+            @Override
+            public String indexName() {
+                return indexName;
+            }
+
+            @Override
+            public Key keyFrom(T item) {
+                return tableSchema.createKey(item);
+            }
+        };
+    }
+
+    private Map<String, AttributeValue> find(Key key) {
+        ConcurrentSkipListMap<String, Map<String, AttributeValue>> partition = partitions.get(key.partitionKeyValue().s());
+        return partition == null ? null : partition.get(key.sortKeyValue().map(AttributeValue::s).orElse(""));
+    }
+
+    private void index(Map<String, AttributeValue> item) {
+        indexes.forEach((indexName, index) -> indexKey(indexName, item).ifPresent(key ->
+                index.computeIfAbsent(key[0], pk -> new ConcurrentSkipListMap<>()).put(key[1], item)));
+    }
+
+    private void unindex(Map<String, AttributeValue> item) {
+        indexes.forEach((indexName, index) -> indexKey(indexName, item).ifPresent(key -> {
+            Map<String, Map<String, AttributeValue>> partition = index.get(key[0]);
+            if (partition != null) {
+                partition.remove(key[1]);
+            }
+        }));
+    }
+
+    /**
+     * Get the partition key and the unique, sortable key of an item in an index.
+     * Items without the key attributes of the index are not indexed, like in DynamoDB.
+     */
+    private Optional<String[]> indexKey(String indexName, Map<String, AttributeValue> item) {
+        TableMetadata metadata = tableSchema.tableMetadata();
+        AttributeValue partitionKey = item.get(metadata.indexPartitionKey(indexName));
+        Optional<String> sortKeyName = metadata.indexSortKey(indexName);
+        AttributeValue sortKey = sortKeyName.map(item::get).orElse(null);
+        if (partitionKey == null || (sortKeyName.isPresent() && sortKey == null)) {
+            return Optional.empty();
+        }
+        String sortValue = sortKey == null ? "" : sortKey.s();
+        return Optional.of(new String[]{partitionKey.s(), sortValue + KEY_SEPARATOR + primaryKey(item)});
+    }
+
+    private String sortKey(Map<String, AttributeValue> item) {
+        return sortKeyName == null ? "" : item.get(sortKeyName).s();
+    }
+
+    private String primaryKey(Map<String, AttributeValue> item) {
+        return item.get(partitionKeyName).s() + KEY_SEPARATOR + sortKey(item);
+    }
+
+    private Map<String, AttributeValue> keyOf(Map<String, AttributeValue> item) {
+        Map<String, AttributeValue> key = new LinkedHashMap<>();
+        key.put(partitionKeyName, item.get(partitionKeyName));
+        if (sortKeyName != null) {
+            key.put(sortKeyName, item.get(sortKeyName));
+        }
+        return key;
+    }
+
+    private static List<Map<String, AttributeValue>> matching(Map<String, Map<String, AttributeValue>> partition,
+                                                              Map<String, AttributeValue> condition) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (Map<String, AttributeValue> item : partition.values()) {
+            if (matches(item, condition)) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    private PageIterable<T> pages(List<Map<String, AttributeValue>> items, Integer limit,
+                                  Map<String, AttributeValue> exclusiveStartKey, Expression filter) {
+        Map<String, AttributeValue> filterCondition = filter == null ? Map.of() : equalities(filter);
+        int start = 0;
+        if (exclusiveStartKey != null) {
+            while (start < items.size() && !keyOf(items.get(start)).equals(exclusiveStartKey)) {
+                start++;
+            }
+            start++;
+        }
+        int pageSize = limit == null ? Integer.MAX_VALUE : limit;
+        List<Page<T>> pages = new ArrayList<>();
+        int from = Math.min(start, items.size());
+        do {
+            int to = (int) Math.min((long) from + pageSize, items.size());
+            List<T> page = new ArrayList<>();
+            for (Map<String, AttributeValue> item : items.subList(from, to)) {
+                if (matches(item, filterCondition)) {
+                    page.add(tableSchema.mapToItem(item));
+                }
+            }
+            pages.add(Page.create(page, to < items.size() ? keyOf(items.get(to - 1)) : null));
+            from = to;
+        } while (from < items.size());
+        SdkIterable<Page<T>> iterable = pages::iterator;
+        return PageIterable.create(iterable);
+    }
+
+    private static boolean matches(Map<String, AttributeValue> item, Map<String, AttributeValue> condition) {
+        for (Map.Entry<String, AttributeValue> term : condition.entrySet()) {
+            if (!term.getValue().equals(item.get(term.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parse a conjunction of equalities, such as {@code #a = :a AND b = :b}, into the expected value of every attribute.
+     */
+    private static Map<String, AttributeValue> equalities(Expression expression) {
+        Map<String, String> names = expression.expressionNames() == null ? Map.of() : expression.expressionNames();
+        Map<String, AttributeValue> values = expression.expressionValues() == null ? Map.of() : expression.expressionValues();
+        Map<String, AttributeValue> condition = new LinkedHashMap<>();
+        for (String term : expression.expression().replace("(", "").replace(")", "").split(" AND ")) {
+            String[] sides = term.split("=");
+            if (sides.length != 2 || !values.containsKey(sides[1].trim())) {
+                throw new UnsupportedOperationException("Only conjunctions of equalities are supported: "
+                        + expression.expression());
+            }
+            String name = sides[0].trim();
+            condition.put(names.getOrDefault(name, name), values.get(sides[1].trim()));
+        }
+        return condition;
+    }
+}
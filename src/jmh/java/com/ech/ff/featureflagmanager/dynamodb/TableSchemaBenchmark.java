@@ -0,0 +1,123 @@
+package com.ech.ff.featureflagmanager.dynamodb;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.ApiKey;
+import com.ech.ff.featureflagmanager.dynamodb.entity.Environment;
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of mapping the entities with the bean table schemas: building a schema with {@link TableSchema#fromBean},
+ * which {@code AppConfig} does once per repository, and converting items to and from attribute maps,
+ * which every read and write does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TableSchemaBenchmark {
+
+    private TableSchema<FeatureFlag> featureFlagSchema;
+    private TableSchema<ApiKey> apiKeySchema;
+    private TableSchema<Environment> environmentSchema;
+    private FeatureFlag featureFlag;
+    private ApiKey apiKey;
+    private Environment environment;
+    private Map<String, AttributeValue> featureFlagItem;
+    private Map<String, AttributeValue> apiKeyItem;
+    private Map<String, AttributeValue> environmentItem;
+
+    @Setup
+    public void setUp() {
+        featureFlagSchema = TableSchema.fromBean(FeatureFlag.class);
+        apiKeySchema = TableSchema.fromBean(ApiKey.class);
+        environmentSchema = TableSchema.fromBean(Environment.class);
+
+        featureFlag = FeatureFlag.builder()
+                .envName("production")
+                .featureName("new-checkout")
+                .type("PERCENTAGE_ROLLOUT")
+                .config("{\"enabled\": true, \"rolloutPercentage\": 25, \"salt\": \"2024-q3\"}")
+                .userId("user-1")
+                .version(3L)
+                .build();
+        apiKey = ApiKey.builder()
+                .envName("production")
+                .key("4f1c2b9e-8d7a-4e3b-9c6f-2a1d0e5b7c8d")
+                .active(true)
+                .userId("user-1")
+                .build();
+        environment = Environment.builder()
+                .name("production")
+                .userId("user-1")
+                .description("Production environment")
+                .version(1L)
+                .build();
+
+        featureFlagItem = featureFlagSchema.itemToMap(featureFlag, true);
+        apiKeyItem = apiKeySchema.itemToMap(apiKey, true);
+        environmentItem = environmentSchema.itemToMap(environment, true);
+    }
+
+    @Benchmark
+    public TableSchema<FeatureFlag> featureFlagFromBean() {
+        return TableSchema.fromBean(FeatureFlag.class);
+    }
+
+    @Benchmark
+    public TableSchema<ApiKey> apiKeyFromBean() {
+        return TableSchema.fromBean(ApiKey.class);
+    }
+
+    @Benchmark
+    public TableSchema<Environment> environmentFromBean() {
+        return TableSchema.fromBean(Environment.class);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> featureFlagToItem() {
+        return featureFlagSchema.itemToMap(featureFlag, true);
+    }
+
+    @Benchmark
+    public FeatureFlag featureFlagFromItem() {
+        return featureFlagSchema.mapToItem(featureFlagItem);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> apiKeyToItem() {
+        return apiKeySchema.itemToMap(apiKey, true);
+    }
+
+    @Benchmark
+    public ApiKey apiKeyFromItem() {
+        return apiKeySchema.mapToItem(apiKeyItem);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> environmentToItem() {
+        return environmentSchema.itemToMap(environment, true);
+    }
+
+    @Benchmark
+    public Environment environmentFromItem() {
+        return environmentSchema.mapToItem(environmentItem);
+    }
+}
@@ -0,0 +1,179 @@
+package com.ech.ff.featureflagmanager.dynamodb.repository;
+
+import com.ech.ff.featureflagmanager.cache.CachingFeatureFlagRepository;
+import com.ech.ff.featureflagmanager.cache.FlagCache;
+import com.ech.ff.featureflagmanager.dynamodb.InMemoryDynamoDbTable;
+import com.ech.ff.featureflagmanager.dynamodb.entity.ApiKey;
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import com.ech.ff.featureflagmanager.dynamodb.migration.GlobalSecondaryIndexMigration;
+import com.ech.ff.featureflagmanager.security.dto.CognitoUser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexDescription;
+import software.amazon.awssdk.services.dynamodb.model.IndexStatus;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the repository read and write paths on top of an {@link InMemoryDynamoDbTable}, i.e. everything
+ * except the network: request building, expression handling, mapping and the flag cache.
+ * <p>
+ * The API key benchmarks read the keys of one user from an environment name shared by
+ * {@value #API_KEY_USERS} users, once filtering the environment partition, as before the
+ * {@value ApiKey#USER_ENV_INDEX} index is active, and once from the index.
+ * Logging is set to WARN in {@code src/jmh/resources/logback.xml}, so the INFO logs of the
+ * repositories are not part of the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RepositoryBenchmark {
+
+    private static final String ENV_NAME = "production";
+    private static final String USER_ID = "user-1";
+    private static final int FLAGS = 100;
+    private static final int API_KEY_USERS = 100;
+    private static final int API_KEYS_PER_USER = 10;
+
+    private FeatureFlagRepository featureFlagRepository;
+    private FeatureFlagRepository cachingFeatureFlagRepository;
+    private ApiKeyRepository filteringApiKeyRepository;
+    private ApiKeyRepository indexedApiKeyRepository;
+    private CognitoUser apiKeyOwner;
+    private FeatureFlag[] flags;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        InMemoryDynamoDbTable<FeatureFlag> flagTable = new InMemoryDynamoDbTable<>("FeatureFlag",
+                TableSchema.fromBean(FeatureFlag.class), "FFUserId");
+        featureFlagRepository = new FeatureFlagRepository(flagTable, null);
+        cachingFeatureFlagRepository = new CachingFeatureFlagRepository(flagTable, null,
+                new FlagCache(DataSize.ofMegabytes(64), DataSize.ofMegabytes(8)));
+        flags = new FeatureFlag[FLAGS];
+        for (int i = 0; i < FLAGS; i++) {
+            flags[i] = FeatureFlag.builder()
+                    .envName(ENV_NAME)
+                    .featureName("feature-" + i)
+                    .type("BOOLEAN")
+                    .config("{\"enabled\": " + (i % 2 == 0) + "}")
+                    .userId(USER_ID)
+                    .version(1L)
+                    .build();
+            flagTable.putItem(flags[i]);
+        }
+        cachingFeatureFlagRepository.getEnvFF(ENV_NAME, USER_ID);
+
+        InMemoryDynamoDbTable<ApiKey> apiKeyTable = new InMemoryDynamoDbTable<>("EnvApiKey",
+                TableSchema.fromBean(ApiKey.class), ApiKey.USER_ENV_INDEX);
+        for (int user = 0; user < API_KEY_USERS; user++) {
+            for (int i = 0; i < API_KEYS_PER_USER; i++) {
+                apiKeyTable.putItem(ApiKey.builder()
+                        .envName(ENV_NAME)
+                        .key("key-" + user + "-" + i)
+                        .active(true)
+                        .userId("user-" + user)
+                        .build());
+            }
+        }
+        filteringApiKeyRepository = new ApiKeyRepository(apiKeyTable, null, indexMigration(false));
+        indexedApiKeyRepository = new ApiKeyRepository(apiKeyTable, null, indexMigration(true));
+        apiKeyOwner = CognitoUser.fromJwt(Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .subject("user-" + (API_KEY_USERS / 2))
+                .build());
+    }
+
+    @Benchmark
+    public List<FeatureFlag> getEnvFF() {
+        return featureFlagRepository.getEnvFF(ENV_NAME, USER_ID);
+    }
+
+    @Benchmark
+    public List<FeatureFlag> getEnvFFCached() {
+        return cachingFeatureFlagRepository.getEnvFF(ENV_NAME, USER_ID);
+    }
+
+    @Benchmark
+    public Optional<FeatureFlag> getByName() {
+        return featureFlagRepository.getByName(nextFlag().getFeatureName(), ENV_NAME);
+    }
+
+    @Benchmark
+    public FeatureFlag save() {
+        return featureFlagRepository.save(nextFlag());
+    }
+
+    @Benchmark
+    public List<ApiKey> getEnvKeysFiltered() {
+        return filteringApiKeyRepository.getEnvKeys(ENV_NAME, apiKeyOwner);
+    }
+
+    @Benchmark
+    public List<ApiKey> getEnvKeysIndexed() {
+        return indexedApiKeyRepository.getEnvKeys(ENV_NAME, apiKeyOwner);
+    }
+
+    private FeatureFlag nextFlag() {
+        FeatureFlag flag = flags[next];
+        next = (next + 1) % FLAGS;
+        return flag;
+    }
+
+    /**
+     * Create a migration of the API key index that reports the index as active, or that was never polled.
+     */
+    private static GlobalSecondaryIndexMigration indexMigration(boolean active) {
+        DynamoDbClient client = new DynamoDbClient() {
+            @Override
+            public DescribeTableResponse describeTable(DescribeTableRequest request) {
+                return DescribeTableResponse.builder()
+                        .table(TableDescription.builder()
+                                .tableName(request.tableName())
+                                .globalSecondaryIndexes(GlobalSecondaryIndexDescription.builder()
+                                        .indexName(ApiKey.USER_ENV_INDEX)
+                                        .indexStatus(IndexStatus.ACTIVE)
+                                        .build())
+                                .build())
+                        .build();
+            }
+
+            @Override
+            public String serviceName() {
+                return SERVICE_NAME;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        GlobalSecondaryIndexMigration migration = new GlobalSecondaryIndexMigration(client, "EnvApiKey",
+                ApiKey.USER_ENV_INDEX, "userId", "EnvName");
+        if (active) {
+            migration.poll(false);
+        }
+        return migration;
+    }
+}
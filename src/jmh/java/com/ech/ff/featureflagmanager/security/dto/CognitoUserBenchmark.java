@@ -0,0 +1,57 @@
+package com.ech.ff.featureflagmanager.security.dto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of extracting the user from a decoded Cognito access token, which every authenticated request does.
+ * The token is decoded once in the setup, so signature verification is not part of the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(1)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CognitoUserBenchmark {
+
+    private Jwt jwt;
+
+    @Setup
+    public void setUp() {
+        Instant issuedAt = Instant.now();
+        jwt = Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .header("kid", "key-1")
+                .subject("6b8f2d1e-4c3a-4f5b-9e7d-1a2c3b4d5e6f")
+                .issuer("https://cognito-idp.eu-central-1.amazonaws.com/eu-central-1_example")
+                .issuedAt(issuedAt)
+                .expiresAt(issuedAt.plusSeconds(3600))
+                .claim("cognito:username", "jane.doe")
+                .claim("email", "jane.doe@example.com")
+                .claim("cognito:groups", List.of("users"))
+                .claim("scope", "openid email")
+                .claim("token_use", "access")
+                .build();
+    }
+
+    @Benchmark
+    public CognitoUser fromJwt() {
+        return CognitoUser.fromJwt(jwt);
+    }
+}
@@ -0,0 +1,119 @@
+package com.ech.ff.featureflagmanager.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencies and errors of the requests of a run, by operation, recorded in microseconds.
+ * Not thread-safe: every user records into its own report and the reports are merged at the end.
+ */
+final class LatencyReport {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double MICROS_PER_MILLI = 1000.0;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+    private final Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+
+    /**
+     * Record a completed request.
+     *
+     * @param operation The operation
+     * @param latencyNanos The latency of the request, from its intended start in fixed-rate runs
+     * @param status The HTTP status, or -1 if the request failed without a response
+     */
+    void record(Operation operation, long latencyNanos, int status) {
+        histogram(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        if (!VirtualUser.isSuccess(status)) {
+            errors.merge(operation, 1L, Long::sum);
+        }
+    }
+
+    /**
+     * Add the requests of another report to this one.
+     *
+     * @param other The report to add
+     */
+    void add(LatencyReport other) {
+        other.histograms.forEach((operation, histogram) -> histogram(operation).add(histogram));
+        other.errors.forEach((operation, count) -> errors.merge(operation, count, Long::sum));
+    }
+
+    /**
+     * Get the share of failed requests.
+     *
+     * @return The failed requests divided by all requests, 0 if there were none
+     */
+    double errorRate() {
+        long requests = total().getTotalCount();
+        return requests == 0 ? 0 : (double) totalErrors() / requests;
+    }
+
+    /**
+     * Print the throughput, errors and latency percentiles of every operation and of all requests.
+     *
+     * @param out The stream to print to
+     * @param measured How long requests were recorded
+     */
+    void print(PrintStream out, Duration measured) {
+        double seconds = measured.toNanos() / 1e9;
+        out.printf(Locale.ROOT, "%-18s %10s %8s %10s %9s %9s %9s %9s %9s%n",
+                "Operation", "Requests", "Errors", "Req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        histograms.forEach((operation, histogram) ->
+                printRow(out, operation.name(), histogram, errors.getOrDefault(operation, 0L), seconds));
+        printRow(out, "TOTAL", total(), totalErrors(), seconds);
+    }
+
+    /**
+     * Write the full latency distribution of every operation and of all requests in milliseconds,
+     * as {@code .hgrm} files that the HdrHistogram plotter reads.
+     *
+     * @param directory The directory to write to, created if missing
+     */
+    void writeDistributions(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<Operation, Histogram> entry : histograms.entrySet()) {
+            writeDistribution(directory.resolve(entry.getKey().name().toLowerCase(Locale.ROOT) + ".hgrm"), entry.getValue());
+        }
+        writeDistribution(directory.resolve("total.hgrm"), total());
+    }
+
+    private static void writeDistribution(Path file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+            histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+    }
+
+    private static void printRow(PrintStream out, String name, Histogram histogram, long errors, double seconds) {
+        out.printf(Locale.ROOT, "%-18s %10d %8d %10.1f", name, histogram.getTotalCount(), errors,
+                histogram.getTotalCount() / seconds);
+        for (double percentile : PERCENTILES) {
+            out.printf(Locale.ROOT, " %9.2f", histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI);
+        }
+        out.printf(Locale.ROOT, " %9.2f%n", histogram.getMaxValue() / MICROS_PER_MILLI);
+    }
+
+    private Histogram histogram(Operation operation) {
+        return histograms.computeIfAbsent(operation, o -> new Histogram(SIGNIFICANT_DIGITS));
+    }
+
+    private Histogram total() {
+        Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+        histograms.values().forEach(total::add);
+        return total;
+    }
+
+    private long totalErrors() {
+        return errors.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
@@ -0,0 +1,201 @@
+package com.ech.ff.featureflagmanager.loadtest;
+
+import com.ech.ff.featureflagmanager.FeatureFlagManagerApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test of the management API: {@code ./gradlew loadTest}.
+ * <p>
+ * Creates the tables in DynamoDB Local, e.g. {@code docker run -p 8000:8000 amazon/dynamodb-local}, starts the
+ * application in this JVM with the {@code local} and {@code load-test} profiles, and gives every simulated user
+ * its own environment. The users then send the configured mix of reads and writes, first for the warmup and then
+ * for the measured duration, and the throughput, errors and latency percentiles of the measured requests are
+ * printed, with the full distributions written to {@code build/reports/load-test}. The run fails if more than
+ * {@code loadTest.maxErrorRate} of the requests failed.
+ * <p>
+ * By default every user sends its next request as soon as the previous one completed, which measures the maximum
+ * throughput. Such a closed loop sends less while the application is slow, so its latencies hide queueing.
+ * For latency numbers, set {@code loadTest.rate} below the maximum throughput: requests are then scheduled at
+ * fixed intervals and latency is measured from the scheduled start, including the time a request waited for the
+ * previous one of its user.
+ * <p>
+ * The load generator shares the CPU with the application and DynamoDB Local usually runs on the same machine,
+ * so results are comparable between runs on the same hardware rather than absolute capacity.
+ */
+@Slf4j
+public final class LoadTest {
+
+    private final LoadTestSettings settings;
+    private final URI baseUri;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    private LoadTest(LoadTestSettings settings, URI baseUri) {
+        this.settings = settings;
+        this.baseUri = baseUri;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        List<Map.Entry<Operation, Integer>> weighted = settings.mix().entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .toList();
+        this.operations = new Operation[weighted.size()];
+        this.cumulativeWeights = new int[weighted.size()];
+        int sum = 0;
+        for (int i = 0; i < weighted.size(); i++) {
+            operations[i] = weighted.get(i).getKey();
+            sum += weighted.get(i).getValue();
+            cumulativeWeights[i] = sum;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        // DynamoDB Local accepts any credentials
+        setDefault("aws.accessKeyId", "local");
+        setDefault("aws.secretAccessKey", "local");
+
+        try (DynamoDbClient dynamoDbClient = DynamoDbClient.builder()
+                .region(Region.US_EAST_1)
+                .endpointOverride(URI.create(settings.endpoint()))
+                .build()) {
+            LoadTestTables.createIfMissing(dynamoDbClient);
+        }
+
+        int exitCode;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FeatureFlagManagerApplication.class)
+                .profiles("local", LoadTestSecurityConfig.PROFILE)
+                .run("--ff.dynamodb.endpoint-override=" + settings.endpoint())) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LatencyReport report = new LoadTest(settings, URI.create("http://localhost:" + port)).run();
+
+            System.out.printf("%nUsers: %d, flags per environment: %d, measured: %s, %s%n%n", settings.users(),
+                    settings.flagsPerEnvironment(), settings.duration(),
+                    settings.fixedRate() ? "fixed rate of " + settings.rate() + " requests/s" : "closed loop");
+            report.print(System.out, settings.duration());
+            report.writeDistributions(settings.reportDirectory());
+            log.info("Latency distributions written to {}", settings.reportDirectory().toAbsolutePath());
+
+            double errorRate = report.errorRate();
+            if (errorRate > settings.maxErrorRate()) {
+                log.error("Error rate {} is above the maximum of {}", errorRate, settings.maxErrorRate());
+                exitCode = 1;
+            } else {
+                exitCode = 0;
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    private LatencyReport run() throws InterruptedException, ExecutionException {
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        List<VirtualUser> users = new ArrayList<>(settings.users());
+        for (int i = 0; i < settings.users(); i++) {
+            // Feature flags and API keys are keyed by environment name, so the names are unique per run
+            // for runs against a DynamoDB Local that keeps its data
+            users.add(new VirtualUser(httpClient, objectMapper, baseUri,
+                    "load-" + runId + "-user-" + i, "load-" + runId + "-env-" + i));
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            log.info("Creating {} environments with {} feature flags each", settings.users(), settings.flagsPerEnvironment());
+            List<Future<Void>> setUps = new ArrayList<>();
+            for (VirtualUser user : users) {
+                setUps.add(executor.submit(() -> {
+                    user.setUp(settings.flagsPerEnvironment());
+                    return null;
+                }));
+            }
+            for (Future<Void> setUp : setUps) {
+                setUp.get();
+            }
+
+            log.info("Warming up for {}, then measuring for {}", settings.warmup(), settings.duration());
+            long measureStart = System.nanoTime() + settings.warmup().toNanos();
+            long end = measureStart + settings.duration().toNanos();
+            List<Future<LatencyReport>> runs = new ArrayList<>();
+            for (int i = 0; i < users.size(); i++) {
+                VirtualUser user = users.get(i);
+                long seed = i;
+                runs.add(executor.submit(() -> drive(user, new Random(seed), measureStart, end)));
+            }
+            LatencyReport report = new LatencyReport();
+            for (Future<LatencyReport> run : runs) {
+                report.add(run.get());
+            }
+            return report;
+        }
+    }
+
+    /**
+     * Send the requests of one user until the end of the run and record those that started after the warmup.
+     */
+    private LatencyReport drive(VirtualUser user, Random random, long measureStart, long end)
+            throws InterruptedException {
+        LatencyReport report = new LatencyReport();
+        long interval = settings.fixedRate() ? (long) (settings.users() * 1e9 / settings.rate()) : 0;
+        // Spread the first requests of the users over one interval
+        long scheduled = System.nanoTime() + (interval > 0 ? (long) (random.nextDouble() * interval) : 0);
+        while (true) {
+            long start = settings.fixedRate() ? scheduled : System.nanoTime();
+            if (start >= end) {
+                return report;
+            }
+            long wait;
+            while ((wait = start - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = user.resolve(nextOperation(random));
+            int status;
+            try {
+                status = user.execute(operation, random);
+            } catch (IOException e) {
+                status = -1;
+            }
+            long latency = System.nanoTime() - start;
+            if (start >= measureStart) {
+                report.record(operation, latency, status);
+            }
+            scheduled += interval;
+        }
+    }
+
+    private Operation nextOperation(Random random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException("Weight out of range: " + value);
+    }
+
+    private static void setDefault(String property, String value) {
+        if (System.getProperty(property) == null) {
+            System.setProperty(property, value);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.ech.ff.featureflagmanager.loadtest;
+
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Replaces Cognito for the load test, so the application starts and authenticates requests without a network.
+ * <p>
+ * The {@code jwtDecoder} bean of {@code SecurityConfig}, which reads the keys of the Cognito user pool, is replaced
+ * by a stub that accepts any bearer token and treats it as the id of the user, so the load generator authenticates
+ * as user {@code u} with {@code Authorization: Bearer u}. The OAuth2 client auto-configuration, which reads the
+ * Cognito issuer on startup, is excluded in {@code application-load-test.properties} and replaced by a registration
+ * that is never used.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile(LoadTestSecurityConfig.PROFILE)
+public class LoadTestSecurityConfig {
+
+    public static final String PROFILE = "load-test";
+
+    private static final String JWT_DECODER_BEAN = "jwtDecoder";
+
+    /**
+     * Swap the definition of the {@code jwtDecoder} bean once all configuration classes are registered,
+     * so the Cognito decoder is never created.
+     */
+    @Bean
+    public static BeanDefinitionRegistryPostProcessor stubJwtDecoderRegistrar() {
+        return new BeanDefinitionRegistryPostProcessor() {
+            @Override
+            public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+                if (registry.containsBeanDefinition(JWT_DECODER_BEAN)) {
+                    registry.removeBeanDefinition(JWT_DECODER_BEAN);
+                }
+                registry.registerBeanDefinition(JWT_DECODER_BEAN,
+                        new RootBeanDefinition(JwtDecoder.class, LoadTestSecurityConfig::stubJwtDecoder));
+            }
+        };
+    }
+
+    private static JwtDecoder stubJwtDecoder() {
+        return token -> {
+            if (token == null || token.isBlank()) {
+                throw new BadJwtException("Empty token");
+            }
+            Instant issuedAt = Instant.now();
+            return Jwt.withTokenValue(token)
+                    .header("alg", "none")
+                    .subject(token)
+                    .issuedAt(issuedAt)
+                    .expiresAt(issuedAt.plusSeconds(3600))
+                    .claim("cognito:username", token)
+                    .claim("email", token + "@load-test.invalid")
+                    .claim("cognito:groups", List.of())
+                    .claim("scope", "openid email")
+                    .claim("token_use", "access")
+                    .build();
+        };
+    }
+
+    @Bean
+    public ClientRegistrationRepository loadTestClientRegistrationRepository() {
+        return new InMemoryClientRegistrationRepository(ClientRegistration.withRegistrationId("cognito")
+                .clientId("load-test")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+                .authorizationUri("http://localhost/oauth2/authorize")
+                .tokenUri("http://localhost/oauth2/token")
+                .build());
+    }
+}
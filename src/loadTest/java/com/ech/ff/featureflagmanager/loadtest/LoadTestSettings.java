@@ -0,0 +1,100 @@
+package com.ech.ff.featureflagmanager.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Settings of a load test run, read from {@code loadTest.*} system properties.
+ * The Gradle task passes every {@code -PloadTest.*} project property on.
+ *
+ * @param endpoint The DynamoDB Local endpoint, {@code loadTest.endpoint}
+ * @param users The number of concurrent users, each with its own environment, {@code loadTest.users}
+ * @param flagsPerEnvironment The number of feature flags created in every environment before the run,
+ *                            {@code loadTest.flagsPerEnvironment}
+ * @param warmup How long traffic runs before latencies are recorded, {@code loadTest.warmup}
+ * @param duration How long latencies are recorded, {@code loadTest.duration}
+ * @param rate The total requests per second to send, or 0 to send the next request of a user as soon as the
+ *             previous one completed, {@code loadTest.rate}
+ * @param mix The weight of every operation, {@code loadTest.mix} as e.g. {@code LIST_FLAGS:80,UPDATE_FLAG:20}
+ * @param maxErrorRate The share of failed requests above which the run fails, {@code loadTest.maxErrorRate}
+ * @param reportDirectory The directory the latency distributions are written to, {@code loadTest.reportDirectory}
+ */
+public record LoadTestSettings(String endpoint,
+                               int users,
+                               int flagsPerEnvironment,
+                               Duration warmup,
+                               Duration duration,
+                               double rate,
+                               Map<Operation, Integer> mix,
+                               double maxErrorRate,
+                               Path reportDirectory) {
+
+    private static final String PREFIX = "loadTest.";
+
+    /**
+     * Read the settings from the system properties, with defaults for a short run on a developer machine.
+     *
+     * @return The settings
+     */
+    public static LoadTestSettings fromSystemProperties() {
+        LoadTestSettings settings = new LoadTestSettings(
+                property("endpoint", "http://localhost:8000"),
+                Integer.parseInt(property("users", "32")),
+                Integer.parseInt(property("flagsPerEnvironment", "50")),
+                DurationStyle.detectAndParse(property("warmup", "30s")),
+                DurationStyle.detectAndParse(property("duration", "60s")),
+                Double.parseDouble(property("rate", "0")),
+                parseMix(System.getProperty(PREFIX + "mix")),
+                Double.parseDouble(property("maxErrorRate", "0.01")),
+                Path.of(property("reportDirectory", "build/reports/load-test")));
+        if (settings.users() < 1 || settings.flagsPerEnvironment() < 3) {
+            throw new IllegalArgumentException("At least 1 user and 3 flags per environment are required");
+        }
+        if (settings.rate() < 0) {
+            throw new IllegalArgumentException("Rate must not be negative: " + settings.rate());
+        }
+        return settings;
+    }
+
+    /**
+     * Check whether requests are sent at a fixed rate instead of back to back.
+     *
+     * @return true if a rate is set
+     */
+    public boolean fixedRate() {
+        return rate > 0;
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty(PREFIX + name, defaultValue);
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        if (value == null || value.isBlank()) {
+            for (Operation operation : Operation.values()) {
+                mix.put(operation, operation.defaultWeight());
+            }
+            return mix;
+        }
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry, expected OPERATION:weight: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight must not be negative: " + entry);
+            }
+            mix.put(Operation.valueOf(parts[0].trim()), weight);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("At least one operation needs a positive weight: " + value);
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,78 @@
+package com.ech.ff.featureflagmanager.loadtest;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.ApiKey;
+import com.ech.ff.featureflagmanager.dynamodb.entity.Environment;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+import software.amazon.awssdk.services.dynamodb.model.ResourceInUseException;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.StreamViewType;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Creates the tables of the application in DynamoDB Local, with their global secondary indexes and with
+ * streams for the change feed. Tables that already exist are kept.
+ */
+@Slf4j
+public final class LoadTestTables {
+
+    private LoadTestTables() {
+    }
+
+    /**
+     * Create the missing tables and wait until they are active.
+     *
+     * @param dynamoDbClient The client of DynamoDB Local
+     */
+    public static void createIfMissing(DynamoDbClient dynamoDbClient) {
+        createIfMissing(dynamoDbClient, "FeatureFlag", "EnvName", "FeatureName", "FFUserId", "userId", "EnvName");
+        createIfMissing(dynamoDbClient, "Environment", "userId", "name", Environment.BY_NAME_INDEX, "name", "userId");
+        createIfMissing(dynamoDbClient, "EnvApiKey", "EnvName", "key", ApiKey.USER_ENV_INDEX, "userId", "EnvName");
+    }
+
+    private static void createIfMissing(DynamoDbClient dynamoDbClient, String tableName,
+                                        String partitionKey, String sortKey,
+                                        String indexName, String indexPartitionKey, String indexSortKey) {
+        Set<String> attributes = new LinkedHashSet<>(List.of(partitionKey, sortKey, indexPartitionKey, indexSortKey));
+        CreateTableRequest request = CreateTableRequest.builder()
+                .tableName(tableName)
+                .billingMode(BillingMode.PAY_PER_REQUEST)
+                .attributeDefinitions(attributes.stream()
+                        .map(name -> AttributeDefinition.builder()
+                                .attributeName(name)
+                                .attributeType(ScalarAttributeType.S)
+                                .build())
+                        .toList())
+                .keySchema(keySchema(partitionKey, sortKey))
+                .globalSecondaryIndexes(GlobalSecondaryIndex.builder()
+                        .indexName(indexName)
+                        .keySchema(keySchema(indexPartitionKey, indexSortKey))
+                        .projection(p -> p.projectionType(ProjectionType.ALL))
+                        .build())
+                .streamSpecification(s -> s.streamEnabled(true).streamViewType(StreamViewType.NEW_AND_OLD_IMAGES))
+                .build();
+        try {
+            dynamoDbClient.createTable(request);
+            log.info("Created table {}", tableName);
+        } catch (ResourceInUseException e) {
+            log.info("Table {} already exists", tableName);
+        }
+        dynamoDbClient.waiter().waitUntilTableExists(r -> r.tableName(tableName));
+    }
+
+    private static List<KeySchemaElement> keySchema(String partitionKey, String sortKey) {
+        return List.of(
+                KeySchemaElement.builder().attributeName(partitionKey).keyType(KeyType.HASH).build(),
+                KeySchemaElement.builder().attributeName(sortKey).keyType(KeyType.RANGE).build());
+    }
+}
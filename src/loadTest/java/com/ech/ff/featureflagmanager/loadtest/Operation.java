@@ -0,0 +1,34 @@
+package com.ech.ff.featureflagmanager.loadtest;
+
+/**
+ * The requests of the generated traffic, with their default share of all requests in percent.
+ * The default mix is read-heavy, like the traffic of the management console. Creates and deletes have the same
+ * weight, so the environments keep about the same size during a run.
+ */
+public enum Operation {
+
+    /** {@code GET /env/ff?envName=} */
+    LIST_FLAGS(40),
+    /** {@code GET /env/ff/lookup?envName=&names=} with three names */
+    LOOKUP_FLAGS(15),
+    /** {@code GET /env} */
+    LIST_ENVIRONMENTS(10),
+    /** {@code GET /env/key/{envName}} */
+    LIST_API_KEYS(10),
+    /** {@code PUT /env/ff/{envName}/{featureName}} with the ETag of the last write as If-Match */
+    UPDATE_FLAG(15),
+    /** {@code POST /env/ff} with a new feature name */
+    CREATE_FLAG(5),
+    /** {@code DELETE /env/ff/{envName}/{featureName}} of the oldest flag created by {@link #CREATE_FLAG}, if any */
+    DELETE_FLAG(5);
+
+    private final int defaultWeight;
+
+    Operation(int defaultWeight) {
+        this.defaultWeight = defaultWeight;
+    }
+
+    public int defaultWeight() {
+        return defaultWeight;
+    }
+}
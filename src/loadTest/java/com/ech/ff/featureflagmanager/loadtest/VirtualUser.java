@@ -0,0 +1,169 @@
+package com.ech.ff.featureflagmanager.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A user of the management API with its own environment, feature flags and API key.
+ * <p>
+ * Every user is driven by a single thread and is the only writer of its environment, so it knows the ETag of
+ * each of its flags and updates them with the right If-Match. A 409 therefore means a lost or reordered write
+ * and counts as an error.
+ */
+final class VirtualUser {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int LOOKUP_NAMES = 3;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final URI baseUri;
+    private final String userId;
+    private final String envName;
+    private final List<String> featureNames = new ArrayList<>();
+    private final Map<String, String> etags = new HashMap<>();
+    private final Deque<String> createdFlags = new ArrayDeque<>();
+    private int nextCreatedFlag;
+
+    VirtualUser(HttpClient httpClient, ObjectMapper objectMapper, URI baseUri, String userId, String envName) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.baseUri = baseUri;
+        this.userId = userId;
+        this.envName = envName;
+    }
+
+    /**
+     * Create the environment of the user with its feature flags and an API key.
+     *
+     * @param flags The number of feature flags to create
+     */
+    void setUp(int flags) throws IOException, InterruptedException {
+        expectSuccess(send(post("/env", Map.of("name", envName, "description", "Load test environment"))), "environment");
+        for (int i = 0; i < flags; i++) {
+            String featureName = "feature-" + i;
+            HttpResponse<Void> response = send(post("/env/ff", flag(featureName, i % 2 == 0)));
+            expectSuccess(response, "feature flag " + featureName);
+            featureNames.add(featureName);
+            etags.put(featureName, response.headers().firstValue("ETag").orElseThrow());
+        }
+        expectSuccess(send(post("/env/key", Map.of("env", envName))), "API key");
+    }
+
+    /**
+     * Get the operation to run for a planned one. A delete without a flag to delete runs as a create.
+     *
+     * @param planned The operation drawn from the mix
+     * @return The operation to run
+     */
+    Operation resolve(Operation planned) {
+        return planned == Operation.DELETE_FLAG && createdFlags.isEmpty() ? Operation.CREATE_FLAG : planned;
+    }
+
+    /**
+     * Run an operation.
+     *
+     * @param operation The operation, resolved with {@link #resolve(Operation)}
+     * @param random The random source of the thread of the user
+     * @return The HTTP status of the response
+     */
+    int execute(Operation operation, Random random) throws IOException, InterruptedException {
+        return switch (operation) {
+            case LIST_FLAGS -> send(get("/env/ff?envName=" + encode(envName))).statusCode();
+            case LOOKUP_FLAGS -> {
+                List<String> names = new ArrayList<>(LOOKUP_NAMES);
+                for (int i = 0; i < LOOKUP_NAMES; i++) {
+                    names.add(featureNames.get(random.nextInt(featureNames.size())));
+                }
+                yield send(get("/env/ff/lookup?envName=" + encode(envName)
+                        + "&names=" + encode(String.join(",", names)))).statusCode();
+            }
+            case LIST_ENVIRONMENTS -> send(get("/env")).statusCode();
+            case LIST_API_KEYS -> send(get("/env/key/" + encode(envName))).statusCode();
+            case UPDATE_FLAG -> {
+                String featureName = featureNames.get(random.nextInt(featureNames.size()));
+                HttpResponse<Void> response = send(request("/env/ff/" + encode(envName) + "/" + encode(featureName))
+                        .header("If-Match", etags.get(featureName))
+                        .PUT(json(Map.of("type", "BOOLEAN", "config", config(random.nextBoolean()))))
+                        .build());
+                response.headers().firstValue("ETag").ifPresent(etag -> etags.put(featureName, etag));
+                yield response.statusCode();
+            }
+            case CREATE_FLAG -> {
+                String featureName = "created-" + nextCreatedFlag++;
+                HttpResponse<Void> response = send(post("/env/ff", flag(featureName, random.nextBoolean())));
+                if (isSuccess(response.statusCode())) {
+                    createdFlags.addLast(featureName);
+                }
+                yield response.statusCode();
+            }
+            case DELETE_FLAG -> {
+                String featureName = createdFlags.removeFirst();
+                yield send(request("/env/ff/" + encode(envName) + "/" + encode(featureName)).DELETE().build())
+                        .statusCode();
+            }
+        };
+    }
+
+    static boolean isSuccess(int status) {
+        return status >= 200 && status < 300;
+    }
+
+    private Map<String, String> flag(String featureName, boolean enabled) {
+        return Map.of("envName", envName, "type", "BOOLEAN", "featureName", featureName, "config", config(enabled));
+    }
+
+    private static String config(boolean enabled) {
+        return "{\"enabled\": " + enabled + "}";
+    }
+
+    private HttpResponse<Void> send(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest post(String path, Object body) throws JsonProcessingException {
+        return request(path).POST(json(body)).build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", "Bearer " + userId)
+                .header("Content-Type", "application/json");
+    }
+
+    private HttpRequest.BodyPublisher json(Object body) throws JsonProcessingException {
+        return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+    }
+
+    private void expectSuccess(HttpResponse<Void> response, String what) {
+        if (!isSuccess(response.statusCode())) {
+            throw new IllegalStateException("Failed to create " + what + " of user " + userId
+                    + ": HTTP " + response.statusCode());
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
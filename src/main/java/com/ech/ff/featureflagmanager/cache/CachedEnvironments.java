@@ -0,0 +1,87 @@
+package com.ech.ff.featureflagmanager.cache;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.Environment;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Immutable cached environments of a user, ordered by name like the {@code Environment} table.
+ * Every change produces a new instance with a higher version.
+ *
+ * @param version The version of the environment list
+ * @param environmentsByName The environments by name
+ * @param weight The estimated size in memory in bytes
+ */
+record CachedEnvironments(long version, Map<String, Environment> environmentsByName, int weight) {
+
+    private static final int ENTRY_OVERHEAD = 64;
+    private static final int ENVIRONMENT_OVERHEAD = 64;
+
+    static CachedEnvironments of(long version, List<Environment> environments) {
+        TreeMap<String, Environment> byName = new TreeMap<>();
+        environments.forEach(env -> byName.put(env.getName(), env));
+        return create(version, byName);
+    }
+
+    /**
+     * Get the environments.
+     *
+     * @return The environments ordered by name, the environments themselves are shared with the cache and not to be modified
+     */
+    List<Environment> environments() {
+        return List.copyOf(environmentsByName.values());
+    }
+
+    /**
+     * Add or replace an environment.
+     *
+     * @param environment The environment
+     * @param nextVersion Supplies the version of the changed list
+     * @return The changed environments, or this instance if the environment is already cached as is or at a later version
+     */
+    CachedEnvironments with(Environment environment, LongSupplier nextVersion) {
+        Environment current = environmentsByName.get(environment.getName());
+        if (current != null && (CachedFlags.isOlder(environment.getVersion(), current.getVersion())
+                || (Objects.equals(current.getDescription(), environment.getDescription())
+                && Objects.equals(current.getVersion(), environment.getVersion())))) {
+            return this;
+        }
+        TreeMap<String, Environment> byName = new TreeMap<>(environmentsByName);
+        byName.put(environment.getName(), environment);
+        return create(nextVersion.getAsLong(), byName);
+    }
+
+    /**
+     * Remove an environment.
+     *
+     * @param name The environment name
+     * @param nextVersion Supplies the version of the changed list
+     * @return The changed environments, or this instance if the environment is not cached
+     */
+    CachedEnvironments without(String name, LongSupplier nextVersion) {
+        if (!environmentsByName.containsKey(name)) {
+            return this;
+        }
+        TreeMap<String, Environment> byName = new TreeMap<>(environmentsByName);
+        byName.remove(name);
+        return create(nextVersion.getAsLong(), byName);
+    }
+
+    private static CachedEnvironments create(long version, TreeMap<String, Environment> byName) {
+        int weight = ENTRY_OVERHEAD;
+        for (Environment env : byName.values()) {
+            weight += ENVIRONMENT_OVERHEAD + 2 * (length(env.getName()) + length(env.getUserId())
+                    + length(env.getDescription()));
+        }
+        return new CachedEnvironments(version, Collections.unmodifiableMap(byName), weight);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -0,0 +1,106 @@
+package com.ech.ff.featureflagmanager.cache;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Immutable cached feature flags of an environment, ordered by name.
+ * Every change produces a new instance with a higher version.
+ *
+ * @param version The version of the environment
+ * @param flagsByName The feature flags by name
+ * @param weight The estimated size in memory in bytes
+ */
+record CachedFlags(long version, Map<String, FeatureFlag> flagsByName, int weight) {
+
+    private static final int ENTRY_OVERHEAD = 64;
+    private static final int FLAG_OVERHEAD = 96;
+
+    static CachedFlags of(long version, List<FeatureFlag> flags) {
+        TreeMap<String, FeatureFlag> byName = new TreeMap<>();
+        flags.forEach(ff -> byName.put(ff.getFeatureName(), ff));
+        return create(version, byName);
+    }
+
+    /**
+     * Get the feature flags.
+     *
+     * @return The feature flags ordered by name, the flags themselves are shared with the cache and not to be modified
+     */
+    List<FeatureFlag> flags() {
+        return List.copyOf(flagsByName.values());
+    }
+
+    /**
+     * Add or replace a feature flag.
+     *
+     * @param flag The feature flag
+     * @param nextVersion Supplies the version of the changed environment
+     * @return The changed flags, or this instance if the flag is already cached as is or at a later version
+     */
+    CachedFlags with(FeatureFlag flag, LongSupplier nextVersion) {
+        FeatureFlag current = flagsByName.get(flag.getFeatureName());
+        if (flag.equals(current) || (current != null && isOlder(flag.getVersion(), current.getVersion()))) {
+            return this;
+        }
+        TreeMap<String, FeatureFlag> byName = new TreeMap<>(flagsByName);
+        byName.put(flag.getFeatureName(), flag);
+        return create(nextVersion.getAsLong(), byName);
+    }
+
+    /**
+     * Remove a feature flag.
+     *
+     * @param featureName The feature flag name
+     * @param nextVersion Supplies the version of the changed environment
+     * @return The changed flags, or this instance if the flag is not cached
+     */
+    CachedFlags without(String featureName, LongSupplier nextVersion) {
+        if (!flagsByName.containsKey(featureName)) {
+            return this;
+        }
+        TreeMap<String, FeatureFlag> byName = new TreeMap<>(flagsByName);
+        byName.remove(featureName);
+        return create(nextVersion.getAsLong(), byName);
+    }
+
+    /**
+     * Check whether the given flags are exactly the cached ones, in any order.
+     *
+     * @param other The feature flags to compare to
+     * @return true if both hold the same feature flags
+     */
+    boolean hasSameContent(List<FeatureFlag> other) {
+        return other.size() == flagsByName.size()
+                && other.stream().allMatch(ff -> ff.equals(flagsByName.get(ff.getFeatureName())));
+    }
+
+    /**
+     * Check whether an item version is older than the cached one, so a late change event cannot undo a newer write.
+     */
+    static boolean isOlder(Long version, Long cachedVersion) {
+        return version != null && cachedVersion != null && version < cachedVersion;
+    }
+
+    private static CachedFlags create(long version, TreeMap<String, FeatureFlag> byName) {
+        int weight = ENTRY_OVERHEAD;
+        for (FeatureFlag ff : byName.values()) {
+            weight += weigh(ff);
+        }
+        return new CachedFlags(version, Collections.unmodifiableMap(byName), weight);
+    }
+
+    private static int weigh(FeatureFlag ff) {
+        return FLAG_OVERHEAD + 2 * (length(ff.getEnvName()) + length(ff.getFeatureName()) + length(ff.getType())
+                + length(ff.getConfig()) + length(ff.getUserId()));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
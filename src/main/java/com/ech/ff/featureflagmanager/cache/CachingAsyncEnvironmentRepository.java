@@ -0,0 +1,51 @@
+package com.ech.ff.featureflagmanager.cache;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.Environment;
+import com.ech.ff.featureflagmanager.dynamodb.repository.AsyncEnvironmentRepository;
+import com.ech.ff.featureflagmanager.security.dto.CognitoUser;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link AsyncEnvironmentRepository} that reads the environments of a user from the {@link FlagCache}
+ * and writes every change through to it once DynamoDB accepted the change.
+ */
+public class CachingAsyncEnvironmentRepository extends AsyncEnvironmentRepository {
+
+    private final FlagCache flagCache;
+
+    /**
+     * Constructs a new CachingAsyncEnvironmentRepository.
+     *
+     * @param dynamoDbAsyncTable The DynamoDB table for environments
+     * @param flagCache The cache shared with the other caching repositories
+     */
+    public CachingAsyncEnvironmentRepository(DynamoDbAsyncTable<Environment> dynamoDbAsyncTable, FlagCache flagCache) {
+        super(dynamoDbAsyncTable);
+        this.flagCache = flagCache;
+    }
+
+    @Override
+    public CompletableFuture<List<Environment>> getUserEnvironments(CognitoUser user) {
+        return flagCache.getEnvironments(user.getId(), executor -> super.getUserEnvironments(user));
+    }
+
+    @Override
+    public CompletableFuture<Environment> save(Environment entity) {
+        return super.save(entity).thenApply(saved -> {
+            flagCache.putEnvironment(saved);
+            return saved;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Environment> saveIf(Environment entity, Expression condition) {
+        return super.saveIf(entity, condition).thenApply(saved -> {
+            flagCache.putEnvironment(saved);
+            return saved;
+        });
+    }
+}
@@ -0,0 +1,57 @@
+package com.ech.ff.featureflagmanager.cache;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import com.ech.ff.featureflagmanager.dynamodb.repository.AsyncFeatureFlagRepository;
+import com.ech.ff.featureflagmanager.security.dto.CognitoUser;
+import com.ech.ff.featureflagmanager.snapshot.EnvironmentKey;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link AsyncFeatureFlagRepository} that reads the feature flags of an environment from the {@link FlagCache}
+ * and writes every change through to it once DynamoDB accepted the change.
+ */
+public class CachingAsyncFeatureFlagRepository extends AsyncFeatureFlagRepository {
+
+    private final FlagCache flagCache;
+
+    /**
+     * Constructs a new CachingAsyncFeatureFlagRepository.
+     *
+     * @param dynamoDbAsyncTable The DynamoDB table for feature flags
+     * @param flagCache The cache shared with the other caching repositories
+     */
+    public CachingAsyncFeatureFlagRepository(DynamoDbAsyncTable<FeatureFlag> dynamoDbAsyncTable, FlagCache flagCache) {
+        super(dynamoDbAsyncTable);
+        this.flagCache = flagCache;
+    }
+
+    @Override
+    public CompletableFuture<List<FeatureFlag>> getEnvFF(String envName, CognitoUser user) {
+        return flagCache.getFlags(new EnvironmentKey(user.getId(), envName), executor -> super.getEnvFF(envName, user));
+    }
+
+    @Override
+    public CompletableFuture<FeatureFlag> save(FeatureFlag entity) {
+        return super.save(entity).thenApply(saved -> {
+            flagCache.putFlag(saved);
+            return saved;
+        });
+    }
+
+    @Override
+    public CompletableFuture<FeatureFlag> saveIf(FeatureFlag entity, Expression condition) {
+        return super.saveIf(entity, condition).thenApply(saved -> {
+            flagCache.putFlag(saved);
+            return saved;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteFF(String name, String envName) {
+        return super.deleteFF(name, envName).thenRun(() -> flagCache.removeFlag(envName, name));
+    }
+}
@@ -0,0 +1,64 @@
+package com.ech.ff.featureflagmanager.cache;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.Environment;
+import com.ech.ff.featureflagmanager.dynamodb.migration.GlobalSecondaryIndexMigration;
+import com.ech.ff.featureflagmanager.dynamodb.repository.EnvironmentRepository;
+import com.ech.ff.featureflagmanager.security.dto.CognitoUser;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link EnvironmentRepository} that reads the environments of a user from the {@link FlagCache}
+ * and writes every change through to it once DynamoDB accepted the change.
+ */
+public class CachingEnvironmentRepository extends EnvironmentRepository {
+
+    private final FlagCache flagCache;
+
+    /**
+     * Constructs a new CachingEnvironmentRepository.
+     *
+     * @param dynamoDbTable The DynamoDB table for environments
+     * @param enhancedClient The client used for batch operations
+     * @param byNameIndex The migration of the {@value Environment#BY_NAME_INDEX} index
+     * @param flagCache The cache shared with the other caching repositories
+     */
+    public CachingEnvironmentRepository(DynamoDbTable<Environment> dynamoDbTable,
+                                        DynamoDbEnhancedClient enhancedClient,
+                                        GlobalSecondaryIndexMigration byNameIndex,
+                                        FlagCache flagCache) {
+        super(dynamoDbTable, enhancedClient, byNameIndex);
+        this.flagCache = flagCache;
+    }
+
+    @Override
+    public List<Environment> getUserEnvironments(CognitoUser user) {
+        return FlagCache.join(flagCache.getEnvironments(user.getId(),
+                FlagCache.loadAsync(() -> super.getUserEnvironments(user))));
+    }
+
+    @Override
+    public Optional<Environment> getByName(String userId, String name) {
+        return FlagCache.join(flagCache.getEnvironments(userId,
+                        FlagCache.loadAsync(() -> queryByPartitionKey(userId))))
+                .stream()
+                .filter(env -> name.equals(env.getName()))
+                .findFirst();
+    }
+
+    @Override
+    public Environment save(Environment entity) {
+        Environment saved = super.save(entity);
+        flagCache.putEnvironment(saved);
+        return saved;
+    }
+
+    @Override
+    public void deleteEnvironment(String userId, String name) {
+        super.deleteEnvironment(userId, name);
+        flagCache.removeEnvironment(userId, name);
+    }
+}
@@ -0,0 +1,108 @@
+package com.ech.ff.featureflagmanager.cache;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import com.ech.ff.featureflagmanager.dynamodb.repository.FeatureFlagRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.BatchWriteItemResult;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.RateLimiter;
+import com.ech.ff.featureflagmanager.snapshot.EnvironmentKey;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * {@link FeatureFlagRepository} that reads the feature flags of an environment from the {@link FlagCache}
+ * and writes every change through to it once DynamoDB accepted the change.
+ */
+public class CachingFeatureFlagRepository extends FeatureFlagRepository {
+
+    private final FlagCache flagCache;
+
+    /**
+     * Constructs a new CachingFeatureFlagRepository.
+     *
+     * @param dynamoDbTable The DynamoDB table for feature flags
+     * @param enhancedClient The client used for batch operations
+     * @param flagCache The cache shared with the other caching repositories
+     */
+    public CachingFeatureFlagRepository(DynamoDbTable<FeatureFlag> dynamoDbTable,
+                                        DynamoDbEnhancedClient enhancedClient,
+                                        FlagCache flagCache) {
+        super(dynamoDbTable, enhancedClient);
+        this.flagCache = flagCache;
+    }
+
+    @Override
+    public List<FeatureFlag> getEnvFF(String envName, String userId) {
+        return FlagCache.join(flagCache.getFlags(new EnvironmentKey(userId, envName),
+                FlagCache.loadAsync(() -> super.getEnvFF(envName, userId))));
+    }
+
+    @Override
+    public List<FeatureFlag> reloadEnvFF(String envName, String userId) {
+        return flagCache.reloadFlags(new EnvironmentKey(userId, envName), () -> super.getEnvFF(envName, userId));
+    }
+
+    @Override
+    public FeatureFlag save(FeatureFlag entity) {
+        FeatureFlag saved = super.save(entity);
+        flagCache.putFlag(saved);
+        return saved;
+    }
+
+    @Override
+    public void deleteFF(String name, String envName) {
+        super.deleteFF(name, envName);
+        flagCache.removeFlag(envName, name);
+    }
+
+    @Override
+    public CompletableFuture<List<BatchWriteItemResult>> saveAll(List<FeatureFlag> flags,
+                                                                 Consumer<List<BatchWriteItemResult>> progress) {
+        Map<Key, FeatureFlag> flagsByKey = flags.stream()
+                .collect(Collectors.toMap(FeatureFlagRepository::keyOf, Function.identity(),
+                        (first, second) -> second));
+        return super.saveAll(flags, progress).thenApply(results -> {
+            results.forEach(result -> {
+                FeatureFlag flag = flagsByKey.get(result.getKey());
+                if (result.getStatus() == BatchWriteItemResult.Status.SUCCEEDED) {
+                    flagCache.putFlag(flag);
+                } else if (result.getStatus() == BatchWriteItemResult.Status.FAILED) {
+                    // The transaction may have been applied before it failed, e.g. on a timeout
+                    flagCache.invalidateFlagsByEnvName(flag.getEnvName());
+                }
+            });
+            return results;
+        });
+    }
+
+    @Override
+    public void saveAllIfUnchanged(List<FeatureFlag> flags, Map<Key, FeatureFlag> current) {
+        super.saveAllIfUnchanged(flags, current);
+        flags.forEach(flagCache::putFlag);
+    }
+
+    @Override
+    public CompletableFuture<List<BatchWriteItemResult>> deleteAll(List<String> names, String envName, int parallelism,
+                                                                   RateLimiter rateLimiter) {
+        return super.deleteAll(names, envName, parallelism, rateLimiter).thenApply(results -> {
+            results.forEach(result -> {
+                if (result.getStatus() == BatchWriteItemResult.Status.SUCCEEDED) {
+                    result.getKey().sortKeyValue()
+                            .map(AttributeValue::s)
+                            .ifPresent(name -> flagCache.removeFlag(envName, name));
+                } else if (result.getStatus() == BatchWriteItemResult.Status.FAILED) {
+                    flagCache.invalidateFlagsByEnvName(envName);
+                }
+            });
+            return results;
+        });
+    }
+}
@@ -0,0 +1,309 @@
+package com.ech.ff.featureflagmanager.cache;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.Environment;
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import com.ech.ff.featureflagmanager.snapshot.EnvironmentKey;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Write-through cache of the feature flags of every environment and of the environments of every user,
+ * shared by the caching repositories.
+ * <p>
+ * Both caches are bounded by their estimated size in memory and evict with Caffeine's W-TinyLFU policy.
+ * Writes update a cached entry in place with an atomic compute on its key, so a write can neither be
+ * lost behind a load that is still running nor overwritten by it. Every change gives the entry a new
+ * version from a single sequence, so versions only grow, also across eviction and reload.
+ * Entries that are not cached are not created by writes, the next read loads them in full.
+ * The cached environments are indexed by name, so a write finds the entries of its environment name
+ * without scanning the cache; the index is updated under the lock of the entry that is added or removed.
+ * <p>
+ * Loads run on virtual threads, outside of the map operation that starts them: a blocking DynamoDB read
+ * neither holds the lock of the hash bin of its key, which writes to other environments may share,
+ * nor pins the carrier thread of the caller.
+ */
+@Component
+@Slf4j
+public class FlagCache {
+
+    private final AsyncCache<EnvironmentKey, CachedFlags> flags;
+    private final AsyncCache<String, CachedEnvironments> environments;
+    private final ConcurrentMap<String, Set<EnvironmentKey>> keysByEnvName = new ConcurrentHashMap<>();
+    private final AtomicLong versionSequence = new AtomicLong();
+    private final Executor loadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public FlagCache(@Value("${ff.flag-cache.maximum-weight:64MB}") DataSize flagsMaximumWeight,
+                     @Value("${ff.flag-cache.environments-maximum-weight:8MB}") DataSize environmentsMaximumWeight) {
+        this.flags = Caffeine.newBuilder()
+                .maximumWeight(flagsMaximumWeight.toBytes())
+                .weigher((EnvironmentKey key, CachedFlags value) -> value.weight())
+                .removalListener((EnvironmentKey key, CachedFlags value, RemovalCause cause) -> {
+                    if (cause != RemovalCause.REPLACED) {
+                        unindexIfAbsent(key);
+                    }
+                })
+                .executor(loadExecutor)
+                .recordStats()
+                .buildAsync();
+        this.environments = Caffeine.newBuilder()
+                .maximumWeight(environmentsMaximumWeight.toBytes())
+                .weigher((String userId, CachedEnvironments value) -> value.weight())
+                .executor(loadExecutor)
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Get the feature flags of an environment, loading them on first access.
+     * Concurrent reads of an environment that is not cached share a single load.
+     *
+     * @param key The environment
+     * @param loader Starts reading the feature flags of the environment from DynamoDB; a blocking read
+     *               must run on the given executor, see {@link #loadAsync(Supplier)}
+     * @return A future of the feature flags, shared with the cache and not to be modified
+     */
+    public CompletableFuture<List<FeatureFlag>> getFlags(EnvironmentKey key,
+                                                         Function<Executor, CompletableFuture<List<FeatureFlag>>> loader) {
+        return flags.get(key, (k, executor) -> {
+                    index(k);
+                    return loader.apply(executor).thenApply(loaded -> CachedFlags.of(nextVersion(), loaded));
+                })
+                .thenApply(CachedFlags::flags);
+    }
+
+    /**
+     * Read the feature flags of an environment from DynamoDB, bypassing the cache, and cache the result.
+     * If the environment changes through this cache while it is being read, the cached entry is kept,
+     * since the read may have missed that change.
+     *
+     * @param key The environment
+     * @param loader Reads the feature flags of the environment from DynamoDB
+     * @return The feature flags of the environment
+     */
+    public List<FeatureFlag> reloadFlags(EnvironmentKey key, Supplier<List<FeatureFlag>> loader) {
+        OptionalLong versionBefore = getVersion(key);
+        List<FeatureFlag> loaded = loader.get();
+        CompletableFuture<CachedFlags> result = flags.asMap().compute(key, (k, current) -> {
+            CachedFlags cached = completedValue(current);
+            if (current != null && (cached == null || versionBefore.isEmpty()
+                    || cached.version() != versionBefore.getAsLong())) {
+                log.info("Keeping cached feature flags changed during reload: env={}, user={}",
+                        key.envName(), key.userId());
+                return current;
+            }
+            if (cached != null && cached.hasSameContent(loaded)) {
+                return current;
+            }
+            index(k);
+            return CompletableFuture.completedFuture(CachedFlags.of(nextVersion(), loaded));
+        });
+        CachedFlags cached = completedValue(result);
+        return cached == null ? loaded : cached.flags();
+    }
+
+    /**
+     * Get the version of the cached feature flags of an environment.
+     *
+     * @param key The environment
+     * @return The version, or empty if the environment is not cached or still loading
+     */
+    public OptionalLong getVersion(EnvironmentKey key) {
+        CachedFlags cached = completedValue(flags.getIfPresent(key));
+        return cached == null ? OptionalLong.empty() : OptionalLong.of(cached.version());
+    }
+
+    /**
+     * Write a saved feature flag through to the cache. The flag is also removed from the environments
+     * of other owners with the same name, since a flag is identified by environment name and flag name.
+     *
+     * @param flag The saved feature flag
+     */
+    public void putFlag(FeatureFlag flag) {
+        EnvironmentKey owner = new EnvironmentKey(flag.getUserId(), flag.getEnvName());
+        for (EnvironmentKey key : keysOf(flag.getEnvName())) {
+            if (!key.equals(owner)) {
+                updateFlags(key, cached -> cached.without(flag.getFeatureName(), this::nextVersion));
+            }
+        }
+        updateFlags(owner, cached -> cached.with(flag, this::nextVersion));
+    }
+
+    /**
+     * Write a deleted feature flag through to the cache.
+     *
+     * @param envName The environment name
+     * @param featureName The feature flag name
+     */
+    public void removeFlag(String envName, String featureName) {
+        for (EnvironmentKey key : keysOf(envName)) {
+            updateFlags(key, cached -> cached.without(featureName, this::nextVersion));
+        }
+    }
+
+    /**
+     * Drop the cached feature flags of every environment with the given name, whoever owns it.
+     * Used when the state of a flag is unknown after a failed write or a change without images.
+     *
+     * @param envName The environment name
+     */
+    public void invalidateFlagsByEnvName(String envName) {
+        keysOf(envName).forEach(flags.synchronous()::invalidate);
+    }
+
+    /**
+     * Get the environments of a user, loading them on first access.
+     *
+     * @param userId The id of the owner of the environments
+     * @param loader Starts reading the environments of the user from DynamoDB; a blocking read
+     *               must run on the given executor, see {@link #loadAsync(Supplier)}
+     * @return A future of the environments, shared with the cache and not to be modified
+     */
+    public CompletableFuture<List<Environment>> getEnvironments(String userId,
+                                                                Function<Executor, CompletableFuture<List<Environment>>> loader) {
+        return environments.get(userId, (k, executor) -> loader.apply(executor)
+                        .thenApply(loaded -> CachedEnvironments.of(nextVersion(), loaded)))
+                .thenApply(CachedEnvironments::environments);
+    }
+
+    /**
+     * Write a saved environment through to the cache.
+     *
+     * @param environment The saved environment
+     */
+    public void putEnvironment(Environment environment) {
+        updateEnvironments(environment.getUserId(), cached -> cached.with(environment, this::nextVersion));
+    }
+
+    /**
+     * Write a deleted environment through to the cache. The cached feature flags of the environment are dropped.
+     *
+     * @param userId The id of the owner of the environment
+     * @param name The environment name
+     */
+    public void removeEnvironment(String userId, String name) {
+        updateEnvironments(userId, cached -> cached.without(name, this::nextVersion));
+        flags.synchronous().invalidate(new EnvironmentKey(userId, name));
+    }
+
+    /**
+     * Drop the cached environments of a user.
+     *
+     * @param userId The id of the owner of the environments
+     */
+    public void invalidateEnvironments(String userId) {
+        environments.synchronous().invalidate(userId);
+    }
+
+    /**
+     * Drop the cached environments of every user.
+     */
+    public void invalidateAllEnvironments() {
+        environments.synchronous().invalidateAll();
+    }
+
+    /**
+     * Drop everything, after items were written to the tables without going through the cache.
+     */
+    public void invalidateAll() {
+        flags.synchronous().invalidateAll();
+        environments.synchronous().invalidateAll();
+    }
+
+    /**
+     * Adapt a blocking read to a loader of this cache, running it on the executor of the cache.
+     *
+     * @param read The blocking read
+     * @return The loader
+     */
+    static <T> Function<Executor, CompletableFuture<T>> loadAsync(Supplier<T> read) {
+        return executor -> CompletableFuture.supplyAsync(read, executor);
+    }
+
+    /**
+     * Wait for a future of the cache and rethrow the failure of the load as is.
+     *
+     * @param future The future
+     * @return The value of the future
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void updateFlags(EnvironmentKey key, UnaryOperator<CachedFlags> change) {
+        // A pending load is chained, so the write is applied to its result once it completes
+        flags.asMap().computeIfPresent(key, (k, current) -> current.thenApply(change));
+    }
+
+    private Set<EnvironmentKey> keysOf(String envName) {
+        Set<EnvironmentKey> keys = keysByEnvName.get(envName);
+        return keys == null ? Set.of() : Set.copyOf(keys);
+    }
+
+    /**
+     * Add an environment to the index by name, called while its entry is being added.
+     */
+    private void index(EnvironmentKey key) {
+        keysByEnvName.compute(key.envName(), (envName, keys) -> {
+            Set<EnvironmentKey> indexed = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+            indexed.add(key);
+            return indexed;
+        });
+    }
+
+    /**
+     * Remove an environment from the index by name after its entry was removed, unless it was added again.
+     * The check runs under the lock of the entry, so it cannot race with a load that adds it again.
+     */
+    private void unindexIfAbsent(EnvironmentKey key) {
+        flags.asMap().compute(key, (k, current) -> {
+            if (current == null) {
+                keysByEnvName.computeIfPresent(k.envName(), (envName, keys) -> {
+                    keys.remove(k);
+                    return keys.isEmpty() ? null : keys;
+                });
+            }
+            return current;
+        });
+    }
+
+    private void updateEnvironments(String userId, UnaryOperator<CachedEnvironments> change) {
+        environments.asMap().computeIfPresent(userId, (k, current) -> current.thenApply(change));
+    }
+
+    private long nextVersion() {
+        return versionSequence.incrementAndGet();
+    }
+
+    private static <V> V completedValue(CompletableFuture<V> future) {
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return null;
+        }
+        return future.join();
+    }
+}
@@ -0,0 +1,47 @@
+package com.ech.ff.featureflagmanager.changefeed;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.OperationType;
+
+import java.util.Map;
+
+/**
+ * A change of a single item of a table.
+ *
+ * @param tableName The table the item belongs to
+ * @param operation The kind of change
+ * @param keys The key attributes of the item
+ * @param oldImage The item before the change, can be null if the stream does not carry images
+ * @param newImage The item after the change, can be null if the stream does not carry images
+ */
+public record ChangeEvent(String tableName,
+                          OperationType operation,
+                          Map<String, AttributeValue> keys,
+                          Map<String, AttributeValue> oldImage,
+                          Map<String, AttributeValue> newImage) {
+
+    /**
+     * Get a string attribute of the item from the keys, the new image or the old image.
+     *
+     * @param name The attribute name
+     * @return The attribute value, or null if the event does not carry the attribute
+     */
+    public String stringAttribute(String name) {
+        String value = stringAttribute(keys, name);
+        if (value == null) {
+            value = stringAttribute(newImage, name);
+        }
+        if (value == null) {
+            value = stringAttribute(oldImage, name);
+        }
+        return value;
+    }
+
+    private static String stringAttribute(Map<String, AttributeValue> item, String name) {
+        if (item == null) {
+            return null;
+        }
+        AttributeValue value = item.get(name);
+        return value == null ? null : value.s();
+    }
+}
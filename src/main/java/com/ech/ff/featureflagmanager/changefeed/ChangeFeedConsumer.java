@@ -0,0 +1,183 @@
+package com.ech.ff.featureflagmanager.changefeed;
+
+import com.ech.ff.featureflagmanager.cache.FlagCache;
+import com.ech.ff.featureflagmanager.dynamodb.entity.Environment;
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import com.ech.ff.featureflagmanager.security.apikey.ApiKeyVerifier;
+import com.ech.ff.featureflagmanager.snapshot.EnvironmentKey;
+import com.ech.ff.featureflagmanager.snapshot.FlagSnapshotService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.OperationType;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Applies the changes of the {@code FeatureFlag}, {@code EnvApiKey} and {@code Environment} tables to the
+ * in-memory state of this node, so writes made through any node reach every node within seconds:
+ * changed flags and environments are applied to the {@link FlagCache} from the images of the change,
+ * or dropped from it if the stream carries no images, changed environments are marked dirty and rebuilt
+ * with the next snapshot flush, changed API keys are evicted from the verification cache.
+ * <p>
+ * While a source fails, snapshots fall back to polling DynamoDB instead of the regular refresh interval,
+ * until the source recovers. The first reload runs at the fallback interval and the delay doubles after
+ * every reload up to the maximum fallback interval, so a source that never recovers does not reload every
+ * snapshot every few seconds.
+ */
+@Component
+@Slf4j
+public class ChangeFeedConsumer {
+
+    static final String FEATURE_FLAG_TABLE = "FeatureFlag";
+    static final String API_KEY_TABLE = "EnvApiKey";
+    static final String ENVIRONMENT_TABLE = "Environment";
+
+    private static final TableSchema<FeatureFlag> FEATURE_FLAG_SCHEMA = TableSchema.fromBean(FeatureFlag.class);
+    private static final TableSchema<Environment> ENVIRONMENT_SCHEMA = TableSchema.fromBean(Environment.class);
+
+    private final List<ChangeFeedSource> sources;
+    private final FlagSnapshotService flagSnapshotService;
+    private final FlagCache flagCache;
+    private final ApiKeyVerifier apiKeyVerifier;
+    private final Duration fallbackInterval;
+    private final Duration maxFallbackInterval;
+    private final Set<ChangeFeedSource> failingSources = ConcurrentHashMap.newKeySet();
+    private Duration fallbackDelay;
+    private Instant nextFallback = Instant.MIN;
+
+    public ChangeFeedConsumer(ObjectProvider<ChangeFeedSource> sources,
+                              FlagSnapshotService flagSnapshotService,
+                              FlagCache flagCache,
+                              ApiKeyVerifier apiKeyVerifier,
+                              @Value("${ff.change-feed.fallback-interval-ms:5000}") long fallbackIntervalMs,
+                              @Value("${ff.change-feed.fallback-max-interval-ms:300000}") long maxFallbackIntervalMs) {
+        this.sources = sources.orderedStream().toList();
+        this.flagSnapshotService = flagSnapshotService;
+        this.flagCache = flagCache;
+        this.apiKeyVerifier = apiKeyVerifier;
+        this.fallbackInterval = Duration.ofMillis(fallbackIntervalMs);
+        this.maxFallbackInterval = Duration.ofMillis(Math.max(fallbackIntervalMs, maxFallbackIntervalMs));
+        this.fallbackDelay = fallbackInterval;
+        log.info("Change feed consumer started with {} sources", this.sources.size());
+    }
+
+    /**
+     * Poll every source once and apply its changes.
+     */
+    @Scheduled(fixedDelayString = "${ff.change-feed.poll-interval-ms:1000}")
+    public void pollAll() {
+        sources.forEach(this::pollQuietly);
+    }
+
+    /**
+     * Reload all snapshots and drop the cached environments while a source is failing,
+     * so changes still arrive, only later. Reloads are backed off while the source keeps failing.
+     */
+    @Scheduled(fixedDelayString = "${ff.change-feed.fallback-interval-ms:5000}")
+    public void pollFallback() {
+        if (failingSources.isEmpty()) {
+            fallbackDelay = fallbackInterval;
+            nextFallback = Instant.MIN;
+            return;
+        }
+        Instant now = Instant.now();
+        if (now.isBefore(nextFallback)) {
+            return;
+        }
+        flagCache.invalidateAllEnvironments();
+        flagSnapshotService.refreshAll();
+        fallbackDelay = min(fallbackDelay.multipliedBy(2), maxFallbackInterval);
+        nextFallback = now.plus(fallbackDelay);
+    }
+
+    /**
+     * Check whether every source is being read successfully.
+     *
+     * @return true if no source is failing
+     */
+    public boolean isHealthy() {
+        return failingSources.isEmpty();
+    }
+
+    private void pollQuietly(ChangeFeedSource source) {
+        try {
+            List<ChangeEvent> events = source.poll();
+            events.forEach(this::apply);
+            source.commit();
+            if (failingSources.remove(source)) {
+                log.info("Change feed of table {} recovered", source.tableName());
+            }
+        } catch (Exception e) {
+            if (failingSources.add(source)) {
+                log.error("Change feed of table {} failed, falling back to polling", source.tableName(), e);
+            } else {
+                log.debug("Change feed of table {} still failing: {}", source.tableName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Apply a single change to the local state.
+     *
+     * @param event The change
+     */
+    void apply(ChangeEvent event) {
+        switch (event.tableName()) {
+            case FEATURE_FLAG_TABLE -> {
+                String envName = event.stringAttribute("EnvName");
+                String userId = event.stringAttribute("userId");
+                applyFeatureFlagChange(event, envName);
+                if (userId != null) {
+                    flagSnapshotService.markDirty(new EnvironmentKey(userId, envName));
+                } else {
+                    // Keys-only streams do not carry the owner
+                    flagSnapshotService.markDirtyByEnvName(envName);
+                }
+            }
+            case API_KEY_TABLE -> apiKeyVerifier.evict(event.stringAttribute("key"), event.stringAttribute("EnvName"));
+            case ENVIRONMENT_TABLE -> {
+                String userId = event.stringAttribute("userId");
+                String name = event.stringAttribute("name");
+                applyEnvironmentChange(event, userId, name);
+                if (event.operation() == OperationType.REMOVE) {
+                    flagSnapshotService.remove(new EnvironmentKey(userId, name));
+                } else {
+                    flagSnapshotService.markDirty(new EnvironmentKey(userId, name));
+                }
+            }
+            default -> log.warn("Ignoring change of unknown table: {}", event.tableName());
+        }
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private void applyFeatureFlagChange(ChangeEvent event, String envName) {
+        if (event.operation() == OperationType.REMOVE) {
+            flagCache.removeFlag(envName, event.stringAttribute("FeatureName"));
+        } else if (event.newImage() != null) {
+            flagCache.putFlag(FEATURE_FLAG_SCHEMA.mapToItem(event.newImage()));
+        } else {
+            flagCache.invalidateFlagsByEnvName(envName);
+        }
+    }
+
+    private void applyEnvironmentChange(ChangeEvent event, String userId, String name) {
+        if (event.operation() == OperationType.REMOVE) {
+            flagCache.removeEnvironment(userId, name);
+        } else if (event.newImage() != null) {
+            flagCache.putEnvironment(ENVIRONMENT_SCHEMA.mapToItem(event.newImage()));
+        } else {
+            flagCache.invalidateEnvironments(userId);
+        }
+    }
+}
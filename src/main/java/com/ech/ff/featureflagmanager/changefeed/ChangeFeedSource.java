@@ -0,0 +1,31 @@
+package com.ech.ff.featureflagmanager.changefeed;
+
+import java.util.List;
+
+/**
+ * Ordered source of item changes of a table.
+ * <p>
+ * Consumers {@link #poll()} for changes, apply them and then {@link #commit()}; a source that is
+ * restarted resumes after the last committed change, so every change is applied at least once.
+ */
+public interface ChangeFeedSource {
+
+    /**
+     * Get the name of the table the changes belong to.
+     *
+     * @return The table name
+     */
+    String tableName();
+
+    /**
+     * Read the changes that arrived since the previous poll, without waiting for new ones.
+     *
+     * @return The changes, empty if there are none
+     */
+    List<ChangeEvent> poll();
+
+    /**
+     * Record that all changes returned by previous polls have been applied.
+     */
+    void commit();
+}
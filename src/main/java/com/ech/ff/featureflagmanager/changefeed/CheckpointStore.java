@@ -0,0 +1,32 @@
+package com.ech.ff.featureflagmanager.changefeed;
+
+import java.util.Optional;
+
+/**
+ * Stores the position of a change-feed consumer per stream shard.
+ */
+public interface CheckpointStore {
+
+    /**
+     * Get the checkpoint of a shard.
+     *
+     * @param shardKey The stream and shard
+     * @return The sequence number of the last applied change, empty if there is none
+     */
+    Optional<String> get(String shardKey);
+
+    /**
+     * Store the checkpoint of a shard.
+     *
+     * @param shardKey The stream and shard
+     * @param sequenceNumber The sequence number of the last applied change
+     */
+    void put(String shardKey, String sequenceNumber);
+
+    /**
+     * Drop the checkpoint of a shard that has been read to its end.
+     *
+     * @param shardKey The stream and shard
+     */
+    void remove(String shardKey);
+}
@@ -0,0 +1,268 @@
+package com.ech.ff.featureflagmanager.changefeed;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamResponse;
+import software.amazon.awssdk.services.dynamodb.model.ExpiredIteratorException;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetShardIteratorRequest;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.Shard;
+import software.amazon.awssdk.services.dynamodb.model.ShardIteratorType;
+import software.amazon.awssdk.services.dynamodb.model.StreamRecord;
+import software.amazon.awssdk.services.dynamodb.model.TrimmedDataAccessException;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClient;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reads the item changes of a table from its DynamoDB stream.
+ * <p>
+ * Every open shard is read with its own iterator. Positions are checkpointed per shard after a commit;
+ * a shard with a checkpoint resumes after it, shards that exist when the node starts without a checkpoint
+ * start at the tip of the stream (the node loads fresh state anyway), and shards that appear later
+ * are read from their start so no change is missed across a shard split.
+ * If a poll is not committed, because it failed or its changes could not be applied, the next poll
+ * reads again from the first change that was not committed.
+ * <p>
+ * Not thread-safe; the consumer polls every source from a single thread.
+ */
+@Slf4j
+public class DynamoDbStreamsChangeFeedSource implements ChangeFeedSource {
+
+    private final DynamoDbClient dynamoDbClient;
+    private final DynamoDbStreamsClient streamsClient;
+    private final String tableName;
+    private final CheckpointStore checkpointStore;
+    private final int maxRecordsPerShard;
+    private final Duration shardRefreshInterval;
+
+    private final Map<String, ShardReader> shards = new LinkedHashMap<>();
+    private final Set<String> finishedShards = new HashSet<>();
+    private String streamArn;
+    private Instant nextShardRefresh = Instant.MIN;
+    private boolean initialized;
+    private boolean uncommitted;
+
+    public DynamoDbStreamsChangeFeedSource(DynamoDbClient dynamoDbClient,
+                                           DynamoDbStreamsClient streamsClient,
+                                           String tableName,
+                                           CheckpointStore checkpointStore,
+                                           int maxRecordsPerShard,
+                                           Duration shardRefreshInterval) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.streamsClient = streamsClient;
+        this.tableName = tableName;
+        this.checkpointStore = checkpointStore;
+        this.maxRecordsPerShard = maxRecordsPerShard;
+        this.shardRefreshInterval = shardRefreshInterval;
+    }
+
+    @Override
+    public String tableName() {
+        return tableName;
+    }
+
+    @Override
+    public List<ChangeEvent> poll() {
+        if (streamArn == null) {
+            streamArn = dynamoDbClient.describeTable(r -> r.tableName(tableName)).table().latestStreamArn();
+            if (streamArn == null) {
+                throw new IllegalStateException("DynamoDB Streams is not enabled on table " + tableName);
+            }
+            log.info("Reading changes of table {} from stream {}", tableName, streamArn);
+        }
+        if (uncommitted) {
+            shards.values().forEach(ShardReader::rewind);
+        }
+        uncommitted = true;
+        if (!Instant.now().isBefore(nextShardRefresh)) {
+            refreshShards();
+        }
+
+        List<ChangeEvent> events = new ArrayList<>();
+        for (ShardReader shard : shards.values()) {
+            shard.read(events);
+        }
+        return events;
+    }
+
+    @Override
+    public void commit() {
+        uncommitted = false;
+        shards.values().removeIf(shard -> {
+            shard.commit();
+            if (shard.closed) {
+                finishedShards.add(shard.shardId);
+                checkpointStore.remove(shard.checkpointKey());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void refreshShards() {
+        String lastShardId = null;
+        do {
+            DescribeStreamRequest.Builder request = DescribeStreamRequest.builder().streamArn(streamArn);
+            if (lastShardId != null) {
+                request.exclusiveStartShardId(lastShardId);
+            }
+            DescribeStreamResponse response;
+            try {
+                response = streamsClient.describeStream(request.build());
+            } catch (ResourceNotFoundException e) {
+                // The stream was disabled or replaced; look it up again with the next poll
+                streamArn = null;
+                shards.clear();
+                throw e;
+            }
+            for (Shard shard : response.streamDescription().shards()) {
+                addShard(shard);
+            }
+            lastShardId = response.streamDescription().lastEvaluatedShardId();
+        } while (lastShardId != null);
+        initialized = true;
+        nextShardRefresh = Instant.now().plus(shardRefreshInterval);
+    }
+
+    private void addShard(Shard shard) {
+        String shardId = shard.shardId();
+        if (shards.containsKey(shardId) || finishedShards.contains(shardId)) {
+            return;
+        }
+        ShardReader reader = new ShardReader(shardId);
+        Optional<String> checkpoint = checkpointStore.get(reader.checkpointKey());
+        boolean open = shard.sequenceNumberRange() == null || shard.sequenceNumberRange().endingSequenceNumber() == null;
+        if (checkpoint.isPresent()) {
+            reader.startAfter(checkpoint.get());
+        } else if (!initialized && !open) {
+            // History from before this node started, its state is already loaded fresh
+            finishedShards.add(shardId);
+            return;
+        } else {
+            reader.startAt(initialized ? ShardIteratorType.TRIM_HORIZON : ShardIteratorType.LATEST);
+        }
+        shards.put(shardId, reader);
+    }
+
+    private ChangeEvent toEvent(Record record) {
+        StreamRecord change = record.dynamodb();
+        return new ChangeEvent(tableName, record.eventName(), change.keys(),
+                change.hasOldImage() ? change.oldImage() : null,
+                change.hasNewImage() ? change.newImage() : null);
+    }
+
+    /**
+     * Read position within a single shard.
+     */
+    private final class ShardReader {
+
+        private final String shardId;
+        private ShardIteratorType startType;
+        private String startSequenceNumber;
+        private String iterator;
+        private String firstPendingSequenceNumber;
+        private String pendingSequenceNumber;
+        private boolean closed;
+
+        ShardReader(String shardId) {
+            this.shardId = shardId;
+        }
+
+        String checkpointKey() {
+            return streamArn + "/" + shardId;
+        }
+
+        void startAfter(String sequenceNumber) {
+            startType = ShardIteratorType.AFTER_SEQUENCE_NUMBER;
+            startSequenceNumber = sequenceNumber;
+        }
+
+        void startAt(ShardIteratorType type) {
+            startType = type;
+            startSequenceNumber = null;
+        }
+
+        void rewind() {
+            if (firstPendingSequenceNumber == null) {
+                // Nothing was read since the last commit, so the iterator is still at the committed position
+                return;
+            }
+            // Reopen at the first change that was not applied, also if the shard started at the tip
+            startType = ShardIteratorType.AT_SEQUENCE_NUMBER;
+            startSequenceNumber = firstPendingSequenceNumber;
+            iterator = null;
+            firstPendingSequenceNumber = null;
+            pendingSequenceNumber = null;
+            closed = false;
+        }
+
+        void read(List<ChangeEvent> events) {
+            if (closed) {
+                return;
+            }
+            if (iterator == null) {
+                iterator = openIterator();
+            }
+            GetRecordsResponse response;
+            try {
+                response = streamsClient.getRecords(r -> r.shardIterator(iterator).limit(maxRecordsPerShard));
+            } catch (ExpiredIteratorException e) {
+                log.info("Shard iterator expired, reopening: table={}, shard={}", tableName, shardId);
+                iterator = null;
+                return;
+            }
+            for (Record record : response.records()) {
+                events.add(toEvent(record));
+                if (firstPendingSequenceNumber == null) {
+                    firstPendingSequenceNumber = record.dynamodb().sequenceNumber();
+                }
+                pendingSequenceNumber = record.dynamodb().sequenceNumber();
+            }
+            iterator = response.nextShardIterator();
+            closed = iterator == null;
+        }
+
+        void commit() {
+            if (pendingSequenceNumber != null) {
+                checkpointStore.put(checkpointKey(), pendingSequenceNumber);
+                // A reopened iterator continues after the last applied change
+                startAfter(pendingSequenceNumber);
+                pendingSequenceNumber = null;
+            }
+            firstPendingSequenceNumber = null;
+        }
+
+        private String openIterator() {
+            GetShardIteratorRequest.Builder request = GetShardIteratorRequest.builder()
+                    .streamArn(streamArn)
+                    .shardId(shardId)
+                    .shardIteratorType(startType);
+            if (startSequenceNumber != null) {
+                request.sequenceNumber(startSequenceNumber);
+            }
+            try {
+                return streamsClient.getShardIterator(request.build()).shardIterator();
+            } catch (TrimmedDataAccessException e) {
+                log.warn("Checkpoint is older than the stream retention, reading from the oldest change: table={}, shard={}",
+                        tableName, shardId);
+                startAt(ShardIteratorType.TRIM_HORIZON);
+                return streamsClient.getShardIterator(request
+                        .shardIteratorType(ShardIteratorType.TRIM_HORIZON)
+                        .sequenceNumber(null)
+                        .build()).shardIterator();
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.ech.ff.featureflagmanager.changefeed;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Keeps checkpoints in a properties file, so a restarted node resumes where it stopped.
+ * The file is rewritten through a temporary file and an atomic move, so a crash never leaves it half-written.
+ */
+@Slf4j
+public class FileCheckpointStore implements CheckpointStore {
+
+    private final Path file;
+    private final Properties checkpoints = new Properties();
+
+    public FileCheckpointStore(Path file) {
+        this.file = file;
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                checkpoints.load(reader);
+                log.info("Loaded {} change feed checkpoints from {}", checkpoints.size(), file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read change feed checkpoints: " + file, e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized Optional<String> get(String shardKey) {
+        return Optional.ofNullable(checkpoints.getProperty(shardKey));
+    }
+
+    @Override
+    public synchronized void put(String shardKey, String sequenceNumber) {
+        checkpoints.setProperty(shardKey, sequenceNumber);
+        write();
+    }
+
+    @Override
+    public synchronized void remove(String shardKey) {
+        if (checkpoints.remove(shardKey) != null) {
+            write();
+        }
+    }
+
+    private void write() {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                checkpoints.store(writer, "Change feed checkpoints");
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write change feed checkpoints: " + file, e);
+        }
+    }
+}
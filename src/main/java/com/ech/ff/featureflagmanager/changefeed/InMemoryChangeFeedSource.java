@@ -0,0 +1,44 @@
+package com.ech.ff.featureflagmanager.changefeed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * In-process change feed for tests and local runs: changes are published to it directly instead
+ * of being read from DynamoDB Streams. It carries the changes of every table.
+ * Changes that were polled but not committed are returned again by the next poll.
+ */
+public class InMemoryChangeFeedSource implements ChangeFeedSource {
+
+    private final ConcurrentLinkedQueue<ChangeEvent> queue = new ConcurrentLinkedQueue<>();
+    private final List<ChangeEvent> uncommitted = new ArrayList<>();
+
+    /**
+     * Publish a change to the feed.
+     *
+     * @param event The change
+     */
+    public void publish(ChangeEvent event) {
+        queue.add(event);
+    }
+
+    @Override
+    public String tableName() {
+        return "*";
+    }
+
+    @Override
+    public synchronized List<ChangeEvent> poll() {
+        ChangeEvent event;
+        while ((event = queue.poll()) != null) {
+            uncommitted.add(event);
+        }
+        return List.copyOf(uncommitted);
+    }
+
+    @Override
+    public synchronized void commit() {
+        uncommitted.clear();
+    }
+}
@@ -0,0 +1,28 @@
+package com.ech.ff.featureflagmanager.changefeed;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps checkpoints for the lifetime of the process only.
+ */
+public class InMemoryCheckpointStore implements CheckpointStore {
+
+    private final Map<String, String> checkpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<String> get(String shardKey) {
+        return Optional.ofNullable(checkpoints.get(shardKey));
+    }
+
+    @Override
+    public void put(String shardKey, String sequenceNumber) {
+        checkpoints.put(shardKey, sequenceNumber);
+    }
+
+    @Override
+    public void remove(String shardKey) {
+        checkpoints.remove(shardKey);
+    }
+}
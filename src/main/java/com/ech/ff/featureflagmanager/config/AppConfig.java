@@ -1,28 +1,75 @@
 package com.ech.ff.featureflagmanager.config;
 
+import com.ech.ff.featureflagmanager.cache.CachingAsyncEnvironmentRepository;
+import com.ech.ff.featureflagmanager.cache.CachingAsyncFeatureFlagRepository;
+import com.ech.ff.featureflagmanager.cache.CachingEnvironmentRepository;
+import com.ech.ff.featureflagmanager.cache.CachingFeatureFlagRepository;
+import com.ech.ff.featureflagmanager.cache.FlagCache;
+import com.ech.ff.featureflagmanager.controller.support.PageRequests;
 import com.ech.ff.featureflagmanager.dynamodb.entity.ApiKey;
 import com.ech.ff.featureflagmanager.dynamodb.entity.Environment;
 import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import com.ech.ff.featureflagmanager.dynamodb.migration.GlobalSecondaryIndexMigration;
 import com.ech.ff.featureflagmanager.dynamodb.repository.ApiKeyRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.AsyncApiKeyRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.AsyncEnvironmentRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.AsyncFeatureFlagRepository;
 import com.ech.ff.featureflagmanager.dynamodb.repository.EnvironmentRepository;
+import com.ech.ff.featureflagmanager.dynamodb.metrics.DynamoDbMetricsInterceptor;
+import com.ech.ff.featureflagmanager.dynamodb.metrics.HttpPoolMetricPublisher;
 import com.ech.ff.featureflagmanager.dynamodb.repository.FeatureFlagRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.core.client.config.ClientAsyncConfiguration;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.client.config.SdkAdvancedAsyncClientOption;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClientBuilder;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
+
+import java.util.concurrent.Executors;
 
 @Configuration
+@EnableConfigurationProperties(DynamoDbProperties.class)
+@Slf4j
 public class AppConfig {
 
+    /**
+     * Blocking DynamoDB client. Its connection pool is the concurrency limit for blocking repository
+     * calls once request handling runs on virtual threads, so it is sized by {@code ff.dynamodb.max-connections}.
+     */
     @Bean
-    public DynamoDbClient dynamoDbClient() {
-        return DynamoDbClient.builder()
+    public DynamoDbClient dynamoDbClient(DynamoDbProperties properties, MeterRegistry meterRegistry) {
+        DynamoDbClientBuilder builder = DynamoDbClient.builder()
                 .region(Region.US_EAST_1)
-                .build();
+                .httpClientBuilder(ApacheHttpClient.builder()
+                        .maxConnections(properties.getMaxConnections())
+                        .connectionTimeout(properties.getConnectionTimeout())
+                        .connectionAcquisitionTimeout(properties.getConnectionAcquisitionTimeout())
+                        .connectionMaxIdleTime(properties.getConnectionMaxIdleTime())
+                        .connectionTimeToLive(properties.getConnectionTimeToLive())
+                        .useIdleConnectionReaper(properties.isReapIdleConnections())
+                        .tcpKeepAlive(properties.isTcpKeepAlive()))
+                .overrideConfiguration(buildOverrideConfiguration(properties, meterRegistry, "sync"));
+        if (properties.getEndpointOverride() != null) {
+            builder.endpointOverride(properties.getEndpointOverride());
+        }
+        return builder.build();
     }
 
     @Bean
@@ -32,19 +79,118 @@ public class AppConfig {
                 .build();
     }
 
+    /**
+     * Non-blocking DynamoDB client. In virtual-thread mode futures are completed on virtual threads,
+     * so callbacks that block do not stall the SDK completion pool.
+     */
+    @Bean
+    public DynamoDbAsyncClient dynamoDbAsyncClient(DynamoDbProperties properties,
+                                                   MeterRegistry meterRegistry,
+                                                   @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        DynamoDbAsyncClientBuilder builder = DynamoDbAsyncClient.builder()
+                .region(Region.US_EAST_1)
+                .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                        .maxConcurrency(properties.getMaxConcurrency())
+                        .maxPendingConnectionAcquires(properties.getMaxPendingConnectionAcquires())
+                        .connectionTimeout(properties.getConnectionTimeout())
+                        .connectionAcquisitionTimeout(properties.getConnectionAcquisitionTimeout())
+                        .connectionMaxIdleTime(properties.getConnectionMaxIdleTime())
+                        .connectionTimeToLive(properties.getConnectionTimeToLive())
+                        .useIdleConnectionReaper(properties.isReapIdleConnections())
+                        .tcpKeepAlive(properties.isTcpKeepAlive()))
+                .overrideConfiguration(buildOverrideConfiguration(properties, meterRegistry, "async"));
+        if (properties.getEndpointOverride() != null) {
+            builder.endpointOverride(properties.getEndpointOverride());
+        }
+        if (virtualThreads) {
+            log.info("Completing DynamoDB async calls on virtual threads");
+            builder.asyncConfiguration(ClientAsyncConfiguration.builder()
+                    .advancedOption(SdkAdvancedAsyncClientOption.FUTURE_COMPLETION_EXECUTOR,
+                            Executors.newVirtualThreadPerTaskExecutor())
+                    .build());
+        }
+        return builder.build();
+    }
+
+    private static ClientOverrideConfiguration buildOverrideConfiguration(DynamoDbProperties properties,
+                                                                          MeterRegistry meterRegistry,
+                                                                          String client) {
+        return ClientOverrideConfiguration.builder()
+                .apiCallTimeout(properties.getApiCallTimeout())
+                .apiCallAttemptTimeout(properties.getApiCallAttemptTimeout())
+                .retryStrategy(AwsRetryStrategy.adaptiveRetryStrategy().toBuilder()
+                        .maxAttempts(properties.getMaxAttempts())
+                        .build())
+                .addMetricPublisher(new HttpPoolMetricPublisher(meterRegistry, client))
+                .addExecutionInterceptor(new DynamoDbMetricsInterceptor(meterRegistry))
+                .build();
+    }
+
+    @Bean
+    public DynamoDbEnhancedAsyncClient buildDynamoDbEnhancedAsyncClient(DynamoDbAsyncClient dynamoDbAsyncClient) {
+        return DynamoDbEnhancedAsyncClient.builder()
+                .dynamoDbClient(dynamoDbAsyncClient)
+                .build();
+    }
+
+    /**
+     * Index of the environments with a given name across users, created on the existing {@code Environment} table.
+     */
+    @Bean
+    public GlobalSecondaryIndexMigration environmentByNameIndexMigration(DynamoDbClient dynamoDbClient) {
+        return new GlobalSecondaryIndexMigration(dynamoDbClient, "Environment", Environment.BY_NAME_INDEX,
+                "name", "userId");
+    }
+
+    @Bean
+    public EnvironmentRepository buildEnvironmentRepository(DynamoDbEnhancedClient client, FlagCache flagCache,
+                                                            GlobalSecondaryIndexMigration environmentByNameIndexMigration) {
+        return new CachingEnvironmentRepository(client.table("Environment", TableSchema.fromBean(Environment.class)),
+                client, environmentByNameIndexMigration, flagCache);
+    }
+
+    /**
+     * Index of the API keys of a user by environment, created on the existing {@code EnvApiKey} table
+     * by the {@link com.ech.ff.featureflagmanager.dynamodb.migration.IndexMigrationRunner}.
+     */
+    @Bean
+    public GlobalSecondaryIndexMigration apiKeyUserEnvIndexMigration(DynamoDbClient dynamoDbClient) {
+        return new GlobalSecondaryIndexMigration(dynamoDbClient, "EnvApiKey", ApiKey.USER_ENV_INDEX,
+                "userId", "EnvName");
+    }
+
+    @Bean
+    public ApiKeyRepository buildApiKeyRepository(DynamoDbEnhancedClient client,
+                                                  GlobalSecondaryIndexMigration apiKeyUserEnvIndexMigration) {
+        return new ApiKeyRepository(client.table("EnvApiKey", TableSchema.fromBean(ApiKey.class)), client,
+                apiKeyUserEnvIndexMigration);
+    }
+
+    @Bean
+    public FeatureFlagRepository buildFeatureFlagRepository(DynamoDbEnhancedClient client, FlagCache flagCache) {
+        return new CachingFeatureFlagRepository(client.table("FeatureFlag", TableSchema.fromBean(FeatureFlag.class)),
+                client, flagCache);
+    }
+
     @Bean
-    public EnvironmentRepository buildEnvironmentRepository(DynamoDbEnhancedClient client) {
-        return new EnvironmentRepository(client.table("Environment", TableSchema.fromBean(Environment.class)));
+    public AsyncEnvironmentRepository buildAsyncEnvironmentRepository(DynamoDbEnhancedAsyncClient client,
+                                                                      FlagCache flagCache) {
+        return new CachingAsyncEnvironmentRepository(
+                client.table("Environment", TableSchema.fromBean(Environment.class)), flagCache);
     }
 
     @Bean
-    public ApiKeyRepository buildApiKeyRepository(DynamoDbEnhancedClient client) {
-        return new ApiKeyRepository(client.table("EnvApiKey", TableSchema.fromBean(ApiKey.class)));
+    public AsyncApiKeyRepository buildAsyncApiKeyRepository(DynamoDbEnhancedAsyncClient client,
+                                                            GlobalSecondaryIndexMigration apiKeyUserEnvIndexMigration) {
+        return new AsyncApiKeyRepository(client.table("EnvApiKey", TableSchema.fromBean(ApiKey.class)),
+                apiKeyUserEnvIndexMigration);
     }
 
     @Bean
-    public FeatureFlagRepository buildFeatureFlagRepository(DynamoDbEnhancedClient client) {
-        return new FeatureFlagRepository(client.table("FeatureFlag", TableSchema.fromBean(FeatureFlag.class)));
+    public AsyncFeatureFlagRepository buildAsyncFeatureFlagRepository(DynamoDbEnhancedAsyncClient client,
+                                                                      FlagCache flagCache) {
+        return new CachingAsyncFeatureFlagRepository(
+                client.table("FeatureFlag", TableSchema.fromBean(FeatureFlag.class)), flagCache);
     }
 
     /**
@@ -62,6 +208,7 @@ public class AppConfig {
                         .allowedOrigins("*")
                         .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                         .allowedHeaders("*")
+                        .exposedHeaders(HttpHeaders.ETAG, PageRequests.NEXT_CURSOR_HEADER)
                         .maxAge(3600);
             }
         };
@@ -0,0 +1,79 @@
+package com.ech.ff.featureflagmanager.config;
+
+import com.ech.ff.featureflagmanager.changefeed.ChangeFeedSource;
+import com.ech.ff.featureflagmanager.changefeed.CheckpointStore;
+import com.ech.ff.featureflagmanager.changefeed.DynamoDbStreamsChangeFeedSource;
+import com.ech.ff.featureflagmanager.changefeed.FileCheckpointStore;
+import com.ech.ff.featureflagmanager.changefeed.InMemoryChangeFeedSource;
+import com.ech.ff.featureflagmanager.changefeed.InMemoryCheckpointStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClient;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClientBuilder;
+
+/**
+ * Wires the change-feed sources selected by {@code ff.change-feed.source}. No source is wired unless
+ * one is selected: {@code dynamodb-streams} needs streams enabled on every table it reads.
+ */
+@Configuration
+@EnableConfigurationProperties(ChangeFeedProperties.class)
+public class ChangeFeedConfig {
+
+    private static final String SOURCE_PROPERTY = "ff.change-feed.source";
+
+    @Bean
+    public CheckpointStore changeFeedCheckpointStore(ChangeFeedProperties properties) {
+        return properties.getCheckpointFile() != null
+                ? new FileCheckpointStore(properties.getCheckpointFile())
+                : new InMemoryCheckpointStore();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = SOURCE_PROPERTY, havingValue = "dynamodb-streams")
+    public DynamoDbStreamsClient dynamoDbStreamsClient(DynamoDbProperties dynamoDbProperties) {
+        DynamoDbStreamsClientBuilder builder = DynamoDbStreamsClient.builder()
+                .region(Region.US_EAST_1);
+        if (dynamoDbProperties.getEndpointOverride() != null) {
+            builder.endpointOverride(dynamoDbProperties.getEndpointOverride());
+        }
+        return builder.build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = SOURCE_PROPERTY, havingValue = "dynamodb-streams")
+    public ChangeFeedSource featureFlagChangeFeed(DynamoDbClient dynamoDbClient, DynamoDbStreamsClient streamsClient,
+                                                  CheckpointStore checkpointStore, ChangeFeedProperties properties) {
+        return streamsSource("FeatureFlag", dynamoDbClient, streamsClient, checkpointStore, properties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = SOURCE_PROPERTY, havingValue = "dynamodb-streams")
+    public ChangeFeedSource apiKeyChangeFeed(DynamoDbClient dynamoDbClient, DynamoDbStreamsClient streamsClient,
+                                             CheckpointStore checkpointStore, ChangeFeedProperties properties) {
+        return streamsSource("EnvApiKey", dynamoDbClient, streamsClient, checkpointStore, properties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = SOURCE_PROPERTY, havingValue = "dynamodb-streams")
+    public ChangeFeedSource environmentChangeFeed(DynamoDbClient dynamoDbClient, DynamoDbStreamsClient streamsClient,
+                                                  CheckpointStore checkpointStore, ChangeFeedProperties properties) {
+        return streamsSource("Environment", dynamoDbClient, streamsClient, checkpointStore, properties);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = SOURCE_PROPERTY, havingValue = "in-memory")
+    public InMemoryChangeFeedSource inMemoryChangeFeed() {
+        return new InMemoryChangeFeedSource();
+    }
+
+    private static ChangeFeedSource streamsSource(String tableName, DynamoDbClient dynamoDbClient,
+                                                  DynamoDbStreamsClient streamsClient, CheckpointStore checkpointStore,
+                                                  ChangeFeedProperties properties) {
+        return new DynamoDbStreamsChangeFeedSource(dynamoDbClient, streamsClient, tableName, checkpointStore,
+                properties.getMaxRecordsPerShard(), properties.getShardRefreshInterval());
+    }
+}
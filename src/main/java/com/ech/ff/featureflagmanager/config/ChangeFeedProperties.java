@@ -0,0 +1,56 @@
+package com.ech.ff.featureflagmanager.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of the change-feed consumer that keeps the in-memory state of every node in sync
+ * with writes made through other nodes.
+ */
+@Data
+@ConfigurationProperties(prefix = "ff.change-feed")
+public class ChangeFeedProperties {
+
+    /**
+     * Where changes are read from. There is no change feed by default, since a table without a stream
+     * would fail every poll.
+     */
+    private Source source = Source.NONE;
+
+    /**
+     * File the stream positions are checkpointed to, so a restarted node resumes where it stopped.
+     * Positions are only kept in memory if not set.
+     */
+    private Path checkpointFile;
+
+    /**
+     * Maximum number of records read from a shard per poll.
+     */
+    private int maxRecordsPerShard = 1000;
+
+    /**
+     * How often the shards of a stream are listed to pick up new shards.
+     */
+    private Duration shardRefreshInterval = Duration.ofSeconds(60);
+
+    public enum Source {
+
+        /**
+         * DynamoDB Streams of the tables, also served by DynamoDB Local.
+         */
+        DYNAMODB_STREAMS,
+
+        /**
+         * In-process feed that changes are published to directly; for tests and local runs.
+         */
+        IN_MEMORY,
+
+        /**
+         * No change feed; snapshots only follow the periodic refresh.
+         */
+        NONE
+    }
+}
@@ -0,0 +1,82 @@
+package com.ech.ff.featureflagmanager.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Transport settings for the DynamoDB clients.
+ * The connection pool settings apply to the blocking (Apache) and the non-blocking (Netty) HTTP client alike.
+ */
+@Data
+@ConfigurationProperties(prefix = "ff.dynamodb")
+public class DynamoDbProperties {
+
+    /**
+     * Endpoint of all DynamoDB clients instead of the AWS one, e.g. http://localhost:8000 for DynamoDB Local.
+     */
+    private URI endpointOverride;
+
+    /**
+     * Maximum number of pooled connections of the blocking client.
+     */
+    private int maxConnections = 50;
+
+    /**
+     * Maximum number of concurrent requests of the non-blocking client.
+     */
+    private int maxConcurrency = 50;
+
+    /**
+     * Maximum number of requests of the non-blocking client waiting for a connection.
+     */
+    private int maxPendingConnectionAcquires = 10000;
+
+    /**
+     * Time to establish a TCP connection.
+     */
+    private Duration connectionTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Time to wait for a connection from the pool before failing the request.
+     */
+    private Duration connectionAcquisitionTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Idle time after which a pooled connection is closed by the reaper.
+     */
+    private Duration connectionMaxIdleTime = Duration.ofSeconds(60);
+
+    /**
+     * Maximum lifetime of a pooled connection, so that connections follow DNS changes.
+     */
+    private Duration connectionTimeToLive = Duration.ofMinutes(5);
+
+    /**
+     * Whether idle connections are closed in the background.
+     */
+    private boolean reapIdleConnections = true;
+
+    /**
+     * Whether TCP keep-alive is enabled on pooled connections.
+     */
+    private boolean tcpKeepAlive = true;
+
+    /**
+     * Time for a whole API call, including all retries.
+     */
+    private Duration apiCallTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Time for a single attempt of an API call.
+     */
+    private Duration apiCallAttemptTimeout = Duration.ofMillis(1500);
+
+    /**
+     * Maximum number of attempts of an API call, including the first one. Retries use the adaptive strategy,
+     * which backs off exponentially and rate limits the client when DynamoDB throttles.
+     */
+    private int maxAttempts = 3;
+}
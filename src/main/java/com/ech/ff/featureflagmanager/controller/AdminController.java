@@ -0,0 +1,86 @@
+package com.ech.ff.featureflagmanager.controller;
+
+import com.ech.ff.featureflagmanager.controller.support.NdjsonStreaming;
+import com.ech.ff.featureflagmanager.controller.support.PageRequests;
+import com.ech.ff.featureflagmanager.dynamodb.entity.Environment;
+import com.ech.ff.featureflagmanager.dynamodb.repository.EnvironmentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+
+/**
+ * REST controller for administration across all users. Restricted to the admin Cognito group.
+ */
+@RestController
+@RequestMapping("/admin")
+@Tag(name = "Administration", description = "API for administration across all users")
+@Slf4j
+public class AdminController {
+
+    private final EnvironmentRepository environmentRepository;
+    private final ObjectMapper objectMapper;
+    private final int scanSegments;
+
+    public AdminController(EnvironmentRepository environmentRepository,
+                           ObjectMapper objectMapper,
+                           @Value("${ff.admin.scan-segments:4}") int scanSegments) {
+        this.environmentRepository = environmentRepository;
+        this.objectMapper = objectMapper;
+        this.scanSegments = scanSegments;
+    }
+
+    @GetMapping(value = "/environments", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream the environments of all users",
+               description = "Writes the environments of all users as newline-delimited JSON while the table is "
+                       + "scanned with parallel segments, in no particular order")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Environments streamed successfully"),
+        @ApiResponse(responseCode = "403", description = "User is not an administrator"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<StreamingResponseBody> streamAllEnvironments() {
+        log.info("Stream all environments, segments: {}", scanSegments);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(NdjsonStreaming.of(
+                        environmentRepository.streamAllEnvironments(scanSegments, PageRequests.STREAM_PAGE_SIZE),
+                        objectMapper));
+    }
+
+    @GetMapping("/environments/{name}")
+    @Operation(summary = "Get the environments with a name",
+               description = "Retrieves the environments with the given name of all users")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Environments retrieved successfully"),
+        @ApiResponse(responseCode = "403", description = "User is not an administrator"),
+        @ApiResponse(responseCode = "503", description = "The index of environments by name is still being built"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public List<Environment> getEnvironmentsByName(
+            @PathVariable("name")
+            @Parameter(description = "Name of the environment", example = "production", required = true)
+            String name) {
+        log.info("Get environments by name across users: {}", name);
+        try {
+            return environmentRepository.getByNameAcrossUsers(name);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+        }
+    }
+}
@@ -2,7 +2,8 @@ package com.ech.ff.featureflagmanager.controller;
 
 import com.ech.ff.featureflagmanager.controller.dto.GenerateApiKeyRequest;
 import com.ech.ff.featureflagmanager.dynamodb.entity.ApiKey;
-import com.ech.ff.featureflagmanager.dynamodb.repository.ApiKeyRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.AsyncApiKeyRepository;
+import com.ech.ff.featureflagmanager.security.apikey.ApiKeyVerifier;
 import com.ech.ff.featureflagmanager.security.dto.CognitoUser;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -27,6 +28,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * REST controller for managing API keys.
@@ -38,7 +40,8 @@ import java.util.UUID;
 @Tag(name = "API Keys", description = "API for managing API keys for environments")
 public class ApiKeysController {
 
-    private final ApiKeyRepository apiKeyRepository;
+    private final AsyncApiKeyRepository apiKeyRepository;
+    private final ApiKeyVerifier apiKeyVerifier;
 
     @PostMapping
     @Operation(summary = "Generate a new API key", 
@@ -49,7 +52,7 @@ public class ApiKeysController {
         @ApiResponse(responseCode = "400", description = "Invalid input data"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ApiKey generateKey(
+    public CompletableFuture<ApiKey> generateKey(
             @RequestBody 
             @io.swagger.v3.oas.annotations.parameters.RequestBody(
                 description = "Environment for which to generate the API key", 
@@ -64,8 +67,7 @@ public class ApiKeysController {
                 .active(true)
                 .userId(CognitoUser.fromJwt(jwt).getId())
                 .build();
-        apiKeyRepository.save(key);
-        return key;
+        return apiKeyRepository.save(key);
     }
 
     @GetMapping("/{envName}")
@@ -76,7 +78,7 @@ public class ApiKeysController {
         @ApiResponse(responseCode = "404", description = "Environment not found"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public List<ApiKey> getEnvKeys(
+    public CompletableFuture<List<ApiKey>> getEnvKeys(
             @PathVariable("envName") 
             @Parameter(description = "Name of the environment", example = "production", required = true)
             String envName,
@@ -95,14 +97,15 @@ public class ApiKeysController {
         @ApiResponse(responseCode = "404", description = "API key or environment not found"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public void deleteKey(
+    public CompletableFuture<Void> deleteKey(
             @PathVariable("key") 
             @Parameter(description = "API key to delete", example = "550e8400-e29b-41d4-a716-446655440000", required = true)
             String key,
             @PathVariable("env") 
             @Parameter(description = "Name of the environment", example = "production", required = true)
             String envName) {
-        log.info("Delete key key: {}, env: {}", key, envName);
-        apiKeyRepository.deleteKey(key, envName);
+        log.info("Delete key key: {}, env: {}", ApiKeyVerifier.fingerprint(key), envName);
+        return apiKeyRepository.deleteKey(key, envName)
+                .thenRun(() -> apiKeyVerifier.evict(key, envName));
     }
 }
@@ -0,0 +1,87 @@
+package com.ech.ff.featureflagmanager.controller;
+
+import com.ech.ff.featureflagmanager.controller.dto.PromotionDiff;
+import com.ech.ff.featureflagmanager.controller.dto.PromotionRequest;
+import com.ech.ff.featureflagmanager.dynamodb.repository.EnvironmentRepository;
+import com.ech.ff.featureflagmanager.job.Job;
+import com.ech.ff.featureflagmanager.promotion.EnvironmentPromotionService;
+import com.ech.ff.featureflagmanager.security.dto.CognitoUser;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+
+/**
+ * REST controller for promoting the feature flags of an environment to another environment.
+ */
+@RestController
+@RequestMapping("/env/promote")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Environments", description = "API for managing environments")
+public class EnvironmentPromotionController {
+
+    private final EnvironmentPromotionService promotionService;
+    private final EnvironmentRepository environmentRepository;
+
+    @PostMapping
+    @Operation(summary = "Promote feature flags to another environment",
+               description = "Copies the feature flags of the source environment to the target environment. "
+                       + "With dryRun, returns the changes the promotion would make. Otherwise starts the promotion "
+                       + "as a background job and returns it; poll the job at the Location header for progress. "
+                       + "Up to 100 changed flags are written in a single transaction, all or nothing. "
+                       + "Flags of the target with the same name that belong to another user are not copied")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Dry run, changes the promotion would make",
+                     content = @Content(schema = @Schema(implementation = PromotionDiff.class))),
+        @ApiResponse(responseCode = "202", description = "Promotion started",
+                     content = @Content(schema = @Schema(implementation = Job.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid input data"),
+        @ApiResponse(responseCode = "404", description = "Source or target environment not found"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<?> promote(
+            @RequestBody
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Source and target environments",
+                                                                 required = true,
+                                                                 content = @Content(schema = @Schema(implementation = PromotionRequest.class)))
+            PromotionRequest request,
+            @AuthenticationPrincipal Jwt authentication) {
+        if (request.getSourceEnv() == null || request.getTargetEnv() == null
+                || request.getSourceEnv().equals(request.getTargetEnv())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sourceEnv and targetEnv must be two different environments");
+        }
+        String userId = CognitoUser.fromJwt(authentication).getId();
+        requireEnvironment(userId, request.getSourceEnv());
+        requireEnvironment(userId, request.getTargetEnv());
+
+        if (request.isDryRun()) {
+            return ResponseEntity.ok(promotionService.diff(userId, request.getSourceEnv(), request.getTargetEnv()));
+        }
+        Job job = promotionService.promote(userId, request.getSourceEnv(), request.getTargetEnv());
+        return ResponseEntity.accepted()
+                .location(URI.create("/jobs/" + job.getId()))
+                .body(job);
+    }
+
+    private void requireEnvironment(String userId, String name) {
+        if (environmentRepository.getByName(userId, name).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Environment " + name + " not found");
+        }
+    }
+}
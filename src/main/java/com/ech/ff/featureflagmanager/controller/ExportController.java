@@ -0,0 +1,135 @@
+package com.ech.ff.featureflagmanager.controller;
+
+import com.ech.ff.featureflagmanager.controller.dto.ExportRequest;
+import com.ech.ff.featureflagmanager.controller.dto.ImportRequest;
+import com.ech.ff.featureflagmanager.export.TableExportService;
+import com.ech.ff.featureflagmanager.job.Job;
+import com.ech.ff.featureflagmanager.security.dto.CognitoUser;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+/**
+ * REST controller for exporting all tables to files on the server and importing them back.
+ * Restricted to the admin Cognito group.
+ */
+@RestController
+@RequestMapping("/admin/exports")
+@RequiredArgsConstructor
+@Tag(name = "Administration", description = "API for administration across all users")
+@Slf4j
+public class ExportController {
+
+    private final TableExportService exportService;
+
+    @PostMapping
+    @Operation(summary = "Export tables to files",
+               description = "Starts a background job that scans the tables with parallel segments and writes every "
+                       + "segment to its own file on the server, as NDJSON or in the compact binary format. "
+                       + "Progress is checkpointed after every page, so a failed export can be resumed. "
+                       + "Poll the job at the Location header; its result holds the export id")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Export started",
+                     content = @Content(schema = @Schema(implementation = Job.class))),
+        @ApiResponse(responseCode = "400", description = "Unknown table or invalid number of segments"),
+        @ApiResponse(responseCode = "403", description = "User is not an administrator"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<Job> export(
+            @RequestBody(required = false)
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Tables, format and segments, all optional",
+                                                                 content = @Content(schema = @Schema(implementation = ExportRequest.class)))
+            ExportRequest request,
+            @AuthenticationPrincipal Jwt authentication) {
+        ExportRequest export = request == null ? new ExportRequest() : request;
+        log.info("Export request: {}", export);
+        String userId = CognitoUser.fromJwt(authentication).getId();
+        return accepted(() -> exportService.startExport(userId, export.getTables(), export.getFormat(),
+                export.getSegments()));
+    }
+
+    @PostMapping("/{exportId}/resume")
+    @Operation(summary = "Resume an export",
+               description = "Starts a background job that continues a failed export from the last checkpoint "
+                       + "of every segment")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Export resumed",
+                     content = @Content(schema = @Schema(implementation = Job.class))),
+        @ApiResponse(responseCode = "403", description = "User is not an administrator"),
+        @ApiResponse(responseCode = "404", description = "Export not found"),
+        @ApiResponse(responseCode = "409", description = "Export is still running"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<Job> resume(
+            @PathVariable("exportId")
+            @Parameter(description = "Id of the export", required = true)
+            String exportId,
+            @AuthenticationPrincipal Jwt authentication) {
+        log.info("Resume export request: {}", exportId);
+        String userId = CognitoUser.fromJwt(authentication).getId();
+        return accepted(() -> exportService.resumeExport(userId, exportId));
+    }
+
+    @PostMapping("/{exportId}/import")
+    @Operation(summary = "Import an export",
+               description = "Starts a background job that writes the items of a complete export back to their tables "
+                       + "with parallel batched writes, replacing items with the same key")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Import started",
+                     content = @Content(schema = @Schema(implementation = Job.class))),
+        @ApiResponse(responseCode = "400", description = "Table is not part of the export"),
+        @ApiResponse(responseCode = "403", description = "User is not an administrator"),
+        @ApiResponse(responseCode = "404", description = "Export not found"),
+        @ApiResponse(responseCode = "409", description = "Export is not complete"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<Job> importExport(
+            @PathVariable("exportId")
+            @Parameter(description = "Id of the export", required = true)
+            String exportId,
+            @RequestBody(required = false)
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Tables to import, optional",
+                                                                 content = @Content(schema = @Schema(implementation = ImportRequest.class)))
+            ImportRequest request,
+            @AuthenticationPrincipal Jwt authentication) {
+        log.info("Import request: {}, {}", exportId, request);
+        String userId = CognitoUser.fromJwt(authentication).getId();
+        return accepted(() -> exportService.startImport(userId, exportId, request == null ? null : request.getTables()));
+    }
+
+    private static ResponseEntity<Job> accepted(Supplier<Job> start) {
+        Job job;
+        try {
+            job = start.get();
+        } catch (NoSuchElementException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage(), e);
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/jobs/" + job.getId()))
+                .body(job);
+    }
+}
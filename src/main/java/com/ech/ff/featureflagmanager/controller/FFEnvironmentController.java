@@ -1,9 +1,19 @@
 package com.ech.ff.featureflagmanager.controller;
 
+import com.ech.ff.featureflagmanager.controller.support.NdjsonStreaming;
+import com.ech.ff.featureflagmanager.controller.support.PageRequests;
+import com.ech.ff.featureflagmanager.controller.support.VersionedWrites;
 import com.ech.ff.featureflagmanager.dynamodb.entity.Environment;
+import com.ech.ff.featureflagmanager.dynamodb.repository.AsyncEnvironmentRepository;
+import com.ech.ff.featureflagmanager.deletion.EnvironmentDeletionService;
 import com.ech.ff.featureflagmanager.dynamodb.repository.EnvironmentRepository;
+import com.ech.ff.featureflagmanager.job.Job;
 import com.ech.ff.featureflagmanager.security.dto.CognitoUser;
+import com.ech.ff.featureflagmanager.snapshot.EnvironmentKey;
+import com.ech.ff.featureflagmanager.snapshot.FlagSnapshotService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -11,15 +21,28 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * REST controller for managing environments.
@@ -31,30 +54,67 @@ import java.util.List;
 @Slf4j
 public class FFEnvironmentController {
 
-    private final EnvironmentRepository environmentRepository;
+    private final AsyncEnvironmentRepository environmentRepository;
+    private final EnvironmentRepository environmentStreamRepository;
+    private final EnvironmentDeletionService environmentDeletionService;
+    private final FlagSnapshotService flagSnapshotService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     @Operation(summary = "Get all environments", 
-               description = "Retrieves a list of all available environments")
+               description = "Retrieves a list of all available environments. "
+                       + "When limit or cursor is given, returns a single page and the cursor of the next page "
+                       + "in the X-Next-Cursor header")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Environments retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid limit or cursor"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public List<Environment> getEnvironment(@AuthenticationPrincipal Jwt authentication) {
+    public CompletableFuture<ResponseEntity<List<Environment>>> getEnvironment(
+            @RequestParam(required = false)
+            @Parameter(description = "Maximum number of environments in the page", example = "100")
+            Integer limit,
+            @RequestParam(required = false)
+            @Parameter(description = "Cursor of the page to read, taken from the X-Next-Cursor header of the previous page")
+            String cursor,
+            @AuthenticationPrincipal Jwt authentication) {
+        CognitoUser user = CognitoUser.fromJwt(authentication);
+        if (limit != null || cursor != null) {
+            return environmentRepository.getUserEnvironmentsPage(user, PageRequests.pageSize(limit),
+                            PageRequests.startKey(cursor))
+                    .thenApply(PageRequests::toResponse);
+        }
+        return environmentRepository.getUserEnvironments(user).thenApply(ResponseEntity::ok);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all environments",
+               description = "Writes all environments as newline-delimited JSON while they are still being read")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Environments streamed successfully"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<StreamingResponseBody> streamEnvironments(@AuthenticationPrincipal Jwt authentication) {
         CognitoUser user = CognitoUser.fromJwt(authentication);
-        return environmentRepository.getUserEnvironments(user);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(NdjsonStreaming.of(
+                        environmentStreamRepository.streamUserEnvironments(user, PageRequests.STREAM_PAGE_SIZE),
+                        objectMapper));
     }
 
     @PostMapping
     @Operation(summary = "Create a new environment", 
-               description = "Creates a new environment with the provided details")
+               description = "Creates a new environment with the provided details at version 1. "
+                       + "The ETag of the response is the version to send in If-Match when updating the environment")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Environment created successfully",
                      content = @Content(schema = @Schema(implementation = Environment.class))),
         @ApiResponse(responseCode = "400", description = "Invalid input data"),
+        @ApiResponse(responseCode = "409", description = "An environment with this name already exists"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public Environment saveEnvironment(
+    public CompletableFuture<ResponseEntity<Environment>> saveEnvironment(
             @RequestBody 
             @io.swagger.v3.oas.annotations.parameters.RequestBody(
                 description = "Environment details", 
@@ -64,7 +124,82 @@ public class FFEnvironmentController {
             @AuthenticationPrincipal Jwt authentication) {
         environment.setUserId(CognitoUser.fromJwt(authentication).getId());
         log.info("Save environment: {}", environment);
-        environmentRepository.saveEnvironment(environment);
-        return environment;
+        return VersionedWrites.conflictOnRejectedWrite(environmentRepository.createEnvironment(environment),
+                        "Environment " + environment.getName() + " already exists")
+                .thenApply(saved -> ResponseEntity.ok().eTag(VersionedWrites.etag(saved.getVersion())).body(saved));
+    }
+
+    @PutMapping("/{name}")
+    @Operation(summary = "Update an environment",
+               description = "Replaces the details of an environment if it is still at the version given in If-Match, "
+                       + "which is the ETag returned when the environment was created or last updated, "
+                       + "or the quoted version of the environment. Environments created before versioning are at version 0")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Environment updated successfully",
+                     content = @Content(schema = @Schema(implementation = Environment.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid input data or If-Match header"),
+        @ApiResponse(responseCode = "409", description = "The environment does not exist or was changed since the given version"),
+        @ApiResponse(responseCode = "428", description = "If-Match header is missing"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public CompletableFuture<ResponseEntity<Environment>> updateEnvironment(
+            @PathVariable("name")
+            @Parameter(description = "Name of the environment", example = "production", required = true)
+            String name,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+            @Parameter(description = "ETag of the version of the environment the change is based on", example = "\"3\"")
+            String ifMatch,
+            @RequestBody
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                description = "New details of the environment, the name is taken from the path",
+                required = true,
+                content = @Content(schema = @Schema(implementation = Environment.class)))
+            Environment environment,
+            @AuthenticationPrincipal Jwt authentication) {
+        long expectedVersion = VersionedWrites.expectedVersion(ifMatch);
+        environment.setName(name);
+        environment.setUserId(CognitoUser.fromJwt(authentication).getId());
+        log.info("Update environment: {}, expected version: {}", environment, expectedVersion);
+        return VersionedWrites.conflictOnRejectedWrite(environmentRepository.updateEnvironment(environment, expectedVersion),
+                        "Environment " + name + " does not exist or is no longer at version " + expectedVersion)
+                .thenApply(saved -> ResponseEntity.ok().eTag(VersionedWrites.etag(saved.getVersion())).body(saved));
+    }
+
+    @DeleteMapping("/{name}")
+    @Operation(summary = "Delete an environment",
+               description = "Deletes an environment. Without cascade only the environment itself is deleted. "
+                       + "With cascade, starts a background job that deletes the feature flags and API keys "
+                       + "of the environment with rate-limited batched deletes and then the environment, "
+                       + "and returns it; poll the job at the Location header for progress")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Cascading deletion started",
+                     content = @Content(schema = @Schema(implementation = Job.class))),
+        @ApiResponse(responseCode = "204", description = "Environment deleted successfully"),
+        @ApiResponse(responseCode = "404", description = "Environment not found, cascading deletion only"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<Job> deleteEnvironment(
+            @PathVariable("name")
+            @Parameter(description = "Name of the environment", example = "staging", required = true)
+            String name,
+            @RequestParam(defaultValue = "false")
+            @Parameter(description = "Also delete the feature flags and API keys of the environment, "
+                    + "the result of the job is an EnvironmentDeletionResult")
+            boolean cascade,
+            @AuthenticationPrincipal Jwt authentication) {
+        String userId = CognitoUser.fromJwt(authentication).getId();
+        log.info("Delete environment: {}, cascade: {}", name, cascade);
+        if (!cascade) {
+            environmentStreamRepository.deleteEnvironment(userId, name);
+            flagSnapshotService.remove(new EnvironmentKey(userId, name));
+            return ResponseEntity.noContent().build();
+        }
+        if (environmentStreamRepository.getByName(userId, name).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Environment " + name + " not found");
+        }
+        Job job = environmentDeletionService.deleteCascade(userId, name);
+        return ResponseEntity.accepted()
+                .location(URI.create("/jobs/" + job.getId()))
+                .body(job);
     }
 }
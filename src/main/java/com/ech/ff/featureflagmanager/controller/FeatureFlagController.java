@@ -1,9 +1,23 @@
 package com.ech.ff.featureflagmanager.controller;
 
+import com.ech.ff.featureflagmanager.controller.dto.BatchDeleteFeatureFlagRequest;
+import com.ech.ff.featureflagmanager.controller.dto.BatchFeatureFlagRequest;
+import com.ech.ff.featureflagmanager.controller.dto.BatchWriteResponse;
 import com.ech.ff.featureflagmanager.controller.dto.FeatureFlagRequest;
+import com.ech.ff.featureflagmanager.controller.support.NdjsonStreaming;
+import com.ech.ff.featureflagmanager.controller.support.PageRequests;
+import com.ech.ff.featureflagmanager.controller.support.VersionedWrites;
 import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import com.ech.ff.featureflagmanager.dynamodb.repository.AsyncFeatureFlagRepository;
 import com.ech.ff.featureflagmanager.dynamodb.repository.FeatureFlagRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.DynamoDbRepository;
+import com.ech.ff.featureflagmanager.evaluation.FlagCompiler;
+import com.ech.ff.featureflagmanager.evaluation.InvalidFlagConfigException;
 import com.ech.ff.featureflagmanager.security.dto.CognitoUser;
+import com.ech.ff.featureflagmanager.snapshot.EnvironmentKey;
+import com.ech.ff.featureflagmanager.snapshot.EnvironmentSnapshot;
+import com.ech.ff.featureflagmanager.snapshot.FlagSnapshotService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,23 +27,34 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * REST controller for managing feature flags.
+ * DynamoDB calls are non-blocking; handlers return futures and release the request thread while waiting.
  */
 @RestController
 @RequestMapping("/env/ff")
@@ -38,18 +63,26 @@ import java.util.List;
 @Tag(name = "Feature Flags", description = "API for managing feature flags")
 public class FeatureFlagController {
 
-    private final FeatureFlagRepository featureFlagRepository;
+    /** Maximum number of feature flags looked up at once, all of them are read with a single BatchGetItem. */
+    static final int MAX_LOOKUP_NAMES = DynamoDbRepository.MAX_BATCH_GET_SIZE;
+
+    private final AsyncFeatureFlagRepository featureFlagRepository;
+    private final FeatureFlagRepository featureFlagBatchRepository;
+    private final FlagSnapshotService flagSnapshotService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @Operation(summary = "Create a new feature flag", 
-               description = "Creates a new feature flag with the provided details")
+               description = "Creates a new feature flag with the provided details at version 1. "
+                       + "The ETag of the response is the version to send in If-Match when updating the flag")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Feature flag created successfully",
                      content = @Content(schema = @Schema(implementation = FeatureFlag.class))),
-        @ApiResponse(responseCode = "400", description = "Invalid input data"),
+        @ApiResponse(responseCode = "400", description = "Invalid input data or feature flag config"),
+        @ApiResponse(responseCode = "409", description = "A feature flag with this name already exists in the environment"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public FeatureFlag createFeatureFlag(
+    public CompletableFuture<ResponseEntity<FeatureFlag>> createFeatureFlag(
             @RequestBody 
             @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Feature flag details", 
                                                                  required = true,
@@ -58,31 +91,155 @@ public class FeatureFlagController {
             @AuthenticationPrincipal Jwt authentication) {
         log.info("Create FeatureFlag: {}", featureFlag);
         CognitoUser user = CognitoUser.fromJwt(authentication);
-        FeatureFlag ff = FeatureFlag.builder()
-                .envName(featureFlag.getEnvName())
-                .featureName(featureFlag.getFeatureName())
-                .type(featureFlag.getType())
-                .config(featureFlag.getConfig())
-                .userId(user.getId())
-                .build();
-        featureFlagRepository.save(ff);
-        return ff;
+        FeatureFlag ff = toFeatureFlag(featureFlag, user);
+        return VersionedWrites.conflictOnRejectedWrite(featureFlagRepository.create(ff),
+                        "Feature flag " + ff.getFeatureName() + " already exists in environment " + ff.getEnvName())
+                .thenApply(saved -> {
+                    flagSnapshotService.markDirty(new EnvironmentKey(user.getId(), saved.getEnvName()));
+                    return ResponseEntity.ok().eTag(VersionedWrites.etag(saved.getVersion())).body(saved);
+                });
+    }
+
+    @PutMapping("/{envName}/{featureName}")
+    @Operation(summary = "Update a feature flag",
+               description = "Replaces the type and config of a feature flag if it is still at the version given in "
+                       + "If-Match, which is the ETag returned when the flag was created or last updated, "
+                       + "or the quoted version of the flag. Flags created before versioning are at version 0")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Feature flag updated successfully",
+                     content = @Content(schema = @Schema(implementation = FeatureFlag.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid input data, feature flag config or If-Match header"),
+        @ApiResponse(responseCode = "409", description = "The feature flag does not exist or was changed since the given version"),
+        @ApiResponse(responseCode = "428", description = "If-Match header is missing"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public CompletableFuture<ResponseEntity<FeatureFlag>> updateFeatureFlag(
+            @PathVariable("envName")
+            @Parameter(description = "Name of the environment", example = "production", required = true)
+            String envName,
+            @PathVariable("featureName")
+            @Parameter(description = "Name of the feature flag", example = "dark-mode", required = true)
+            String featureName,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+            @Parameter(description = "ETag of the version of the feature flag the change is based on", example = "\"3\"")
+            String ifMatch,
+            @RequestBody
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "New type and config of the feature flag, "
+                                                                         + "envName and featureName are taken from the path",
+                                                                 required = true,
+                                                                 content = @Content(schema = @Schema(implementation = FeatureFlagRequest.class)))
+            FeatureFlagRequest featureFlag,
+            @AuthenticationPrincipal Jwt authentication) {
+        long expectedVersion = VersionedWrites.expectedVersion(ifMatch);
+        log.info("Update FeatureFlag: {}, env: {}, expected version: {}", featureName, envName, expectedVersion);
+        CognitoUser user = CognitoUser.fromJwt(authentication);
+        featureFlag.setEnvName(envName);
+        featureFlag.setFeatureName(featureName);
+        FeatureFlag ff = toFeatureFlag(featureFlag, user);
+        return VersionedWrites.conflictOnRejectedWrite(featureFlagRepository.update(ff, expectedVersion),
+                        "Feature flag " + featureName + " does not exist or is no longer at version " + expectedVersion)
+                .thenApply(saved -> {
+                    flagSnapshotService.markDirty(new EnvironmentKey(user.getId(), envName));
+                    return ResponseEntity.ok().eTag(VersionedWrites.etag(saved.getVersion())).body(saved);
+                });
     }
 
     @GetMapping
     @Operation(summary = "Get feature flags by environment", 
-               description = "Retrieves all feature flags for a specific environment")
+               description = "Retrieves all feature flags for a specific environment. "
+                       + "Returns 304 Not Modified if the If-None-Match header matches the current ETag. "
+                       + "When limit or cursor is given, returns a single page and the cursor of the next page "
+                       + "in the X-Next-Cursor header")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Feature flags retrieved successfully"),
+        @ApiResponse(responseCode = "304", description = "Feature flags have not changed since the given ETag"),
+        @ApiResponse(responseCode = "400", description = "Invalid limit or cursor"),
         @ApiResponse(responseCode = "404", description = "Environment not found"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public List<FeatureFlag> getFeatureFlags(
+    public CompletableFuture<ResponseEntity<List<FeatureFlag>>> getFeatureFlags(
             @RequestParam 
             @Parameter(description = "Name of the environment", example = "production", required = true) 
             String envName,
+            @RequestParam(required = false)
+            @Parameter(description = "Maximum number of feature flags in the page", example = "100")
+            Integer limit,
+            @RequestParam(required = false)
+            @Parameter(description = "Cursor of the page to read, taken from the X-Next-Cursor header of the previous page")
+            String cursor,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+            @Parameter(description = "ETag of the feature flags the client already has")
+            String ifNoneMatch,
+            @AuthenticationPrincipal Jwt authentication) {
+        CognitoUser user = CognitoUser.fromJwt(authentication);
+        if (limit != null || cursor != null) {
+            return featureFlagRepository.getEnvFFPage(envName, user, PageRequests.pageSize(limit),
+                            PageRequests.startKey(cursor))
+                    .thenApply(PageRequests::toResponse);
+        }
+
+        EnvironmentKey key = new EnvironmentKey(user.getId(), envName);
+        Optional<EnvironmentSnapshot> cached = flagSnapshotService.getIfClean(key);
+        if (cached.isPresent() && cached.get().matchesEtag(ifNoneMatch)) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(cached.get().getEtag()).build());
+        }
+
+        return featureFlagRepository.getEnvFF(envName, user).thenApply(flags -> {
+            EnvironmentSnapshot snapshot = flagSnapshotService.offer(key, flags);
+            return ResponseEntity.ok().eTag(snapshot.getEtag()).body(flags);
+        });
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream feature flags by environment",
+               description = "Writes all feature flags of an environment as newline-delimited JSON "
+                       + "while they are still being read, without holding the whole list in memory")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Feature flags streamed successfully"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<StreamingResponseBody> streamFeatureFlags(
+            @RequestParam
+            @Parameter(description = "Name of the environment", example = "production", required = true)
+            String envName,
             @AuthenticationPrincipal Jwt authentication) {
-        return featureFlagRepository.getEnvFF(envName, CognitoUser.fromJwt(authentication));
+        String userId = CognitoUser.fromJwt(authentication).getId();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(NdjsonStreaming.of(
+                        featureFlagBatchRepository.streamEnvFF(envName, userId, PageRequests.STREAM_PAGE_SIZE),
+                        objectMapper));
+    }
+
+    @GetMapping("/lookup")
+    @Operation(summary = "Get feature flags by name",
+               description = "Retrieves up to 100 named feature flags of an environment in a single batched read")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Feature flags retrieved successfully, unknown names are left out"),
+        @ApiResponse(responseCode = "400", description = "No names or more than 100 names"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public CompletableFuture<List<FeatureFlag>> lookupFeatureFlags(
+            @RequestParam
+            @Parameter(description = "Name of the environment", example = "production", required = true)
+            String envName,
+            @RequestParam
+            @Parameter(description = "Names of the feature flags", example = "dark-mode,new-checkout", required = true)
+            List<String> names,
+            @AuthenticationPrincipal Jwt authentication) {
+        if (names.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At least one feature flag name is required");
+        }
+        if (names.size() > MAX_LOOKUP_NAMES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_LOOKUP_NAMES + " feature flags can be looked up at once");
+        }
+        String userId = CognitoUser.fromJwt(authentication).getId();
+        return featureFlagBatchRepository.getByNames(names, envName)
+                .thenApply(flags -> flags.stream()
+                        .filter(ff -> userId.equals(ff.getUserId()))
+                        .toList());
     }
 
     @DeleteMapping("/{envName}/{featureName}")
@@ -94,14 +251,111 @@ public class FeatureFlagController {
         @ApiResponse(responseCode = "404", description = "Feature flag or environment not found"),
         @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public void deleteFeatureFlag(
+    public CompletableFuture<Void> deleteFeatureFlag(
             @PathVariable("envName") 
             @Parameter(description = "Name of the environment", example = "production", required = true)
             String envName,
             @PathVariable("featureName") 
             @Parameter(description = "Name of the feature flag", example = "dark-mode", required = true)
-            String featureName) {
+            String featureName,
+            @AuthenticationPrincipal Jwt authentication) {
         log.info("Deleting feature flag: {}, env: {}", featureName, envName);
-        featureFlagRepository.deleteFF(featureName, envName);
+        EnvironmentKey key = new EnvironmentKey(CognitoUser.fromJwt(authentication).getId(), envName);
+        return featureFlagRepository.deleteFF(featureName, envName)
+                .thenRun(() -> flagSnapshotService.markDirty(key));
+    }
+
+    @RequestMapping(value = "/batch", method = {RequestMethod.POST, RequestMethod.PUT})
+    @Operation(summary = "Create or update feature flags in bulk",
+               description = "Writes many feature flags in transactions of up to 100 flags and reports the outcome "
+                       + "of every flag. POST and PUT both create or replace, and every written flag moves to "
+                       + "the version after the stored one, also under concurrent writes. Flags of other users "
+                       + "are not replaced and reported as failed")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Bulk write processed, see the status of every item",
+                     content = @Content(schema = @Schema(implementation = BatchWriteResponse.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid input data or feature flag config"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public CompletableFuture<BatchWriteResponse> saveFeatureFlags(
+            @RequestBody
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Feature flags to create or update",
+                                                                 required = true,
+                                                                 content = @Content(schema = @Schema(implementation = BatchFeatureFlagRequest.class)))
+            BatchFeatureFlagRequest request,
+            @AuthenticationPrincipal Jwt authentication) {
+        if (request.getFlags() == null || request.getFlags().isEmpty()
+                || request.getFlags().stream().anyMatch(ff -> ff.getEnvName() == null || ff.getFeatureName() == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Every feature flag needs an envName and a featureName");
+        }
+        log.info("Bulk save of {} feature flags", request.getFlags().size());
+        CognitoUser user = CognitoUser.fromJwt(authentication);
+        List<FeatureFlag> flags = request.getFlags().stream()
+                .map(featureFlag -> toFeatureFlag(featureFlag, user))
+                .toList();
+        return featureFlagBatchRepository.saveAll(flags).thenApply(results -> {
+            flags.stream()
+                    .map(FeatureFlag::getEnvName)
+                    .distinct()
+                    .forEach(envName -> flagSnapshotService.markDirty(new EnvironmentKey(user.getId(), envName)));
+            return BatchWriteResponse.from(results);
+        });
+    }
+
+    @PostMapping("/batch/delete")
+    @Operation(summary = "Delete feature flags in bulk",
+               description = "Deletes many feature flags of an environment with batched writes and reports the outcome "
+                       + "of every flag. Flags of other users are not deleted and reported as failed")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Bulk delete processed, see the status of every item",
+                     content = @Content(schema = @Schema(implementation = BatchWriteResponse.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid input data"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public CompletableFuture<BatchWriteResponse> deleteFeatureFlags(
+            @RequestBody
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Feature flags to delete",
+                                                                 required = true,
+                                                                 content = @Content(schema = @Schema(implementation = BatchDeleteFeatureFlagRequest.class)))
+            BatchDeleteFeatureFlagRequest request,
+            @AuthenticationPrincipal Jwt authentication) {
+        if (request.getEnvName() == null || request.getFeatureNames() == null || request.getFeatureNames().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "envName and featureNames are required");
+        }
+        log.info("Bulk delete of {} feature flags, env: {}", request.getFeatureNames().size(), request.getEnvName());
+        String userId = CognitoUser.fromJwt(authentication).getId();
+        EnvironmentKey key = new EnvironmentKey(userId, request.getEnvName());
+        return featureFlagBatchRepository.deleteAll(request.getFeatureNames(), request.getEnvName(), userId)
+                .thenApply(results -> {
+                    flagSnapshotService.markDirty(key);
+                    return BatchWriteResponse.from(results);
+                });
+    }
+
+    /**
+     * Build a feature flag from a request, validating its config by compiling it.
+     * The type is stored in its canonical upper-case form.
+     *
+     * @param featureFlag The requested feature flag
+     * @param user The owner of the feature flag
+     * @return The feature flag
+     * @throws ResponseStatusException with 400 if the type or config is invalid
+     */
+    private static FeatureFlag toFeatureFlag(FeatureFlagRequest featureFlag, CognitoUser user) {
+        try {
+            String type = FlagCompiler.compile(featureFlag.getFeatureName(), featureFlag.getType(), featureFlag.getConfig())
+                    .getType()
+                    .name();
+            return FeatureFlag.builder()
+                    .envName(featureFlag.getEnvName())
+                    .featureName(featureFlag.getFeatureName())
+                    .type(type)
+                    .config(featureFlag.getConfig())
+                    .userId(user.getId())
+                    .build();
+        } catch (InvalidFlagConfigException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Invalid feature flag " + featureFlag.getFeatureName() + ": " + e.getMessage(), e);
+        }
     }
 }
@@ -0,0 +1,51 @@
+package com.ech.ff.featureflagmanager.controller;
+
+import com.ech.ff.featureflagmanager.job.Job;
+import com.ech.ff.featureflagmanager.job.JobRegistry;
+import com.ech.ff.featureflagmanager.security.dto.CognitoUser;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * REST controller for following background jobs.
+ */
+@RestController
+@RequestMapping("/jobs")
+@RequiredArgsConstructor
+@Tag(name = "Jobs", description = "API for following background jobs")
+public class JobController {
+
+    private final JobRegistry jobRegistry;
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Get a background job",
+               description = "Returns the status and progress of a job started by the current user")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Job retrieved successfully",
+                     content = @Content(schema = @Schema(implementation = Job.class))),
+        @ApiResponse(responseCode = "404", description = "Job not found or expired"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public Job getJob(
+            @PathVariable("id")
+            @Parameter(description = "Id of the job", required = true)
+            String id,
+            @AuthenticationPrincipal Jwt authentication) {
+        return jobRegistry.get(id, CognitoUser.fromJwt(authentication).getId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Job " + id + " not found"));
+    }
+}
@@ -0,0 +1,298 @@
+package com.ech.ff.featureflagmanager.controller;
+
+import com.ech.ff.featureflagmanager.controller.dto.BulkEvaluationRequest;
+import com.ech.ff.featureflagmanager.controller.dto.EvaluationRequest;
+import com.ech.ff.featureflagmanager.controller.dto.EvaluationResponse;
+import com.ech.ff.featureflagmanager.controller.dto.FlagEvaluation;
+import com.ech.ff.featureflagmanager.controller.dto.SdkFeatureFlag;
+import com.ech.ff.featureflagmanager.controller.dto.SdkFlagsResponse;
+import com.ech.ff.featureflagmanager.dynamodb.entity.ApiKey;
+import com.ech.ff.featureflagmanager.evaluation.BinaryFlagSetEncoder;
+import com.ech.ff.featureflagmanager.evaluation.BulkEvaluator;
+import com.ech.ff.featureflagmanager.evaluation.CompiledFlag;
+import com.ech.ff.featureflagmanager.evaluation.EvaluationContext;
+import com.ech.ff.featureflagmanager.snapshot.BinarySnapshot;
+import com.ech.ff.featureflagmanager.snapshot.EnvironmentKey;
+import com.ech.ff.featureflagmanager.snapshot.EnvironmentSnapshot;
+import com.ech.ff.featureflagmanager.snapshot.FlagSnapshotService;
+import com.ech.ff.featureflagmanager.stream.FlagStreamService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * REST controller serving feature flags to SDK clients.
+ * Requests are authenticated with an environment API key and served from the in-memory snapshot.
+ */
+@RestController
+@RequestMapping("/sdk")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "SDK", description = "API for evaluating feature flags with an environment API key")
+public class SdkController {
+
+    private static final MediaType BINARY_FLAG_SET = MediaType.valueOf(BinaryFlagSetEncoder.MEDIA_TYPE);
+
+    private final FlagSnapshotService flagSnapshotService;
+    private final FlagStreamService flagStreamService;
+    private final BulkEvaluator bulkEvaluator;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping("/ff")
+    @Operation(summary = "Get feature flags of the API key environment",
+               description = "Retrieves all feature flags of the environment the API key belongs to. "
+                       + "Returns 304 Not Modified if the If-None-Match header matches the current ETag. "
+                       + "Clients accepting " + BinaryFlagSetEncoder.MEDIA_TYPE + " get the compiled flags in the compact "
+                       + "binary format instead of JSON, gzip-encoded if the Accept-Encoding header allows it")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Feature flags retrieved successfully",
+                     content = {
+                         @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                  schema = @Schema(implementation = SdkFlagsResponse.class)),
+                         @Content(mediaType = BinaryFlagSetEncoder.MEDIA_TYPE)
+                     }),
+        @ApiResponse(responseCode = "304", description = "Feature flags have not changed since the given ETag"),
+        @ApiResponse(responseCode = "401", description = "Missing or invalid API key"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<?> getFeatureFlags(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+            @Parameter(description = "ETag of the feature flags the client already has")
+            String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+            String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+            String acceptEncoding,
+            @AuthenticationPrincipal ApiKey apiKey) {
+        EnvironmentSnapshot snapshot = flagSnapshotService.getSnapshot(toEnvironmentKey(apiKey));
+        if (acceptsBinary(accept)) {
+            return binaryFeatureFlags(snapshot, ifNoneMatch, acceptsGzip(acceptEncoding));
+        }
+        if (snapshot.matchesEtag(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.getEtag())
+                    .varyBy(HttpHeaders.ACCEPT).build();
+        }
+        return ResponseEntity.ok().eTag(snapshot.getEtag()).varyBy(HttpHeaders.ACCEPT).body(snapshot.getSdkResponse());
+    }
+
+    /**
+     * Serve the shared binary encoding of a snapshot, gzip-encoded when the client accepts it.
+     */
+    private static ResponseEntity<byte[]> binaryFeatureFlags(EnvironmentSnapshot snapshot, String ifNoneMatch,
+                                                             boolean gzip) {
+        BinarySnapshot binary = snapshot.getBinarySnapshot();
+        String etag = gzip ? binary.getGzipEtag() : binary.getEtag();
+        if (EnvironmentSnapshot.matchesEtag(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag)
+                    .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING).build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(BINARY_FLAG_SET)
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(binary.getGzipBytes());
+        }
+        return response.body(binary.getBytes());
+    }
+
+    private static boolean acceptsBinary(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        try {
+            return MediaType.parseMediaTypes(accept).stream()
+                    .anyMatch(mediaType -> mediaType.getQualityValue() > 0 && BINARY_FLAG_SET.equalsTypeAndSubtype(mediaType));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Check whether an {@code Accept-Encoding} header accepts gzip, i.e. lists it without {@code q=0}.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("(?i)q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    @GetMapping("/ff/{featureName}")
+    @Operation(summary = "Get a feature flag of the API key environment",
+               description = "Retrieves a single feature flag of the environment the API key belongs to")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Feature flag retrieved successfully",
+                     content = @Content(schema = @Schema(implementation = SdkFeatureFlag.class))),
+        @ApiResponse(responseCode = "401", description = "Missing or invalid API key"),
+        @ApiResponse(responseCode = "404", description = "Feature flag not found"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public SdkFeatureFlag getFeatureFlag(
+            @PathVariable("featureName")
+            @Parameter(description = "Name of the feature flag", example = "dark-mode", required = true)
+            String featureName,
+            @AuthenticationPrincipal ApiKey apiKey) {
+        return flagSnapshotService.getSnapshot(toEnvironmentKey(apiKey)).getFlag(featureName)
+                .map(ff -> new SdkFeatureFlag(ff.getFeatureName(), ff.getType(), ff.getConfig()))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Feature flag not found"));
+    }
+
+    @PostMapping("/evaluate")
+    @Operation(summary = "Evaluate feature flags of the API key environment",
+               description = "Evaluates the requested feature flags, or all flags of the environment, "
+                       + "against the given user context with the compiled rules of the current snapshot")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Feature flags evaluated successfully",
+                     content = @Content(schema = @Schema(implementation = EvaluationResponse.class))),
+        @ApiResponse(responseCode = "401", description = "Missing or invalid API key"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public EvaluationResponse evaluateFeatureFlags(
+            @RequestBody
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "User context and feature flags to evaluate",
+                                                                 required = true,
+                                                                 content = @Content(schema = @Schema(implementation = EvaluationRequest.class)))
+            EvaluationRequest request,
+            @AuthenticationPrincipal ApiKey apiKey) {
+        EnvironmentSnapshot snapshot = flagSnapshotService.getSnapshot(toEnvironmentKey(apiKey));
+        EvaluationContext context = new EvaluationContext(request.getUserKey(), request.getAttributes());
+        List<FlagEvaluation> evaluations = request.getFlags() == null || request.getFlags().isEmpty()
+                ? snapshot.getCompiledFlags().stream()
+                        .map(compiled -> FlagEvaluation.from(compiled.evaluate(context)))
+                        .toList()
+                : request.getFlags().stream()
+                        .map(name -> FlagEvaluation.from(snapshot.evaluate(name, context)))
+                        .toList();
+        return new EvaluationResponse(apiKey.getEnvName(), snapshot.getVersion(), evaluations);
+    }
+
+    @PostMapping(value = "/evaluate/bulk", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Evaluate feature flags of the API key environment for many user contexts",
+               description = "Evaluates the requested feature flags, or all flags of the environment, for every user context "
+                       + "in parallel and streams the result matrix as newline-delimited JSON. The first line holds the "
+                       + "environment, the snapshot version, the evaluated flags with their variants and the requested "
+                       + "flags that are not in the environment under notFound; every following line is "
+                       + "[userKey, [variant per flag]] in the order of the contexts and evaluated flags")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Feature flags evaluated successfully"),
+        @ApiResponse(responseCode = "400", description = "No or too many user contexts"),
+        @ApiResponse(responseCode = "401", description = "Missing or invalid API key"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<StreamingResponseBody> evaluateFeatureFlagsBulk(
+            @RequestBody
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "User contexts and feature flags to evaluate",
+                                                                 required = true,
+                                                                 content = @Content(schema = @Schema(implementation = BulkEvaluationRequest.class)))
+            BulkEvaluationRequest request,
+            @AuthenticationPrincipal ApiKey apiKey) {
+        if (request.getContexts() == null || request.getContexts().isEmpty()
+                || request.getContexts().size() > bulkEvaluator.getMaxContexts()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Between 1 and " + bulkEvaluator.getMaxContexts() + " user contexts are required");
+        }
+        log.info("Bulk evaluation request: env: {}, contexts: {}", apiKey.getEnvName(), request.getContexts().size());
+        EnvironmentSnapshot snapshot = flagSnapshotService.getSnapshot(toEnvironmentKey(apiKey));
+        List<CompiledFlag> flags = new ArrayList<>();
+        List<String> notFound = new ArrayList<>();
+        if (request.getFlags() == null || request.getFlags().isEmpty()) {
+            flags.addAll(snapshot.getCompiledFlags());
+        } else {
+            for (String name : request.getFlags()) {
+                snapshot.getCompiledFlag(name).ifPresentOrElse(flags::add, () -> notFound.add(name));
+            }
+        }
+        List<EvaluationContext> contexts = request.getContexts().stream()
+                .map(context -> new EvaluationContext(context.getUserKey(), context.getAttributes()))
+                .toList();
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(outputStream -> {
+                    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                        // Lines are separated explicitly with a newline instead of the default space
+                        generator.setRootValueSeparator(null);
+                        generator.writeStartObject();
+                        generator.writeStringField("envName", apiKey.getEnvName());
+                        generator.writeNumberField("version", snapshot.getVersion());
+                        generator.writeArrayFieldStart("flags");
+                        for (CompiledFlag flag : flags) {
+                            generator.writeStartObject();
+                            generator.writeStringField("featureName", flag.getName());
+                            generator.writeObjectField("variants", flag.getVariants());
+                            generator.writeEndObject();
+                        }
+                        generator.writeEndArray();
+                        generator.writeArrayFieldStart("notFound");
+                        for (String name : notFound) {
+                            generator.writeString(name);
+                        }
+                        generator.writeEndArray();
+                        generator.writeEndObject();
+                        generator.writeRaw('\n');
+
+                        bulkEvaluator.evaluate(flags, contexts, (from, variants, rows) -> {
+                            for (int row = 0; row < rows; row++) {
+                                generator.writeStartArray();
+                                generator.writeString(contexts.get(from + row).userKey());
+                                generator.writeArray(variants[row], 0, variants[row].length);
+                                generator.writeEndArray();
+                                generator.writeRaw('\n');
+                            }
+                            generator.flush();
+                        });
+                    }
+                });
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream feature flag changes of the API key environment",
+               description = "Sends a 'snapshot' event with all feature flags on connect and a 'delta' event for every change")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Stream opened successfully"),
+        @ApiResponse(responseCode = "401", description = "Missing or invalid API key"),
+        @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public SseEmitter streamFeatureFlags(@AuthenticationPrincipal ApiKey apiKey) {
+        log.info("Stream feature flags request: env: {}", apiKey.getEnvName());
+        return flagStreamService.subscribe(toEnvironmentKey(apiKey));
+    }
+
+    private static EnvironmentKey toEnvironmentKey(ApiKey apiKey) {
+        return new EnvironmentKey(apiKey.getUserId(), apiKey.getEnvName());
+    }
+}
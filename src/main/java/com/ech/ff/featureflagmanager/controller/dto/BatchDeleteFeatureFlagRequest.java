@@ -0,0 +1,24 @@
+package com.ech.ff.featureflagmanager.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request DTO for deleting many feature flags of an environment at once.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Request object for deleting feature flags in bulk")
+public class BatchDeleteFeatureFlagRequest {
+
+    @Schema(description = "Name of the environment", example = "production", required = true)
+    private String envName;
+
+    @Schema(description = "Names of the feature flags to delete", example = "[\"dark-mode\", \"new-checkout\"]", required = true)
+    private List<String> featureNames;
+}
@@ -0,0 +1,21 @@
+package com.ech.ff.featureflagmanager.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request DTO for creating or updating many feature flags at once.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Request object for creating or updating feature flags in bulk")
+public class BatchFeatureFlagRequest {
+
+    @Schema(description = "Feature flags to create or update", required = true)
+    private List<FeatureFlagRequest> flags;
+}
@@ -0,0 +1,31 @@
+package com.ech.ff.featureflagmanager.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a single feature flag of a bulk operation.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Outcome of a single feature flag of a bulk operation")
+public class BatchItemStatus {
+
+    @Schema(description = "Name of the environment", example = "production")
+    private String envName;
+
+    @Schema(description = "Name of the feature", example = "dark-mode")
+    private String featureName;
+
+    @Schema(description = "Operation performed on the feature flag", example = "PUT")
+    private String operation;
+
+    @Schema(description = "Outcome of the operation", example = "SUCCEEDED")
+    private String status;
+
+    @Schema(description = "Error details if the operation did not succeed")
+    private String message;
+}
@@ -0,0 +1,51 @@
+package com.ech.ff.featureflagmanager.controller.dto;
+
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.BatchWriteItemResult;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+
+/**
+ * Response DTO of a bulk feature flag operation.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Outcome of a bulk feature flag operation")
+public class BatchWriteResponse {
+
+    @Schema(description = "Number of feature flags written successfully", example = "250")
+    private int succeeded;
+
+    @Schema(description = "Number of feature flags that were not written", example = "0")
+    private int failed;
+
+    @Schema(description = "Outcome of every feature flag")
+    private List<BatchItemStatus> items;
+
+    /**
+     * Build the response from the outcomes of a batch write of feature flags.
+     *
+     * @param results The outcome of every item
+     * @return The response
+     */
+    public static BatchWriteResponse from(List<BatchWriteItemResult> results) {
+        List<BatchItemStatus> items = results.stream()
+                .map(result -> new BatchItemStatus(
+                        result.getKey().partitionKeyValue().s(),
+                        result.getKey().sortKeyValue().map(AttributeValue::s).orElse(null),
+                        result.getOperation().name(),
+                        result.getStatus().name(),
+                        result.getMessage()))
+                .toList();
+        int succeeded = (int) results.stream()
+                .filter(result -> result.getStatus() == BatchWriteItemResult.Status.SUCCEEDED)
+                .count();
+        return new BatchWriteResponse(succeeded, results.size() - succeeded, items);
+    }
+}
@@ -0,0 +1,26 @@
+package com.ech.ff.featureflagmanager.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request DTO for evaluating feature flags for many user contexts at once.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Request object for evaluating feature flags for many user contexts at once")
+public class BulkEvaluationRequest {
+
+    @Schema(description = "User contexts to evaluate the feature flags for", required = true)
+    private List<UserContext> contexts;
+
+    @Schema(description = "Names of the feature flags to evaluate, all flags of the environment if empty; "
+           + "names that are not in the environment are listed under notFound in the first line",
+           example = "[\"dark-mode\", \"checkout-flow\"]")
+    private List<String> flags;
+}
@@ -0,0 +1,25 @@
+package com.ech.ff.featureflagmanager.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Items removed by the cascading deletion of an environment.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Items removed by the cascading deletion of an environment")
+public class EnvironmentDeletionResult {
+
+    @Schema(description = "Name of the deleted environment", example = "staging")
+    private String envName;
+
+    @Schema(description = "Number of deleted feature flags", example = "1200")
+    private long deletedFlags;
+
+    @Schema(description = "Number of deleted API keys", example = "3")
+    private long deletedApiKeys;
+}
@@ -0,0 +1,29 @@
+package com.ech.ff.featureflagmanager.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Request DTO for evaluating feature flags against a user context.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Request object for evaluating feature flags against a user context")
+public class EvaluationRequest {
+
+    @Schema(description = "Stable key of the user, used for user targeting and percentage rollouts", example = "user-42")
+    private String userKey;
+
+    @Schema(description = "Attributes of the user used by attribute targeting", example = "{\"country\": \"DE\", \"plan\": \"pro\"}")
+    private Map<String, String> attributes;
+
+    @Schema(description = "Names of the feature flags to evaluate, all flags of the environment if empty",
+           example = "[\"dark-mode\", \"checkout-flow\"]")
+    private List<String> flags;
+}
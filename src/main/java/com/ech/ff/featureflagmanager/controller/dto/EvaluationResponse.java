@@ -0,0 +1,27 @@
+package com.ech.ff.featureflagmanager.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO with the evaluated feature flags of an environment.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Feature flags of an environment evaluated against a user context")
+public class EvaluationResponse {
+
+    @Schema(description = "Name of the environment", example = "production")
+    private String envName;
+
+    @Schema(description = "Version of the environment snapshot the flags were evaluated with", example = "42")
+    private long version;
+
+    @Schema(description = "Outcome of every evaluated feature flag")
+    private List<FlagEvaluation> evaluations;
+}
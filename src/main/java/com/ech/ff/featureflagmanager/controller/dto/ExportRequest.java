@@ -0,0 +1,28 @@
+package com.ech.ff.featureflagmanager.controller.dto;
+
+import com.ech.ff.featureflagmanager.export.ExportFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request to export tables to files.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Request to export tables to files")
+public class ExportRequest {
+
+    @Schema(description = "Tables to export, all tables if empty", example = "[\"FeatureFlag\", \"Environment\", \"EnvApiKey\"]")
+    private List<String> tables;
+
+    @Schema(description = "File format, NDJSON if not set", example = "NDJSON")
+    private ExportFormat format;
+
+    @Schema(description = "Number of scan segments read in parallel per table, ff.export.segments if not set", example = "4")
+    private Integer segments;
+}
@@ -17,13 +17,14 @@ public class FeatureFlagRequest {
     @Schema(description = "Name of the environment", example = "production", required = true)
     private String envName;
 
-    @Schema(description = "Type of the feature flag", example = "BOOLEAN", required = true)
+    @Schema(description = "Type of the feature flag", example = "BOOLEAN", allowableValues = {"BOOLEAN", "PERCENTAGE_ROLLOUT", "MULTIVARIATE"},
+            required = true)
     private String type;
 
     @Schema(description = "Name of the feature", example = "dark-mode", required = true)
     private String featureName;
 
-    @Schema(description = "Configuration for the feature flag in JSON format", 
-           example = "{\"enabled\": true, \"rolloutPercentage\": 100}")
+    @Schema(description = "Configuration for the feature flag in JSON format, validated against the type",
+           example = "{\"enabled\": true, \"rolloutPercentage\": 100}", required = true)
     private String config;
 }
@@ -0,0 +1,45 @@
+package com.ech.ff.featureflagmanager.controller.dto;
+
+import com.ech.ff.featureflagmanager.evaluation.Evaluation;
+import com.ech.ff.featureflagmanager.evaluation.EvaluationReason;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of evaluating a feature flag for SDK clients.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Outcome of evaluating a feature flag")
+public class FlagEvaluation {
+
+    @Schema(description = "Name of the feature", example = "dark-mode")
+    private String featureName;
+
+    @Schema(description = "Name of the served variant", example = "on")
+    private String variant;
+
+    @Schema(description = "Value of the served variant", example = "true")
+    private JsonNode value;
+
+    @Schema(description = "Why the variant was served", example = "RULE_MATCH")
+    private EvaluationReason reason;
+
+    @Schema(description = "Index of the matching rule for RULE_MATCH", example = "0")
+    private Integer ruleIndex;
+
+    /**
+     * Build the DTO from the outcome of an evaluation.
+     *
+     * @param evaluation The outcome of the evaluation
+     * @return The DTO
+     */
+    public static FlagEvaluation from(Evaluation evaluation) {
+        return new FlagEvaluation(evaluation.flagName(), evaluation.variant(), evaluation.value(), evaluation.reason(),
+                evaluation.ruleIndex() < 0 ? null : evaluation.ruleIndex());
+    }
+}
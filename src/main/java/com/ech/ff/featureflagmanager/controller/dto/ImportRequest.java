@@ -0,0 +1,21 @@
+package com.ech.ff.featureflagmanager.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request to import an export back into its tables.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Request to import an export back into its tables")
+public class ImportRequest {
+
+    @Schema(description = "Tables to import, all exported tables if empty", example = "[\"FeatureFlag\"]")
+    private List<String> tables;
+}
@@ -0,0 +1,40 @@
+package com.ech.ff.featureflagmanager.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Changes a promotion makes to the target environment.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Changes a promotion makes to the target environment")
+public class PromotionDiff {
+
+    @Schema(description = "Name of the source environment", example = "staging")
+    private String sourceEnv;
+
+    @Schema(description = "Name of the target environment", example = "production")
+    private String targetEnv;
+
+    @Schema(description = "Feature flags that are created in the target", example = "[\"new-checkout\"]")
+    private List<String> created;
+
+    @Schema(description = "Feature flags of the target whose type or config is replaced", example = "[\"dark-mode\"]")
+    private List<String> updated;
+
+    @Schema(description = "Number of feature flags that are the same in both environments", example = "42")
+    private int unchanged;
+
+    @Schema(description = "Feature flags that exist only in the target, they are kept as they are", example = "[\"legacy-banner\"]")
+    private List<String> onlyInTarget;
+
+    @Schema(description = "Feature flags of the target with the same name that belong to another user, they are not copied",
+            example = "[\"beta-banner\"]")
+    private List<String> ownedByOtherUsers;
+}
@@ -0,0 +1,25 @@
+package com.ech.ff.featureflagmanager.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request DTO for copying the feature flags of an environment to another environment.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Request object for promoting the feature flags of an environment to another environment")
+public class PromotionRequest {
+
+    @Schema(description = "Name of the environment to copy the feature flags from", example = "staging", required = true)
+    private String sourceEnv;
+
+    @Schema(description = "Name of the environment to copy the feature flags to", example = "production", required = true)
+    private String targetEnv;
+
+    @Schema(description = "Only report the changes the promotion would make, without writing them", example = "true")
+    private boolean dryRun;
+}
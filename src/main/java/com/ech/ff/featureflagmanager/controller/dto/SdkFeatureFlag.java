@@ -0,0 +1,26 @@
+package com.ech.ff.featureflagmanager.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Feature flag as exposed to SDK clients.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Feature flag as served to SDK clients")
+public class SdkFeatureFlag {
+
+    @Schema(description = "Name of the feature", example = "dark-mode")
+    private String featureName;
+
+    @Schema(description = "Type of the feature flag", example = "BOOLEAN")
+    private String type;
+
+    @Schema(description = "Configuration for the feature flag in JSON format",
+           example = "{\"enabled\": true, \"rolloutPercentage\": 100}")
+    private String config;
+}
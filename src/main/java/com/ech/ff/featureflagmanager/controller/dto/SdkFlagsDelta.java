@@ -0,0 +1,33 @@
+package com.ech.ff.featureflagmanager.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Changes between two versions of the feature flags of an environment.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Changes of the feature flags of an environment since the previous version")
+public class SdkFlagsDelta {
+
+    @Schema(description = "Name of the environment", example = "production")
+    private String envName;
+
+    @Schema(description = "Version the delta applies to", example = "41")
+    private long previousVersion;
+
+    @Schema(description = "Version after applying the delta", example = "42")
+    private long version;
+
+    @Schema(description = "Feature flags that were created or changed")
+    private List<SdkFeatureFlag> upserted;
+
+    @Schema(description = "Names of the feature flags that were deleted")
+    private List<String> removed;
+}
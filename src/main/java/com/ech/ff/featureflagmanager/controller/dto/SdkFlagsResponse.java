@@ -0,0 +1,27 @@
+package com.ech.ff.featureflagmanager.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO with all feature flags of an environment for SDK clients.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Feature flags of an environment as served to SDK clients")
+public class SdkFlagsResponse {
+
+    @Schema(description = "Name of the environment", example = "production")
+    private String envName;
+
+    @Schema(description = "Version of the environment snapshot the flags were served from", example = "42")
+    private long version;
+
+    @Schema(description = "Feature flags of the environment")
+    private List<SdkFeatureFlag> flags;
+}
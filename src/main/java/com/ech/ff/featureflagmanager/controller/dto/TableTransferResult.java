@@ -0,0 +1,27 @@
+package com.ech.ff.featureflagmanager.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Items exported to or imported from the files of an export.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Items exported to or imported from the files of an export")
+public class TableTransferResult {
+
+    @Schema(description = "Id of the export", example = "9d3c1f0e-6a1b-4c55-8f0e-2b7f3a9c4d21")
+    private String exportId;
+
+    @Schema(description = "Directory of the export files on the server", example = "exports/9d3c1f0e-6a1b-4c55-8f0e-2b7f3a9c4d21")
+    private String directory;
+
+    @Schema(description = "Number of items per table", example = "{\"FeatureFlag\": 1200, \"Environment\": 40}")
+    private Map<String, Long> itemsByTable;
+}
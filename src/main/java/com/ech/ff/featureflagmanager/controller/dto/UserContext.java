@@ -0,0 +1,24 @@
+package com.ech.ff.featureflagmanager.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * User context feature flags are evaluated against.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "User context feature flags are evaluated against")
+public class UserContext {
+
+    @Schema(description = "Stable key of the user, used for user targeting and percentage rollouts", example = "user-42")
+    private String userKey;
+
+    @Schema(description = "Attributes of the user used by attribute targeting", example = "{\"country\": \"DE\", \"plan\": \"pro\"}")
+    private Map<String, String> attributes;
+}
@@ -0,0 +1,47 @@
+package com.ech.ff.featureflagmanager.controller.support;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes paged query results as newline-delimited JSON while the pages are still being fetched.
+ * The response is flushed after every page, so the client receives the first items as soon as
+ * DynamoDB returns the first page and the server never holds more than one page in memory.
+ */
+public final class NdjsonStreaming {
+
+    private NdjsonStreaming() {
+    }
+
+    /**
+     * Create a streaming response body from a lazy stream of pages.
+     *
+     * @param pages The pages, fetched lazily while the response is written
+     * @param objectMapper The mapper to serialize the items with
+     * @return The response body
+     */
+    public static StreamingResponseBody of(Stream<? extends List<?>> pages, ObjectMapper objectMapper) {
+        ObjectWriter writer = objectMapper.writer();
+        return outputStream -> {
+            try (pages) {
+                pages.forEach(page -> {
+                    try {
+                        for (Object item : page) {
+                            outputStream.write(writer.writeValueAsBytes(item));
+                            outputStream.write('\n');
+                        }
+                        outputStream.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+    }
+}
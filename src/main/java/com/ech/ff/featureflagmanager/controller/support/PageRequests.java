@@ -0,0 +1,78 @@
+package com.ech.ff.featureflagmanager.controller.support;
+
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.PageCursor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Helpers for cursor-paginated list endpoints.
+ * The page items are returned as the response body and the cursor of the next page in the
+ * {@value #NEXT_CURSOR_HEADER} header, which is absent on the last page.
+ */
+public final class PageRequests {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int STREAM_PAGE_SIZE = 500;
+
+    private PageRequests() {
+    }
+
+    /**
+     * Validate the requested page size.
+     *
+     * @param limit The requested page size, can be null for the default
+     * @return The page size
+     * @throws ResponseStatusException with 400 if the page size is out of range
+     */
+    public static int pageSize(Integer limit) {
+        if (limit == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+
+    /**
+     * Decode the cursor sent by the client.
+     *
+     * @param cursor The cursor, can be null for the first page
+     * @return The exclusive start key, or null for the first page
+     * @throws ResponseStatusException with 400 if the cursor is malformed
+     */
+    public static Map<String, AttributeValue> startKey(String cursor) {
+        try {
+            return PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+    }
+
+    /**
+     * Build the response for a page.
+     *
+     * @param page The page, can be null if there were no more items
+     * @param <T> The item type
+     * @return The response with the page items and the next cursor header
+     */
+    public static <T> ResponseEntity<List<T>> toResponse(Page<T> page) {
+        if (page == null) {
+            return ResponseEntity.ok(List.of());
+        }
+        String nextCursor = PageCursor.encode(page.lastEvaluatedKey());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(page.items());
+    }
+}
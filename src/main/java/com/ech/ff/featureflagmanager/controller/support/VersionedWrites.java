@@ -0,0 +1,79 @@
+package com.ech.ff.featureflagmanager.controller.support;
+
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.ConditionalWriteException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Helpers for endpoints that update versioned items.
+ * The ETag of an item is its quoted version, so clients send back the ETag they read in {@code If-Match}
+ * and the version check is done by the conditional write itself, without reading the item first.
+ */
+public final class VersionedWrites {
+
+    private VersionedWrites() {
+    }
+
+    /**
+     * Build the ETag of a version.
+     *
+     * @param version The version, can be null for items written before versioning
+     * @return The quoted ETag
+     */
+    public static String etag(Long version) {
+        return "\"" + (version == null ? 0 : version) + "\"";
+    }
+
+    /**
+     * Read the expected version from an {@code If-Match} header.
+     *
+     * @param ifMatch The header value, can be null
+     * @return The expected version
+     * @throws ResponseStatusException with 428 if the header is missing, 400 if it is not a single version ETag
+     */
+    public static long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_REQUIRED,
+                    "If-Match with the ETag of the item is required");
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            long version = Long.parseLong(tag);
+            if (version >= 0) {
+                return version;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "If-Match must be a single ETag of the item");
+    }
+
+    /**
+     * Turn a rejected conditional write into a 409 Conflict response.
+     *
+     * @param future The future of the write
+     * @param message The message of the response
+     * @param <T> The result type of the write
+     * @return A future failing with {@link ResponseStatusException} if the condition of the write was not met
+     */
+    public static <T> CompletableFuture<T> conflictOnRejectedWrite(CompletableFuture<T> future, String message) {
+        return future.exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof ConditionalWriteException) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, message, cause);
+            }
+            throw e instanceof CompletionException completionException
+                    ? completionException
+                    : new CompletionException(cause);
+        });
+    }
+}
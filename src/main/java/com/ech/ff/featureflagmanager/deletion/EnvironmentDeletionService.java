@@ -0,0 +1,147 @@
+package com.ech.ff.featureflagmanager.deletion;
+
+import com.ech.ff.featureflagmanager.controller.dto.EnvironmentDeletionResult;
+import com.ech.ff.featureflagmanager.dynamodb.entity.ApiKey;
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import com.ech.ff.featureflagmanager.dynamodb.repository.ApiKeyRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.EnvironmentRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.FeatureFlagRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.BatchWriteItemResult;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.RateLimiter;
+import com.ech.ff.featureflagmanager.job.Job;
+import com.ech.ff.featureflagmanager.job.JobRegistry;
+import com.ech.ff.featureflagmanager.security.apikey.ApiKeyVerifier;
+import com.ech.ff.featureflagmanager.snapshot.EnvironmentKey;
+import com.ech.ff.featureflagmanager.snapshot.FlagSnapshotService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Deletes an environment together with its feature flags and API keys.
+ * <p>
+ * The children are read page by page with paginated queries and every page is removed with parallel
+ * batched deletes. All deletes of a job share a rate limiter, so a large environment is removed at a steady
+ * pace instead of consuming the write capacity of the tables at once. The environment itself is deleted
+ * last, only when all of its children are gone: a failed job leaves the environment in place, and running
+ * the deletion again removes what is left.
+ */
+@Service
+@Slf4j
+public class EnvironmentDeletionService {
+
+    public static final String JOB_TYPE = "DELETE_ENVIRONMENT";
+
+    static final int READ_PAGE_SIZE = 500;
+
+    private final FeatureFlagRepository featureFlagRepository;
+    private final ApiKeyRepository apiKeyRepository;
+    private final EnvironmentRepository environmentRepository;
+    private final ApiKeyVerifier apiKeyVerifier;
+    private final FlagSnapshotService flagSnapshotService;
+    private final JobRegistry jobRegistry;
+    private final double itemsPerSecond;
+    private final int parallelism;
+
+    public EnvironmentDeletionService(FeatureFlagRepository featureFlagRepository,
+                                      ApiKeyRepository apiKeyRepository,
+                                      EnvironmentRepository environmentRepository,
+                                      ApiKeyVerifier apiKeyVerifier,
+                                      FlagSnapshotService flagSnapshotService,
+                                      JobRegistry jobRegistry,
+                                      @Value("${ff.jobs.cascade-delete.items-per-second:500}") double itemsPerSecond,
+                                      @Value("${ff.jobs.cascade-delete.parallelism:4}") int parallelism) {
+        // Checked here, so a bad setting fails the startup instead of every deletion job
+        if (!(itemsPerSecond > 0)) {
+            throw new IllegalArgumentException("ff.jobs.cascade-delete.items-per-second must be positive");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("ff.jobs.cascade-delete.parallelism must be positive");
+        }
+        this.featureFlagRepository = featureFlagRepository;
+        this.apiKeyRepository = apiKeyRepository;
+        this.environmentRepository = environmentRepository;
+        this.apiKeyVerifier = apiKeyVerifier;
+        this.flagSnapshotService = flagSnapshotService;
+        this.jobRegistry = jobRegistry;
+        this.itemsPerSecond = itemsPerSecond;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Start the deletion of an environment and its children in the background.
+     *
+     * @param userId The id of the owner of the environment
+     * @param envName The environment name
+     * @return The job of the deletion, its result is the {@link EnvironmentDeletionResult}
+     */
+    public Job deleteCascade(String userId, String envName) {
+        log.info("Deleting environment with its children: {}, user: {}", envName, userId);
+        return jobRegistry.submit(JOB_TYPE, userId, job -> run(job, userId, envName));
+    }
+
+    private EnvironmentDeletionResult run(Job job, String userId, String envName) {
+        RateLimiter rateLimiter = new RateLimiter(itemsPerSecond);
+        long deletedFlags = deleteFlags(job, userId, envName, rateLimiter);
+        flagSnapshotService.markDirty(new EnvironmentKey(userId, envName));
+        long deletedApiKeys = deleteApiKeys(job, userId, envName, rateLimiter);
+
+        if (job.getFailed() > 0) {
+            throw new IllegalStateException(job.getFailed() + " items of environment " + envName
+                    + " were not deleted, the environment is kept, run the deletion again to remove them");
+        }
+        job.setMessage("Deleting environment " + envName);
+        environmentRepository.deleteEnvironment(userId, envName);
+        flagSnapshotService.remove(new EnvironmentKey(userId, envName));
+        job.setMessage("Deleted environment " + envName);
+        return new EnvironmentDeletionResult(envName, deletedFlags, deletedApiKeys);
+    }
+
+    private long deleteFlags(Job job, String userId, String envName, RateLimiter rateLimiter) {
+        long deleted = 0;
+        try (Stream<List<FeatureFlag>> pages = featureFlagRepository.streamEnvFF(envName, userId, READ_PAGE_SIZE)) {
+            Iterator<List<FeatureFlag>> iterator = pages.iterator();
+            while (iterator.hasNext()) {
+                List<String> names = iterator.next().stream().map(FeatureFlag::getFeatureName).toList();
+                if (names.isEmpty()) {
+                    continue;
+                }
+                deleted += record(job, featureFlagRepository.deleteAll(names, envName, parallelism, rateLimiter).join());
+                job.setMessage("Deleted " + deleted + " feature flags of " + envName);
+            }
+        }
+        return deleted;
+    }
+
+    private long deleteApiKeys(Job job, String userId, String envName, RateLimiter rateLimiter) {
+        long deleted = 0;
+        try (Stream<List<ApiKey>> pages = apiKeyRepository.streamEnvKeys(envName, userId, READ_PAGE_SIZE)) {
+            Iterator<List<ApiKey>> iterator = pages.iterator();
+            while (iterator.hasNext()) {
+                List<String> keys = iterator.next().stream().map(ApiKey::getKey).toList();
+                if (keys.isEmpty()) {
+                    continue;
+                }
+                List<BatchWriteItemResult> results = apiKeyRepository.deleteKeys(keys, envName, parallelism, rateLimiter)
+                        .join();
+                // Evict every key, a key whose delete failed may still have been deleted
+                keys.forEach(key -> apiKeyVerifier.evict(key, envName));
+                deleted += record(job, results);
+                job.setMessage("Deleted " + deleted + " API keys of " + envName);
+            }
+        }
+        return deleted;
+    }
+
+    private static long record(Job job, List<BatchWriteItemResult> results) {
+        long succeeded = results.stream()
+                .filter(result -> result.getStatus() == BatchWriteItemResult.Status.SUCCEEDED)
+                .count();
+        job.addProgress(succeeded, results.size() - succeeded);
+        return succeeded;
+    }
+}
@@ -8,6 +8,8 @@ import lombok.ToString;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondaryPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondarySortKey;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
 
 @Builder
@@ -18,6 +20,11 @@ import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortK
 @DynamoDbBean
 public class ApiKey {
 
+    /**
+     * Global secondary index of the API keys of a user, by environment.
+     */
+    public static final String USER_ENV_INDEX = "ApiKeyUserEnv";
+
     private String key;
     private String envName;
     private Boolean active;
@@ -30,6 +37,7 @@ public class ApiKey {
     }
 
     @DynamoDbPartitionKey
+    @DynamoDbSecondarySortKey(indexNames = {USER_ENV_INDEX})
     @DynamoDbAttribute("EnvName")
     public String getEnvName() {
         return envName;
@@ -40,6 +48,7 @@ public class ApiKey {
         return active;
     }
 
+    @DynamoDbSecondaryPartitionKey(indexNames = {USER_ENV_INDEX})
     @DynamoDbAttribute("userId")
     public String getUserId() {
         return userId;
@@ -8,6 +8,8 @@ import lombok.ToString;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondaryPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondarySortKey;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
 
 @Builder
@@ -18,11 +20,18 @@ import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortK
 @DynamoDbBean
 public class Environment {
 
+    /**
+     * Global secondary index of the environments with a given name, by user.
+     */
+    public static final String BY_NAME_INDEX = "EnvByName";
+
     private String name;
     private String userId;
     private String description;
+    private Long version;
 
     @DynamoDbSortKey
+    @DynamoDbSecondaryPartitionKey(indexNames = {BY_NAME_INDEX})
     @DynamoDbAttribute("name")
     public String getName() {
         return name;
@@ -34,8 +43,18 @@ public class Environment {
     }
 
     @DynamoDbPartitionKey
+    @DynamoDbSecondarySortKey(indexNames = {BY_NAME_INDEX})
     @DynamoDbAttribute("userId")
     public String getUserId() {
         return userId;
     }
+
+    /**
+     * Version of the environment, incremented with every write and checked by conditional updates.
+     * Null for environments written before versioning was introduced.
+     */
+    @DynamoDbAttribute("version")
+    public Long getVersion() {
+        return version;
+    }
 }
@@ -2,6 +2,7 @@ package com.ech.ff.featureflagmanager.dynamodb.entity;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
@@ -16,6 +17,7 @@ import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortK
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString
+@EqualsAndHashCode
 @Setter
 @DynamoDbBean
 public class FeatureFlag {
@@ -25,6 +27,7 @@ public class FeatureFlag {
     private String featureName;
     private String config;
     private String userId;
+    private Long version;
 
     @DynamoDbPartitionKey
     @DynamoDbSecondarySortKey(indexNames = {"FFUserId"})
@@ -54,4 +57,13 @@ public class FeatureFlag {
     public String getUserId() {
         return userId;
     }
+
+    /**
+     * Version of the feature flag, incremented with every write and checked by conditional updates.
+     * Null for flags written before versioning was introduced.
+     */
+    @DynamoDbAttribute("version")
+    public Long getVersion() {
+        return version;
+    }
 }
@@ -0,0 +1,212 @@
+package com.ech.ff.featureflagmanager.dynamodb.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.SdkResponse;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.DeleteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactGetItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records the cost of every DynamoDB API call as Micrometer meters, tagged with the table and the API operation.
+ * <p>
+ * The interceptor asks DynamoDB for the consumed capacity of every call that does not ask for it already and
+ * counts it in {@code dynamodb.consumed.capacity}, split into read and write units. It also counts the retries
+ * of the SDK in {@code dynamodb.retries} and records the items returned and evaluated by every query and scan
+ * page, so a filter that reads much more than it returns shows as a gap between {@code dynamodb.page.items}
+ * and {@code dynamodb.page.scanned.items}.
+ * <p>
+ * Calls of the enhanced clients are seen as the API operations they send, e.g. a repository {@code save} as
+ * {@code PutItem}; {@code dynamodb.repository} times the repository operations themselves.
+ */
+public class DynamoDbMetricsInterceptor implements ExecutionInterceptor {
+
+    private static final ExecutionAttribute<AtomicInteger> ATTEMPTS = new ExecutionAttribute<>("DynamoDbMetricsAttempts");
+    private static final Set<String> WRITE_OPERATIONS =
+            Set.of("PutItem", "DeleteItem", "UpdateItem", "BatchWriteItem", "TransactWriteItems");
+    private static final String MULTIPLE_TABLES = "multiple";
+    private static final String UNKNOWN = "unknown";
+
+    private final Meter.MeterProvider<Counter> consumedCapacity;
+    private final Meter.MeterProvider<Counter> retries;
+    private final Meter.MeterProvider<DistributionSummary> pageItems;
+    private final Meter.MeterProvider<DistributionSummary> pageScannedItems;
+
+    /**
+     * Constructs a new DynamoDbMetricsInterceptor.
+     *
+     * @param meterRegistry The registry to publish the meters to
+     */
+    public DynamoDbMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.consumedCapacity = Counter.builder("dynamodb.consumed.capacity")
+                .description("Capacity units consumed by DynamoDB calls, including their indexes")
+                .baseUnit("capacity_units")
+                .withRegistry(meterRegistry);
+        this.retries = Counter.builder("dynamodb.retries")
+                .description("DynamoDB call attempts retried by the SDK, e.g. after throttling")
+                .withRegistry(meterRegistry);
+        this.pageItems = DistributionSummary.builder("dynamodb.page.items")
+                .description("Items returned by a query or scan page")
+                .baseUnit("items")
+                .withRegistry(meterRegistry);
+        this.pageScannedItems = DistributionSummary.builder("dynamodb.page.scanned.items")
+                .description("Items evaluated by a query or scan page before its filter")
+                .baseUnit("items")
+                .withRegistry(meterRegistry);
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        executionAttributes.putAttribute(ATTEMPTS, new AtomicInteger());
+    }
+
+    @Override
+    public SdkRequest modifyRequest(Context.ModifyRequest context, ExecutionAttributes executionAttributes) {
+        SdkRequest request = context.request();
+        if (request.getValueForField("ReturnConsumedCapacity", String.class).isPresent()) {
+            return request;
+        }
+        ReturnConsumedCapacity total = ReturnConsumedCapacity.TOTAL;
+        return switch (request) {
+            case GetItemRequest r -> r.toBuilder().returnConsumedCapacity(total).build();
+            case PutItemRequest r -> r.toBuilder().returnConsumedCapacity(total).build();
+            case DeleteItemRequest r -> r.toBuilder().returnConsumedCapacity(total).build();
+            case UpdateItemRequest r -> r.toBuilder().returnConsumedCapacity(total).build();
+            case QueryRequest r -> r.toBuilder().returnConsumedCapacity(total).build();
+            case ScanRequest r -> r.toBuilder().returnConsumedCapacity(total).build();
+            case BatchGetItemRequest r -> r.toBuilder().returnConsumedCapacity(total).build();
+            case BatchWriteItemRequest r -> r.toBuilder().returnConsumedCapacity(total).build();
+            case TransactGetItemsRequest r -> r.toBuilder().returnConsumedCapacity(total).build();
+            case TransactWriteItemsRequest r -> r.toBuilder().returnConsumedCapacity(total).build();
+            default -> request;
+        };
+    }
+
+    @Override
+    public void beforeTransmission(Context.BeforeTransmission context, ExecutionAttributes executionAttributes) {
+        AtomicInteger attempts = executionAttributes.getAttribute(ATTEMPTS);
+        if (attempts != null) {
+            attempts.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        String operation = operation(executionAttributes);
+        String table = tableName(context.request());
+        recordRetries(table, operation, executionAttributes);
+
+        SdkResponse response = context.response();
+        switch (response) {
+            case GetItemResponse r -> recordCapacity(operation, r.consumedCapacity());
+            case PutItemResponse r -> recordCapacity(operation, r.consumedCapacity());
+            case DeleteItemResponse r -> recordCapacity(operation, r.consumedCapacity());
+            case UpdateItemResponse r -> recordCapacity(operation, r.consumedCapacity());
+            case QueryResponse r -> {
+                recordCapacity(operation, r.consumedCapacity());
+                recordPage(table, operation, r.count(), r.scannedCount());
+            }
+            case ScanResponse r -> {
+                recordCapacity(operation, r.consumedCapacity());
+                recordPage(table, operation, r.count(), r.scannedCount());
+            }
+            case BatchGetItemResponse r -> r.consumedCapacity().forEach(c -> recordCapacity(operation, c));
+            case BatchWriteItemResponse r -> r.consumedCapacity().forEach(c -> recordCapacity(operation, c));
+            case TransactGetItemsResponse r -> r.consumedCapacity().forEach(c -> recordCapacity(operation, c));
+            case TransactWriteItemsResponse r -> r.consumedCapacity().forEach(c -> recordCapacity(operation, c));
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        recordRetries(tableName(context.request()), operation(executionAttributes), executionAttributes);
+    }
+
+    private void recordRetries(String table, String operation, ExecutionAttributes executionAttributes) {
+        AtomicInteger attempts = executionAttributes.getAttribute(ATTEMPTS);
+        if (attempts != null && attempts.get() > 1) {
+            retries.withTags("table", table, "operation", operation).increment(attempts.get() - 1);
+        }
+    }
+
+    private void recordCapacity(String operation, ConsumedCapacity capacity) {
+        if (capacity == null) {
+            return;
+        }
+        String table = capacity.tableName() != null ? capacity.tableName() : UNKNOWN;
+        Double read = capacity.readCapacityUnits();
+        Double write = capacity.writeCapacityUnits();
+        if (read == null && write == null && capacity.capacityUnits() != null) {
+            // Only the total is reported, which is all read or all write units depending on the operation
+            if (WRITE_OPERATIONS.contains(operation)) {
+                write = capacity.capacityUnits();
+            } else {
+                read = capacity.capacityUnits();
+            }
+        }
+        if (read != null && read > 0) {
+            consumedCapacity.withTags("table", table, "operation", operation, "capacity", "read").increment(read);
+        }
+        if (write != null && write > 0) {
+            consumedCapacity.withTags("table", table, "operation", operation, "capacity", "write").increment(write);
+        }
+    }
+
+    private void recordPage(String table, String operation, Integer count, Integer scannedCount) {
+        if (count != null) {
+            pageItems.withTags("table", table, "operation", operation).record(count);
+        }
+        if (scannedCount != null) {
+            pageScannedItems.withTags("table", table, "operation", operation).record(scannedCount);
+        }
+    }
+
+    private static String operation(ExecutionAttributes executionAttributes) {
+        String operation = executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+        return operation != null ? operation : UNKNOWN;
+    }
+
+    /**
+     * Get the table of a request: its TableName, or the table of its batch if it has a single one.
+     */
+    private static String tableName(SdkRequest request) {
+        return request.getValueForField("TableName", String.class)
+                .or(() -> request.getValueForField("RequestItems", Map.class)
+                        .map(items -> items.size() == 1 ? String.valueOf(items.keySet().iterator().next()) : MULTIPLE_TABLES))
+                .orElse(request.getValueForField("TransactItems", List.class).isPresent() ? MULTIPLE_TABLES : UNKNOWN);
+    }
+}
@@ -0,0 +1,80 @@
+package com.ech.ff.featureflagmanager.dynamodb.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.metrics.SdkMetric;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Exposes the connection pool state reported by the AWS SDK HTTP client as Micrometer meters.
+ * <p>
+ * The SDK reports the pool state with every API call attempt; the gauges hold the last reported value.
+ * A pool is saturated when {@code dynamodb.http.pool.available} drops to zero and
+ * {@code dynamodb.http.pool.pending} grows.
+ */
+public class HttpPoolMetricPublisher implements MetricPublisher {
+
+    private final AtomicInteger max = new AtomicInteger();
+    private final AtomicInteger leased = new AtomicInteger();
+    private final AtomicInteger available = new AtomicInteger();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Timer acquireTimer;
+
+    /**
+     * Constructs a new HttpPoolMetricPublisher.
+     *
+     * @param meterRegistry The registry to publish the meters to
+     * @param client The name of the client, used as the {@code client} tag
+     */
+    public HttpPoolMetricPublisher(MeterRegistry meterRegistry, String client) {
+        Gauge.builder("dynamodb.http.pool.max", max, AtomicInteger::get)
+                .description("Maximum number of concurrent DynamoDB connections")
+                .tag("client", client)
+                .register(meterRegistry);
+        Gauge.builder("dynamodb.http.pool.leased", leased, AtomicInteger::get)
+                .description("DynamoDB connections in use")
+                .tag("client", client)
+                .register(meterRegistry);
+        Gauge.builder("dynamodb.http.pool.available", available, AtomicInteger::get)
+                .description("Idle DynamoDB connections available for reuse")
+                .tag("client", client)
+                .register(meterRegistry);
+        Gauge.builder("dynamodb.http.pool.pending", pending, AtomicInteger::get)
+                .description("Requests waiting for a DynamoDB connection")
+                .tag("client", client)
+                .register(meterRegistry);
+        this.acquireTimer = Timer.builder("dynamodb.http.pool.acquire")
+                .description("Time spent waiting for a DynamoDB connection")
+                .tag("client", client)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void publish(MetricCollection metricCollection) {
+        record(metricCollection, HttpMetric.MAX_CONCURRENCY, max::set);
+        record(metricCollection, HttpMetric.LEASED_CONCURRENCY, leased::set);
+        record(metricCollection, HttpMetric.AVAILABLE_CONCURRENCY, available::set);
+        record(metricCollection, HttpMetric.PENDING_CONCURRENCY_ACQUIRES, pending::set);
+        record(metricCollection, HttpMetric.CONCURRENCY_ACQUIRE_DURATION, acquireTimer::record);
+        metricCollection.children().forEach(this::publish);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private static <T> void record(MetricCollection metricCollection, SdkMetric<T> metric, Consumer<T> recorder) {
+        List<T> values = metricCollection.metricValues(metric);
+        if (!values.isEmpty()) {
+            recorder.accept(values.get(values.size() - 1));
+        }
+    }
+}
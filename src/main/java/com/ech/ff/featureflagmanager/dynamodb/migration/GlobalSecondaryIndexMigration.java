@@ -0,0 +1,165 @@
+package com.ech.ff.featureflagmanager.dynamodb.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.CreateGlobalSecondaryIndexAction;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexDescription;
+import software.amazon.awssdk.services.dynamodb.model.IndexStatus;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.LimitExceededException;
+import software.amazon.awssdk.services.dynamodb.model.Projection;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughput;
+import software.amazon.awssdk.services.dynamodb.model.ResourceInUseException;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.TableStatus;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Adds a global secondary index with string keys to an existing table and reports when it can be queried.
+ * <p>
+ * DynamoDB backfills a new index from the items already in the table, so existing items need no rewrite:
+ * every item that has both key attributes of the index is indexed once the index becomes active.
+ * Until then, repositories keep using their previous access path. Creating the index is idempotent
+ * across nodes: a node that finds the index already being created only waits for it.
+ * <p>
+ * Failed creations are retried with the next poll, unless DynamoDB rejects the index as invalid or the
+ * credentials are not allowed to update the table; retrying would not change the outcome then.
+ * If index creation is disabled, the migration keeps waiting for the index to be created by other means.
+ */
+@Slf4j
+public class GlobalSecondaryIndexMigration {
+
+    private static final Set<String> PERMANENT_ERROR_CODES =
+            Set.of("ValidationException", "AccessDeniedException", "UnrecognizedClientException");
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+    private final String indexName;
+    private final String partitionKeyAttribute;
+    private final String sortKeyAttribute;
+
+    private volatile boolean active;
+    private volatile boolean abandoned;
+    private boolean missingReported;
+
+    /**
+     * Constructs a new GlobalSecondaryIndexMigration.
+     *
+     * @param dynamoDbClient The DynamoDB client
+     * @param tableName The table the index belongs to
+     * @param indexName The name of the index
+     * @param partitionKeyAttribute The string attribute that is the partition key of the index
+     * @param sortKeyAttribute The string attribute that is the sort key of the index
+     */
+    public GlobalSecondaryIndexMigration(DynamoDbClient dynamoDbClient, String tableName, String indexName,
+                                         String partitionKeyAttribute, String sortKeyAttribute) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.indexName = indexName;
+        this.partitionKeyAttribute = partitionKeyAttribute;
+        this.sortKeyAttribute = sortKeyAttribute;
+    }
+
+    /**
+     * Check whether the index is active and backfilled, so queries on it return every indexed item.
+     *
+     * @return true once the index can be queried
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Check whether the migration is finished, successfully or not.
+     *
+     * @return true if the index is active or can never be created
+     */
+    public boolean isDone() {
+        return active || abandoned;
+    }
+
+    /**
+     * Advance the migration by one step: check the state of the index and create it if it is missing.
+     * Called periodically until {@link #isDone()}.
+     *
+     * @param createIfMissing Whether to create the index when the table does not have it
+     */
+    public void poll(boolean createIfMissing) {
+        TableDescription table = dynamoDbClient.describeTable(r -> r.tableName(tableName)).table();
+        Optional<GlobalSecondaryIndexDescription> index = table.globalSecondaryIndexes().stream()
+                .filter(gsi -> indexName.equals(gsi.indexName()))
+                .findFirst();
+        if (index.isPresent()) {
+            if (index.get().indexStatus() == IndexStatus.ACTIVE) {
+                log.info("Index is active: table={}, index={}", tableName, indexName);
+                active = true;
+            } else {
+                log.info("Waiting for index: table={}, index={}, status={}, backfilling={}", tableName, indexName,
+                        index.get().indexStatusAsString(), index.get().backfilling());
+            }
+            return;
+        }
+        if (!createIfMissing) {
+            if (!missingReported) {
+                log.warn("Index is missing and index creation is disabled, queries keep their previous access path "
+                        + "until the index is created: table={}, index={}", tableName, indexName);
+                missingReported = true;
+            }
+            return;
+        }
+        if (table.tableStatus() != TableStatus.ACTIVE) {
+            log.info("Waiting for table to become active before creating index: table={}, status={}",
+                    tableName, table.tableStatusAsString());
+            return;
+        }
+        create(table);
+    }
+
+    private void create(TableDescription table) {
+        log.info("Creating index: table={}, index={}, keys=({}, {})", tableName, indexName,
+                partitionKeyAttribute, sortKeyAttribute);
+        CreateGlobalSecondaryIndexAction.Builder action = CreateGlobalSecondaryIndexAction.builder()
+                .indexName(indexName)
+                .keySchema(KeySchemaElement.builder().attributeName(partitionKeyAttribute).keyType(KeyType.HASH).build(),
+                        KeySchemaElement.builder().attributeName(sortKeyAttribute).keyType(KeyType.RANGE).build())
+                .projection(Projection.builder().projectionType(ProjectionType.ALL).build());
+        boolean onDemand = table.billingModeSummary() != null
+                && table.billingModeSummary().billingMode() == BillingMode.PAY_PER_REQUEST;
+        if (!onDemand) {
+            // A provisioned table needs the capacity of the index; start with the capacity of the table
+            action.provisionedThroughput(ProvisionedThroughput.builder()
+                    .readCapacityUnits(table.provisionedThroughput().readCapacityUnits())
+                    .writeCapacityUnits(table.provisionedThroughput().writeCapacityUnits())
+                    .build());
+        }
+        try {
+            dynamoDbClient.updateTable(r -> r.tableName(tableName)
+                    .attributeDefinitions(
+                            AttributeDefinition.builder().attributeName(partitionKeyAttribute)
+                                    .attributeType(ScalarAttributeType.S).build(),
+                            AttributeDefinition.builder().attributeName(sortKeyAttribute)
+                                    .attributeType(ScalarAttributeType.S).build())
+                    .globalSecondaryIndexUpdates(u -> u.create(action.build())));
+        } catch (ResourceInUseException | LimitExceededException e) {
+            // Another node is updating the table, or too many indexes are being created at once; try again later
+            log.info("Could not create index yet: table={}, index={}, reason={}", tableName, indexName, e.getMessage());
+        } catch (AwsServiceException e) {
+            if (e.awsErrorDetails() != null && PERMANENT_ERROR_CODES.contains(e.awsErrorDetails().errorCode())) {
+                log.error("Index can not be created, queries keep their previous access path: table={}, index={}",
+                        tableName, indexName, e);
+                abandoned = true;
+            } else {
+                log.warn("Error creating index, retrying with the next poll: table={}, index={}, reason={}",
+                        tableName, indexName, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.ech.ff.featureflagmanager.dynamodb.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Drives the index migrations in the background until every index is active, so the application
+ * starts serving right away and switches to an index as soon as DynamoDB has finished backfilling it.
+ */
+@Component
+@Slf4j
+public class IndexMigrationRunner {
+
+    private final List<GlobalSecondaryIndexMigration> migrations;
+    private final boolean createIndexes;
+
+    public IndexMigrationRunner(List<GlobalSecondaryIndexMigration> migrations,
+                                @Value("${ff.migrations.create-indexes:false}") boolean createIndexes) {
+        this.migrations = migrations;
+        this.createIndexes = createIndexes;
+    }
+
+    /**
+     * Advance every migration that is not done yet.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${ff.migrations.poll-interval-ms:10000}")
+    public void poll() {
+        for (GlobalSecondaryIndexMigration migration : migrations) {
+            if (migration.isDone()) {
+                continue;
+            }
+            try {
+                migration.poll(createIndexes);
+            } catch (Exception e) {
+                log.error("Error polling index migration", e);
+            }
+        }
+    }
+}
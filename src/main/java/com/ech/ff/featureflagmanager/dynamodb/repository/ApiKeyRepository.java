@@ -1,20 +1,27 @@
 package com.ech.ff.featureflagmanager.dynamodb.repository;
 
 import com.ech.ff.featureflagmanager.dynamodb.entity.ApiKey;
+import com.ech.ff.featureflagmanager.dynamodb.migration.GlobalSecondaryIndexMigration;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.BatchWriteItemResult;
 import com.ech.ff.featureflagmanager.dynamodb.repository.base.DynamoDbRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.RateLimiter;
+import com.ech.ff.featureflagmanager.security.apikey.ApiKeyVerifier;
 import com.ech.ff.featureflagmanager.security.dto.CognitoUser;
 import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 import software.amazon.awssdk.enhanced.dynamodb.Expression;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Repository for managing API keys in DynamoDB.
@@ -22,46 +29,87 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ApiKeyRepository extends DynamoDbRepository<ApiKey> {
 
+    private final GlobalSecondaryIndexMigration userEnvIndex;
+
     /**
      * Constructs a new ApiKeyRepository.
      *
      * @param dynamoDbTable The DynamoDB table for API keys
+     * @param enhancedClient The client used for batch operations
+     * @param userEnvIndex The migration of the {@value ApiKey#USER_ENV_INDEX} index, queries use the index once it is active
      */
-    public ApiKeyRepository(DynamoDbTable<ApiKey> dynamoDbTable) {
-        super(dynamoDbTable);
+    public ApiKeyRepository(DynamoDbTable<ApiKey> dynamoDbTable, DynamoDbEnhancedClient enhancedClient,
+                            GlobalSecondaryIndexMigration userEnvIndex) {
+        super(dynamoDbTable, enhancedClient);
+        this.userEnvIndex = userEnvIndex;
     }
 
     /**
-     * Get all API keys for a specific environment.
+     * Get all API keys of a user for a specific environment.
+     * Read from the {@value ApiKey#USER_ENV_INDEX} index, so only the keys of the user are read; until the index
+     * is active, the environment partition is read and filtered by user.
      *
      * @param partitionKey The environment name
+     * @param cognitoUser The owner of the API keys
      * @return List of API keys for the environment
      */
     public List<ApiKey> getEnvKeys(String partitionKey, CognitoUser cognitoUser) {
         log.info("Getting all API keys for environment: {}, user: {}", partitionKey, cognitoUser.getId());
-//        return queryByPartitionKey(envName);
-        log.info("Querying entities by partition key: {}", partitionKey);
+        if (userEnvIndex.isActive()) {
+            return queryByIndex(ApiKey.USER_ENV_INDEX, cognitoUser.getId(), partitionKey);
+        }
         try {
-            QueryConditional queryConditional = QueryConditional.keyEqualTo(
-                    Key.builder().partitionValue(partitionKey).build()
-            );
-
-            QueryEnhancedRequest request = QueryEnhancedRequest.builder()
-                    .queryConditional(queryConditional)
-                    .filterExpression(Expression.builder().expression("userId = :cognitoUserId")
-                            .putExpressionValue(":cognitoUserId", AttributeValue.builder()
-                                    .s(cognitoUser.getId())
-                                    .build())
-                            .build())
-                    .build();
-
-            return dynamoDbTable.query(request).items().stream().collect(Collectors.toList());
+            return dynamoDbTable.query(filteredByUser(partitionKey, cognitoUser.getId()).build())
+                    .items().stream().collect(Collectors.toList());
         } catch (Exception e) {
             log.error("Error querying entities by partition key: {}", partitionKey, e);
             throw new RuntimeException("Failed to query entities by partition key", e);
         }
     }
 
+    /**
+     * Lazily read the API keys a user created for an environment, one page at a time.
+     *
+     * @param envName The environment name
+     * @param userId The id of the owner of the API keys
+     * @param pageSize The number of API keys read per page; until the index is active, the page size
+     *                 applies before keys of other users are filtered out
+     * @return A lazy stream of pages of API keys, must be closed after use
+     */
+    public Stream<List<ApiKey>> streamEnvKeys(String envName, String userId, int pageSize) {
+        log.info("Streaming API keys for environment: {}, user: {}", envName, userId);
+        if (userEnvIndex.isActive()) {
+            return streamByIndex(ApiKey.USER_ENV_INDEX, userId, envName, pageSize);
+        }
+        QueryEnhancedRequest request = filteredByUser(envName, userId)
+                .limit(pageSize)
+                .build();
+        try {
+            return dynamoDbTable.query(request).stream().map(Page::items);
+        } catch (Exception e) {
+            log.error("Error streaming API keys for environment: {}", envName, e);
+            throw new RuntimeException("Failed to stream API keys", e);
+        }
+    }
+
+    /**
+     * Delete many API keys of an environment with batched writes under a rate limit.
+     *
+     * @param keys The API keys
+     * @param envName The environment name
+     * @param parallelism The maximum number of batches written at the same time
+     * @param rateLimiter The limiter of the number of API keys deleted per second
+     * @return A future of the outcome of every API key
+     */
+    public CompletableFuture<List<BatchWriteItemResult>> deleteKeys(List<String> keys, String envName, int parallelism,
+                                                                    RateLimiter rateLimiter) {
+        log.info("Deleting {} API keys, environment: {}", keys.size(), envName);
+        List<Key> tableKeys = keys.stream()
+                .map(key -> Key.builder().partitionValue(envName).sortValue(key).build())
+                .toList();
+        return batchWrite(List.of(), tableKeys, parallelism, rateLimiter);
+    }
+
     /**
      * Get a specific API key by key and environment name.
      *
@@ -70,7 +118,7 @@ public class ApiKeyRepository extends DynamoDbRepository<ApiKey> {
      * @return The API key if found, otherwise empty
      */
     public Optional<ApiKey> getKey(String key, String envName) {
-        log.info("Getting API key: {}, environment: {}", key, envName);
+        log.info("Getting API key: {}, environment: {}", ApiKeyVerifier.fingerprint(key), envName);
         return getItem(envName, key);
     }
 
@@ -81,7 +129,17 @@ public class ApiKeyRepository extends DynamoDbRepository<ApiKey> {
      * @param envName The environment name
      */
     public void deleteKey(String key, String envName) {
-        log.info("Deleting API key: {}, environment: {}", key, envName);
+        log.info("Deleting API key: {}, environment: {}", ApiKeyVerifier.fingerprint(key), envName);
         deleteItem(envName, key);
     }
+
+    private static QueryEnhancedRequest.Builder filteredByUser(String envName, String userId) {
+        return QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue(envName).build()))
+                .filterExpression(Expression.builder().expression("userId = :cognitoUserId")
+                        .putExpressionValue(":cognitoUserId", AttributeValue.builder()
+                                .s(userId)
+                                .build())
+                        .build());
+    }
 }
@@ -0,0 +1,75 @@
+package com.ech.ff.featureflagmanager.dynamodb.repository;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.ApiKey;
+import com.ech.ff.featureflagmanager.dynamodb.migration.GlobalSecondaryIndexMigration;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.AsyncDynamoDbRepository;
+import com.ech.ff.featureflagmanager.security.apikey.ApiKeyVerifier;
+import com.ech.ff.featureflagmanager.security.dto.CognitoUser;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking repository for managing API keys in DynamoDB.
+ */
+@Slf4j
+public class AsyncApiKeyRepository extends AsyncDynamoDbRepository<ApiKey> {
+
+    private final GlobalSecondaryIndexMigration userEnvIndex;
+
+    /**
+     * Constructs a new AsyncApiKeyRepository.
+     *
+     * @param dynamoDbAsyncTable The DynamoDB table for API keys
+     * @param userEnvIndex The migration of the {@value ApiKey#USER_ENV_INDEX} index, queries use the index once it is active
+     */
+    public AsyncApiKeyRepository(DynamoDbAsyncTable<ApiKey> dynamoDbAsyncTable,
+                                 GlobalSecondaryIndexMigration userEnvIndex) {
+        super(dynamoDbAsyncTable);
+        this.userEnvIndex = userEnvIndex;
+    }
+
+    /**
+     * Get all API keys of a user for a specific environment.
+     * Read from the {@value ApiKey#USER_ENV_INDEX} index, so only the keys of the user are read; until the index
+     * is active, the environment partition is read and filtered by user.
+     * The index is eventually consistent, a key created a moment ago may not be listed yet.
+     *
+     * @param envName The environment name
+     * @param cognitoUser The owner of the API keys
+     * @return A future of the API keys for the environment
+     */
+    public CompletableFuture<List<ApiKey>> getEnvKeys(String envName, CognitoUser cognitoUser) {
+        log.info("Getting all API keys for environment: {}, user: {}", envName, cognitoUser.getId());
+        if (userEnvIndex.isActive()) {
+            return queryByIndex(ApiKey.USER_ENV_INDEX, cognitoUser.getId(), envName);
+        }
+        return query(QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue(envName).build()))
+                .filterExpression(Expression.builder().expression("userId = :cognitoUserId")
+                        .putExpressionValue(":cognitoUserId", AttributeValue.builder()
+                                .s(cognitoUser.getId())
+                                .build())
+                        .build())
+                .build());
+    }
+
+    /**
+     * Delete an API key.
+     *
+     * @param key The API key
+     * @param envName The environment name
+     * @return A future completing once the API key is deleted
+     */
+    public CompletableFuture<Void> deleteKey(String key, String envName) {
+        log.info("Deleting API key: {}, environment: {}", ApiKeyVerifier.fingerprint(key), envName);
+        return deleteItem(envName, key);
+    }
+}
@@ -0,0 +1,94 @@
+package com.ech.ff.featureflagmanager.dynamodb.repository;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.Environment;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.AsyncDynamoDbRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.ConditionalWriteException;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.VersionConditions;
+import com.ech.ff.featureflagmanager.security.dto.CognitoUser;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking repository for managing environments in DynamoDB.
+ */
+@Slf4j
+public class AsyncEnvironmentRepository extends AsyncDynamoDbRepository<Environment> {
+
+    /**
+     * Constructs a new AsyncEnvironmentRepository.
+     *
+     * @param dynamoDbAsyncTable The DynamoDB table for environments
+     */
+    public AsyncEnvironmentRepository(DynamoDbAsyncTable<Environment> dynamoDbAsyncTable) {
+        super(dynamoDbAsyncTable);
+    }
+
+    /**
+     * Get all environments of a user.
+     *
+     * @param user The owner of the environments
+     * @return A future of the environments of the user
+     */
+    public CompletableFuture<List<Environment>> getUserEnvironments(CognitoUser user) {
+        log.info("Getting all environments for user: {}", user.getId());
+        return queryByPartitionKey(user.getId());
+    }
+
+    /**
+     * Get one page of the environments of a user.
+     *
+     * @param user The owner of the environments
+     * @param pageSize The maximum number of environments in the page
+     * @param lastEvaluatedKey The last evaluated key of the previous page (can be null for first page)
+     * @return A future of the page, or of null if there are no more pages
+     */
+    public CompletableFuture<Page<Environment>> getUserEnvironmentsPage(CognitoUser user, int pageSize,
+                                                                       Map<String, AttributeValue> lastEvaluatedKey) {
+        log.info("Getting environments page for user: {}, pageSize: {}", user.getId(), pageSize);
+        return queryByPartitionKeyPaginated(user.getId(), pageSize, lastEvaluatedKey);
+    }
+
+    /**
+     * Save an environment.
+     *
+     * @param environment The environment to save
+     * @return A future of the saved environment
+     */
+    public CompletableFuture<Environment> saveEnvironment(Environment environment) {
+        log.info("Saving environment: {}", environment);
+        return save(environment);
+    }
+
+    /**
+     * Create an environment at version 1.
+     *
+     * @param environment The environment
+     * @return A future of the created environment, failing with {@link ConditionalWriteException}
+     * if the user already has an environment with the same name
+     */
+    public CompletableFuture<Environment> createEnvironment(Environment environment) {
+        log.info("Creating environment: {}", environment);
+        environment.setVersion(VersionConditions.next(null));
+        return saveIf(environment, VersionConditions.absent("name"));
+    }
+
+    /**
+     * Replace an environment if it is still at the expected version, and store the next version.
+     *
+     * @param environment The new state of the environment
+     * @param expectedVersion The version the caller read, 0 for environments without a version
+     * @return A future of the updated environment, failing with {@link ConditionalWriteException}
+     * if the environment does not exist or is at another version
+     */
+    public CompletableFuture<Environment> updateEnvironment(Environment environment, long expectedVersion) {
+        log.info("Updating environment: {}, expected version: {}", environment, expectedVersion);
+        environment.setVersion(expectedVersion + 1);
+        return saveIf(environment, VersionConditions.atVersion("name", expectedVersion));
+    }
+}
@@ -0,0 +1,113 @@
+package com.ech.ff.featureflagmanager.dynamodb.repository;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.AsyncDynamoDbRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.ConditionalWriteException;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.VersionConditions;
+import com.ech.ff.featureflagmanager.security.dto.CognitoUser;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking repository for managing feature flags in DynamoDB.
+ */
+@Slf4j
+public class AsyncFeatureFlagRepository extends AsyncDynamoDbRepository<FeatureFlag> {
+
+    /**
+     * Constructs a new AsyncFeatureFlagRepository.
+     *
+     * @param dynamoDbAsyncTable The DynamoDB table for feature flags
+     */
+    public AsyncFeatureFlagRepository(DynamoDbAsyncTable<FeatureFlag> dynamoDbAsyncTable) {
+        super(dynamoDbAsyncTable);
+    }
+
+    /**
+     * Create a feature flag at version 1.
+     *
+     * @param flag The feature flag
+     * @return A future of the created feature flag, failing with {@link ConditionalWriteException}
+     * if a feature flag with the same name already exists in the environment
+     */
+    public CompletableFuture<FeatureFlag> create(FeatureFlag flag) {
+        log.info("Creating feature flag: {}, env: {}", flag.getFeatureName(), flag.getEnvName());
+        flag.setVersion(VersionConditions.next(null));
+        return saveIf(flag, VersionConditions.absent("FeatureName"));
+    }
+
+    /**
+     * Replace a feature flag of its owner if it is still at the expected version, and store the next version.
+     *
+     * @param flag The new state of the feature flag
+     * @param expectedVersion The version the caller read, 0 for flags without a version
+     * @return A future of the updated feature flag, failing with {@link ConditionalWriteException}
+     * if the feature flag does not exist, belongs to another user or is at another version
+     */
+    public CompletableFuture<FeatureFlag> update(FeatureFlag flag, long expectedVersion) {
+        log.info("Updating feature flag: {}, env: {}, expected version: {}",
+                flag.getFeatureName(), flag.getEnvName(), expectedVersion);
+        flag.setVersion(expectedVersion + 1);
+        return saveIf(flag, Expression.join(VersionConditions.atVersion("FeatureName", expectedVersion),
+                VersionConditions.attributeEquals("userId", flag.getUserId()), " AND "));
+    }
+
+    /**
+     * Get a feature flag by name and environment.
+     *
+     * @param name The feature flag name
+     * @param envName The environment name
+     * @return A future of the feature flag if found, otherwise empty
+     */
+    public CompletableFuture<Optional<FeatureFlag>> getByName(String name, String envName) {
+        log.info("Getting feature flag by name: {}, env: {}", name, envName);
+        return getItem(envName, name);
+    }
+
+    /**
+     * Get all feature flags owned by a user for a specific environment.
+     *
+     * @param envName The environment name
+     * @param user The owner of the feature flags
+     * @return A future of the feature flags for the environment
+     */
+    public CompletableFuture<List<FeatureFlag>> getEnvFF(String envName, CognitoUser user) {
+        log.info("Getting all feature flags for env: {}, user: {}", envName, user.getId());
+        return queryByIndex("FFUserId", user.getId(), envName);
+    }
+
+    /**
+     * Get one page of the feature flags owned by a user for a specific environment.
+     *
+     * @param envName The environment name
+     * @param user The owner of the feature flags
+     * @param pageSize The maximum number of feature flags in the page
+     * @param lastEvaluatedKey The last evaluated key of the previous page (can be null for first page)
+     * @return A future of the page, or of null if there are no more pages
+     */
+    public CompletableFuture<Page<FeatureFlag>> getEnvFFPage(String envName, CognitoUser user, int pageSize,
+                                                             Map<String, AttributeValue> lastEvaluatedKey) {
+        log.info("Getting feature flags page for env: {}, user: {}, pageSize: {}", envName, user.getId(), pageSize);
+        return queryByGlobalIndexPaginated("FFUserId", user.getId(), envName, pageSize, lastEvaluatedKey);
+    }
+
+    /**
+     * Delete a feature flag.
+     *
+     * @param name The feature flag name
+     * @param envName The environment name
+     * @return A future completing once the feature flag is deleted
+     */
+    public CompletableFuture<Void> deleteFF(String name, String envName) {
+        log.info("Deleting feature flag name: {}, env: {}", name, envName);
+        return deleteItem(envName, name);
+    }
+}
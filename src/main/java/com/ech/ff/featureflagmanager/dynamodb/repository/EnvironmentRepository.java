@@ -1,13 +1,16 @@
 package com.ech.ff.featureflagmanager.dynamodb.repository;
 
 import com.ech.ff.featureflagmanager.dynamodb.entity.Environment;
+import com.ech.ff.featureflagmanager.dynamodb.migration.GlobalSecondaryIndexMigration;
 import com.ech.ff.featureflagmanager.dynamodb.repository.base.DynamoDbRepository;
 import com.ech.ff.featureflagmanager.security.dto.CognitoUser;
 import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository for managing environments in DynamoDB.
@@ -15,23 +18,46 @@ import java.util.Optional;
 @Slf4j
 public class EnvironmentRepository extends DynamoDbRepository<Environment> {
 
+    private final GlobalSecondaryIndexMigration byNameIndex;
+
     /**
      * Constructs a new EnvironmentRepository.
      *
      * @param dynamoDbTable The DynamoDB table for environments
+     * @param enhancedClient The client used for batch operations
+     * @param byNameIndex The migration of the {@value Environment#BY_NAME_INDEX} index
+     */
+    public EnvironmentRepository(DynamoDbTable<Environment> dynamoDbTable, DynamoDbEnhancedClient enhancedClient,
+                                 GlobalSecondaryIndexMigration byNameIndex) {
+        super(dynamoDbTable, enhancedClient);
+        this.byNameIndex = byNameIndex;
+    }
+
+    /**
+     * Lazily read the environments of all users with a parallel scan, for administration and export.
+     *
+     * @param totalSegments The number of scan segments read in parallel
+     * @param pageSize The number of environments per page
+     * @return A lazy stream of pages of environments in no particular order, must be closed after use
      */
-    public EnvironmentRepository(DynamoDbTable<Environment> dynamoDbTable) {
-        super(dynamoDbTable);
+    public Stream<List<Environment>> streamAllEnvironments(int totalSegments, int pageSize) {
+        log.info("Streaming all environments: segments={}", totalSegments);
+        return parallelScan(totalSegments, pageSize);
     }
 
     /**
-     * Get all environments.
+     * Get the environments with a given name of all users, from the {@value Environment#BY_NAME_INDEX} index.
      *
-     * @return List of all environments
+     * @param name The environment name
+     * @return The environments with the name, ordered by user id
+     * @throws IllegalStateException if the index is not active yet
      */
-    public List<Environment> getAllEnvironments() {
-        log.info("Getting all environments");
-        return scanAll();
+    public List<Environment> getByNameAcrossUsers(String name) {
+        log.info("Getting environments by name across users: {}", name);
+        if (!byNameIndex.isActive()) {
+            throw new IllegalStateException("Index " + Environment.BY_NAME_INDEX + " is not active yet");
+        }
+        return queryByIndex(Environment.BY_NAME_INDEX, name);
     }
 
     public List<Environment> getUserEnvironments(CognitoUser user) {
@@ -39,6 +65,18 @@ public class EnvironmentRepository extends DynamoDbRepository<Environment> {
         return queryByPartitionKey(user.getId());
     }
 
+    /**
+     * Lazily read the environments of a user, one page at a time.
+     *
+     * @param user The owner of the environments
+     * @param pageSize The number of environments per page
+     * @return A lazy stream of pages of environments, must be closed after use
+     */
+    public Stream<List<Environment>> streamUserEnvironments(CognitoUser user, int pageSize) {
+        log.info("Streaming environments for user: {}", user.getId());
+        return streamByPartitionKey(user.getId(), pageSize);
+    }
+
     /**
      * Save an environment.
      *
@@ -51,23 +89,25 @@ public class EnvironmentRepository extends DynamoDbRepository<Environment> {
     }
 
     /**
-     * Get an environment by name.
+     * Get an environment of a user by name.
      *
+     * @param userId The id of the owner of the environment
      * @param name The environment name
      * @return The environment if found, otherwise empty
      */
-    public Optional<Environment> getByName(String name) {
-        log.info("Getting environment by name: {}", name);
-        return getItem(name, null);
+    public Optional<Environment> getByName(String userId, String name) {
+        log.info("Getting environment by name: {}, user: {}", name, userId);
+        return getItem(userId, name);
     }
 
     /**
-     * Delete an environment.
+     * Delete an environment of a user.
      *
+     * @param userId The id of the owner of the environment
      * @param name The environment name
      */
-    public void deleteEnvironment(String name) {
-        log.info("Deleting environment: {}", name);
-        deleteItem(name, null);
+    public void deleteEnvironment(String userId, String name) {
+        log.info("Deleting environment: {}, user: {}", name, userId);
+        deleteItem(userId, name);
     }
 }
@@ -1,13 +1,31 @@
 package com.ech.ff.featureflagmanager.dynamodb.repository;
 
 import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.BatchWriteItemResult;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.ConditionalWriteException;
 import com.ech.ff.featureflagmanager.dynamodb.repository.base.DynamoDbRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.RateLimiter;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.VersionConditions;
 import com.ech.ff.featureflagmanager.security.dto.CognitoUser;
 import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Repository for managing feature flags in DynamoDB.
@@ -15,13 +33,17 @@ import java.util.Optional;
 @Slf4j
 public class FeatureFlagRepository extends DynamoDbRepository<FeatureFlag> {
 
+    private static final int MAX_CONFLICT_ATTEMPTS = 3;
+    private static final String OWNED_BY_ANOTHER_USER = "Owned by another user";
+
     /**
      * Constructs a new FeatureFlagRepository.
      *
      * @param dynamoDbTable The DynamoDB table for feature flags
+     * @param enhancedClient The client used for batch operations
      */
-    public FeatureFlagRepository(DynamoDbTable<FeatureFlag> dynamoDbTable) {
-        super(dynamoDbTable);
+    public FeatureFlagRepository(DynamoDbTable<FeatureFlag> dynamoDbTable, DynamoDbEnhancedClient enhancedClient) {
+        super(dynamoDbTable, enhancedClient);
     }
 
     /**
@@ -36,15 +58,67 @@ public class FeatureFlagRepository extends DynamoDbRepository<FeatureFlag> {
         return getItem(envName, name);
     }
 
+    /**
+     * Get many feature flags of an environment by name in a single batched read.
+     *
+     * @param names The feature flag names
+     * @param envName The environment name
+     * @return A future of the feature flags found
+     */
+    public CompletableFuture<List<FeatureFlag>> getByNames(List<String> names, String envName) {
+        log.info("Getting {} feature flags by name, env: {}", names.size(), envName);
+        List<Key> keys = names.stream()
+                .map(name -> Key.builder().partitionValue(envName).sortValue(name).build())
+                .toList();
+        return batchGetItems(keys);
+    }
+
     /**
      * Get all feature flags for a specific environment.
      *
      * @param envName The environment name
+     * @param user The owner of the feature flags
      * @return List of feature flags for the environment
      */
     public List<FeatureFlag> getEnvFF(String envName, CognitoUser user) {
-        log.info("Getting all feature flags for env: {}", envName);
-        return queryByIndex("FFUserId", user.getId(), envName);
+        return getEnvFF(envName, user.getId());
+    }
+
+    /**
+     * Get all feature flags owned by a user for a specific environment.
+     *
+     * @param envName The environment name
+     * @param userId The id of the owner of the feature flags
+     * @return List of feature flags for the environment
+     */
+    public List<FeatureFlag> getEnvFF(String envName, String userId) {
+        log.info("Getting all feature flags for env: {}, user: {}", envName, userId);
+        return queryByIndex("FFUserId", userId, envName);
+    }
+
+    /**
+     * Read all feature flags owned by a user for a specific environment from DynamoDB,
+     * bypassing any cache in front of this repository.
+     *
+     * @param envName The environment name
+     * @param userId The id of the owner of the feature flags
+     * @return List of feature flags for the environment
+     */
+    public List<FeatureFlag> reloadEnvFF(String envName, String userId) {
+        return getEnvFF(envName, userId);
+    }
+
+    /**
+     * Lazily read the feature flags owned by a user for a specific environment, one page at a time.
+     *
+     * @param envName The environment name
+     * @param userId The id of the owner of the feature flags
+     * @param pageSize The number of feature flags per page
+     * @return A lazy stream of pages of feature flags, must be closed after use
+     */
+    public Stream<List<FeatureFlag>> streamEnvFF(String envName, String userId, int pageSize) {
+        log.info("Streaming feature flags for env: {}, user: {}", envName, userId);
+        return streamByIndex("FFUserId", userId, envName, pageSize);
     }
 
     /**
@@ -57,4 +131,225 @@ public class FeatureFlagRepository extends DynamoDbRepository<FeatureFlag> {
         log.info("Deleting feature flag name: {}, env: {}", name, envName);
         deleteItem(envName, name);
     }
+
+    /**
+     * Save many feature flags, creating or replacing them.
+     * The flags are written in transactions of up to {@value #MAX_TRANSACTION_SIZE} flags, each on the condition
+     * that every flag is still at the version read just before, so every write moves a flag to a version of
+     * its own even under concurrent writers. When flags of a transaction changed in between, those flags are
+     * read again and the transaction is written again after a backoff; a flag that changed
+     * {@value #MAX_CONFLICT_ATTEMPTS} times is reported as failed and the other flags are still written.
+     * A stored flag is only replaced by its owner: flags of another user are reported as failed and not written,
+     * and the condition of every stored flag includes its owner. Transactional writes consume twice the write
+     * capacity of batched writes.
+     *
+     * @param flags The feature flags to save, with the id of their owner; their versions are set, and the last
+     *              one wins for a duplicate key
+     * @return A future of the outcome of every feature flag
+     */
+    public CompletableFuture<List<BatchWriteItemResult>> saveAll(List<FeatureFlag> flags) {
+        return saveAll(flags, results -> {
+        });
+    }
+
+    /**
+     * Save many feature flags like {@link #saveAll(List)}, reporting the outcome of every transaction as soon as
+     * it is written.
+     *
+     * @param flags The feature flags to save, with the id of their owner; their versions are set, and the last
+     *              one wins for a duplicate key
+     * @param progress Gets the outcomes of the flags of every transaction, called concurrently from several threads
+     * @return A future of the outcome of every feature flag
+     */
+    public CompletableFuture<List<BatchWriteItemResult>> saveAll(List<FeatureFlag> flags,
+                                                                 Consumer<List<BatchWriteItemResult>> progress) {
+        log.info("Saving {} feature flags", flags.size());
+        Map<Key, FeatureFlag> flagsByKey = new LinkedHashMap<>();
+        flags.forEach(ff -> flagsByKey.put(keyOf(ff), ff));
+        List<FeatureFlag> distinct = new ArrayList<>(flagsByKey.values());
+
+        Semaphore permits = new Semaphore(DEFAULT_BATCH_PARALLELISM);
+        List<CompletableFuture<List<BatchWriteItemResult>>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += MAX_TRANSACTION_SIZE) {
+            List<FeatureFlag> chunk = distinct.subList(from, Math.min(from + MAX_TRANSACTION_SIZE, distinct.size()));
+            chunks.add(CompletableFuture.supplyAsync(() -> {
+                permits.acquireUninterruptibly();
+                List<BatchWriteItemResult> results;
+                try {
+                    results = saveChunk(chunk);
+                } finally {
+                    permits.release();
+                }
+                progress.accept(results);
+                return results;
+            }, BATCH_EXECUTOR));
+        }
+        return CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new))
+                .thenApply(v -> chunks.stream()
+                        .flatMap(chunk -> chunk.join().stream())
+                        .toList());
+    }
+
+    private List<BatchWriteItemResult> saveChunk(List<FeatureFlag> chunk) {
+        List<BatchWriteItemResult> results = new ArrayList<>(chunk.size());
+        Map<Key, FeatureFlag> pending = new LinkedHashMap<>();
+        chunk.forEach(ff -> pending.put(keyOf(ff), ff));
+        Map<Key, Integer> conflicts = new HashMap<>();
+        try {
+            for (int attempt = 0; !pending.isEmpty(); attempt++) {
+                Map<Key, FeatureFlag> stored = new HashMap<>();
+                batchGetItems(List.copyOf(pending.keySet())).join().forEach(ff -> stored.put(keyOf(ff), ff));
+                pending.values().removeIf(ff -> {
+                    FeatureFlag current = stored.get(keyOf(ff));
+                    if (current == null || Objects.equals(current.getUserId(), ff.getUserId())) {
+                        return false;
+                    }
+                    results.add(result(ff, BatchWriteItemResult.Status.FAILED, OWNED_BY_ANOTHER_USER));
+                    return true;
+                });
+                if (pending.isEmpty()) {
+                    break;
+                }
+                Map<Key, Expression> conditions = new HashMap<>();
+                pending.forEach((key, ff) -> conditions.put(key, ownedNextVersion(ff, stored.get(key))));
+                try {
+                    transactPut(List.copyOf(pending.values()), ff -> conditions.get(keyOf(ff)));
+                    pending.values().forEach(ff -> results.add(result(ff, BatchWriteItemResult.Status.SUCCEEDED, null)));
+                    pending.clear();
+                } catch (ConditionalWriteException e) {
+                    // Only the flags whose condition failed changed, the others are written with the next attempt
+                    List<Key> changed = e.getKeys().isEmpty() ? List.copyOf(pending.keySet()) : e.getKeys();
+                    for (Key key : changed) {
+                        int attempts = conflicts.merge(key, 1, Integer::sum);
+                        if (attempts >= MAX_CONFLICT_ATTEMPTS && pending.containsKey(key)) {
+                            results.add(result(pending.remove(key), BatchWriteItemResult.Status.FAILED,
+                                    "Changed by other writers in " + attempts + " attempts"));
+                        }
+                    }
+                    if (!pending.isEmpty()) {
+                        log.info("Feature flags changed while saving, retrying: changed={}, pending={}, attempt={}",
+                                changed.size(), pending.size(), attempt + 1);
+                        backoff(attempt);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Error saving feature flags: chunkSize={}", chunk.size(), e);
+            pending.values().forEach(ff -> results.add(result(ff, BatchWriteItemResult.Status.FAILED, e.getMessage())));
+        }
+        return results;
+    }
+
+    private static BatchWriteItemResult result(FeatureFlag flag, BatchWriteItemResult.Status status, String message) {
+        return new BatchWriteItemResult(BatchWriteItemResult.Operation.PUT, keyOf(flag), status, message);
+    }
+
+    /**
+     * Save feature flags in a single transaction, only if the stored flags are still the ones the caller read.
+     * Every flag gets the version after the one it replaces.
+     *
+     * @param flags The feature flags to save, at most {@value #MAX_TRANSACTION_SIZE}, their versions are set
+     * @param current The stored feature flags the caller read, by environment name and feature name;
+     *                flags without an entry must not exist yet
+     * @throws com.ech.ff.featureflagmanager.dynamodb.repository.base.ConditionalWriteException
+     * if a stored flag changed or belongs to another user, nothing is written then
+     */
+    public void saveAllIfUnchanged(List<FeatureFlag> flags, Map<Key, FeatureFlag> current) {
+        log.info("Saving {} feature flags in a transaction", flags.size());
+        Map<Key, Expression> conditions = new HashMap<>();
+        flags.forEach(ff -> conditions.put(keyOf(ff), ownedNextVersion(ff, current.get(keyOf(ff)))));
+        transactPut(flags, ff -> conditions.get(keyOf(ff)));
+    }
+
+    /**
+     * Set the version after the stored one on a feature flag that may only replace a flag of its owner.
+     *
+     * @param flag The feature flag to write
+     * @param stored The stored feature flag, null if there is none
+     * @return The condition that the stored feature flag is still the given one and belongs to the owner of the flag
+     */
+    private static Expression ownedNextVersion(FeatureFlag flag, FeatureFlag stored) {
+        Expression unchanged = nextVersion(flag, stored);
+        return stored == null ? unchanged : Expression.join(unchanged,
+                VersionConditions.attributeEquals("userId", flag.getUserId()), " AND ");
+    }
+
+    /**
+     * Set the version after the stored one on a feature flag.
+     *
+     * @param flag The feature flag to write
+     * @param stored The stored feature flag, null if there is none
+     * @return The condition that the stored feature flag is still the given one
+     */
+    private static Expression nextVersion(FeatureFlag flag, FeatureFlag stored) {
+        if (stored == null) {
+            flag.setVersion(VersionConditions.next(null));
+            return VersionConditions.absent("FeatureName");
+        }
+        flag.setVersion(VersionConditions.next(stored.getVersion()));
+        return VersionConditions.atVersion("FeatureName", stored.getVersion() == null ? 0 : stored.getVersion());
+    }
+
+    /**
+     * Delete many feature flags of a user in an environment with batched writes.
+     * The flags are read by key first and only the flags of the user are deleted; flags of another user are
+     * reported as failed. Batched deletes take no condition, so a flag deleted and created again by another
+     * user between the read and the delete is still deleted.
+     *
+     * @param names The feature flag names
+     * @param envName The environment name
+     * @param userId The id of the owner of the feature flags
+     * @return A future of the outcome of every feature flag
+     */
+    public CompletableFuture<List<BatchWriteItemResult>> deleteAll(List<String> names, String envName, String userId) {
+        return getByNames(names, envName).thenCompose(stored -> {
+            Set<String> foreign = stored.stream()
+                    .filter(ff -> !Objects.equals(ff.getUserId(), userId))
+                    .map(FeatureFlag::getFeatureName)
+                    .collect(Collectors.toSet());
+            List<String> owned = names.stream()
+                    .filter(name -> !foreign.contains(name))
+                    .toList();
+            if (!foreign.isEmpty()) {
+                log.warn("Not deleting {} feature flags of other users, env: {}, user: {}", foreign.size(), envName, userId);
+            }
+            return deleteAll(owned, envName, DEFAULT_BATCH_PARALLELISM, RateLimiter.UNLIMITED)
+                    .thenApply(results -> Stream.concat(results.stream(), foreign.stream()
+                                    .map(name -> new BatchWriteItemResult(BatchWriteItemResult.Operation.DELETE,
+                                            Key.builder().partitionValue(envName).sortValue(name).build(),
+                                            BatchWriteItemResult.Status.FAILED, OWNED_BY_ANOTHER_USER)))
+                            .toList());
+        });
+    }
+
+    /**
+     * Delete many feature flags of an environment with batched writes under a rate limit, whoever owns them.
+     *
+     * @param names The feature flag names, read from the flags of the owner
+     * @param envName The environment name
+     * @param parallelism The maximum number of batches written at the same time
+     * @param rateLimiter The limiter of the number of feature flags deleted per second
+     * @return A future of the outcome of every feature flag
+     */
+    public CompletableFuture<List<BatchWriteItemResult>> deleteAll(List<String> names, String envName, int parallelism,
+                                                                   RateLimiter rateLimiter) {
+        log.info("Deleting {} feature flags, env: {}", names.size(), envName);
+        List<Key> keys = names.stream()
+                .map(name -> Key.builder().partitionValue(envName).sortValue(name).build())
+                .toList();
+        return batchWrite(List.of(), keys, parallelism, rateLimiter);
+    }
+
+    /**
+     * Get the table key of a feature flag.
+     *
+     * @param flag The feature flag
+     * @return The key made of the environment name and the feature name
+     */
+    public static Key keyOf(FeatureFlag flag) {
+        return Key.builder().partitionValue(flag.getEnvName()).sortValue(flag.getFeatureName()).build();
+    }
 }
@@ -0,0 +1,263 @@
+package com.ech.ff.featureflagmanager.dynamodb.repository.base;
+
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Base repository class for non-blocking DynamoDB operations.
+ * Async counterpart of {@link DynamoDbRepository}: every operation returns a {@link CompletableFuture}
+ * that completes on an SDK thread once DynamoDB answers, so no caller thread is blocked on I/O.
+ *
+ * @param <T> The entity type
+ */
+@Slf4j
+public abstract class AsyncDynamoDbRepository<T> {
+
+    protected final DynamoDbAsyncTable<T> dynamoDbAsyncTable;
+    private final RepositoryMetrics metrics;
+
+    /**
+     * Constructs a new AsyncDynamoDbRepository. Its operations are timed in the global meter registry.
+     *
+     * @param dynamoDbAsyncTable The DynamoDB table of the entities
+     */
+    public AsyncDynamoDbRepository(DynamoDbAsyncTable<T> dynamoDbAsyncTable) {
+        this.dynamoDbAsyncTable = dynamoDbAsyncTable;
+        this.metrics = new RepositoryMetrics(Metrics.globalRegistry, dynamoDbAsyncTable.tableName());
+    }
+
+    /**
+     * Save an entity to DynamoDB.
+     *
+     * @param entity The entity to save
+     * @return A future of the saved entity
+     */
+    public CompletableFuture<T> save(T entity) {
+        log.info("Saving entity asynchronously: {}", entity);
+        return metrics.timeAsync("save", () -> executeWithExceptionHandling(
+                table -> table.putItem(entity).thenApply(v -> entity), "Failed to save entity"));
+    }
+
+    /**
+     * Save an entity to DynamoDB only if the stored item meets a condition.
+     *
+     * @param entity The entity to save
+     * @param condition The condition on the stored item
+     * @return A future of the saved entity, failing with {@link ConditionalWriteException} if the condition is not met
+     */
+    public CompletableFuture<T> saveIf(T entity, Expression condition) {
+        log.info("Saving entity asynchronously if {}: {}", condition.expression(), entity);
+        return metrics.timeAsync("saveIf", () -> {
+            CompletableFuture<Void> future;
+            try {
+                future = dynamoDbAsyncTable.putItem(PutItemEnhancedRequest.builder(dynamoDbAsyncTable.tableSchema().itemType().rawClass())
+                        .item(entity)
+                        .conditionExpression(condition)
+                        .build());
+            } catch (Exception e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            return future.handle((v, e) -> {
+                if (e == null) {
+                    return entity;
+                }
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof ConditionalCheckFailedException) {
+                    log.info("Condition not met, entity not saved: {}", entity);
+                    throw new CompletionException(new ConditionalWriteException("Condition not met: " + condition.expression(), cause));
+                }
+                log.error("Failed to save entity conditionally: {}", cause.getMessage(), cause);
+                throw new CompletionException(new RuntimeException("Failed to save entity conditionally", cause));
+            });
+        });
+    }
+
+    /**
+     * Get an entity by its partition key and sort key.
+     *
+     * @param partitionKey The partition key
+     * @param sortKey The sort key (can be null if no sort key)
+     * @return A future of the entity if found, otherwise empty
+     */
+    public CompletableFuture<Optional<T>> getItem(String partitionKey, String sortKey) {
+        log.info("Getting entity asynchronously by key: partition={}, sort={}", partitionKey, sortKey);
+        Key key = buildKey(partitionKey, sortKey);
+        return metrics.timeAsync("getItem", () -> executeWithExceptionHandling(
+                table -> table.getItem(key).thenApply(Optional::ofNullable), "Failed to get entity by key"));
+    }
+
+    /**
+     * Delete an entity by its partition key and sort key.
+     *
+     * @param partitionKey The partition key
+     * @param sortKey The sort key (can be null if no sort key)
+     * @return A future completing once the entity is deleted
+     */
+    public CompletableFuture<Void> deleteItem(String partitionKey, String sortKey) {
+        log.info("Deleting entity asynchronously by key: partition={}, sort={}", partitionKey, sortKey);
+        Key key = buildKey(partitionKey, sortKey);
+        return metrics.timeAsync("deleteItem", () -> executeWithExceptionHandling(
+                table -> table.deleteItem(key).thenApply(deleted -> (Void) null), "Failed to delete entity by key"));
+    }
+
+    /**
+     * Query items by partition key.
+     *
+     * @param partitionKey The partition key
+     * @return A future of the entities matching the partition key
+     */
+    public CompletableFuture<List<T>> queryByPartitionKey(String partitionKey) {
+        log.info("Querying entities asynchronously by partition key: {}", partitionKey);
+        return query(QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue(partitionKey).build()))
+                .build());
+    }
+
+    /**
+     * Query a single page of items by partition key.
+     *
+     * @param partitionKey The partition key
+     * @param pageSize The number of items per page
+     * @param lastEvaluatedKey The last evaluated key for pagination (can be null for first page)
+     * @return A future of the page, or of null if there are no more pages
+     */
+    public CompletableFuture<Page<T>> queryByPartitionKeyPaginated(String partitionKey, int pageSize,
+                                                                   Map<String, AttributeValue> lastEvaluatedKey) {
+        log.info("Querying entities asynchronously by partition key with pagination: key={}, pageSize={}, lastKey={}",
+                partitionKey, pageSize, lastEvaluatedKey);
+        QueryEnhancedRequest.Builder requestBuilder = QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue(partitionKey).build()))
+                .limit(pageSize);
+        if (lastEvaluatedKey != null) {
+            requestBuilder.exclusiveStartKey(lastEvaluatedKey);
+        }
+
+        AtomicReference<Page<T>> firstPage = new AtomicReference<>();
+        return metrics.timeAsync("queryByPartitionKeyPaginated", () -> executeWithExceptionHandling(
+                table -> table.query(requestBuilder.build())
+                        .limit(1)
+                        .subscribe(firstPage::set)
+                        .thenApply(v -> firstPage.get()),
+                "Failed to query entities by partition key with pagination"));
+    }
+
+    /**
+     * Query items with a prepared request, collecting all result pages.
+     *
+     * @param request The query request
+     * @return A future of the entities matching the query
+     */
+    public CompletableFuture<List<T>> query(QueryEnhancedRequest request) {
+        List<T> results = new ArrayList<>();
+        return metrics.timeAsync("query", () -> executeWithExceptionHandling(
+                table -> table.query(request).items().subscribe(results::add)
+                        .thenApply(v -> results),
+                "Failed to query entities"));
+    }
+
+    /**
+     * Query items by global index using the partition key and an exact sort key.
+     *
+     * @param indexName The name of the global secondary index
+     * @param partitionKey The partition key
+     * @param sortKey The sort key
+     * @return A future of the entities matching the query
+     */
+    public CompletableFuture<List<T>> queryByIndex(String indexName, String partitionKey, String sortKey) {
+        log.info("Querying entities asynchronously by global index: index={}, partitionKey={}", indexName, partitionKey);
+        QueryEnhancedRequest request = QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(buildKey(partitionKey, sortKey)))
+                .build();
+
+        List<T> results = new ArrayList<>();
+        return metrics.timeAsync("queryByIndex", () -> executeWithExceptionHandling(
+                table -> table.index(indexName).query(request)
+                        .subscribe(page -> results.addAll(page.items()))
+                        .thenApply(v -> results),
+                "Failed to query entities by global index"));
+    }
+
+    /**
+     * Query a single page of items by global index.
+     *
+     * @param indexName The name of the global secondary index
+     * @param partitionKey The partition key
+     * @param sortKey The sort key (can be null to match the partition key only)
+     * @param pageSize The number of items per page
+     * @param lastEvaluatedKey The last evaluated key for pagination (can be null for first page)
+     * @return A future of the page, or of null if there are no more pages
+     */
+    public CompletableFuture<Page<T>> queryByGlobalIndexPaginated(String indexName, String partitionKey, String sortKey,
+                                                                  int pageSize, Map<String, AttributeValue> lastEvaluatedKey) {
+        log.info("Querying entities asynchronously by global index with pagination: index={}, partitionKey={}, pageSize={}, lastKey={}",
+                indexName, partitionKey, pageSize, lastEvaluatedKey);
+        QueryEnhancedRequest.Builder requestBuilder = QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(buildKey(partitionKey, sortKey)))
+                .limit(pageSize);
+        if (lastEvaluatedKey != null) {
+            requestBuilder.exclusiveStartKey(lastEvaluatedKey);
+        }
+
+        AtomicReference<Page<T>> firstPage = new AtomicReference<>();
+        return metrics.timeAsync("queryByGlobalIndexPaginated", () -> executeWithExceptionHandling(
+                table -> table.index(indexName).query(requestBuilder.build())
+                        .limit(1)
+                        .subscribe(firstPage::set)
+                        .thenApply(v -> firstPage.get()),
+                "Failed to query entities by global index with pagination"));
+    }
+
+    /**
+     * Execute an asynchronous call with exception handling.
+     * Failures, whether thrown while issuing the call or reported by the returned future,
+     * are logged and surface as a {@link RuntimeException} carrying the error message.
+     *
+     * @param function The call to execute
+     * @param errorMessage The error message to log if the call fails
+     * @param <R> The result type of the call
+     * @return A future of the result of the call
+     */
+    protected <R> CompletableFuture<R> executeWithExceptionHandling(Function<DynamoDbAsyncTable<T>, CompletableFuture<R>> function,
+                                                                    String errorMessage) {
+        CompletableFuture<R> future;
+        try {
+            future = function.apply(dynamoDbAsyncTable);
+        } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.handle((result, e) -> {
+            if (e == null) {
+                return result;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.error("{}: {}", errorMessage, cause.getMessage(), cause);
+            throw new CompletionException(new RuntimeException(errorMessage, cause));
+        });
+    }
+
+    private static Key buildKey(String partitionKey, String sortKey) {
+        Key.Builder keyBuilder = Key.builder().partitionValue(partitionKey);
+        if (sortKey != null) {
+            keyBuilder.sortValue(sortKey);
+        }
+        return keyBuilder.build();
+    }
+}
@@ -0,0 +1,34 @@
+package com.ech.ff.featureflagmanager.dynamodb.repository.base;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+
+/**
+ * Outcome of a single item of a batch write.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class BatchWriteItemResult {
+
+    public enum Operation {
+        PUT,
+        DELETE
+    }
+
+    public enum Status {
+        /** The item was written. */
+        SUCCEEDED,
+        /** DynamoDB did not process the item within the allowed retries. */
+        UNPROCESSED,
+        /** The batch the item belonged to failed. */
+        FAILED
+    }
+
+    private final Operation operation;
+    private final Key key;
+    private final Status status;
+    private final String message;
+}
@@ -0,0 +1,39 @@
+package com.ech.ff.featureflagmanager.dynamodb.repository.base;
+
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+
+import java.util.List;
+
+/**
+ * Thrown when a conditional write is rejected because the stored item does not meet the condition,
+ * typically because another writer changed it first.
+ */
+public class ConditionalWriteException extends RuntimeException {
+
+    private final List<Key> keys;
+
+    public ConditionalWriteException(String message, Throwable cause) {
+        this(message, cause, List.of());
+    }
+
+    /**
+     * Constructs a new ConditionalWriteException for a write of several items.
+     *
+     * @param message The detail message
+     * @param cause The exception of the rejected write
+     * @param keys The keys of the items whose condition was not met
+     */
+    public ConditionalWriteException(String message, Throwable cause, List<Key> keys) {
+        super(message, cause);
+        this.keys = List.copyOf(keys);
+    }
+
+    /**
+     * Get the keys of the items whose condition was not met.
+     *
+     * @return The keys, empty if the write was of a single item
+     */
+    public List<Key> getKeys() {
+        return keys;
+    }
+}
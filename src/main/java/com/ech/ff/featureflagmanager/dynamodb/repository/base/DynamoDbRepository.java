@@ -1,22 +1,49 @@
 package com.ech.ff.featureflagmanager.dynamodb.repository.base;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
 import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchGetItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchGetResultPage;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteResult;
 import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.PageIterable;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ReadBatch;
 import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactPutItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactWriteItemsEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.WriteBatch;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Base repository class for DynamoDB operations.
@@ -25,10 +52,42 @@ import java.util.stream.Collectors;
  * @param <T> The entity type
  */
 @Slf4j
-@RequiredArgsConstructor
 public abstract class DynamoDbRepository<T> {
 
+    /** Maximum number of items DynamoDB accepts in a single BatchWriteItem call. */
+    public static final int MAX_BATCH_WRITE_SIZE = 25;
+    /** Maximum number of keys DynamoDB accepts in a single BatchGetItem call. */
+    public static final int MAX_BATCH_GET_SIZE = 100;
+    public static final int DEFAULT_BATCH_PARALLELISM = 8;
+    /** Maximum number of items DynamoDB accepts in a single TransactWriteItems call. */
+    public static final int MAX_TRANSACTION_SIZE = 100;
+    /** Runs the chunks of batched reads and writes, every chunk on a virtual thread of its own. */
+    protected static final ExecutorService BATCH_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private static final int MAX_BATCH_RETRIES = 8;
+    private static final long BATCH_BACKOFF_BASE_MILLIS = 50;
+    private static final long BATCH_BACKOFF_MAX_MILLIS = 2000;
+    private static final String CONDITION_FAILED_REASON = "ConditionalCheckFailed";
+    private static final String NO_REASON = "None";
+    /** Cancellation reasons of a transaction that are gone when the same transaction is sent again later. */
+    private static final Set<String> RETRYABLE_CANCELLATION_REASONS =
+            Set.of("TransactionConflict", "ThrottlingError", "ProvisionedThroughputExceeded");
+
     protected final DynamoDbTable<T> dynamoDbTable;
+    protected final DynamoDbEnhancedClient enhancedClient;
+    private final RepositoryMetrics metrics;
+
+    /**
+     * Constructs a new DynamoDbRepository. Its operations are timed in the global meter registry.
+     *
+     * @param dynamoDbTable The DynamoDB table of the entities
+     * @param enhancedClient The client used for batch operations and transactions
+     */
+    public DynamoDbRepository(DynamoDbTable<T> dynamoDbTable, DynamoDbEnhancedClient enhancedClient) {
+        this.dynamoDbTable = dynamoDbTable;
+        this.enhancedClient = enhancedClient;
+        this.metrics = new RepositoryMetrics(Metrics.globalRegistry, dynamoDbTable.tableName());
+    }
 
     /**
      * Save an entity to DynamoDB.
@@ -38,13 +97,15 @@ public abstract class DynamoDbRepository<T> {
      */
     public T save(T entity) {
         log.info("Saving entity: {}", entity);
-        try {
-            dynamoDbTable.putItem(entity);
-            return entity;
-        } catch (Exception e) {
-            log.error("Error saving entity: {}", entity, e);
-            throw new RuntimeException("Failed to save entity", e);
-        }
+        return metrics.time("save", () -> {
+            try {
+                dynamoDbTable.putItem(entity);
+                return entity;
+            } catch (Exception e) {
+                log.error("Error saving entity: {}", entity, e);
+                throw new RuntimeException("Failed to save entity", e);
+            }
+        });
     }
 
     /**
@@ -55,13 +116,15 @@ public abstract class DynamoDbRepository<T> {
      */
     public Optional<T> getItem(T entity) {
         log.info("Getting entity: {}", entity);
-        try {
-            T result = dynamoDbTable.getItem(entity);
-            return Optional.ofNullable(result);
-        } catch (Exception e) {
-            log.error("Error getting entity: {}", entity, e);
-            throw new RuntimeException("Failed to get entity", e);
-        }
+        return metrics.time("getItem", () -> {
+            try {
+                T result = dynamoDbTable.getItem(entity);
+                return Optional.ofNullable(result);
+            } catch (Exception e) {
+                log.error("Error getting entity: {}", entity, e);
+                throw new RuntimeException("Failed to get entity", e);
+            }
+        });
     }
 
     /**
@@ -78,13 +141,15 @@ public abstract class DynamoDbRepository<T> {
         }
 
         log.info("Getting entity by key: partition={}, sort={}", partitionKey, sortKey);
-        try {
-            T result = dynamoDbTable.getItem(keyBuilder.build());
-            return Optional.ofNullable(result);
-        } catch (Exception e) {
-            log.error("Error getting entity by key: partition={}, sort={}", partitionKey, sortKey, e);
-            throw new RuntimeException("Failed to get entity by key", e);
-        }
+        return metrics.time("getItem", () -> {
+            try {
+                T result = dynamoDbTable.getItem(keyBuilder.build());
+                return Optional.ofNullable(result);
+            } catch (Exception e) {
+                log.error("Error getting entity by key: partition={}, sort={}", partitionKey, sortKey, e);
+                throw new RuntimeException("Failed to get entity by key", e);
+            }
+        });
     }
 
     /**
@@ -94,12 +159,14 @@ public abstract class DynamoDbRepository<T> {
      */
     public void deleteItem(T entity) {
         log.info("Deleting entity: {}", entity);
-        try {
-            dynamoDbTable.deleteItem(entity);
-        } catch (Exception e) {
-            log.error("Error deleting entity: {}", entity, e);
-            throw new RuntimeException("Failed to delete entity", e);
-        }
+        metrics.run("deleteItem", () -> {
+            try {
+                dynamoDbTable.deleteItem(entity);
+            } catch (Exception e) {
+                log.error("Error deleting entity: {}", entity, e);
+                throw new RuntimeException("Failed to delete entity", e);
+            }
+        });
     }
 
     /**
@@ -115,12 +182,14 @@ public abstract class DynamoDbRepository<T> {
         }
 
         log.info("Deleting entity by key: partition={}, sort={}", partitionKey, sortKey);
-        try {
-            dynamoDbTable.deleteItem(keyBuilder.build());
-        } catch (Exception e) {
-            log.error("Error deleting entity by key: partition={}, sort={}", partitionKey, sortKey, e);
-            throw new RuntimeException("Failed to delete entity by key", e);
-        }
+        metrics.run("deleteItem", () -> {
+            try {
+                dynamoDbTable.deleteItem(keyBuilder.build());
+            } catch (Exception e) {
+                log.error("Error deleting entity by key: partition={}, sort={}", partitionKey, sortKey, e);
+                throw new RuntimeException("Failed to delete entity by key", e);
+            }
+        });
     }
 
     /**
@@ -131,20 +200,22 @@ public abstract class DynamoDbRepository<T> {
      */
     public List<T> queryByPartitionKey(String partitionKey) {
         log.info("Querying entities by partition key: {}", partitionKey);
-        try {
-            QueryConditional queryConditional = QueryConditional.keyEqualTo(
-                    Key.builder().partitionValue(partitionKey).build()
-            );
-
-            QueryEnhancedRequest request = QueryEnhancedRequest.builder()
-                    .queryConditional(queryConditional)
-                    .build();
-
-            return dynamoDbTable.query(request).items().stream().collect(Collectors.toList());
-        } catch (Exception e) {
-            log.error("Error querying entities by partition key: {}", partitionKey, e);
-            throw new RuntimeException("Failed to query entities by partition key", e);
-        }
+        return metrics.time("queryByPartitionKey", () -> {
+            try {
+                QueryConditional queryConditional = QueryConditional.keyEqualTo(
+                        Key.builder().partitionValue(partitionKey).build()
+                );
+
+                QueryEnhancedRequest request = QueryEnhancedRequest.builder()
+                        .queryConditional(queryConditional)
+                        .build();
+
+                return dynamoDbTable.query(request).items().stream().collect(Collectors.toList());
+            } catch (Exception e) {
+                log.error("Error querying entities by partition key: {}", partitionKey, e);
+                throw new RuntimeException("Failed to query entities by partition key", e);
+            }
+        });
     }
 
     /**
@@ -158,26 +229,46 @@ public abstract class DynamoDbRepository<T> {
     public Page<T> queryByPartitionKeyPaginated(String partitionKey, int pageSize, Map<String, AttributeValue> lastEvaluatedKey) {
         log.info("Querying entities by partition key with pagination: key={}, pageSize={}, lastKey={}", 
                 partitionKey, pageSize, lastEvaluatedKey);
-        try {
-            QueryConditional queryConditional = QueryConditional.keyEqualTo(
-                    Key.builder().partitionValue(partitionKey).build()
-            );
-
-            QueryEnhancedRequest.Builder requestBuilder = QueryEnhancedRequest.builder()
-                    .queryConditional(queryConditional)
-                    .limit(pageSize);
-
-            if (lastEvaluatedKey != null) {
-                requestBuilder.exclusiveStartKey(lastEvaluatedKey);
+        return metrics.time("queryByPartitionKeyPaginated", () -> {
+            try {
+                QueryConditional queryConditional = QueryConditional.keyEqualTo(
+                        Key.builder().partitionValue(partitionKey).build()
+                );
+
+                QueryEnhancedRequest.Builder requestBuilder = QueryEnhancedRequest.builder()
+                        .queryConditional(queryConditional)
+                        .limit(pageSize);
+
+                if (lastEvaluatedKey != null) {
+                    requestBuilder.exclusiveStartKey(lastEvaluatedKey);
+                }
+
+                PageIterable<T> pages = dynamoDbTable.query(requestBuilder.build());
+                return pages.stream().findFirst().orElse(null);
+            } catch (Exception e) {
+                log.error("Error querying entities by partition key with pagination: key={}, pageSize={}", 
+                        partitionKey, pageSize, e);
+                throw new RuntimeException("Failed to query entities by partition key with pagination", e);
             }
+        });
+    }
 
-            PageIterable<T> pages = dynamoDbTable.query(requestBuilder.build());
-            return pages.stream().findFirst().orElse(null);
-        } catch (Exception e) {
-            log.error("Error querying entities by partition key with pagination: key={}, pageSize={}", 
-                    partitionKey, pageSize, e);
-            throw new RuntimeException("Failed to query entities by partition key with pagination", e);
-        }
+    /**
+     * Lazily query items by partition key page by page.
+     * Pages are fetched from DynamoDB only as the returned stream is consumed.
+     *
+     * @param partitionKey The partition key
+     * @param pageSize The number of items per page
+     * @return A lazy stream of the items of every page
+     */
+    public Stream<List<T>> streamByPartitionKey(String partitionKey, int pageSize) {
+        log.info("Streaming entities by partition key: key={}, pageSize={}", partitionKey, pageSize);
+        QueryEnhancedRequest request = QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(Key.builder().partitionValue(partitionKey).build()))
+                .limit(pageSize)
+                .build();
+        return executeWithExceptionHandling(table -> table.query(request).stream().map(Page::items),
+                "Failed to stream entities by partition key");
     }
 
     /**
@@ -187,12 +278,14 @@ public abstract class DynamoDbRepository<T> {
      */
     public List<T> scanAll() {
         log.info("Scanning all entities");
-        try {
-            return dynamoDbTable.scan().items().stream().collect(Collectors.toList());
-        } catch (Exception e) {
-            log.error("Error scanning all entities", e);
-            throw new RuntimeException("Failed to scan all entities", e);
-        }
+        return metrics.time("scanAll", () -> {
+            try {
+                return dynamoDbTable.scan().items().stream().collect(Collectors.toList());
+            } catch (Exception e) {
+                log.error("Error scanning all entities", e);
+                throw new RuntimeException("Failed to scan all entities", e);
+            }
+        });
     }
 
     /**
@@ -204,20 +297,77 @@ public abstract class DynamoDbRepository<T> {
      */
     public Page<T> scanPaginated(int pageSize, Map<String, AttributeValue> lastEvaluatedKey) {
         log.info("Scanning entities with pagination: pageSize={}, lastKey={}", pageSize, lastEvaluatedKey);
-        try {
-            ScanEnhancedRequest.Builder requestBuilder = ScanEnhancedRequest.builder()
-                    .limit(pageSize);
-
-            if (lastEvaluatedKey != null) {
-                requestBuilder.exclusiveStartKey(lastEvaluatedKey);
+        return metrics.time("scanPaginated", () -> {
+            try {
+                ScanEnhancedRequest.Builder requestBuilder = ScanEnhancedRequest.builder()
+                        .limit(pageSize);
+
+                if (lastEvaluatedKey != null) {
+                    requestBuilder.exclusiveStartKey(lastEvaluatedKey);
+                }
+
+                PageIterable<T> pages = dynamoDbTable.scan(requestBuilder.build());
+                return pages.stream().findFirst().orElse(null);
+            } catch (Exception e) {
+                log.error("Error scanning entities with pagination: pageSize={}", pageSize, e);
+                throw new RuntimeException("Failed to scan entities with pagination", e);
             }
+        });
+    }
 
-            PageIterable<T> pages = dynamoDbTable.scan(requestBuilder.build());
-            return pages.stream().findFirst().orElse(null);
-        } catch (Exception e) {
-            log.error("Error scanning entities with pagination: pageSize={}", pageSize, e);
-            throw new RuntimeException("Failed to scan entities with pagination", e);
-        }
+    /**
+     * Read one page of a segment of a parallel scan.
+     *
+     * @param segment The segment to read, from 0 to totalSegments - 1
+     * @param totalSegments The number of segments the table is split into
+     * @param pageSize The number of items per page
+     * @param exclusiveStartKey The last evaluated key of the previous page of the segment (can be null for the first page)
+     * @return The page, its last evaluated key is null once the segment is fully read
+     */
+    public Page<T> scanSegment(int segment, int totalSegments, int pageSize, Map<String, AttributeValue> exclusiveStartKey) {
+        log.info("Scanning segment: segment={}/{}, pageSize={}", segment, totalSegments, pageSize);
+        ScanEnhancedRequest request = ScanEnhancedRequest.builder()
+                .segment(segment)
+                .totalSegments(totalSegments)
+                .limit(pageSize)
+                .exclusiveStartKey(exclusiveStartKey)
+                .build();
+        return metrics.time("scanSegment", () -> executeWithExceptionHandling(
+                table -> table.scan(request).iterator().next(), "Failed to scan segment"));
+    }
+
+    /**
+     * Get the name of the table.
+     *
+     * @return The table name
+     */
+    public String tableName() {
+        return dynamoDbTable.tableName();
+    }
+
+    /**
+     * Get the schema that maps entities to items of the table.
+     *
+     * @return The table schema
+     */
+    public TableSchema<T> tableSchema() {
+        return dynamoDbTable.tableSchema();
+    }
+
+    /**
+     * Scan the whole table with parallel scan segments, streaming the pages as the segments read them.
+     * Pages of different segments are interleaved in no particular order. At most two pages per segment
+     * are read ahead of the consumer.
+     *
+     * @param totalSegments The number of segments scanned in parallel
+     * @param pageSize The number of items per page
+     * @return A lazy stream of pages, must be closed after use to stop the segments that are still running
+     */
+    public Stream<List<T>> parallelScan(int totalSegments, int pageSize) {
+        log.info("Scanning entities in parallel: segments={}, pageSize={}", totalSegments, pageSize);
+        SegmentedScan<T> scan = new SegmentedScan<>(dynamoDbTable, totalSegments, pageSize, BATCH_EXECUTOR);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(scan, Spliterator.NONNULL), false)
+                .onClose(scan::close);
     }
 
     /**
@@ -245,7 +395,7 @@ public abstract class DynamoDbRepository<T> {
      * @return List of entities matching the query
      */
     public List<T> queryByIndex(String indexName, String partitionKey) {
-        return queryByIndex(indexName, partitionKey, (String) null);
+        return queryByIndex(indexName, partitionKey, (QueryConditional) null);
     }
 
     public List<T> queryByIndex(String indexName, String partitionKey, String sortKey) {
@@ -265,25 +415,51 @@ public abstract class DynamoDbRepository<T> {
      */
     public List<T> queryByIndex(String indexName, String partitionKey, QueryConditional sortKeyCondition) {
         log.info("Querying entities by global index: index={}, partitionKey={}", indexName, partitionKey);
-        try {
-            DynamoDbIndex<T> index = dynamoDbTable.index(indexName);
-
-            QueryConditional partitionKeyCondition = QueryConditional.keyEqualTo(
-                    Key.builder().partitionValue(partitionKey).build()
-            );
-
-            QueryEnhancedRequest request = QueryEnhancedRequest.builder()
-                    .queryConditional(sortKeyCondition != null ? sortKeyCondition : partitionKeyCondition)
-                    .build();
+        return metrics.time("queryByIndex", () -> {
+            try {
+                DynamoDbIndex<T> index = dynamoDbTable.index(indexName);
+
+                QueryConditional partitionKeyCondition = QueryConditional.keyEqualTo(
+                        Key.builder().partitionValue(partitionKey).build()
+                );
+
+                QueryEnhancedRequest request = QueryEnhancedRequest.builder()
+                        .queryConditional(sortKeyCondition != null ? sortKeyCondition : partitionKeyCondition)
+                        .build();
+
+                List<T> results = new java.util.ArrayList<>();
+                index.query(request).forEach(page -> results.addAll(page.items()));
+                return results;
+            } catch (Exception e) {
+                log.error("Error querying entities by global index: index={}, partitionKey={}", 
+                        indexName, partitionKey, e);
+                throw new RuntimeException("Failed to query entities by global index", e);
+            }
+        });
+    }
 
-            List<T> results = new java.util.ArrayList<>();
-            index.query(request).forEach(page -> results.addAll(page.items()));
-            return results;
-        } catch (Exception e) {
-            log.error("Error querying entities by global index: index={}, partitionKey={}", 
-                    indexName, partitionKey, e);
-            throw new RuntimeException("Failed to query entities by global index", e);
+    /**
+     * Lazily query items by global index page by page.
+     * Pages are fetched from DynamoDB only as the returned stream is consumed.
+     *
+     * @param indexName The name of the global secondary index
+     * @param partitionKey The partition key
+     * @param sortKey The sort key (can be null to match the partition key only)
+     * @param pageSize The number of items per page
+     * @return A lazy stream of the items of every page
+     */
+    public Stream<List<T>> streamByIndex(String indexName, String partitionKey, String sortKey, int pageSize) {
+        log.info("Streaming entities by global index: index={}, partitionKey={}, pageSize={}", indexName, partitionKey, pageSize);
+        Key.Builder keyBuilder = Key.builder().partitionValue(partitionKey);
+        if (sortKey != null) {
+            keyBuilder.sortValue(sortKey);
         }
+        QueryEnhancedRequest request = QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(keyBuilder.build()))
+                .limit(pageSize)
+                .build();
+        return executeWithExceptionHandling(table -> table.index(indexName).query(request).stream().map(Page::items),
+                "Failed to stream entities by global index");
     }
 
     /**
@@ -315,26 +491,325 @@ public abstract class DynamoDbRepository<T> {
                                               Map<String, AttributeValue> lastEvaluatedKey) {
         log.info("Querying entities by global index with pagination: index={}, partitionKey={}, pageSize={}, lastKey={}", 
                 indexName, partitionKey, pageSize, lastEvaluatedKey);
-        try {
-            DynamoDbIndex<T> index = dynamoDbTable.index(indexName);
+        return metrics.time("queryByGlobalIndexPaginated", () -> {
+            try {
+                DynamoDbIndex<T> index = dynamoDbTable.index(indexName);
+
+                QueryConditional partitionKeyCondition = QueryConditional.keyEqualTo(
+                        Key.builder().partitionValue(partitionKey).build()
+                );
+
+                QueryEnhancedRequest.Builder requestBuilder = QueryEnhancedRequest.builder()
+                        .queryConditional(sortKeyCondition != null ? sortKeyCondition : partitionKeyCondition)
+                        .limit(pageSize);
+
+                if (lastEvaluatedKey != null) {
+                    requestBuilder.exclusiveStartKey(lastEvaluatedKey);
+                }
+
+                return index.query(requestBuilder.build()).stream().findFirst().orElse(null);
+            } catch (Exception e) {
+                log.error("Error querying entities by global index with pagination: index={}, partitionKey={}, pageSize={}", 
+                        indexName, partitionKey, pageSize, e);
+                throw new RuntimeException("Failed to query entities by global index with pagination", e);
+            }
+        });
+    }
 
-            QueryConditional partitionKeyCondition = QueryConditional.keyEqualTo(
-                    Key.builder().partitionValue(partitionKey).build()
-            );
+    /**
+     * Put items in a single TransactWriteItems call: either all items are written or none is.
+     * A transaction cancelled only by conflicts with other transactions or by throttling is sent again
+     * with exponential backoff, up to {@value #MAX_BATCH_RETRIES} times.
+     *
+     * @param items The entities to put, at most {@value #MAX_TRANSACTION_SIZE}
+     * @param conditions Gives the condition each stored item must meet, can return null for none
+     * @throws ConditionalWriteException if the condition of an item is not met, with the keys of those items;
+     * nothing is written then
+     */
+    public void transactPut(List<T> items, Function<T, Expression> conditions) {
+        log.info("Writing {} entities in a transaction", items.size());
+        if (items.size() > MAX_TRANSACTION_SIZE) {
+            throw new IllegalArgumentException("A transaction holds at most " + MAX_TRANSACTION_SIZE + " items");
+        }
+        TransactWriteItemsEnhancedRequest.Builder builder = TransactWriteItemsEnhancedRequest.builder();
+        Class<T> itemClass = dynamoDbTable.tableSchema().itemType().rawClass();
+        items.forEach(item -> builder.addPutItem(dynamoDbTable, TransactPutItemEnhancedRequest.builder(itemClass)
+                .item(item)
+                .conditionExpression(conditions.apply(item))
+                .build()));
+        TransactWriteItemsEnhancedRequest request = builder.build();
+        metrics.run("transactPut", () -> {
+            try {
+                for (int attempt = 0; ; attempt++) {
+                    try {
+                        enhancedClient.transactWriteItems(request);
+                        return;
+                    } catch (TransactionCanceledException e) {
+                        // Cancellation reasons are in the order of the items of the transaction
+                        List<CancellationReason> reasons = e.cancellationReasons();
+                        List<Key> conditionFailed = new ArrayList<>();
+                        for (int i = 0; i < reasons.size() && i < items.size(); i++) {
+                            if (CONDITION_FAILED_REASON.equals(reasons.get(i).code())) {
+                                conditionFailed.add(dynamoDbTable.keyFrom(items.get(i)));
+                            }
+                        }
+                        if (!conditionFailed.isEmpty()) {
+                            log.info("Transaction of {} entities cancelled by the condition of {}", items.size(),
+                                    conditionFailed.size());
+                            throw new ConditionalWriteException("Condition not met for " + conditionFailed.size()
+                                    + " items of the transaction", e, conditionFailed);
+                        }
+                        boolean retryable = reasons.stream()
+                                .map(CancellationReason::code)
+                                .allMatch(code -> code == null || NO_REASON.equals(code)
+                                        || RETRYABLE_CANCELLATION_REASONS.contains(code));
+                        if (!retryable || attempt >= MAX_BATCH_RETRIES) {
+                            throw e;
+                        }
+                        log.info("Retrying transaction of {} entities cancelled by {}, attempt={}", items.size(),
+                                reasons.stream().map(CancellationReason::code).distinct().toList(), attempt + 1);
+                        metrics.batchRetry("transactPut", items.size());
+                        backoff(attempt);
+                    }
+                }
+            } catch (ConditionalWriteException e) {
+                throw e;
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                log.error("Error writing entities in a transaction", e);
+                throw new RuntimeException("Failed to write entities in a transaction", e);
+            }
+        });
+    }
+
+    /**
+     * Wait before sending unprocessed items or a cancelled transaction again, exponentially longer with every
+     * attempt and with jitter, so retries of concurrent writers spread out.
+     *
+     * @param attempt The number of attempts made so far, from 0
+     */
+    protected static void backoff(int attempt) throws InterruptedException {
+        long backoff = Math.min(BATCH_BACKOFF_MAX_MILLIS, BATCH_BACKOFF_BASE_MILLIS << Math.min(attempt, 20));
+        Thread.sleep(ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1));
+    }
 
-            QueryEnhancedRequest.Builder requestBuilder = QueryEnhancedRequest.builder()
-                    .queryConditional(sortKeyCondition != null ? sortKeyCondition : partitionKeyCondition)
-                    .limit(pageSize);
+    /**
+     * Write items in bulk with BatchWriteItem using the default parallelism.
+     *
+     * @param puts The entities to put
+     * @param deletes The keys of the entities to delete
+     * @return A future of the outcome of every item
+     * @see #batchWrite(List, List, int)
+     */
+    public CompletableFuture<List<BatchWriteItemResult>> batchWrite(List<T> puts, List<Key> deletes) {
+        return batchWrite(puts, deletes, DEFAULT_BATCH_PARALLELISM);
+    }
 
-            if (lastEvaluatedKey != null) {
-                requestBuilder.exclusiveStartKey(lastEvaluatedKey);
+    /**
+     * Write items in bulk with BatchWriteItem.
+     * The items are split into chunks of {@value #MAX_BATCH_WRITE_SIZE}, chunks are written in parallel and
+     * unprocessed items are retried with exponential backoff. When the same key is given more than once,
+     * the last operation for that key wins, because DynamoDB rejects duplicate keys within a batch.
+     *
+     * @param puts The entities to put
+     * @param deletes The keys of the entities to delete
+     * @param parallelism The maximum number of chunks written at the same time
+     * @return A future of the outcome of every item
+     */
+    public CompletableFuture<List<BatchWriteItemResult>> batchWrite(List<T> puts, List<Key> deletes, int parallelism) {
+        return batchWrite(puts, deletes, parallelism, RateLimiter.UNLIMITED);
+    }
+
+    /**
+     * Write items in bulk with BatchWriteItem under a rate limit.
+     * Works like {@link #batchWrite(List, List, int)}, and every chunk waits for as many permits
+     * of the rate limiter as it holds items before it is written.
+     *
+     * @param puts The entities to put
+     * @param deletes The keys of the entities to delete
+     * @param parallelism The maximum number of chunks written at the same time
+     * @param rateLimiter The limiter of the number of items written per second, can be shared between calls
+     * @return A future of the outcome of every item
+     */
+    public CompletableFuture<List<BatchWriteItemResult>> batchWrite(List<T> puts, List<Key> deletes, int parallelism,
+                                                                    RateLimiter rateLimiter) {
+        log.info("Batch writing entities: puts={}, deletes={}, parallelism={}", puts.size(), deletes.size(), parallelism);
+        Map<Key, WriteOperation<T>> operations = new LinkedHashMap<>();
+        puts.forEach(item -> operations.put(dynamoDbTable.keyFrom(item), new WriteOperation<>(dynamoDbTable.keyFrom(item), item)));
+        deletes.forEach(key -> operations.put(key, new WriteOperation<>(key, null)));
+
+        List<WriteOperation<T>> pending = new ArrayList<>(operations.values());
+        Semaphore permits = new Semaphore(parallelism);
+        return metrics.timeAsync("batchWrite", () -> {
+            List<CompletableFuture<List<BatchWriteItemResult>>> chunks = new ArrayList<>();
+            for (int from = 0; from < pending.size(); from += MAX_BATCH_WRITE_SIZE) {
+                List<WriteOperation<T>> chunk = pending.subList(from, Math.min(from + MAX_BATCH_WRITE_SIZE, pending.size()));
+                chunks.add(CompletableFuture.supplyAsync(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        rateLimiter.acquire(chunk.size());
+                        return writeChunk(chunk);
+                    } finally {
+                        permits.release();
+                    }
+                }, BATCH_EXECUTOR));
+            }
+
+            return CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new))
+                    .thenApply(v -> chunks.stream()
+                            .flatMap(chunk -> chunk.join().stream())
+                            .toList());
+        }, results -> results.stream().allMatch(result -> result.getStatus() == BatchWriteItemResult.Status.SUCCEEDED)
+                ? RepositoryMetrics.SUCCESS
+                : RepositoryMetrics.ERROR);
+    }
+
+    private List<BatchWriteItemResult> writeChunk(List<WriteOperation<T>> chunk) {
+        List<BatchWriteItemResult> results = new ArrayList<>(chunk.size());
+        Map<Key, WriteOperation<T>> pending = new LinkedHashMap<>();
+        chunk.forEach(operation -> pending.put(operation.key(), operation));
+        try {
+            for (int attempt = 0; !pending.isEmpty(); attempt++) {
+                WriteBatch.Builder<T> batch = WriteBatch.builder(dynamoDbTable.tableSchema().itemType().rawClass())
+                        .mappedTableResource(dynamoDbTable);
+                pending.values().forEach(operation -> {
+                    if (operation.item() != null) {
+                        batch.addPutItem(operation.item());
+                    } else {
+                        batch.addDeleteItem(operation.key());
+                    }
+                });
+
+                BatchWriteResult result = enhancedClient.batchWriteItem(BatchWriteItemEnhancedRequest.builder()
+                        .writeBatches(batch.build())
+                        .build());
+
+                Set<Key> unprocessed = new HashSet<>(result.unprocessedDeleteItemsForTable(dynamoDbTable));
+                result.unprocessedPutItemsForTable(dynamoDbTable).forEach(item -> unprocessed.add(dynamoDbTable.keyFrom(item)));
+                pending.values().removeIf(operation -> {
+                    if (unprocessed.contains(operation.key())) {
+                        return false;
+                    }
+                    results.add(operation.toResult(BatchWriteItemResult.Status.SUCCEEDED, null));
+                    return true;
+                });
+
+                if (!pending.isEmpty()) {
+                    if (attempt >= MAX_BATCH_RETRIES) {
+                        log.warn("Giving up on {} unprocessed items after {} retries", pending.size(), attempt);
+                        pending.values().forEach(operation -> results.add(
+                                operation.toResult(BatchWriteItemResult.Status.UNPROCESSED, "Not processed after retries")));
+                        break;
+                    }
+                    log.info("Retrying {} unprocessed items, attempt={}", pending.size(), attempt + 1);
+                    metrics.batchRetry("batchWrite", pending.size());
+                    backoff(attempt);
+                }
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Error batch writing entities: chunkSize={}", chunk.size(), e);
+            pending.values().forEach(operation -> results.add(
+                    operation.toResult(BatchWriteItemResult.Status.FAILED, e.getMessage())));
+        }
+        return results;
+    }
+
+    /**
+     * Get many entities by key with BatchGetItem using the default parallelism.
+     *
+     * @param keys The keys of the entities
+     * @return A future of the entities found
+     * @see #batchGetItems(List, int)
+     */
+    public CompletableFuture<List<T>> batchGetItems(List<Key> keys) {
+        return batchGetItems(keys, DEFAULT_BATCH_PARALLELISM);
+    }
+
+    /**
+     * Get many entities by key with BatchGetItem.
+     * The keys are split into chunks of {@value #MAX_BATCH_GET_SIZE} that are read in parallel, and unprocessed
+     * keys are retried with exponential backoff. Keys without an item are left out of the result.
+     *
+     * @param keys The keys of the entities
+     * @param parallelism The maximum number of chunks read at the same time
+     * @return A future of the entities found
+     */
+    public CompletableFuture<List<T>> batchGetItems(List<Key> keys, int parallelism) {
+        log.info("Batch getting entities: keys={}, parallelism={}", keys.size(), parallelism);
+        List<Key> distinctKeys = new ArrayList<>(new LinkedHashSet<>(keys));
+        Semaphore permits = new Semaphore(parallelism);
+        return metrics.timeAsync("batchGetItems", () -> {
+            List<CompletableFuture<List<T>>> chunks = new ArrayList<>();
+            for (int from = 0; from < distinctKeys.size(); from += MAX_BATCH_GET_SIZE) {
+                List<Key> chunk = distinctKeys.subList(from, Math.min(from + MAX_BATCH_GET_SIZE, distinctKeys.size()));
+                chunks.add(CompletableFuture.supplyAsync(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        return readChunk(chunk);
+                    } finally {
+                        permits.release();
+                    }
+                }, BATCH_EXECUTOR));
             }
 
-            return index.query(requestBuilder.build()).stream().findFirst().orElse(null);
+            return CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new))
+                    .thenApply(v -> chunks.stream()
+                            .flatMap(chunk -> chunk.join().stream())
+                            .toList());
+        });
+    }
+
+    private List<T> readChunk(List<Key> chunk) {
+        List<T> results = new ArrayList<>(chunk.size());
+        List<Key> pending = chunk;
+        try {
+            for (int attempt = 0; !pending.isEmpty(); attempt++) {
+                ReadBatch.Builder<T> batch = ReadBatch.builder(dynamoDbTable.tableSchema().itemType().rawClass())
+                        .mappedTableResource(dynamoDbTable);
+                pending.forEach(batch::addGetItem);
+
+                BatchGetResultPage page = enhancedClient.batchGetItem(BatchGetItemEnhancedRequest.builder()
+                                .readBatches(batch.build())
+                                .build())
+                        .iterator()
+                        .next();
+                results.addAll(page.resultsForTable(dynamoDbTable));
+                pending = page.unprocessedKeysForTable(dynamoDbTable);
+
+                if (!pending.isEmpty()) {
+                    if (attempt >= MAX_BATCH_RETRIES) {
+                        throw new IllegalStateException(pending.size() + " keys not processed after " + attempt + " retries");
+                    }
+                    log.info("Retrying {} unprocessed keys, attempt={}", pending.size(), attempt + 1);
+                    metrics.batchRetry("batchGetItems", pending.size());
+                    backoff(attempt);
+                }
+            }
+            return results;
         } catch (Exception e) {
-            log.error("Error querying entities by global index with pagination: index={}, partitionKey={}, pageSize={}", 
-                    indexName, partitionKey, pageSize, e);
-            throw new RuntimeException("Failed to query entities by global index with pagination", e);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Error batch getting entities: chunkSize={}", chunk.size(), e);
+            throw new RuntimeException("Failed to batch get entities", e);
+        }
+    }
+
+    /**
+     * A put (item present) or delete (item null) of a batch write.
+     */
+    private record WriteOperation<T>(Key key, T item) {
+
+        BatchWriteItemResult toResult(BatchWriteItemResult.Status status, String message) {
+            BatchWriteItemResult.Operation operation = item != null
+                    ? BatchWriteItemResult.Operation.PUT
+                    : BatchWriteItemResult.Operation.DELETE;
+            return new BatchWriteItemResult(operation, key, status, message);
         }
     }
 }
@@ -0,0 +1,69 @@
+package com.ech.ff.featureflagmanager.dynamodb.repository.base;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Converts the {@code lastEvaluatedKey} of a DynamoDB page into an opaque, URL-safe cursor and back.
+ * All key attributes of the tables in this service are strings, so only string values are supported.
+ */
+public final class PageCursor {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<LinkedHashMap<String, String>> KEY_TYPE = new TypeReference<>() {
+    };
+
+    private PageCursor() {
+    }
+
+    /**
+     * Encode the last evaluated key of a page.
+     *
+     * @param lastEvaluatedKey The last evaluated key, can be null
+     * @return The cursor, or null if there are no more pages
+     */
+    public static String encode(Map<String, AttributeValue> lastEvaluatedKey) {
+        if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+            return null;
+        }
+        Map<String, String> key = new LinkedHashMap<>();
+        lastEvaluatedKey.forEach((name, value) -> {
+            if (value.s() == null) {
+                throw new IllegalArgumentException("Only string key attributes are supported: " + name);
+            }
+            key.put(name, value.s());
+        });
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(OBJECT_MAPPER.writeValueAsBytes(key));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode page cursor", e);
+        }
+    }
+
+    /**
+     * Decode a cursor into the exclusive start key of the next page.
+     *
+     * @param cursor The cursor, can be null
+     * @return The exclusive start key, or null for the first page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static Map<String, AttributeValue> decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            Map<String, String> key = OBJECT_MAPPER.readValue(Base64.getUrlDecoder().decode(cursor), KEY_TYPE);
+            Map<String, AttributeValue> lastEvaluatedKey = new LinkedHashMap<>();
+            key.forEach((name, value) -> lastEvaluatedKey.put(name, AttributeValue.builder().s(value).build()));
+            return lastEvaluatedKey;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed page cursor", e);
+        }
+    }
+}
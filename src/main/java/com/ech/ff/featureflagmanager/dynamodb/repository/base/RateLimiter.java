@@ -0,0 +1,50 @@
+package com.ech.ff.featureflagmanager.dynamodb.repository.base;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Spreads writes evenly over time to cap the write capacity a bulk operation consumes.
+ * Callers reserve permits and wait until the reservation starts, so concurrent callers share the rate
+ * and no burst exceeds it.
+ */
+public final class RateLimiter {
+
+    /** A limiter that never waits. */
+    public static final RateLimiter UNLIMITED = new RateLimiter(Double.POSITIVE_INFINITY);
+
+    private final double nanosPerPermit;
+    private long nextFreeNanos = System.nanoTime();
+
+    /**
+     * Constructs a new RateLimiter.
+     *
+     * @param permitsPerSecond The number of permits handed out per second
+     */
+    public RateLimiter(double permitsPerSecond) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        this.nanosPerPermit = 1_000_000_000d / permitsPerSecond;
+    }
+
+    /**
+     * Wait until the given number of permits is available.
+     *
+     * @param permits The number of permits, typically the number of items about to be written
+     */
+    public void acquire(int permits) {
+        if (nanosPerPermit == 0) {
+            return;
+        }
+        long start;
+        synchronized (this) {
+            long now = System.nanoTime();
+            start = Math.max(now, nextFreeNanos);
+            nextFreeNanos = start + (long) (permits * nanosPerPermit);
+        }
+        long remaining;
+        while ((remaining = start - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
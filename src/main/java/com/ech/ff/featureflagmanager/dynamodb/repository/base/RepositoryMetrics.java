@@ -0,0 +1,141 @@
+package com.ech.ff.featureflagmanager.dynamodb.repository.base;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer meters of the operations of a repository, tagged with the table, the operation and the outcome.
+ * <p>
+ * The repositories register their meters in the global registry, to which Spring Boot adds its registries,
+ * so the meters are exposed at {@code /actuator/prometheus}. Outside of Spring, e.g. in the benchmarks,
+ * the global registry holds no registry and recording does nothing.
+ * <p>
+ * Lazy streams are not timed, because their pages are read while the caller consumes them. The DynamoDB calls
+ * behind every page are measured by {@code DynamoDbMetricsInterceptor}, like all other calls.
+ */
+final class RepositoryMetrics {
+
+    static final String SUCCESS = "success";
+    static final String CONDITION_FAILED = "condition_failed";
+    static final String ERROR = "error";
+
+    private final MeterRegistry meterRegistry;
+    private final Meter.MeterProvider<Timer> timers;
+    private final Meter.MeterProvider<Counter> batchRetries;
+
+    /**
+     * Constructs a new RepositoryMetrics.
+     *
+     * @param meterRegistry The registry to publish the meters to
+     * @param tableName The table of the repository, used as the {@code table} tag
+     */
+    RepositoryMetrics(MeterRegistry meterRegistry, String tableName) {
+        this.meterRegistry = meterRegistry;
+        this.timers = Timer.builder("dynamodb.repository")
+                .description("Time of repository operations, including mapping, retries and backoff")
+                .tag("table", tableName)
+                .withRegistry(meterRegistry);
+        this.batchRetries = Counter.builder("dynamodb.repository.batch.retries")
+                .description("Items of batch operations sent again because DynamoDB left them unprocessed")
+                .tag("table", tableName)
+                .withRegistry(meterRegistry);
+    }
+
+    /**
+     * Time a blocking operation.
+     *
+     * @param operation The name of the operation, used as the {@code operation} tag
+     * @param call The operation
+     * @return The result of the operation
+     */
+    <R> R time(String operation, Supplier<R> call) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            R result = call.get();
+            stop(sample, operation, SUCCESS);
+            return result;
+        } catch (RuntimeException e) {
+            stop(sample, operation, outcome(e));
+            throw e;
+        }
+    }
+
+    /**
+     * Time a blocking operation without a result.
+     *
+     * @param operation The name of the operation, used as the {@code operation} tag
+     * @param call The operation
+     */
+    void run(String operation, Runnable call) {
+        time(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Time an operation until its future completes.
+     *
+     * @param operation The name of the operation, used as the {@code operation} tag
+     * @param call Starts the operation
+     * @return The future of the operation
+     */
+    <R> CompletableFuture<R> timeAsync(String operation, Supplier<CompletableFuture<R>> call) {
+        return timeAsync(operation, call, result -> SUCCESS);
+    }
+
+    /**
+     * Time an operation until its future completes, taking the outcome of a successful future from its result.
+     *
+     * @param operation The name of the operation, used as the {@code operation} tag
+     * @param call Starts the operation
+     * @param resultOutcome Gives the outcome of a result, e.g. {@value #ERROR} for a batch with failed items
+     * @return The future of the operation
+     */
+    <R> CompletableFuture<R> timeAsync(String operation, Supplier<CompletableFuture<R>> call,
+                                       Function<R, String> resultOutcome) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<R> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            stop(sample, operation, outcome(e));
+            throw e;
+        }
+        return future.whenComplete((result, e) ->
+                stop(sample, operation, e == null ? resultOutcome.apply(result) : outcome(e)));
+    }
+
+    /**
+     * Count the items of a batch operation that are sent again.
+     *
+     * @param operation The name of the operation, used as the {@code operation} tag
+     * @param items The number of unprocessed items
+     */
+    void batchRetry(String operation, int items) {
+        batchRetries.withTags("operation", operation).increment(items);
+    }
+
+    private void stop(Timer.Sample sample, String operation, String outcome) {
+        sample.stop(timers.withTags("operation", operation, "outcome", outcome));
+    }
+
+    /**
+     * Get the outcome of a failure: a condition that was not met, or an error.
+     */
+    private static String outcome(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConditionalWriteException || cause instanceof ConditionalCheckFailedException) {
+                return CONDITION_FAILED;
+            }
+        }
+        return ERROR;
+    }
+}
@@ -0,0 +1,113 @@
+package com.ech.ff.featureflagmanager.dynamodb.repository.base;
+
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Scans a table with parallel scan segments and hands out the pages in the order they arrive.
+ * <p>
+ * Every segment is read by its own task. Pages are passed through a small bounded queue, so segments
+ * only read ahead a couple of pages of a slow consumer and memory stays bounded by the page size.
+ * Closing the scan stops the segments that are still running.
+ *
+ * @param <T> The entity type
+ */
+@Slf4j
+final class SegmentedScan<T> implements Iterator<List<T>>, AutoCloseable {
+
+    private static final Object END_OF_SEGMENT = new Object();
+
+    private final BlockingQueue<Object> pages;
+    private final List<Future<?>> segments = new ArrayList<>();
+    private int runningSegments;
+    private List<T> next;
+
+    SegmentedScan(DynamoDbTable<T> table, int totalSegments, int pageSize, ExecutorService executor) {
+        this.pages = new ArrayBlockingQueue<>(2 * totalSegments);
+        this.runningSegments = totalSegments;
+        for (int segment = 0; segment < totalSegments; segment++) {
+            ScanEnhancedRequest request = ScanEnhancedRequest.builder()
+                    .segment(segment)
+                    .totalSegments(totalSegments)
+                    .limit(pageSize)
+                    .build();
+            segments.add(executor.submit(() -> scanSegment(table, request)));
+        }
+    }
+
+    private void scanSegment(DynamoDbTable<T> table, ScanEnhancedRequest request) {
+        try {
+            try {
+                for (Page<T> page : table.scan(request)) {
+                    if (!page.items().isEmpty()) {
+                        pages.put(page.items());
+                    }
+                }
+                pages.put(END_OF_SEGMENT);
+            } catch (RuntimeException e) {
+                log.error("Error scanning segment {} of {}", request.segment(), request.totalSegments(), e);
+                pages.put(new Failure(e));
+            }
+        } catch (InterruptedException e) {
+            // The scan was closed
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && runningSegments > 0) {
+            Object page = take();
+            if (page == END_OF_SEGMENT) {
+                runningSegments--;
+            } else if (page instanceof Failure failure) {
+                close();
+                throw new RuntimeException("Failed to scan entities in parallel", failure.cause());
+            } else {
+                @SuppressWarnings("unchecked")
+                List<T> items = (List<T>) page;
+                next = items;
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public List<T> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        List<T> page = next;
+        next = null;
+        return page;
+    }
+
+    @Override
+    public void close() {
+        segments.forEach(segment -> segment.cancel(true));
+    }
+
+    private Object take() {
+        try {
+            return pages.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new RuntimeException("Interrupted while scanning entities in parallel", e);
+        }
+    }
+
+    private record Failure(RuntimeException cause) {
+    }
+}
@@ -0,0 +1,77 @@
+package com.ech.ff.featureflagmanager.dynamodb.repository.base;
+
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+/**
+ * Condition expressions for optimistic concurrency on items with a numeric {@value #VERSION_ATTRIBUTE} attribute.
+ * A write is accepted only if the stored item is still at the version the writer read, and stores the next version.
+ * Items written before versioning have no version attribute and count as version 0.
+ */
+public final class VersionConditions {
+
+    public static final String VERSION_ATTRIBUTE = "version";
+
+    private VersionConditions() {
+    }
+
+    /**
+     * Condition that the item does not exist yet.
+     *
+     * @param keyAttribute The name of a key attribute of the table
+     * @return The condition
+     */
+    public static Expression absent(String keyAttribute) {
+        return Expression.builder()
+                .expression("attribute_not_exists(#key)")
+                .putExpressionName("#key", keyAttribute)
+                .build();
+    }
+
+    /**
+     * Condition that the item exists and is at the expected version.
+     *
+     * @param keyAttribute The name of a key attribute of the table
+     * @param expectedVersion The version the writer read, 0 for items without a version
+     * @return The condition
+     */
+    public static Expression atVersion(String keyAttribute, long expectedVersion) {
+        if (expectedVersion == 0) {
+            return Expression.builder()
+                    .expression("attribute_exists(#key) AND attribute_not_exists(#version)")
+                    .putExpressionName("#key", keyAttribute)
+                    .putExpressionName("#version", VERSION_ATTRIBUTE)
+                    .build();
+        }
+        return Expression.builder()
+                .expression("#version = :expectedVersion")
+                .putExpressionName("#version", VERSION_ATTRIBUTE)
+                .putExpressionValue(":expectedVersion", AttributeValue.fromN(Long.toString(expectedVersion)))
+                .build();
+    }
+
+    /**
+     * Condition that a string attribute of the item has the given value.
+     *
+     * @param attribute The attribute name
+     * @param value The expected value
+     * @return The condition
+     */
+    public static Expression attributeEquals(String attribute, String value) {
+        return Expression.builder()
+                .expression("#" + attribute + " = :" + attribute)
+                .putExpressionName("#" + attribute, attribute)
+                .putExpressionValue(":" + attribute, AttributeValue.fromS(value))
+                .build();
+    }
+
+    /**
+     * Get the version that follows the stored one.
+     *
+     * @param storedVersion The stored version, can be null for items without a version
+     * @return The next version
+     */
+    public static long next(Long storedVersion) {
+        return storedVersion == null ? 1 : storedVersion + 1;
+    }
+}
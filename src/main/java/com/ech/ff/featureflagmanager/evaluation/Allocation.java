@@ -0,0 +1,68 @@
+package com.ech.ff.featureflagmanager.evaluation;
+
+import java.io.IOException;
+
+/**
+ * Compiled choice of a variant: either a single variant or a percentage split between variants.
+ * A split assigns every user to one of {@link Bucketing#BUCKETS} buckets and serves the variant whose
+ * range contains the bucket.
+ */
+final class Allocation {
+
+    private final int[] variants;
+    private final int[] upperBounds;
+
+    private Allocation(int[] variants, int[] upperBounds) {
+        this.variants = variants;
+        this.upperBounds = upperBounds;
+    }
+
+    /**
+     * Create an allocation that always serves one variant.
+     *
+     * @param variant The index of the variant
+     * @return The allocation
+     */
+    static Allocation fixed(int variant) {
+        return new Allocation(new int[]{variant}, new int[]{Bucketing.BUCKETS});
+    }
+
+    /**
+     * Create an allocation that splits users between variants.
+     *
+     * @param variants The indexes of the variants
+     * @param upperBounds The exclusive upper bucket of every variant, increasing and ending with {@link Bucketing#BUCKETS}
+     * @return The allocation
+     */
+    static Allocation split(int[] variants, int[] upperBounds) {
+        return new Allocation(variants.clone(), upperBounds.clone());
+    }
+
+    /**
+     * Select the variant for a user.
+     *
+     * @param seed The bucketing seed of the flag
+     * @param userKey The user key, can be null
+     * @return The index of the variant
+     */
+    int select(int seed, String userKey) {
+        if (variants.length == 1) {
+            return variants[0];
+        }
+        int bucket = Bucketing.bucket(seed, userKey);
+        for (int i = 0; i < upperBounds.length; i++) {
+            if (bucket < upperBounds[i]) {
+                return variants[i];
+            }
+        }
+        return variants[variants.length - 1];
+    }
+
+    void writeTo(BinaryFlagSetEncoder out) throws IOException {
+        out.writeVarInt(variants.length);
+        for (int i = 0; i < variants.length; i++) {
+            out.writeVarInt(variants[i]);
+            out.writeVarInt(upperBounds[i]);
+        }
+    }
+}
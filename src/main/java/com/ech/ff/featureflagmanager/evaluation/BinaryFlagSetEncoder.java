@@ -0,0 +1,128 @@
+package com.ech.ff.featureflagmanager.evaluation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes the compiled flags of an environment into a compact, versioned binary format, so SDKs can
+ * load pre-compiled rule trees without parsing JSON configs.
+ * <p>
+ * All integers are big-endian; {@code varint} is an unsigned LEB128 variable-length integer and
+ * {@code ref} is a varint index into the string table, so every distinct string is stored once.
+ * <pre>
+ * file        := magic "FFSN" | u8 formatVersion (1) | strings | varint snapshotVersion
+ *                | ref envName | ref etag | varint flagCount | flag*
+ * strings     := varint count | (varint utf8Length | utf8 bytes)*
+ * flag        := ref name | u8 type (0 = invalid, otherwise FlagType ordinal + 1) | i32 bucketingSeed
+ *                | varint variantCount | (ref variantName | ref variantValueJson)*
+ *                | u8 kind (0 = constant, 1 = rules) | constant or rules
+ * constant    := varint variant (index + 1, 0 = none) | u8 EvaluationReason ordinal
+ * rules       := varint ruleCount | rule* | allocation (fallthrough)
+ * rule        := varint conditionCount | condition* | allocation
+ * condition   := u8 kind (0 = user key in, 1 = attribute in, 2 = attribute not in)
+ *                | [ref attribute, for kinds 1 and 2] | varint valueCount | ref value*
+ * allocation  := varint count | (varint variant index | varint exclusive upper bucket)*
+ * </pre>
+ * Users are bucketed with {@link Bucketing#bucket(int, String)} using the stored seed.
+ */
+public final class BinaryFlagSetEncoder {
+
+    public static final String MEDIA_TYPE = "application/vnd.ff.flagset.v1";
+    public static final int FORMAT_VERSION = 1;
+
+    private static final byte[] MAGIC = {'F', 'F', 'S', 'N'};
+
+    private final Map<String, Integer> stringIndexes = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+    private final DataOutputStream body = new DataOutputStream(bodyBytes);
+
+    private BinaryFlagSetEncoder() {
+    }
+
+    /**
+     * Encode the flags of an environment.
+     *
+     * @param envName The environment name
+     * @param version The snapshot version
+     * @param etag The ETag of the snapshot
+     * @param flags The compiled flags
+     * @return The encoded flag set
+     */
+    public static byte[] encode(String envName, long version, String etag, List<CompiledFlag> flags) {
+        BinaryFlagSetEncoder encoder = new BinaryFlagSetEncoder();
+        try {
+            encoder.writeVarLong(version);
+            encoder.writeRef(envName);
+            encoder.writeRef(etag);
+            encoder.writeVarInt(flags.size());
+            for (CompiledFlag flag : flags) {
+                flag.writeTo(encoder);
+            }
+            return encoder.assemble();
+        } catch (IOException e) {
+            // In-memory streams do not throw
+            throw new UncheckedIOException("Failed to encode flag set", e);
+        }
+    }
+
+    private byte[] assemble() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bodyBytes.size() + 64 * strings.size());
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(MAGIC);
+        data.writeByte(FORMAT_VERSION);
+        writeVarLong(data, strings.size());
+        for (String value : strings) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(data, utf8.length);
+            data.write(utf8);
+        }
+        bodyBytes.writeTo(data);
+        data.flush();
+        return out.toByteArray();
+    }
+
+    void writeByte(int value) throws IOException {
+        body.writeByte(value);
+    }
+
+    void writeInt(int value) throws IOException {
+        body.writeInt(value);
+    }
+
+    void writeVarInt(int value) throws IOException {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative varint: " + value);
+        }
+        writeVarLong(body, value);
+    }
+
+    void writeVarLong(long value) throws IOException {
+        writeVarLong(body, value);
+    }
+
+    void writeRef(String value) throws IOException {
+        Integer index = stringIndexes.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.add(value);
+            stringIndexes.put(value, index);
+        }
+        writeVarInt(index);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
@@ -0,0 +1,93 @@
+package com.ech.ff.featureflagmanager.evaluation;
+
+/**
+ * Deterministic assignment of users to rollout buckets.
+ * <p>
+ * The bucket of a user depends only on the flag name, the flag salt and the user key, so it is the same
+ * on every node and across restarts. Hashing is 32-bit MurmurHash3 over the UTF-16 code units of the
+ * strings, read directly with {@link String#charAt(int)}: no concatenation, no encoding to bytes and
+ * no allocation per evaluation. The flag name and salt are hashed once, when the flag is compiled, into
+ * the seed used to hash user keys.
+ * <p>
+ * Reading two code units per block gives the same result as standard MurmurHash3 x86_32 over the
+ * UTF-16LE bytes of the string, which is what SDKs in other languages compute. They must not hash
+ * UTF-8 bytes. {@code BucketingTest} pins the known answers.
+ */
+public final class Bucketing {
+
+    /**
+     * Number of buckets, giving a rollout resolution of 0.01%.
+     */
+    public static final int BUCKETS = 10_000;
+
+    private static final int C1 = 0xcc9e2d51;
+    private static final int C2 = 0x1b873593;
+
+    private Bucketing() {
+    }
+
+    /**
+     * Compute the bucketing seed of a flag.
+     *
+     * @param flagName The feature flag name
+     * @param salt The salt of the flag, can be null
+     * @return The seed to pass to {@link #bucket(int, String)}
+     */
+    public static int seed(String flagName, String salt) {
+        int seed = murmur3(flagName, 0);
+        return salt == null ? seed : murmur3(salt, seed);
+    }
+
+    /**
+     * Assign a user to a bucket.
+     *
+     * @param seed The bucketing seed of the flag
+     * @param userKey The user key, can be null; users without a key all land in bucket 0
+     * @return The bucket, from 0 inclusive to {@link #BUCKETS} exclusive
+     */
+    public static int bucket(int seed, String userKey) {
+        if (userKey == null) {
+            return 0;
+        }
+        // Multiply-shift maps the full 32-bit hash range onto the buckets without a division
+        return (int) (((murmur3(userKey, seed) & 0xFFFFFFFFL) * BUCKETS) >>> 32);
+    }
+
+    /**
+     * MurmurHash3 x86 32-bit of the UTF-16 code units of a string, two code units per block.
+     */
+    static int murmur3(String input, int seed) {
+        int h1 = seed;
+        int length = input.length();
+        for (int i = 1; i < length; i += 2) {
+            int k1 = input.charAt(i - 1) | (input.charAt(i) << 16);
+            h1 = mixH1(h1, mixK1(k1));
+        }
+        if ((length & 1) == 1) {
+            h1 ^= mixK1(input.charAt(length - 1));
+        }
+        return fmix(h1, 2 * length);
+    }
+
+    private static int mixK1(int k1) {
+        k1 *= C1;
+        k1 = Integer.rotateLeft(k1, 15);
+        return k1 * C2;
+    }
+
+    private static int mixH1(int h1, int k1) {
+        h1 ^= k1;
+        h1 = Integer.rotateLeft(h1, 13);
+        return h1 * 5 + 0xe6546b64;
+    }
+
+    private static int fmix(int h1, int length) {
+        h1 ^= length;
+        h1 ^= h1 >>> 16;
+        h1 *= 0x85ebca6b;
+        h1 ^= h1 >>> 13;
+        h1 *= 0xc2b2ae35;
+        h1 ^= h1 >>> 16;
+        return h1;
+    }
+}
@@ -0,0 +1,129 @@
+package com.ech.ff.featureflagmanager.evaluation;
+
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates many feature flags for many contexts in parallel on a dedicated fork-join pool.
+ * <p>
+ * Contexts are processed in blocks: every block is split recursively across the pool, and each
+ * finished block is handed to a {@link BlockWriter} before the next one starts, so results can be
+ * streamed to the client while memory stays bounded by the block size.
+ */
+@Component
+@Slf4j
+public class BulkEvaluator {
+
+    /**
+     * Number of contexts evaluated before a block is written.
+     */
+    static final int BLOCK_SIZE = 1024;
+
+    /**
+     * Number of contexts below which a task evaluates sequentially instead of splitting further.
+     */
+    private static final int SPLIT_THRESHOLD = 32;
+
+    private final ForkJoinPool pool;
+    @Getter
+    private final int maxContexts;
+
+    public BulkEvaluator(@Value("${ff.evaluation.bulk.parallelism:0}") int parallelism,
+                         @Value("${ff.evaluation.bulk.max-contexts:100000}") int maxContexts) {
+        this.maxContexts = maxContexts;
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(threads);
+        log.info("Bulk evaluation pool started with parallelism {}", threads);
+    }
+
+    /**
+     * Receives the variants of a block of evaluated contexts.
+     */
+    @FunctionalInterface
+    public interface BlockWriter {
+
+        /**
+         * Write a block of results.
+         *
+         * @param from The index of the first context of the block
+         * @param variants The served variant names, one row per context and one column per flag; null if a flag
+         *                 could not be evaluated
+         * @param rows The number of valid rows; rows past it hold results of an earlier block
+         * @throws IOException if writing fails
+         */
+        void write(int from, String[][] variants, int rows) throws IOException;
+    }
+
+    /**
+     * Evaluate every flag for every context.
+     *
+     * @param flags The compiled flags, one column each
+     * @param contexts The evaluation contexts, one row each
+     * @param writer Receives every finished block in order
+     * @throws IOException if the writer fails
+     */
+    public void evaluate(List<CompiledFlag> flags, List<EvaluationContext> contexts, BlockWriter writer)
+            throws IOException {
+        CompiledFlag[] flagArray = flags.toArray(CompiledFlag[]::new);
+        EvaluationContext[] contextArray = contexts.toArray(EvaluationContext[]::new);
+        String[][] block = new String[Math.min(BLOCK_SIZE, contextArray.length)][flagArray.length];
+        for (int from = 0; from < contextArray.length; from += BLOCK_SIZE) {
+            int rows = Math.min(BLOCK_SIZE, contextArray.length - from);
+            pool.invoke(new EvaluateTask(flagArray, contextArray, from, from, from + rows, block));
+            writer.write(from, block, rows);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Evaluates the contexts {@code [start, end)} into the rows of the block starting at {@code blockStart}.
+     */
+    private static final class EvaluateTask extends RecursiveAction {
+
+        private final CompiledFlag[] flags;
+        private final EvaluationContext[] contexts;
+        private final int blockStart;
+        private final int start;
+        private final int end;
+        private final String[][] block;
+
+        EvaluateTask(CompiledFlag[] flags, EvaluationContext[] contexts, int blockStart, int start, int end,
+                     String[][] block) {
+            this.flags = flags;
+            this.contexts = contexts;
+            this.blockStart = blockStart;
+            this.start = start;
+            this.end = end;
+            this.block = block;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= SPLIT_THRESHOLD) {
+                for (int i = start; i < end; i++) {
+                    EvaluationContext context = contexts[i];
+                    String[] row = block[i - blockStart];
+                    for (int f = 0; f < flags.length; f++) {
+                        row[f] = flags[f].evaluate(context).variant();
+                    }
+                }
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            invokeAll(new EvaluateTask(flags, contexts, blockStart, start, middle, block),
+                    new EvaluateTask(flags, contexts, blockStart, middle, end, block));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.ech.ff.featureflagmanager.evaluation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Immutable, pre-compiled rule tree of a feature flag.
+ * <p>
+ * The config is parsed and validated once by {@link FlagCompiler}; evaluation only walks arrays,
+ * does set lookups and hashes the user key, and returns outcomes that were built at compile time,
+ * so it does not allocate.
+ */
+public final class CompiledFlag {
+
+    @Getter
+    private final String name;
+    @Getter
+    private final FlagType type;
+    /**
+     * Variant names mapped to their values, in declaration order.
+     */
+    @Getter
+    private final Map<String, JsonNode> variants;
+    private final int seed;
+    private final Evaluation fixedEvaluation;
+    private final CompiledRule[] rules;
+    private final Allocation fallthrough;
+    private final Evaluation[] fallthroughEvaluations;
+
+    CompiledFlag(String name, FlagType type, String salt, Map<String, JsonNode> variants, CompiledRule[] rules,
+                 Allocation fallthrough, Evaluation[] fallthroughEvaluations) {
+        this.name = name;
+        this.type = type;
+        this.variants = variants;
+        this.seed = Bucketing.seed(name, salt);
+        this.fixedEvaluation = null;
+        this.rules = rules;
+        this.fallthrough = fallthrough;
+        this.fallthroughEvaluations = fallthroughEvaluations;
+    }
+
+    private CompiledFlag(String name, FlagType type, Map<String, JsonNode> variants, Evaluation fixedEvaluation) {
+        this.name = name;
+        this.type = type;
+        this.variants = variants;
+        this.seed = 0;
+        this.fixedEvaluation = fixedEvaluation;
+        this.rules = new CompiledRule[0];
+        this.fallthrough = null;
+        this.fallthroughEvaluations = null;
+    }
+
+    /**
+     * Create a flag that always serves the same outcome, e.g. a disabled flag.
+     *
+     * @param name The name of the feature flag
+     * @param type The type of the feature flag
+     * @param variants The variants of the feature flag
+     * @param evaluation The outcome served to every context
+     * @return The compiled flag
+     */
+    static CompiledFlag constant(String name, FlagType type, Map<String, JsonNode> variants, Evaluation evaluation) {
+        return new CompiledFlag(name, type, variants, evaluation);
+    }
+
+    /**
+     * Create a placeholder for a stored flag whose config cannot be compiled.
+     *
+     * @param name The name of the feature flag
+     * @return The compiled flag, evaluating to {@link EvaluationReason#ERROR}
+     */
+    public static CompiledFlag invalid(String name) {
+        return new CompiledFlag(name, null, Map.of(), Evaluation.unavailable(name, EvaluationReason.ERROR));
+    }
+
+    /**
+     * Evaluate the flag against a context.
+     *
+     * @param context The evaluation context
+     * @return The outcome of the evaluation
+     */
+    public Evaluation evaluate(EvaluationContext context) {
+        if (fixedEvaluation != null) {
+            return fixedEvaluation;
+        }
+        for (CompiledRule rule : rules) {
+            if (rule.matches(context)) {
+                return rule.serve(seed, context);
+            }
+        }
+        return fallthroughEvaluations[fallthrough.select(seed, context.userKey())];
+    }
+
+    /**
+     * Write the rule tree in the format of {@link BinaryFlagSetEncoder}.
+     */
+    void writeTo(BinaryFlagSetEncoder out) throws IOException {
+        out.writeRef(name);
+        out.writeByte(type == null ? 0 : type.ordinal() + 1);
+        out.writeInt(seed);
+        out.writeVarInt(variants.size());
+        for (Map.Entry<String, JsonNode> variant : variants.entrySet()) {
+            out.writeRef(variant.getKey());
+            out.writeRef(variant.getValue().toString());
+        }
+        if (fixedEvaluation != null) {
+            out.writeByte(0);
+            out.writeVarInt(variantIndex(fixedEvaluation.variant()) + 1);
+            out.writeByte(fixedEvaluation.reason().ordinal());
+            return;
+        }
+        out.writeByte(1);
+        out.writeVarInt(rules.length);
+        for (CompiledRule rule : rules) {
+            rule.writeTo(out);
+        }
+        fallthrough.writeTo(out);
+    }
+
+    private int variantIndex(String variant) {
+        int index = 0;
+        for (String variantName : variants.keySet()) {
+            if (variantName.equals(variant)) {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,47 @@
+package com.ech.ff.featureflagmanager.evaluation;
+
+import java.io.IOException;
+
+/**
+ * Compiled targeting rule: all conditions must match for the rule to serve its allocation.
+ */
+final class CompiledRule {
+
+    private final Condition[] conditions;
+    private final Allocation allocation;
+    private final Evaluation[] evaluations;
+
+    /**
+     * Constructs a new CompiledRule.
+     *
+     * @param conditions The conditions of the rule
+     * @param allocation The variants served when the rule matches
+     * @param evaluations The pre-built outcome of the rule per variant index
+     */
+    CompiledRule(Condition[] conditions, Allocation allocation, Evaluation[] evaluations) {
+        this.conditions = conditions;
+        this.allocation = allocation;
+        this.evaluations = evaluations;
+    }
+
+    boolean matches(EvaluationContext context) {
+        for (Condition condition : conditions) {
+            if (!condition.matches(context)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    Evaluation serve(int seed, EvaluationContext context) {
+        return evaluations[allocation.select(seed, context.userKey())];
+    }
+
+    void writeTo(BinaryFlagSetEncoder out) throws IOException {
+        out.writeVarInt(conditions.length);
+        for (Condition condition : conditions) {
+            condition.writeTo(out);
+        }
+        allocation.writeTo(out);
+    }
+}
@@ -0,0 +1,69 @@
+package com.ech.ff.featureflagmanager.evaluation;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Compiled condition of a targeting rule.
+ */
+sealed interface Condition permits Condition.UserKeyIn, Condition.AttributeIn {
+
+    /**
+     * Check the condition against a context without allocating.
+     *
+     * @param context The evaluation context
+     * @return true if the context satisfies the condition
+     */
+    boolean matches(EvaluationContext context);
+
+    /**
+     * Write the condition in the format of {@link BinaryFlagSetEncoder}.
+     */
+    void writeTo(BinaryFlagSetEncoder out) throws IOException;
+
+    private static void writeValues(BinaryFlagSetEncoder out, Set<String> values) throws IOException {
+        // Sorted, so the same flags encode to the same bytes on every node
+        out.writeVarInt(values.size());
+        for (String value : values.stream().sorted().toList()) {
+            out.writeRef(value);
+        }
+    }
+
+    /**
+     * Matches contexts whose user key is one of the targeted users.
+     */
+    record UserKeyIn(Set<String> users) implements Condition {
+
+        @Override
+        public boolean matches(EvaluationContext context) {
+            String userKey = context.userKey();
+            return userKey != null && users.contains(userKey);
+        }
+
+        @Override
+        public void writeTo(BinaryFlagSetEncoder out) throws IOException {
+            out.writeByte(0);
+            writeValues(out, users);
+        }
+    }
+
+    /**
+     * Matches contexts whose attribute is (or, when negated, is not) one of the given values.
+     * A context without the attribute never matches.
+     */
+    record AttributeIn(String attribute, Set<String> values, boolean negated) implements Condition {
+
+        @Override
+        public boolean matches(EvaluationContext context) {
+            String value = context.attribute(attribute);
+            return value != null && values.contains(value) != negated;
+        }
+
+        @Override
+        public void writeTo(BinaryFlagSetEncoder out) throws IOException {
+            out.writeByte(negated ? 2 : 1);
+            out.writeRef(attribute);
+            writeValues(out, values);
+        }
+    }
+}
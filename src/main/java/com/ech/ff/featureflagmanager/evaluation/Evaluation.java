@@ -0,0 +1,28 @@
+package com.ech.ff.featureflagmanager.evaluation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Outcome of evaluating a feature flag.
+ * Instances are created when the flag is compiled and shared by all evaluations with the same
+ * outcome, so evaluating a flag does not allocate.
+ *
+ * @param flagName The name of the feature flag
+ * @param variant The name of the served variant, null if the flag could not be evaluated
+ * @param value The value of the served variant, null if the flag could not be evaluated
+ * @param reason Why the variant was served
+ * @param ruleIndex The index of the matching rule for {@link EvaluationReason#RULE_MATCH}, otherwise -1
+ */
+public record Evaluation(String flagName, String variant, JsonNode value, EvaluationReason reason, int ruleIndex) {
+
+    /**
+     * Create the outcome for a flag that could not be evaluated.
+     *
+     * @param flagName The name of the feature flag
+     * @param reason Why the flag could not be evaluated
+     * @return The evaluation
+     */
+    public static Evaluation unavailable(String flagName, EvaluationReason reason) {
+        return new Evaluation(flagName, null, null, reason, -1);
+    }
+}
@@ -0,0 +1,22 @@
+package com.ech.ff.featureflagmanager.evaluation;
+
+import java.util.Map;
+
+/**
+ * Caller-supplied context a feature flag is evaluated against.
+ *
+ * @param userKey The stable key of the user, used for user targeting and rollout bucketing; can be null
+ * @param attributes The attributes of the user used by attribute targeting; can be null
+ */
+public record EvaluationContext(String userKey, Map<String, String> attributes) {
+
+    /**
+     * Get an attribute of the context.
+     *
+     * @param name The attribute name
+     * @return The attribute value, or null if the context has no such attribute
+     */
+    public String attribute(String name) {
+        return attributes == null ? null : attributes.get(name);
+    }
+}
@@ -0,0 +1,32 @@
+package com.ech.ff.featureflagmanager.evaluation;
+
+/**
+ * Why an evaluation served its variant.
+ */
+public enum EvaluationReason {
+
+    /**
+     * The flag is disabled and served its off variant.
+     */
+    OFF,
+
+    /**
+     * A targeting rule matched the context.
+     */
+    RULE_MATCH,
+
+    /**
+     * No rule matched and the default variant or rollout was served.
+     */
+    FALLTHROUGH,
+
+    /**
+     * The flag does not exist in the environment.
+     */
+    FLAG_NOT_FOUND,
+
+    /**
+     * The stored config of the flag could not be compiled.
+     */
+    ERROR
+}
@@ -0,0 +1,275 @@
+package com.ech.ff.featureflagmanager.evaluation;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import com.ech.ff.featureflagmanager.evaluation.config.FlagConfig;
+import com.ech.ff.featureflagmanager.evaluation.config.RuleConfig;
+import com.ech.ff.featureflagmanager.evaluation.config.WeightedVariantConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parses, validates and compiles the config of a feature flag into a {@link CompiledFlag}.
+ * The same compilation runs when a flag is written, to reject invalid configs with a clear message,
+ * and when a snapshot is built, so every stored flag is parsed once per snapshot version.
+ */
+@Slf4j
+public final class FlagCompiler {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .enable(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES);
+
+    private static final String ON = "on";
+    private static final String OFF = "off";
+    private static final double PERCENT_TOLERANCE = 0.0001;
+
+    private FlagCompiler() {
+    }
+
+    /**
+     * Compile a stored feature flag.
+     *
+     * @param featureFlag The feature flag
+     * @return The compiled flag
+     * @throws InvalidFlagConfigException if the type or config is invalid
+     */
+    public static CompiledFlag compile(FeatureFlag featureFlag) {
+        return compile(featureFlag.getFeatureName(), featureFlag.getType(), featureFlag.getConfig());
+    }
+
+    /**
+     * Compile a stored feature flag, falling back to a flag that evaluates to
+     * {@link EvaluationReason#ERROR} if it was stored before configs were validated.
+     *
+     * @param featureFlag The feature flag
+     * @return The compiled flag
+     */
+    public static CompiledFlag compileOrInvalid(FeatureFlag featureFlag) {
+        try {
+            return compile(featureFlag);
+        } catch (InvalidFlagConfigException e) {
+            log.warn("Invalid stored feature flag: {}, env: {}: {}",
+                    featureFlag.getFeatureName(), featureFlag.getEnvName(), e.getMessage());
+            return CompiledFlag.invalid(featureFlag.getFeatureName());
+        }
+    }
+
+    /**
+     * Compile a feature flag from its parts.
+     *
+     * @param name The feature flag name
+     * @param type The feature flag type
+     * @param config The feature flag config in JSON format
+     * @return The compiled flag
+     * @throws InvalidFlagConfigException if the type or config is invalid
+     */
+    public static CompiledFlag compile(String name, String type, String config) {
+        if (name == null || name.isBlank()) {
+            throw new InvalidFlagConfigException("Feature flag name is required");
+        }
+        FlagType flagType = FlagType.from(type);
+        FlagConfig flagConfig = parse(config);
+        if (flagConfig.getEnabled() == null) {
+            throw new InvalidFlagConfigException("config.enabled is required");
+        }
+        return switch (flagType) {
+            case BOOLEAN, PERCENTAGE_ROLLOUT -> compileOnOff(name, flagType, flagConfig);
+            case MULTIVARIATE -> compileMultivariate(name, flagConfig);
+        };
+    }
+
+    private static FlagConfig parse(String config) {
+        if (config == null || config.isBlank()) {
+            throw new InvalidFlagConfigException("config is required");
+        }
+        try {
+            return OBJECT_MAPPER.readValue(config, FlagConfig.class);
+        } catch (JsonProcessingException e) {
+            throw new InvalidFlagConfigException("config is not valid: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private static CompiledFlag compileOnOff(String name, FlagType type, FlagConfig config) {
+        if (config.getVariants() != null || config.getDefaultVariant() != null
+                || config.getOffVariant() != null || config.getRollout() != null) {
+            throw new InvalidFlagConfigException(
+                    type + " flags only support enabled, rolloutPercentage, salt and rules");
+        }
+        if (type == FlagType.PERCENTAGE_ROLLOUT && config.getRolloutPercentage() == null) {
+            throw new InvalidFlagConfigException("config.rolloutPercentage is required");
+        }
+        Variants variants = new Variants(name, new String[]{OFF, ON},
+                new JsonNode[]{BooleanNode.FALSE, BooleanNode.TRUE});
+        double percentage = config.getRolloutPercentage() == null ? 100 : config.getRolloutPercentage();
+        if (percentage < 0 || percentage > 100) {
+            throw new InvalidFlagConfigException("config.rolloutPercentage must be between 0 and 100");
+        }
+        Allocation fallthrough = percentage >= 100 ? Allocation.fixed(1)
+                : percentage <= 0 ? Allocation.fixed(0)
+                : Allocation.split(new int[]{1, 0}, new int[]{toBuckets(percentage), Bucketing.BUCKETS});
+        CompiledRule[] rules = compileRules(config.getRules(), variants);
+        if (!config.getEnabled()) {
+            return CompiledFlag.constant(name, type, variants.asMap(), variants.evaluation(0, EvaluationReason.OFF, -1));
+        }
+        return new CompiledFlag(name, type, config.getSalt(), variants.asMap(), rules, fallthrough,
+                variants.evaluations(EvaluationReason.FALLTHROUGH, -1));
+    }
+
+    private static CompiledFlag compileMultivariate(String name, FlagConfig config) {
+        if (config.getRolloutPercentage() != null) {
+            throw new InvalidFlagConfigException(
+                    "MULTIVARIATE flags split users with config.rollout instead of rolloutPercentage");
+        }
+        if (config.getVariants() == null || config.getVariants().isEmpty()) {
+            throw new InvalidFlagConfigException("config.variants must declare at least one variant");
+        }
+        Variants variants = new Variants(name, config.getVariants().keySet().toArray(String[]::new),
+                config.getVariants().values().toArray(JsonNode[]::new));
+        if (config.getOffVariant() == null) {
+            throw new InvalidFlagConfigException("config.offVariant is required");
+        }
+        int offVariant = variants.indexOf(config.getOffVariant(), "config.offVariant");
+        Allocation fallthrough = compileAllocation(config.getDefaultVariant(), config.getRollout(), variants, "config");
+        CompiledRule[] rules = compileRules(config.getRules(), variants);
+        if (!config.getEnabled()) {
+            return CompiledFlag.constant(name, FlagType.MULTIVARIATE, variants.asMap(),
+                    variants.evaluation(offVariant, EvaluationReason.OFF, -1));
+        }
+        return new CompiledFlag(name, FlagType.MULTIVARIATE, config.getSalt(), variants.asMap(), rules, fallthrough,
+                variants.evaluations(EvaluationReason.FALLTHROUGH, -1));
+    }
+
+    private static CompiledRule[] compileRules(List<RuleConfig> rules, Variants variants) {
+        if (rules == null) {
+            return new CompiledRule[0];
+        }
+        CompiledRule[] compiled = new CompiledRule[rules.size()];
+        for (int i = 0; i < rules.size(); i++) {
+            String path = "config.rules[" + i + "]";
+            RuleConfig rule = rules.get(i);
+            if (rule == null) {
+                throw new InvalidFlagConfigException(path + " must not be null");
+            }
+            compiled[i] = new CompiledRule(compileConditions(rule, path),
+                    compileAllocation(rule.getVariant(), rule.getRollout(), variants, path),
+                    variants.evaluations(EvaluationReason.RULE_MATCH, i));
+        }
+        return compiled;
+    }
+
+    private static Condition[] compileConditions(RuleConfig rule, String path) {
+        List<Condition> conditions = new ArrayList<>(2);
+        if (rule.getUsers() != null) {
+            if (rule.getUsers().isEmpty()) {
+                throw new InvalidFlagConfigException(path + ".users must not be empty");
+            }
+            conditions.add(new Condition.UserKeyIn(toSet(rule.getUsers(), path + ".users")));
+        }
+        if (rule.getAttribute() != null) {
+            if (rule.getValues() == null || rule.getValues().isEmpty()) {
+                throw new InvalidFlagConfigException(path + ".values must not be empty");
+            }
+            String operator = rule.getOperator() == null ? "IN" : rule.getOperator().trim().toUpperCase();
+            boolean negated = switch (operator) {
+                case "IN" -> false;
+                case "NOT_IN" -> true;
+                default -> throw new InvalidFlagConfigException(path + ".operator must be IN or NOT_IN");
+            };
+            conditions.add(new Condition.AttributeIn(rule.getAttribute(), toSet(rule.getValues(), path + ".values"), negated));
+        } else if (rule.getOperator() != null || rule.getValues() != null) {
+            throw new InvalidFlagConfigException(path + ".attribute is required with operator and values");
+        }
+        if (conditions.isEmpty()) {
+            throw new InvalidFlagConfigException(path + " needs users or an attribute condition");
+        }
+        return conditions.toArray(Condition[]::new);
+    }
+
+    private static Allocation compileAllocation(String variant, List<WeightedVariantConfig> rollout,
+                                                Variants variants, String path) {
+        if ((variant == null) == (rollout == null)) {
+            throw new InvalidFlagConfigException(path + " needs exactly one of "
+                    + (path.equals("config") ? "defaultVariant" : "variant") + " and rollout");
+        }
+        if (variant != null) {
+            return Allocation.fixed(variants.indexOf(variant, path));
+        }
+        if (rollout.isEmpty()) {
+            throw new InvalidFlagConfigException(path + ".rollout must not be empty");
+        }
+        int[] indexes = new int[rollout.size()];
+        int[] upperBounds = new int[rollout.size()];
+        double total = 0;
+        for (int i = 0; i < rollout.size(); i++) {
+            WeightedVariantConfig weighted = rollout.get(i);
+            if (weighted == null || weighted.getWeight() < 0) {
+                throw new InvalidFlagConfigException(path + ".rollout weights must not be negative");
+            }
+            indexes[i] = variants.indexOf(weighted.getVariant(), path + ".rollout");
+            total += weighted.getWeight();
+            upperBounds[i] = toBuckets(total);
+        }
+        if (Math.abs(total - 100) > PERCENT_TOLERANCE) {
+            throw new InvalidFlagConfigException(path + ".rollout weights must add up to 100");
+        }
+        upperBounds[upperBounds.length - 1] = Bucketing.BUCKETS;
+        return Allocation.split(indexes, upperBounds);
+    }
+
+    private static int toBuckets(double percentage) {
+        return (int) Math.round(percentage * Bucketing.BUCKETS / 100);
+    }
+
+    private static Set<String> toSet(List<String> values, String path) {
+        if (values.contains(null)) {
+            throw new InvalidFlagConfigException(path + " must not contain null");
+        }
+        return Set.copyOf(values);
+    }
+
+    /**
+     * Variants of a flag being compiled, with their pre-built evaluations.
+     */
+    private record Variants(String flagName, String[] names, JsonNode[] values) {
+
+        int indexOf(String variant, String path) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(variant)) {
+                    return i;
+                }
+            }
+            throw new InvalidFlagConfigException(path + " refers to unknown variant: " + variant);
+        }
+
+        Map<String, JsonNode> asMap() {
+            Map<String, JsonNode> map = new LinkedHashMap<>();
+            for (int i = 0; i < names.length; i++) {
+                map.put(names[i], values[i]);
+            }
+            return Collections.unmodifiableMap(map);
+        }
+
+        Evaluation evaluation(int variant, EvaluationReason reason, int ruleIndex) {
+            return new Evaluation(flagName, names[variant], values[variant], reason, ruleIndex);
+        }
+
+        Evaluation[] evaluations(EvaluationReason reason, int ruleIndex) {
+            Evaluation[] evaluations = new Evaluation[names.length];
+            for (int i = 0; i < names.length; i++) {
+                evaluations[i] = evaluation(i, reason, ruleIndex);
+            }
+            return evaluations;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.ech.ff.featureflagmanager.evaluation;
+
+/**
+ * Supported feature flag types. The type decides how the {@code config} of a flag is interpreted.
+ */
+public enum FlagType {
+
+    /**
+     * On/off flag with the implicit variants {@code on} (true) and {@code off} (false).
+     */
+    BOOLEAN,
+
+    /**
+     * On/off flag that serves {@code on} to a stable, salted percentage of users.
+     */
+    PERCENTAGE_ROLLOUT,
+
+    /**
+     * Flag serving one of several named variants with arbitrary JSON values.
+     */
+    MULTIVARIATE;
+
+    /**
+     * Resolve a flag type by name, ignoring case.
+     *
+     * @param name The type name
+     * @return The flag type
+     * @throws InvalidFlagConfigException if the type is unknown
+     */
+    public static FlagType from(String name) {
+        if (name != null) {
+            for (FlagType type : values()) {
+                if (type.name().equalsIgnoreCase(name.trim())) {
+                    return type;
+                }
+            }
+        }
+        throw new InvalidFlagConfigException("Unknown feature flag type: " + name);
+    }
+}
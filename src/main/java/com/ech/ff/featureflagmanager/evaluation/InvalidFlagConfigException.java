@@ -0,0 +1,15 @@
+package com.ech.ff.featureflagmanager.evaluation;
+
+/**
+ * Thrown when the type or config of a feature flag cannot be compiled.
+ */
+public class InvalidFlagConfigException extends IllegalArgumentException {
+
+    public InvalidFlagConfigException(String message) {
+        super(message);
+    }
+
+    public InvalidFlagConfigException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
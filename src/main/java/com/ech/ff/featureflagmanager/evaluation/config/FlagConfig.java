@@ -0,0 +1,60 @@
+package com.ech.ff.featureflagmanager.evaluation.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Typed form of the JSON {@code config} of a feature flag.
+ * <p>
+ * BOOLEAN and PERCENTAGE_ROLLOUT flags use {@code enabled}, {@code rolloutPercentage} and {@code rules};
+ * their variants are the implicit {@code on} and {@code off}, and PERCENTAGE_ROLLOUT requires the percentage. MULTIVARIATE flags declare their {@code variants} and serve
+ * {@code defaultVariant} or the {@code rollout} split to everyone not matched by a rule.
+ */
+@Data
+@NoArgsConstructor
+public class FlagConfig {
+
+    /**
+     * Kill switch; a disabled flag always serves its off variant.
+     */
+    private Boolean enabled;
+
+    /**
+     * Share of users, 0 to 100, that get {@code on} from a BOOLEAN or PERCENTAGE_ROLLOUT flag when no rule matches.
+     */
+    private Double rolloutPercentage;
+
+    /**
+     * Mixed into the bucketing hash; changing it reshuffles which users fall into a rollout.
+     */
+    private String salt;
+
+    /**
+     * Variant names mapped to their values, MULTIVARIATE only.
+     */
+    private LinkedHashMap<String, JsonNode> variants;
+
+    /**
+     * Variant served when no rule matches and there is no rollout, MULTIVARIATE only.
+     */
+    private String defaultVariant;
+
+    /**
+     * Variant served while the flag is disabled, MULTIVARIATE only.
+     */
+    private String offVariant;
+
+    /**
+     * Percentage split between variants for users not matched by a rule, MULTIVARIATE only.
+     */
+    private List<WeightedVariantConfig> rollout;
+
+    /**
+     * Targeting rules, evaluated in order; the first matching rule decides the variant.
+     */
+    private List<RuleConfig> rules;
+}
@@ -0,0 +1,24 @@
+package com.ech.ff.featureflagmanager.evaluation.config;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Targeting rule of a feature flag config.
+ * A rule matches when all of its conditions match: the user key is one of {@code users} and the
+ * {@code attribute} of the context satisfies {@code operator} against {@code values}.
+ * A matching rule serves {@code variant} or splits users by {@code rollout}.
+ */
+@Data
+@NoArgsConstructor
+public class RuleConfig {
+
+    private List<String> users;
+    private String attribute;
+    private String operator;
+    private List<String> values;
+    private String variant;
+    private List<WeightedVariantConfig> rollout;
+}
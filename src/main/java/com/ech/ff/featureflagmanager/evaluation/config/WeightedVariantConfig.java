@@ -0,0 +1,17 @@
+package com.ech.ff.featureflagmanager.evaluation.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Share of users, in percent, that get a variant in a rollout.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WeightedVariantConfig {
+
+    private String variant;
+    private double weight;
+}
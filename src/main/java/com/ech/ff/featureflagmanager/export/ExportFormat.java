@@ -0,0 +1,33 @@
+package com.ech.ff.featureflagmanager.export;
+
+/**
+ * File format of an export.
+ */
+public enum ExportFormat {
+
+    /**
+     * Newline-delimited DynamoDB JSON, readable by humans and common tooling.
+     */
+    NDJSON(".ndjson", new NdjsonItemCodec()),
+
+    /**
+     * Compact binary format, see {@link BinaryItemCodec}.
+     */
+    BINARY(".bin", new BinaryItemCodec());
+
+    private final String extension;
+    private final ItemCodec codec;
+
+    ExportFormat(String extension, ItemCodec codec) {
+        this.extension = extension;
+        this.codec = codec;
+    }
+
+    String extension() {
+        return extension;
+    }
+
+    ItemCodec codec() {
+        return codec;
+    }
+}
@@ -0,0 +1,15 @@
+package com.ech.ff.featureflagmanager.export;
+
+import java.util.List;
+
+/**
+ * Settings of an export, saved next to its files so a failed export can be resumed and imported.
+ *
+ * @param id The id of the export, also the name of its directory
+ * @param format The file format
+ * @param totalSegments The number of scan segments of every table, each written to its own file
+ * @param tables The exported tables
+ * @param createdAt When the export was started, as an ISO-8601 instant
+ */
+record ExportManifest(String id, ExportFormat format, int totalSegments, List<String> tables, String createdAt) {
+}
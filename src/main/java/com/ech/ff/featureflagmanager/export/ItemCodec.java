@@ -0,0 +1,42 @@
+package com.ech.ff.featureflagmanager.export;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes the items of an export file. Items are written page by page, so a file is a plain
+ * concatenation of encoded pages and can be cut back to the end of any page when an export resumes.
+ */
+interface ItemCodec {
+
+    /**
+     * Encode a page of items.
+     *
+     * @param items The items, as attribute maps
+     * @param startOfFile Whether the page is the first of the file, to write a header
+     * @return The encoded page
+     */
+    byte[] encode(List<Map<String, AttributeValue>> items, boolean startOfFile) throws IOException;
+
+    /**
+     * Read the items of a file one at a time.
+     *
+     * @param in The content of the file
+     * @return The reader
+     */
+    ItemReader reader(InputStream in);
+
+    interface ItemReader {
+
+        /**
+         * Read the next item.
+         *
+         * @return The item, or null at the end of the file
+         */
+        Map<String, AttributeValue> read() throws IOException;
+    }
+}
@@ -0,0 +1,103 @@
+package com.ech.ff.featureflagmanager.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Newline-delimited JSON, one item per line in the DynamoDB JSON notation, for example
+ * {@code {"EnvName":{"S":"production"},"version":{"N":"3"}}}, so attribute types survive the round trip
+ * and files can be processed with the usual DynamoDB tooling.
+ */
+final class NdjsonItemCodec implements ItemCodec {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Override
+    public byte[] encode(List<Map<String, AttributeValue>> items, boolean startOfFile) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Map<String, AttributeValue> item : items) {
+            out.write(MAPPER.writeValueAsBytes(toJson(item)));
+            out.write('\n');
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public ItemReader reader(InputStream in) {
+        BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        return () -> {
+            String line;
+            do {
+                line = lines.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.isBlank());
+            return fromJson(MAPPER.readTree(line));
+        };
+    }
+
+    /**
+     * Convert an item to DynamoDB JSON.
+     *
+     * @param item The item
+     * @return The JSON object with one typed value per attribute
+     * @throws IllegalArgumentException if the item has an attribute that is not a string, number, boolean or null
+     */
+    static ObjectNode toJson(Map<String, AttributeValue> item) {
+        ObjectNode node = MAPPER.createObjectNode();
+        item.forEach((name, value) -> {
+            ObjectNode attribute = node.putObject(name);
+            switch (value.type()) {
+                case S -> attribute.put("S", value.s());
+                case N -> attribute.put("N", value.n());
+                case BOOL -> attribute.put("BOOL", value.bool());
+                case NUL -> attribute.put("NULL", true);
+                default -> throw new IllegalArgumentException("Unsupported type " + value.type() + " of attribute " + name);
+            }
+        });
+        return node;
+    }
+
+    /**
+     * Convert DynamoDB JSON to an item.
+     *
+     * @param node The JSON object with one typed value per attribute
+     * @return The item
+     */
+    static Map<String, AttributeValue> fromJson(JsonNode node) {
+        Map<String, AttributeValue> item = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> attributes = node.fields();
+        while (attributes.hasNext()) {
+            Map.Entry<String, JsonNode> attribute = attributes.next();
+            JsonNode value = attribute.getValue();
+            AttributeValue converted;
+            if (value.has("S")) {
+                converted = AttributeValue.fromS(value.get("S").asText());
+            } else if (value.has("N")) {
+                converted = AttributeValue.fromN(value.get("N").asText());
+            } else if (value.has("BOOL")) {
+                converted = AttributeValue.fromBool(value.get("BOOL").asBoolean());
+            } else if (value.has("NULL")) {
+                converted = AttributeValue.fromNul(true);
+            } else {
+                throw new IllegalArgumentException("Unsupported value of attribute " + attribute.getKey() + ": " + value);
+            }
+            item.put(attribute.getKey(), converted);
+        }
+        return item;
+    }
+}
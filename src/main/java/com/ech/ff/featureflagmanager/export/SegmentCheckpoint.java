@@ -0,0 +1,38 @@
+package com.ech.ff.featureflagmanager.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+/**
+ * Progress of the export of a scan segment, saved after every page written to the segment file.
+ *
+ * @param offset The size of the segment file up to the last complete page
+ * @param items The number of items written up to the last complete page
+ * @param lastEvaluatedKey The key to continue the scan of the segment from, null before the first page and once done
+ * @param done Whether the segment is fully exported
+ */
+record SegmentCheckpoint(long offset, long items, Map<String, AttributeValue> lastEvaluatedKey, boolean done) {
+
+    static final SegmentCheckpoint START = new SegmentCheckpoint(0, 0, null, false);
+
+    ObjectNode toJson(ObjectMapper objectMapper) {
+        ObjectNode node = objectMapper.createObjectNode()
+                .put("offset", offset)
+                .put("items", items)
+                .put("done", done);
+        if (lastEvaluatedKey != null) {
+            node.set("lastEvaluatedKey", NdjsonItemCodec.toJson(lastEvaluatedKey));
+        }
+        return node;
+    }
+
+    static SegmentCheckpoint fromJson(JsonNode node) {
+        JsonNode key = node.get("lastEvaluatedKey");
+        return new SegmentCheckpoint(node.get("offset").asLong(), node.get("items").asLong(),
+                key == null || key.isNull() ? null : NdjsonItemCodec.fromJson(key), node.get("done").asBoolean());
+    }
+}
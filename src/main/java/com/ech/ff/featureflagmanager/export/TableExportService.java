@@ -0,0 +1,449 @@
+package com.ech.ff.featureflagmanager.export;
+
+import com.ech.ff.featureflagmanager.cache.FlagCache;
+import com.ech.ff.featureflagmanager.controller.dto.TableTransferResult;
+import com.ech.ff.featureflagmanager.dynamodb.repository.ApiKeyRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.EnvironmentRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.FeatureFlagRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.BatchWriteItemResult;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.DynamoDbRepository;
+import com.ech.ff.featureflagmanager.job.Job;
+import com.ech.ff.featureflagmanager.job.JobRegistry;
+import com.ech.ff.featureflagmanager.snapshot.FlagSnapshotService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Dumps tables to local files and loads them back.
+ * <p>
+ * An export scans every table with parallel scan segments. Each segment is written page by page to its own
+ * file with a {@link FileChannel}, and after every page the file is forced to disk and the position of
+ * the scan is checkpointed next to it. A failed export is resumed from these checkpoints: every segment
+ * file is cut back to its last complete page and the scan continues from the saved last evaluated key,
+ * so nothing is read twice and no item is written twice. An export can only be resumed once the job that
+ * ran it on this node has stopped.
+ * <p>
+ * At most {@code ff.export.max-concurrent-segments} segments are exported or imported at the same time
+ * on a node, across all jobs. When a segment fails, the other segments of the job stop after their
+ * current page or chunk and the job fails once all of them have stopped.
+ * <p>
+ * An import reads the segment files of a complete export and writes the items with parallel batched
+ * writes, as they were exported, including their versions. Writes are idempotent puts, so a failed
+ * import is simply run again.
+ * <pre>
+ * {directory}/{exportId}/manifest.json
+ * {directory}/{exportId}/{table}/segment-{n}{.ndjson|.bin}
+ * {directory}/{exportId}/{table}/segment-{n}.checkpoint
+ * </pre>
+ */
+@Service
+@Slf4j
+public class TableExportService {
+
+    public static final String EXPORT_JOB_TYPE = "EXPORT";
+    public static final String IMPORT_JOB_TYPE = "IMPORT";
+
+    static final int SCAN_PAGE_SIZE = 1000;
+    static final int IMPORT_CHUNK_SIZE = 500;
+    /** Maximum number of scan segments per table; every segment is a file and a scan of its own. */
+    static final int MAX_SEGMENTS = 64;
+
+    private static final String MANIFEST_FILE = "manifest.json";
+    private static final ExecutorService SEGMENT_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<String, DynamoDbRepository<?>> repositories = new LinkedHashMap<>();
+    private final Set<String> runningExports = ConcurrentHashMap.newKeySet();
+    private final JobRegistry jobRegistry;
+    private final FlagCache flagCache;
+    private final FlagSnapshotService flagSnapshotService;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final int defaultSegments;
+    private final int importParallelism;
+    private final Semaphore segmentPermits;
+
+    public TableExportService(FeatureFlagRepository featureFlagRepository,
+                              EnvironmentRepository environmentRepository,
+                              ApiKeyRepository apiKeyRepository,
+                              JobRegistry jobRegistry,
+                              FlagCache flagCache,
+                              FlagSnapshotService flagSnapshotService,
+                              ObjectMapper objectMapper,
+                              @Value("${ff.export.directory:exports}") Path directory,
+                              @Value("${ff.export.segments:4}") int defaultSegments,
+                              @Value("${ff.export.import-parallelism:4}") int importParallelism,
+                              @Value("${ff.export.max-concurrent-segments:16}") int maxConcurrentSegments) {
+        List.of(featureFlagRepository, environmentRepository, apiKeyRepository)
+                .forEach(repository -> repositories.put(repository.tableName(), repository));
+        this.jobRegistry = jobRegistry;
+        this.flagCache = flagCache;
+        this.flagSnapshotService = flagSnapshotService;
+        this.objectMapper = objectMapper;
+        this.directory = directory;
+        this.defaultSegments = defaultSegments;
+        this.importParallelism = importParallelism;
+        this.segmentPermits = new Semaphore(maxConcurrentSegments);
+    }
+
+    /**
+     * Start an export in the background.
+     *
+     * @param userId The id of the user who starts the export
+     * @param tables The tables to export, all tables if null or empty
+     * @param format The file format, NDJSON if null
+     * @param segments The number of scan segments per table, the configured default if null
+     * @return The job of the export, its result is a {@link TableTransferResult}
+     * @throws IllegalArgumentException if a table is unknown or the number of segments is out of range
+     */
+    public Job startExport(String userId, List<String> tables, ExportFormat format, Integer segments) {
+        int totalSegments = segments == null ? defaultSegments : segments;
+        if (totalSegments < 1 || totalSegments > MAX_SEGMENTS) {
+            throw new IllegalArgumentException("segments must be between 1 and " + MAX_SEGMENTS);
+        }
+        ExportManifest manifest = new ExportManifest(UUID.randomUUID().toString(),
+                format == null ? ExportFormat.NDJSON : format, totalSegments,
+                selectTables(tables, List.copyOf(repositories.keySet())), Instant.now().toString());
+        log.info("Starting export: {}", manifest);
+        writeManifest(manifest);
+        return submitExport(userId, manifest);
+    }
+
+    /**
+     * Resume an export that failed, from the checkpoints of its segments.
+     *
+     * @param userId The id of the user who resumes the export
+     * @param exportId The id of the export
+     * @return The job of the export, its result is a {@link TableTransferResult}
+     * @throws NoSuchElementException if the export does not exist
+     * @throws IllegalStateException if the export is still running
+     */
+    public Job resumeExport(String userId, String exportId) {
+        ExportManifest manifest = readManifest(exportId);
+        log.info("Resuming export: {}", manifest);
+        return submitExport(userId, manifest);
+    }
+
+    /**
+     * Start the import of a complete export in the background.
+     *
+     * @param userId The id of the user who starts the import
+     * @param exportId The id of the export
+     * @param tables The tables to import, all exported tables if null or empty
+     * @return The job of the import, its result is a {@link TableTransferResult}
+     * @throws NoSuchElementException if the export does not exist
+     * @throws IllegalArgumentException if a table is not part of the export
+     * @throws IllegalStateException if the export of a table is not complete
+     */
+    public Job startImport(String userId, String exportId, List<String> tables) {
+        ExportManifest manifest = readManifest(exportId);
+        List<String> selected = selectTables(tables, manifest.tables());
+        for (String table : selected) {
+            for (int segment = 0; segment < manifest.totalSegments(); segment++) {
+                if (!readCheckpoint(manifest, table, segment).done()) {
+                    throw new IllegalStateException("Export " + exportId + " of table " + table
+                            + " is not complete, resume it first");
+                }
+            }
+        }
+        log.info("Starting import: {}, tables: {}", manifest, selected);
+        return jobRegistry.submit(IMPORT_JOB_TYPE, userId, job -> runImport(job, manifest, selected));
+    }
+
+    private Job submitExport(String userId, ExportManifest manifest) {
+        if (!runningExports.add(manifest.id())) {
+            throw new IllegalStateException("Export " + manifest.id() + " is still running");
+        }
+        try {
+            return jobRegistry.submit(EXPORT_JOB_TYPE, userId, job -> {
+                try {
+                    return runExport(job, manifest);
+                } finally {
+                    runningExports.remove(manifest.id());
+                }
+            });
+        } catch (RuntimeException e) {
+            runningExports.remove(manifest.id());
+            throw e;
+        }
+    }
+
+    private TableTransferResult runExport(Job job, ExportManifest manifest) {
+        job.setMessage("Exporting " + manifest.tables() + " with " + manifest.totalSegments() + " segments per table");
+        AtomicBoolean stop = new AtomicBoolean();
+        Map<String, List<CompletableFuture<Long>>> segmentsByTable = new LinkedHashMap<>();
+        for (String table : manifest.tables()) {
+            DynamoDbRepository<?> repository = repositories.get(table);
+            List<CompletableFuture<Long>> segments = new ArrayList<>();
+            for (int segment = 0; segment < manifest.totalSegments(); segment++) {
+                int current = segment;
+                segments.add(CompletableFuture.supplyAsync(() -> runSegment(stop,
+                        () -> exportSegment(job, manifest, repository, current, stop)), SEGMENT_EXECUTOR));
+            }
+            segmentsByTable.put(table, segments);
+        }
+        Map<String, Long> itemsByTable = sum(segmentsByTable,
+                "Export " + manifest.id() + " failed, resume it to continue from the last checkpoints");
+        return new TableTransferResult(manifest.id(), exportDirectory(manifest.id()).toString(), itemsByTable);
+    }
+
+    private <T> long exportSegment(Job job, ExportManifest manifest, DynamoDbRepository<T> repository, int segment,
+                                   AtomicBoolean stop) {
+        String table = repository.tableName();
+        Path checkpointFile = segmentFile(manifest, table, segment, ".checkpoint");
+        SegmentCheckpoint checkpoint = readCheckpoint(manifest, table, segment);
+        if (checkpoint.done()) {
+            return checkpoint.items();
+        }
+        TableSchema<T> schema = repository.tableSchema();
+        ItemCodec codec = manifest.format().codec();
+        try (FileChannel channel = FileChannel.open(segmentFile(manifest, table, segment, manifest.format().extension()),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Drop whatever was written after the last checkpoint
+            channel.truncate(checkpoint.offset());
+            channel.position(checkpoint.offset());
+            do {
+                stopIfRequested(stop);
+                Page<T> page = repository.scanSegment(segment, manifest.totalSegments(), SCAN_PAGE_SIZE,
+                        checkpoint.lastEvaluatedKey());
+                List<Map<String, AttributeValue>> items = page.items().stream()
+                        .map(item -> schema.itemToMap(item, true))
+                        .toList();
+                ByteBuffer buffer = ByteBuffer.wrap(codec.encode(items, channel.position() == 0));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+                Map<String, AttributeValue> lastEvaluatedKey = page.lastEvaluatedKey();
+                checkpoint = new SegmentCheckpoint(channel.position(), checkpoint.items() + items.size(),
+                        lastEvaluatedKey, lastEvaluatedKey == null || lastEvaluatedKey.isEmpty());
+                writeCheckpoint(checkpointFile, checkpoint);
+                job.addProgress(items.size(), 0);
+            } while (!checkpoint.done());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to export segment " + segment + " of " + table, e);
+        }
+        log.info("Exported segment: export={}, table={}, segment={}, items={}", manifest.id(), table, segment,
+                checkpoint.items());
+        return checkpoint.items();
+    }
+
+    private TableTransferResult runImport(Job job, ExportManifest manifest, List<String> tables) {
+        job.setMessage("Importing " + tables + " from export " + manifest.id());
+        AtomicBoolean stop = new AtomicBoolean();
+        Map<String, List<CompletableFuture<Long>>> segmentsByTable = new LinkedHashMap<>();
+        for (String table : tables) {
+            DynamoDbRepository<?> repository = repositories.get(table);
+            List<CompletableFuture<Long>> segments = new ArrayList<>();
+            for (int segment = 0; segment < manifest.totalSegments(); segment++) {
+                int current = segment;
+                segments.add(CompletableFuture.supplyAsync(() -> runSegment(stop,
+                        () -> importSegment(job, manifest, repository, current, stop)), SEGMENT_EXECUTOR));
+            }
+            segmentsByTable.put(table, segments);
+        }
+        Map<String, Long> itemsByTable;
+        try {
+            itemsByTable = sum(segmentsByTable, "Import of export " + manifest.id() + " failed, run it again");
+        } finally {
+            // Items were written around the write-through cache
+            flagCache.invalidateAll();
+            flagSnapshotService.refreshAll();
+        }
+        if (job.getFailed() > 0) {
+            throw new IllegalStateException(job.getFailed() + " items were not written, run the import again to write them");
+        }
+        return new TableTransferResult(manifest.id(), exportDirectory(manifest.id()).toString(), itemsByTable);
+    }
+
+    private <T> long importSegment(Job job, ExportManifest manifest, DynamoDbRepository<T> repository, int segment,
+                                   AtomicBoolean stop) {
+        String table = repository.tableName();
+        TableSchema<T> schema = repository.tableSchema();
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(segmentFile(manifest, table, segment, manifest.format().extension()),
+                StandardOpenOption.READ);
+             InputStream in = Channels.newInputStream(channel)) {
+            ItemCodec.ItemReader reader = manifest.format().codec().reader(in);
+            List<T> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+            Map<String, AttributeValue> item;
+            while ((item = reader.read()) != null) {
+                chunk.add(schema.mapToItem(item));
+                if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                    stopIfRequested(stop);
+                    written += writeChunk(job, repository, chunk);
+                    chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                stopIfRequested(stop);
+                written += writeChunk(job, repository, chunk);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to import segment " + segment + " of " + table, e);
+        }
+        log.info("Imported segment: export={}, table={}, segment={}, items={}", manifest.id(), table, segment, written);
+        return written;
+    }
+
+    private <T> long writeChunk(Job job, DynamoDbRepository<T> repository, List<T> chunk) {
+        List<BatchWriteItemResult> results = repository.batchWrite(chunk, List.of(), importParallelism).join();
+        long succeeded = results.stream()
+                .filter(result -> result.getStatus() == BatchWriteItemResult.Status.SUCCEEDED)
+                .count();
+        job.addProgress(succeeded, results.size() - succeeded);
+        return succeeded;
+    }
+
+    /**
+     * Run a segment while holding a segment permit, and make the other segments of the job stop if it fails.
+     */
+    private long runSegment(AtomicBoolean stop, LongSupplier segment) {
+        segmentPermits.acquireUninterruptibly();
+        try {
+            stopIfRequested(stop);
+            return segment.getAsLong();
+        } catch (RuntimeException e) {
+            stop.set(true);
+            throw e;
+        } finally {
+            segmentPermits.release();
+        }
+    }
+
+    private static void stopIfRequested(AtomicBoolean stop) {
+        if (stop.get()) {
+            throw new CancellationException("Stopped because another segment failed");
+        }
+    }
+
+    /**
+     * Wait for every segment, also after one failed, so no segment is still running once the job is over.
+     */
+    private static Map<String, Long> sum(Map<String, List<CompletableFuture<Long>>> segmentsByTable, String failure) {
+        List<CompletableFuture<Long>> all = segmentsByTable.values().stream()
+                .flatMap(List::stream)
+                .toList();
+        CompletableFuture.allOf(all.toArray(CompletableFuture[]::new))
+                .exceptionally(e -> null)
+                .join();
+        Throwable cause = null;
+        for (CompletableFuture<Long> segment : all) {
+            Throwable error = segment.handle((result, e) -> e).join();
+            if (error != null) {
+                error = error.getCause() != null ? error.getCause() : error;
+                if (cause == null || cause instanceof CancellationException) {
+                    cause = error;
+                }
+            }
+        }
+        if (cause != null) {
+            throw new IllegalStateException(failure, cause);
+        }
+        Map<String, Long> itemsByTable = new LinkedHashMap<>();
+        segmentsByTable.forEach((table, segments) ->
+                itemsByTable.put(table, segments.stream().mapToLong(CompletableFuture::join).sum()));
+        return itemsByTable;
+    }
+
+    private List<String> selectTables(List<String> requested, List<String> available) {
+        if (requested == null || requested.isEmpty()) {
+            return available;
+        }
+        for (String table : requested) {
+            if (!available.contains(table)) {
+                throw new IllegalArgumentException("Unknown table " + table + ", expected one of " + available);
+            }
+        }
+        return requested.stream().distinct().toList();
+    }
+
+    private Path exportDirectory(String exportId) {
+        try {
+            // Export ids are UUIDs, this also keeps ids from the request from pointing outside the directory
+            return directory.resolve(UUID.fromString(exportId).toString());
+        } catch (IllegalArgumentException e) {
+            throw new NoSuchElementException("Export " + exportId + " not found");
+        }
+    }
+
+    private Path segmentFile(ExportManifest manifest, String table, int segment, String extension) {
+        return exportDirectory(manifest.id()).resolve(table).resolve(String.format("segment-%04d%s", segment, extension));
+    }
+
+    private void writeManifest(ExportManifest manifest) {
+        try {
+            for (String table : manifest.tables()) {
+                Files.createDirectories(exportDirectory(manifest.id()).resolve(table));
+            }
+            writeAtomically(exportDirectory(manifest.id()).resolve(MANIFEST_FILE), objectMapper.writeValueAsBytes(manifest));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write export manifest", e);
+        }
+    }
+
+    private ExportManifest readManifest(String exportId) {
+        Path file = exportDirectory(exportId).resolve(MANIFEST_FILE);
+        if (!Files.exists(file)) {
+            throw new NoSuchElementException("Export " + exportId + " not found");
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), ExportManifest.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read export manifest", e);
+        }
+    }
+
+    private SegmentCheckpoint readCheckpoint(ExportManifest manifest, String table, int segment) {
+        Path file = segmentFile(manifest, table, segment, ".checkpoint");
+        if (!Files.exists(file)) {
+            return SegmentCheckpoint.START;
+        }
+        try {
+            return SegmentCheckpoint.fromJson(objectMapper.readTree(file.toFile()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read checkpoint " + file, e);
+        }
+    }
+
+    private void writeCheckpoint(Path file, SegmentCheckpoint checkpoint) throws IOException {
+        writeAtomically(file, objectMapper.writeValueAsBytes(checkpoint.toJson(objectMapper)));
+    }
+
+    private static void writeAtomically(Path file, byte[] content) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporary, content);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
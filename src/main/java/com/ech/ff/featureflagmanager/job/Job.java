@@ -0,0 +1,119 @@
+package com.ech.ff.featureflagmanager.job;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A long-running operation executed in the background by the {@link JobRegistry}.
+ * Progress counters are updated by the running job and can be read at any time.
+ */
+@Getter
+@Schema(description = "Background job and its progress")
+public class Job {
+
+    public enum Status {
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    @Schema(description = "Id of the job", example = "5f0c6f64-2d7e-4a3c-9a55-6a3e3c1d2b10")
+    private final String id;
+
+    @Schema(description = "Kind of operation", example = "PROMOTE")
+    private final String type;
+
+    @JsonIgnore
+    private final String userId;
+
+    @Schema(description = "When the job started")
+    private final Instant startedAt;
+
+    @Schema(description = "Status of the job")
+    private volatile Status status = Status.RUNNING;
+
+    @Schema(description = "Current step of the job", example = "Writing feature flags")
+    private volatile String message;
+
+    @Schema(description = "Number of items the job has to process, 0 while unknown")
+    private volatile long total;
+
+    @Schema(description = "When the job finished, absent while it is running")
+    private volatile Instant finishedAt;
+
+    @Schema(description = "Result of the job once it succeeded")
+    private volatile Object result;
+
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong processed = new AtomicLong();
+
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong failed = new AtomicLong();
+
+    Job(String id, String type, String userId) {
+        this.id = id;
+        this.type = type;
+        this.userId = userId;
+        this.startedAt = Instant.now();
+    }
+
+    @Schema(description = "Number of items processed successfully")
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    @Schema(description = "Number of items that could not be processed")
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * Report the current step of the job.
+     *
+     * @param message The description of the step
+     */
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Report the number of items the job has to process.
+     *
+     * @param total The number of items
+     */
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    /**
+     * Report processed items.
+     *
+     * @param succeeded The number of items processed successfully
+     * @param failed The number of items that could not be processed
+     */
+    public void addProgress(long succeeded, long failed) {
+        this.processed.addAndGet(succeeded);
+        this.failed.addAndGet(failed);
+    }
+
+    void succeed(Object result) {
+        this.result = result;
+        this.message = "Done";
+        finish(Status.SUCCEEDED);
+    }
+
+    void fail(String message) {
+        this.message = message;
+        finish(Status.FAILED);
+    }
+
+    private void finish(Status status) {
+        this.finishedAt = Instant.now();
+        this.status = status;
+    }
+}
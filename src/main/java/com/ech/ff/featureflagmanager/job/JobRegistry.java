@@ -0,0 +1,77 @@
+package com.ech.ff.featureflagmanager.job;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Runs long operations as background jobs on virtual threads and keeps track of their progress.
+ * Jobs are kept in memory of the node that runs them for the retention period, so their status
+ * has to be read from the same node.
+ */
+@Component
+@Slf4j
+public class JobRegistry {
+
+    private final Cache<String, Job> jobs;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public JobRegistry(@Value("${ff.jobs.retention:24h}") Duration retention,
+                       @Value("${ff.jobs.maximum-size:10000}") long maximumSize) {
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(retention)
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    /**
+     * Start a job in the background.
+     *
+     * @param type The kind of operation
+     * @param userId The id of the user who started the job
+     * @param work The work of the job, reports progress on the job and returns its result
+     * @return The started job
+     */
+    public Job submit(String type, String userId, Function<Job, Object> work) {
+        Job job = new Job(UUID.randomUUID().toString(), type, userId);
+        jobs.put(job.getId(), job);
+        log.info("Starting job: id={}, type={}, user={}", job.getId(), type, userId);
+        executor.execute(() -> {
+            try {
+                job.succeed(work.apply(job));
+                log.info("Job succeeded: id={}, type={}, processed={}", job.getId(), type, job.getProcessed());
+            } catch (Exception e) {
+                log.error("Job failed: id={}, type={}", job.getId(), type, e);
+                job.fail(e.getMessage());
+            }
+        });
+        return job;
+    }
+
+    /**
+     * Get a job of a user.
+     *
+     * @param id The id of the job
+     * @param userId The id of the user asking for the job
+     * @return The job if it exists and was started by the user, otherwise empty
+     */
+    public Optional<Job> get(String id, String userId) {
+        return Optional.ofNullable(jobs.getIfPresent(id))
+                .filter(job -> job.getUserId().equals(userId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
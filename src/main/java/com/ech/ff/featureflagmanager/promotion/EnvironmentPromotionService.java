@@ -0,0 +1,187 @@
+package com.ech.ff.featureflagmanager.promotion;
+
+import com.ech.ff.featureflagmanager.controller.dto.PromotionDiff;
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import com.ech.ff.featureflagmanager.dynamodb.repository.FeatureFlagRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.BatchWriteItemResult;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.ConditionalWriteException;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.DynamoDbRepository;
+import com.ech.ff.featureflagmanager.job.Job;
+import com.ech.ff.featureflagmanager.job.JobRegistry;
+import com.ech.ff.featureflagmanager.snapshot.EnvironmentKey;
+import com.ech.ff.featureflagmanager.snapshot.FlagSnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Copies the feature flags of an environment to another environment of the same user on the server.
+ * <p>
+ * The source is read with a paginated query and compared with the target, so only new and changed flags
+ * are written. The target is read by table key, because flags of other users can have the same environment
+ * name and feature name: such flags are not written and reported as owned by another user. When the changes
+ * fit in one transaction, they are written with TransactWriteItems, conditioned on the target flags still
+ * being the ones that were read: the promotion is applied completely or not at all. Larger promotions are
+ * written with the parallel transactions of {@link FeatureFlagRepository#saveAll(List, java.util.function.Consumer)},
+ * and the progress of the job is updated as every transaction completes; a failed flag leaves the flags written
+ * so far in place, and running the promotion again copies only what is still missing.
+ * Flags that exist only in the target are kept.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EnvironmentPromotionService {
+
+    public static final String JOB_TYPE = "PROMOTE";
+
+    static final int READ_PAGE_SIZE = 500;
+
+    private final FeatureFlagRepository featureFlagRepository;
+    private final FlagSnapshotService flagSnapshotService;
+    private final JobRegistry jobRegistry;
+
+    /**
+     * Compute the changes a promotion would make, without writing them.
+     *
+     * @param userId The id of the owner of both environments
+     * @param sourceEnv The environment to copy the feature flags from
+     * @param targetEnv The environment to copy the feature flags to
+     * @return The changes to the target environment
+     */
+    public PromotionDiff diff(String userId, String sourceEnv, String targetEnv) {
+        log.info("Computing promotion diff: {} -> {}, user: {}", sourceEnv, targetEnv, userId);
+        return plan(userId, sourceEnv, targetEnv, null).diff();
+    }
+
+    /**
+     * Start a promotion in the background.
+     *
+     * @param userId The id of the owner of both environments
+     * @param sourceEnv The environment to copy the feature flags from
+     * @param targetEnv The environment to copy the feature flags to
+     * @return The job of the promotion, its result is the {@link PromotionDiff} that was applied
+     */
+    public Job promote(String userId, String sourceEnv, String targetEnv) {
+        log.info("Promoting feature flags: {} -> {}, user: {}", sourceEnv, targetEnv, userId);
+        return jobRegistry.submit(JOB_TYPE, userId, job -> run(job, userId, sourceEnv, targetEnv));
+    }
+
+    private PromotionDiff run(Job job, String userId, String sourceEnv, String targetEnv) {
+        Plan plan = plan(userId, sourceEnv, targetEnv, job);
+        List<FeatureFlag> writes = plan.writes();
+        job.setTotal(writes.size());
+        job.setMessage("Writing " + writes.size() + " feature flags to " + targetEnv);
+
+        if (writes.size() <= DynamoDbRepository.MAX_TRANSACTION_SIZE) {
+            if (!writes.isEmpty()) {
+                try {
+                    featureFlagRepository.saveAllIfUnchanged(writes, plan.target());
+                } catch (ConditionalWriteException e) {
+                    throw new IllegalStateException("Feature flags of " + targetEnv
+                            + " changed during the promotion, nothing was written", e);
+                }
+                job.addProgress(writes.size(), 0);
+            }
+        } else {
+            featureFlagRepository.saveAll(writes, results -> {
+                long succeeded = results.stream()
+                        .filter(result -> result.getStatus() == BatchWriteItemResult.Status.SUCCEEDED)
+                        .count();
+                job.addProgress(succeeded, results.size() - succeeded);
+            }).join();
+        }
+
+        flagSnapshotService.markDirty(new EnvironmentKey(userId, targetEnv));
+        if (job.getFailed() > 0) {
+            throw new IllegalStateException(job.getFailed()
+                    + " feature flags were not written, run the promotion again to copy them");
+        }
+        List<String> ownedByOtherUsers = plan.diff().getOwnedByOtherUsers();
+        if (!ownedByOtherUsers.isEmpty()) {
+            throw new IllegalStateException(ownedByOtherUsers.size() + " feature flags of " + targetEnv
+                    + " belong to another user and were not copied: " + ownedByOtherUsers);
+        }
+        return plan.diff();
+    }
+
+    private Plan plan(String userId, String sourceEnv, String targetEnv, Job job) {
+        List<FeatureFlag> copies = new ArrayList<>();
+        try (Stream<List<FeatureFlag>> pages = featureFlagRepository.streamEnvFF(sourceEnv, userId, READ_PAGE_SIZE)) {
+            Iterator<List<FeatureFlag>> iterator = pages.iterator();
+            while (iterator.hasNext()) {
+                for (FeatureFlag source : iterator.next()) {
+                    copies.add(FeatureFlag.builder()
+                            .envName(targetEnv)
+                            .featureName(source.getFeatureName())
+                            .type(source.getType())
+                            .config(source.getConfig())
+                            .userId(userId)
+                            .build());
+                }
+                if (job != null) {
+                    job.setMessage("Read " + copies.size() + " feature flags of " + sourceEnv);
+                }
+            }
+        }
+
+        // The owner index only holds the flags of the user, a flag of another user with the same key is read by key
+        List<String> sourceNames = copies.stream().map(FeatureFlag::getFeatureName).toList();
+        Map<Key, FeatureFlag> target = new HashMap<>();
+        featureFlagRepository.getByNames(sourceNames, targetEnv).join()
+                .forEach(ff -> target.put(FeatureFlagRepository.keyOf(ff), ff));
+
+        List<FeatureFlag> writes = new ArrayList<>();
+        List<String> created = new ArrayList<>();
+        List<String> updated = new ArrayList<>();
+        List<String> ownedByOtherUsers = new ArrayList<>();
+        int unchanged = 0;
+        for (FeatureFlag copy : copies) {
+            FeatureFlag current = target.get(FeatureFlagRepository.keyOf(copy));
+            if (current == null) {
+                created.add(copy.getFeatureName());
+                writes.add(copy);
+            } else if (!Objects.equals(current.getUserId(), userId)) {
+                ownedByOtherUsers.add(copy.getFeatureName());
+            } else if (Objects.equals(current.getType(), copy.getType())
+                    && Objects.equals(current.getConfig(), copy.getConfig())) {
+                unchanged++;
+            } else {
+                updated.add(copy.getFeatureName());
+                writes.add(copy);
+            }
+        }
+
+        Set<String> sourceNameSet = new HashSet<>(sourceNames);
+        List<String> onlyInTarget = featureFlagRepository.getEnvFF(targetEnv, userId).stream()
+                .map(FeatureFlag::getFeatureName)
+                .filter(name -> !sourceNameSet.contains(name))
+                .sorted()
+                .toList();
+        created.sort(null);
+        updated.sort(null);
+        ownedByOtherUsers.sort(null);
+        return new Plan(new PromotionDiff(sourceEnv, targetEnv, created, updated, unchanged, onlyInTarget,
+                ownedByOtherUsers), writes, target);
+    }
+
+    /**
+     * The changes of a promotion and the state of the target they are based on.
+     *
+     * @param diff The changes to report
+     * @param writes The feature flags to write to the target
+     * @param target The feature flags of the target that were read, by key
+     */
+    private record Plan(PromotionDiff diff, List<FeatureFlag> writes, Map<Key, FeatureFlag> target) {
+    }
+}
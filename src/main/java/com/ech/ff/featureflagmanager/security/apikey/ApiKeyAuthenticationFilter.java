@@ -0,0 +1,59 @@
+package com.ech.ff.featureflagmanager.security.apikey;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.ApiKey;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Authenticates SDK requests by the environment API key sent in the {@value #API_KEY_HEADER}
+ * and {@value #ENV_HEADER} headers. Requests without valid credentials are passed on unauthenticated
+ * and rejected by the security filter chain.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String API_KEY_HEADER = "X-Api-Key";
+    public static final String ENV_HEADER = "X-Env-Name";
+
+    private final ApiKeyVerifier apiKeyVerifier;
+
+    private final SecurityContextHolderStrategy securityContextHolderStrategy =
+            SecurityContextHolder.getContextHolderStrategy();
+    private final SecurityContextRepository securityContextRepository = new RequestAttributeSecurityContextRepository();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(API_KEY_HEADER);
+        String envName = request.getHeader(ENV_HEADER);
+        if (key == null || envName == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Optional<ApiKey> apiKey = apiKeyVerifier.verify(key, envName);
+        if (apiKey.isPresent()) {
+            SecurityContext context = securityContextHolderStrategy.createEmptyContext();
+            context.setAuthentication(new ApiKeyAuthenticationToken(apiKey.get()));
+            securityContextHolderStrategy.setContext(context);
+            securityContextRepository.saveContext(context, request, response);
+        } else {
+            log.warn("Rejected API key for env: {}", envName);
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,31 @@
+package com.ech.ff.featureflagmanager.security.apikey;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.ApiKey;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+/**
+ * Authentication of an SDK client by a verified environment API key.
+ */
+public class ApiKeyAuthenticationToken extends AbstractAuthenticationToken {
+
+    public static final String SDK_AUTHORITY = "ROLE_SDK";
+
+    private final ApiKey apiKey;
+
+    public ApiKeyAuthenticationToken(ApiKey apiKey) {
+        super(AuthorityUtils.createAuthorityList(SDK_AUTHORITY));
+        this.apiKey = apiKey;
+        setAuthenticated(true);
+    }
+
+    @Override
+    public Object getCredentials() {
+        return apiKey.getKey();
+    }
+
+    @Override
+    public ApiKey getPrincipal() {
+        return apiKey;
+    }
+}
@@ -0,0 +1,111 @@
+package com.ech.ff.featureflagmanager.security.apikey;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.ApiKey;
+import com.ech.ff.featureflagmanager.dynamodb.repository.ApiKeyRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Verifies environment API keys against a bounded in-process cache in front of {@link ApiKeyRepository}.
+ * Unknown and inactive keys are cached as well, with a shorter TTL, so repeated bogus keys
+ * are answered from memory instead of DynamoDB.
+ */
+@Component
+@Slf4j
+public class ApiKeyVerifier {
+
+    private final ApiKeyRepository apiKeyRepository;
+    private final LoadingCache<CacheKey, Optional<ApiKey>> cache;
+
+    public ApiKeyVerifier(ApiKeyRepository apiKeyRepository,
+                          @Value("${ff.api-key-cache.maximum-size:100000}") long maximumSize,
+                          @Value("${ff.api-key-cache.ttl:60s}") Duration ttl,
+                          @Value("${ff.api-key-cache.negative-ttl:10s}") Duration negativeTtl) {
+        this.apiKeyRepository = apiKeyRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new PresenceAwareExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+                .recordStats()
+                .build(this::load);
+    }
+
+    /**
+     * Verify an API key.
+     *
+     * @param key The API key
+     * @param envName The environment name
+     * @return The API key if it exists and is active, otherwise empty
+     */
+    public Optional<ApiKey> verify(String key, String envName) {
+        return cache.get(new CacheKey(envName, key));
+    }
+
+    /**
+     * Drop an API key from the cache so the next verification goes to DynamoDB.
+     *
+     * @param key The API key
+     * @param envName The environment name
+     */
+    public void evict(String key, String envName) {
+        log.info("Evicting API key from cache: {}, environment: {}", fingerprint(key), envName);
+        cache.invalidate(new CacheKey(envName, key));
+    }
+
+    /**
+     * Identify an API key in logs without revealing it.
+     *
+     * @param key The API key
+     * @return The first 8 hex digits of the SHA-256 hash of the key
+     */
+    public static String fingerprint(String key) {
+        if (key == null) {
+            return null;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return "sha256:" + HexFormat.of().formatHex(hash, 0, 4);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private Optional<ApiKey> load(CacheKey cacheKey) {
+        return apiKeyRepository.getKey(cacheKey.key(), cacheKey.envName())
+                .filter(apiKey -> Boolean.TRUE.equals(apiKey.getActive()));
+    }
+
+    private record CacheKey(String envName, String key) {
+    }
+
+    /**
+     * Expires found keys after the regular TTL and misses after the negative TTL.
+     */
+    private record PresenceAwareExpiry(long ttlNanos, long negativeTtlNanos) implements Expiry<CacheKey, Optional<ApiKey>> {
+
+        @Override
+        public long expireAfterCreate(CacheKey key, Optional<ApiKey> value, long currentTime) {
+            return value.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(CacheKey key, Optional<ApiKey> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(CacheKey key, Optional<ApiKey> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,24 +1,65 @@
 package com.ech.ff.featureflagmanager.security.config;
 
+import com.ech.ff.featureflagmanager.security.apikey.ApiKeyAuthenticationFilter;
+import com.ech.ff.featureflagmanager.security.apikey.ApiKeyVerifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+
+import java.util.ArrayList;
+import java.util.Collection;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    /** Prefix of the authorities granted for the Cognito groups of a user. */
+    public static final String GROUP_AUTHORITY_PREFIX = "GROUP_";
+
     @Value("${spring.security.oauth2.client.provider.cognito.issuer-uri}")
     private String issuerUri;
 
+    @Value("${ff.admin.group:admin}")
+    private String adminGroup;
+
+    /**
+     * SDK endpoints are authenticated with environment API keys instead of Cognito tokens.
+     */
     @Bean
+    @Order(1)
+    public SecurityFilterChain sdkSecurityFilterChain(HttpSecurity http, ApiKeyVerifier apiKeyVerifier) throws Exception {
+        http
+            .securityMatcher("/sdk/**")
+            .cors(cors -> cors.configure(http))
+            .csrf(AbstractHttpConfigurer::disable)
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .addFilterBefore(new ApiKeyAuthenticationFilter(apiKeyVerifier), AnonymousAuthenticationFilter.class)
+            .authorizeHttpRequests(authorize -> authorize
+                .anyRequest().authenticated()
+            )
+            .exceptionHandling(exceptions -> exceptions
+                .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED))
+            );
+
+        return http.build();
+    }
+
+    @Bean
+    @Order(2)
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
             .cors(cors -> cors.configure(http))
@@ -26,8 +67,13 @@ public class SecurityConfig {
             .authorizeHttpRequests(authorize -> authorize
                 // Public endpoints
                 .requestMatchers("/", "/login", "/callback", "/login-page", "/api-docs/**", "/swagger-ui/**", "/swagger-ui.html", "/api/auth-test/public").permitAll()
+                // Health checks are public, metrics and the other actuator endpoints need a token
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").authenticated()
                 // Static resources
                 .requestMatchers("/login.html", "/auth-callback.html", "/css/**", "/js/**", "/images/**", "/favicon.ico").permitAll()
+                // Administration across all users, for members of the admin Cognito group
+                .requestMatchers("/admin/**").hasAuthority(GROUP_AUTHORITY_PREFIX + adminGroup)
                 // Protected endpoints
                 .anyRequest().authenticated()
             )
@@ -35,12 +81,30 @@ public class SecurityConfig {
                 .defaultSuccessUrl("/", true)
             )
             .oauth2ResourceServer(oauth2 -> oauth2
-                .jwt(jwt -> jwt.jwtAuthenticationConverter(new JwtAuthenticationConverter()))
+                .jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthenticationConverter()))
             );
 
         return http.build();
     }
 
+    /**
+     * Grants the scopes of a token as {@code SCOPE_} authorities and its {@code cognito:groups}
+     * as {@value #GROUP_AUTHORITY_PREFIX} authorities.
+     */
+    private static JwtAuthenticationConverter jwtAuthenticationConverter() {
+        JwtGrantedAuthoritiesConverter scopes = new JwtGrantedAuthoritiesConverter();
+        JwtGrantedAuthoritiesConverter groups = new JwtGrantedAuthoritiesConverter();
+        groups.setAuthoritiesClaimName("cognito:groups");
+        groups.setAuthorityPrefix(GROUP_AUTHORITY_PREFIX);
+        JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
+        converter.setJwtGrantedAuthoritiesConverter(jwt -> {
+            Collection<GrantedAuthority> authorities = new ArrayList<>(scopes.convert(jwt));
+            authorities.addAll(groups.convert(jwt));
+            return authorities;
+        });
+        return converter;
+    }
+
     @Bean
     public JwtDecoder jwtDecoder() {
         return NimbusJwtDecoder.withIssuerLocation(issuerUri).build();
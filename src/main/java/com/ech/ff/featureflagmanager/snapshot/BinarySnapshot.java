@@ -0,0 +1,49 @@
+package com.ech.ff.featureflagmanager.snapshot;
+
+import com.ech.ff.featureflagmanager.evaluation.BinaryFlagSetEncoder;
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Binary encoding of an {@link EnvironmentSnapshot}, built once per snapshot version and shared by
+ * every client that requests it. The byte arrays are never modified after construction, so they are
+ * written to responses as they are, without copying.
+ * <p>
+ * Each representation has its own ETag derived from the snapshot ETag, so caches never confuse the
+ * binary payload with the JSON one or the gzip-encoded bytes with the plain ones.
+ */
+@Getter
+public class BinarySnapshot {
+
+    private final byte[] bytes;
+    private final byte[] gzipBytes;
+    private final String etag;
+    private final String gzipEtag;
+
+    BinarySnapshot(EnvironmentSnapshot snapshot) {
+        this.bytes = BinaryFlagSetEncoder.encode(snapshot.getKey().envName(), snapshot.getVersion(),
+                snapshot.getEtag(), snapshot.getCompiledFlags());
+        this.gzipBytes = gzip(bytes);
+        this.etag = withSuffix(snapshot.getEtag(), "-bin");
+        this.gzipEtag = withSuffix(snapshot.getEtag(), "-bin-gz");
+    }
+
+    private static String withSuffix(String quotedEtag, String suffix) {
+        return quotedEtag.substring(0, quotedEtag.length() - 1) + suffix + "\"";
+    }
+
+    private static byte[] gzip(byte[] input) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(input);
+        } catch (IOException e) {
+            // In-memory streams do not throw
+            throw new UncheckedIOException("Failed to compress binary snapshot", e);
+        }
+        return out.toByteArray();
+    }
+}
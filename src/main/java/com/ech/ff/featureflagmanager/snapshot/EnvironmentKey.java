@@ -0,0 +1,12 @@
+package com.ech.ff.featureflagmanager.snapshot;
+
+/**
+ * Identifies the flag set of an environment as seen by its owner.
+ * Feature flags are listed per user and environment (see the {@code FFUserId} index),
+ * so snapshots are keyed the same way.
+ *
+ * @param userId The id of the environment owner
+ * @param envName The environment name
+ */
+public record EnvironmentKey(String userId, String envName) {
+}
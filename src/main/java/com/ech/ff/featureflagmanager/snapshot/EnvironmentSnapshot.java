@@ -0,0 +1,204 @@
+package com.ech.ff.featureflagmanager.snapshot;
+
+import com.ech.ff.featureflagmanager.controller.dto.SdkFeatureFlag;
+import com.ech.ff.featureflagmanager.controller.dto.SdkFlagsResponse;
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import com.ech.ff.featureflagmanager.evaluation.CompiledFlag;
+import com.ech.ff.featureflagmanager.evaluation.Evaluation;
+import com.ech.ff.featureflagmanager.evaluation.EvaluationContext;
+import com.ech.ff.featureflagmanager.evaluation.EvaluationReason;
+import com.ech.ff.featureflagmanager.evaluation.FlagCompiler;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable, point-in-time view of the feature flags of an environment.
+ * Snapshots are never modified after construction; a refresh builds a new snapshot and swaps it in.
+ * <p>
+ * The ETag of a snapshot is a hash of its content, so the same flag set yields the same ETag
+ * on every node and across reloads.
+ * <p>
+ * Flag configs are compiled into rule trees once, when the snapshot is built, and every
+ * evaluation against the snapshot reuses them.
+ */
+@Getter
+public class EnvironmentSnapshot {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final EnvironmentKey key;
+    private final long version;
+    private final String etag;
+    private final Instant loadedAt;
+    private final List<FeatureFlag> flags;
+    private final Map<String, FeatureFlag> flagsByName;
+    private final SdkFlagsResponse sdkResponse;
+    private final List<CompiledFlag> compiledFlags;
+    private final Map<String, CompiledFlag> compiledFlagsByName;
+    private volatile BinarySnapshot binarySnapshot;
+
+    /**
+     * Constructs a new EnvironmentSnapshot.
+     *
+     * @param key The environment the snapshot belongs to
+     * @param version The node-local version of the snapshot, increasing with every content change
+     * @param flags The feature flags of the environment
+     */
+    public EnvironmentSnapshot(EnvironmentKey key, long version, List<FeatureFlag> flags) {
+        this.key = key;
+        this.version = version;
+        this.loadedAt = Instant.now();
+        this.flags = flags.stream()
+                .sorted(Comparator.comparing(FeatureFlag::getFeatureName))
+                .toList();
+
+        Map<String, FeatureFlag> byName = new LinkedHashMap<>();
+        this.flags.forEach(ff -> byName.put(ff.getFeatureName(), ff));
+        this.flagsByName = Map.copyOf(byName);
+        this.etag = computeEtag(this.flags);
+
+        this.compiledFlags = this.flags.stream()
+                .map(FlagCompiler::compileOrInvalid)
+                .toList();
+        Map<String, CompiledFlag> compiledByName = new LinkedHashMap<>();
+        this.compiledFlags.forEach(compiled -> compiledByName.put(compiled.getName(), compiled));
+        this.compiledFlagsByName = Map.copyOf(compiledByName);
+
+        this.sdkResponse = new SdkFlagsResponse(key.envName(), version, this.flags.stream()
+                .map(ff -> new SdkFeatureFlag(ff.getFeatureName(), ff.getType(), ff.getConfig()))
+                .toList());
+    }
+
+    /**
+     * Get a feature flag by name.
+     *
+     * @param featureName The feature flag name
+     * @return The feature flag if present in the snapshot, otherwise empty
+     */
+    public Optional<FeatureFlag> getFlag(String featureName) {
+        return Optional.ofNullable(flagsByName.get(featureName));
+    }
+
+    /**
+     * Get the compiled rule tree of a feature flag.
+     *
+     * @param featureName The feature flag name
+     * @return The compiled flag if present in the snapshot, otherwise empty
+     */
+    public Optional<CompiledFlag> getCompiledFlag(String featureName) {
+        return Optional.ofNullable(compiledFlagsByName.get(featureName));
+    }
+
+    /**
+     * Evaluate a feature flag against a context.
+     *
+     * @param featureName The feature flag name
+     * @param context The evaluation context
+     * @return The outcome of the evaluation, {@link EvaluationReason#FLAG_NOT_FOUND} if the flag is not in the snapshot
+     */
+    public Evaluation evaluate(String featureName, EvaluationContext context) {
+        CompiledFlag compiled = compiledFlagsByName.get(featureName);
+        if (compiled == null) {
+            return Evaluation.unavailable(featureName, EvaluationReason.FLAG_NOT_FOUND);
+        }
+        return compiled.evaluate(context);
+    }
+
+    /**
+     * Check whether the snapshot holds exactly the given flags.
+     *
+     * @param other The feature flags to compare with
+     * @return true if the content is the same regardless of order
+     */
+    public boolean hasSameContent(List<FeatureFlag> other) {
+        if (other.size() != flags.size()) {
+            return false;
+        }
+        return other.stream().allMatch(ff -> ff.equals(flagsByName.get(ff.getFeatureName())));
+    }
+
+    /**
+     * Get the binary encoding of the snapshot, building it on first use.
+     *
+     * @return The binary encoding, shared by all callers
+     */
+    public BinarySnapshot getBinarySnapshot() {
+        BinarySnapshot binary = binarySnapshot;
+        if (binary == null) {
+            synchronized (this) {
+                binary = binarySnapshot;
+                if (binary == null) {
+                    binary = new BinarySnapshot(this);
+                    binarySnapshot = binary;
+                }
+            }
+        }
+        return binary;
+    }
+
+    /**
+     * Check whether an {@code If-None-Match} header matches the ETag of the snapshot.
+     *
+     * @param ifNoneMatch The header value, can be null
+     * @return true if the client already has the content of the snapshot
+     */
+    public boolean matchesEtag(String ifNoneMatch) {
+        return matchesEtag(ifNoneMatch, etag);
+    }
+
+    /**
+     * Check whether an {@code If-None-Match} header matches an ETag.
+     *
+     * @param ifNoneMatch The header value, can be null
+     * @param etag The quoted ETag of the representation
+     * @return true if the client already has the representation
+     */
+    public static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compute a quoted ETag from the content of the flags using 64-bit FNV-1a.
+     *
+     * @param sortedFlags The feature flags sorted by name
+     * @return The ETag
+     */
+    private static String computeEtag(List<FeatureFlag> sortedFlags) {
+        long hash = FNV_OFFSET_BASIS;
+        for (FeatureFlag ff : sortedFlags) {
+            hash = hash(hash, ff.getFeatureName());
+            hash = hash(hash, ff.getType());
+            hash = hash(hash, ff.getConfig());
+        }
+        return "\"" + Long.toHexString(hash) + "\"";
+    }
+
+    private static long hash(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+            }
+        }
+        // Field separator, so that ("ab", "c") and ("a", "bc") hash differently
+        return (hash ^ 0xFFFF) * FNV_PRIME;
+    }
+}
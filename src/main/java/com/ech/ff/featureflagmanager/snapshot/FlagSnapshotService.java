@@ -0,0 +1,251 @@
+package com.ech.ff.featureflagmanager.snapshot;
+
+import com.ech.ff.featureflagmanager.cache.FlagCache;
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import com.ech.ff.featureflagmanager.dynamodb.repository.FeatureFlagRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps an in-memory {@link EnvironmentSnapshot} per environment for the SDK read path.
+ * Snapshots are loaded on first access and refreshed in the background, so the number of
+ * DynamoDB reads depends on the number of environments and not on client traffic.
+ * <p>
+ * Local writes mark an environment as dirty; dirty environments are rebuilt once per coalescing
+ * window, so a burst of writes results in a single rebuild and a single {@link SnapshotUpdatedEvent}.
+ * Rebuilds read the write-through flag cache behind {@link FeatureFlagRepository}, the periodic refresh
+ * reads DynamoDB to catch changes that did not go through this node or its change feed.
+ * <p>
+ * Snapshots expire when they were not read for {@code ff.snapshot.expire-after-access}, so the background
+ * reads only cover environments that clients still use. Rebuilds and refreshes do not count as reads.
+ */
+@Service
+@Slf4j
+public class FlagSnapshotService {
+
+    private final FeatureFlagRepository featureFlagRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Cache<EnvironmentKey, EnvironmentSnapshot> snapshots;
+    /** Environments with local changes, with the generation of their last change. */
+    private final Map<EnvironmentKey, Long> dirty = new ConcurrentHashMap<>();
+    private final Map<EnvironmentKey, CompletableFuture<EnvironmentSnapshot>> loads = new ConcurrentHashMap<>();
+    private final AtomicLong versionSequence = new AtomicLong();
+    private final AtomicLong dirtyGeneration = new AtomicLong();
+
+    public FlagSnapshotService(FeatureFlagRepository featureFlagRepository,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${ff.snapshot.maximum-size:10000}") long maximumSize,
+                               @Value("${ff.snapshot.expire-after-access:1h}") Duration expireAfterAccess) {
+        this.featureFlagRepository = featureFlagRepository;
+        this.eventPublisher = eventPublisher;
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new AccessExpiry(expireAfterAccess.toNanos()))
+                .evictionListener((EnvironmentKey key, EnvironmentSnapshot snapshot, RemovalCause cause) -> dirty.remove(key))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get the current snapshot of an environment, loading it on first access.
+     * Concurrent first accesses share a single load, which runs outside of any map operation,
+     * so it does not hold the lock of a hash bin while it reads DynamoDB.
+     *
+     * @param key The environment
+     * @return The current snapshot
+     */
+    public EnvironmentSnapshot getSnapshot(EnvironmentKey key) {
+        EnvironmentSnapshot snapshot = snapshots.getIfPresent(key);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        CompletableFuture<EnvironmentSnapshot> load = new CompletableFuture<>();
+        CompletableFuture<EnvironmentSnapshot> running = loads.putIfAbsent(key, load);
+        if (running != null) {
+            return FlagCache.join(running);
+        }
+        try {
+            List<FeatureFlag> flags = featureFlagRepository.getEnvFF(key.envName(), key.userId());
+            snapshot = snapshots.asMap().computeIfAbsent(key, k -> buildSnapshot(k, flags));
+            load.complete(snapshot);
+            return snapshot;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    /**
+     * Get the snapshot of an environment if it is loaded and has no pending local changes.
+     * Used to answer conditional requests without a DynamoDB read.
+     *
+     * @param key The environment
+     * @return The snapshot if it is up to date with the local writes, otherwise empty
+     */
+    public Optional<EnvironmentSnapshot> getIfClean(EnvironmentKey key) {
+        if (dirty.containsKey(key)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(snapshots.getIfPresent(key));
+    }
+
+    /**
+     * Install the flags of an environment that were just read from DynamoDB.
+     *
+     * @param key The environment
+     * @param flags The feature flags of the environment
+     * @return The current snapshot, which holds exactly the given flags
+     */
+    public EnvironmentSnapshot offer(EnvironmentKey key, List<FeatureFlag> flags) {
+        return install(key, flags);
+    }
+
+    /**
+     * Mark an environment as changed. The snapshot is reloaded with the next coalescing flush.
+     *
+     * @param key The environment
+     */
+    public void markDirty(EnvironmentKey key) {
+        if (snapshots.asMap().containsKey(key)) {
+            dirty.put(key, dirtyGeneration.incrementAndGet());
+        }
+    }
+
+    /**
+     * Mark every loaded environment with the given name as changed, whoever owns it.
+     * Used when a change does not tell which user the environment belongs to.
+     *
+     * @param envName The environment name
+     */
+    public void markDirtyByEnvName(String envName) {
+        snapshots.asMap().keySet().stream()
+                .filter(key -> key.envName().equals(envName))
+                .forEach(this::markDirty);
+    }
+
+    /**
+     * Drop the snapshot of a deleted environment, so it is no longer refreshed.
+     *
+     * @param key The environment
+     */
+    public void remove(EnvironmentKey key) {
+        log.info("Removing snapshot: env={}, user={}", key.envName(), key.userId());
+        snapshots.invalidate(key);
+        dirty.remove(key);
+    }
+
+    /**
+     * Rebuild the snapshots of all environments marked as dirty since the previous flush.
+     * An environment stays dirty until its rebuild is installed, and also if it changed again during
+     * the rebuild, so {@link #getIfClean} never answers with a snapshot older than a local write.
+     */
+    @Scheduled(fixedDelayString = "${ff.snapshot.coalesce-window-ms:250}")
+    public void flushDirty() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        Map<EnvironmentKey, Long> changes = new HashMap<>(dirty);
+        log.info("Rebuilding {} changed environment snapshots", changes.size());
+        changes.forEach((key, generation) -> {
+            try {
+                if (snapshots.asMap().containsKey(key)) {
+                    install(key, featureFlagRepository.getEnvFF(key.envName(), key.userId()));
+                }
+                dirty.remove(key, generation);
+            } catch (Exception e) {
+                log.error("Error rebuilding snapshot: {}", key, e);
+            }
+        });
+    }
+
+    /**
+     * Reload every known snapshot from DynamoDB. Snapshots whose content did not change are kept as is.
+     */
+    @Scheduled(fixedDelayString = "${ff.snapshot.refresh-interval-ms:30000}",
+            initialDelayString = "${ff.snapshot.refresh-interval-ms:30000}")
+    public void refreshAll() {
+        snapshots.cleanUp();
+        log.info("Refreshing {} environment snapshots", snapshots.estimatedSize());
+        List.copyOf(snapshots.asMap().keySet()).forEach(this::refreshQuietly);
+    }
+
+    /**
+     * Reload the snapshot of an environment from DynamoDB.
+     *
+     * @param key The environment
+     * @return The current snapshot after the reload
+     */
+    public EnvironmentSnapshot refresh(EnvironmentKey key) {
+        return install(key, featureFlagRepository.reloadEnvFF(key.envName(), key.userId()));
+    }
+
+    private EnvironmentSnapshot install(EnvironmentKey key, List<FeatureFlag> flags) {
+        EnvironmentSnapshot[] previous = new EnvironmentSnapshot[1];
+        EnvironmentSnapshot current = snapshots.asMap().compute(key, (k, existing) -> {
+            previous[0] = existing;
+            return existing != null && existing.hasSameContent(flags) ? existing : buildSnapshot(k, flags);
+        });
+        if (previous[0] != null && previous[0] != current) {
+            eventPublisher.publishEvent(new SnapshotUpdatedEvent(previous[0], current));
+        }
+        return current;
+    }
+
+    private void refreshQuietly(EnvironmentKey key) {
+        try {
+            refresh(key);
+        } catch (Exception e) {
+            log.error("Error refreshing snapshot: {}", key, e);
+        }
+    }
+
+    private EnvironmentSnapshot buildSnapshot(EnvironmentKey key, List<FeatureFlag> flags) {
+        EnvironmentSnapshot snapshot = new EnvironmentSnapshot(key, versionSequence.incrementAndGet(), flags);
+        log.info("Built snapshot: env={}, user={}, version={}, flags={}",
+                key.envName(), key.userId(), snapshot.getVersion(), flags.size());
+        return snapshot;
+    }
+
+    /**
+     * Expires snapshots a fixed time after they were last read. Replacing a snapshot keeps its expiry,
+     * so background rebuilds and refreshes do not keep an unused environment alive.
+     */
+    private record AccessExpiry(long expireAfterAccessNanos) implements Expiry<EnvironmentKey, EnvironmentSnapshot> {
+
+        @Override
+        public long expireAfterCreate(EnvironmentKey key, EnvironmentSnapshot value, long currentTime) {
+            return expireAfterAccessNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(EnvironmentKey key, EnvironmentSnapshot value, long currentTime,
+                                      long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(EnvironmentKey key, EnvironmentSnapshot value, long currentTime,
+                                    long currentDuration) {
+            return expireAfterAccessNanos;
+        }
+    }
+}
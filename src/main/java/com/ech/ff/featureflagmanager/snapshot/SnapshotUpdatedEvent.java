@@ -0,0 +1,10 @@
+package com.ech.ff.featureflagmanager.snapshot;
+
+/**
+ * Published when the content of an environment snapshot changes.
+ *
+ * @param previous The snapshot that was replaced
+ * @param current The new snapshot
+ */
+public record SnapshotUpdatedEvent(EnvironmentSnapshot previous, EnvironmentSnapshot current) {
+}
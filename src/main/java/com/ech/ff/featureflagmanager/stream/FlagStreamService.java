@@ -0,0 +1,208 @@
+package com.ech.ff.featureflagmanager.stream;
+
+import com.ech.ff.featureflagmanager.controller.dto.SdkFeatureFlag;
+import com.ech.ff.featureflagmanager.controller.dto.SdkFlagsDelta;
+import com.ech.ff.featureflagmanager.snapshot.EnvironmentKey;
+import com.ech.ff.featureflagmanager.snapshot.EnvironmentSnapshot;
+import com.ech.ff.featureflagmanager.snapshot.FlagSnapshotService;
+import com.ech.ff.featureflagmanager.snapshot.SnapshotUpdatedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Streams feature flag changes to SDK clients over Server-Sent Events.
+ * <p>
+ * A client receives a {@code snapshot} event with all flags on connect and a {@code delta} event
+ * for every subsequent {@link SnapshotUpdatedEvent}. Connections are held by the servlet container
+ * in async mode, so an idle subscriber does not occupy a request thread; events are fanned out
+ * on virtual threads so one slow client cannot stall the others.
+ */
+@Service
+@Slf4j
+public class FlagStreamService {
+
+    private final FlagSnapshotService flagSnapshotService;
+    private final ObjectMapper objectMapper;
+    private final long timeoutMillis;
+
+    private final Map<EnvironmentKey, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final ExecutorService sendExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public FlagStreamService(FlagSnapshotService flagSnapshotService,
+                             ObjectMapper objectMapper,
+                             @Value("${ff.stream.timeout:30m}") Duration timeout) {
+        this.flagSnapshotService = flagSnapshotService;
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeout.toMillis();
+    }
+
+    /**
+     * Open a stream of flag changes for an environment.
+     *
+     * @param key The environment
+     * @return The emitter of the stream
+     */
+    public SseEmitter subscribe(EnvironmentKey key) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscription subscription = new Subscription(key, emitter);
+        Set<Subscription> environmentSubscriptions = subscriptions.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet());
+        environmentSubscriptions.add(subscription);
+        emitter.onCompletion(() -> unsubscribe(subscription));
+        emitter.onTimeout(() -> unsubscribe(subscription));
+        emitter.onError(e -> unsubscribe(subscription));
+
+        EnvironmentSnapshot snapshot = flagSnapshotService.getSnapshot(key);
+        subscription.sendSnapshot(snapshot, toJson(snapshot.getSdkResponse()));
+        log.info("Opened flag stream: env={}, user={}, subscribers={}",
+                key.envName(), key.userId(), environmentSubscriptions.size());
+        return emitter;
+    }
+
+    @EventListener
+    public void onSnapshotUpdated(SnapshotUpdatedEvent event) {
+        Set<Subscription> environmentSubscriptions = subscriptions.get(event.current().getKey());
+        if (environmentSubscriptions == null || environmentSubscriptions.isEmpty()) {
+            return;
+        }
+        String deltaJson = toJson(toDelta(event.previous(), event.current()));
+        String snapshotJson = toJson(event.current().getSdkResponse());
+        environmentSubscriptions.forEach(subscription ->
+                sendExecutor.execute(() -> subscription.sendDelta(event, deltaJson, snapshotJson)));
+    }
+
+    /**
+     * Send a comment to every subscriber so that intermediaries keep the connections open
+     * and broken connections are detected. Also reads the snapshot of every streamed environment,
+     * so it does not expire while clients are subscribed.
+     */
+    @Scheduled(fixedDelayString = "${ff.stream.heartbeat-interval-ms:30000}")
+    public void heartbeat() {
+        subscriptions.keySet().forEach(key -> {
+            try {
+                flagSnapshotService.getSnapshot(key);
+            } catch (Exception e) {
+                log.error("Error reading snapshot of streamed environment: {}", key, e);
+            }
+        });
+        subscriptions.values().forEach(environmentSubscriptions -> environmentSubscriptions.forEach(subscription ->
+                sendExecutor.execute(subscription::sendHeartbeat)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sendExecutor.shutdownNow();
+        subscriptions.values().forEach(environmentSubscriptions ->
+                environmentSubscriptions.forEach(subscription -> subscription.emitter.complete()));
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        subscriptions.computeIfPresent(subscription.key, (k, environmentSubscriptions) -> {
+            environmentSubscriptions.remove(subscription);
+            return environmentSubscriptions.isEmpty() ? null : environmentSubscriptions;
+        });
+    }
+
+    private static SdkFlagsDelta toDelta(EnvironmentSnapshot previous, EnvironmentSnapshot current) {
+        List<SdkFeatureFlag> upserted = current.getFlags().stream()
+                .filter(ff -> !ff.equals(previous.getFlagsByName().get(ff.getFeatureName())))
+                .map(ff -> new SdkFeatureFlag(ff.getFeatureName(), ff.getType(), ff.getConfig()))
+                .toList();
+        List<String> removed = previous.getFlagsByName().keySet().stream()
+                .filter(name -> !current.getFlagsByName().containsKey(name))
+                .sorted()
+                .toList();
+        return new SdkFlagsDelta(current.getKey().envName(), previous.getVersion(), current.getVersion(), upserted, removed);
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize stream event", e);
+        }
+    }
+
+    /**
+     * A single client connection. Sends are serialized per connection and the last version sent
+     * is tracked, so a delta is only sent on top of the version the client already has.
+     * <p>
+     * Sends block on the socket, so they are serialized with a {@link ReentrantLock} rather than
+     * {@code synchronized}: a virtual thread waiting for a slow client then unmounts from its carrier
+     * instead of pinning it, and the fan-out to other clients keeps running.
+     */
+    private final class Subscription {
+
+        private final EnvironmentKey key;
+        private final SseEmitter emitter;
+        private final ReentrantLock lock = new ReentrantLock();
+        private long version;
+
+        private Subscription(EnvironmentKey key, SseEmitter emitter) {
+            this.key = key;
+            this.emitter = emitter;
+        }
+
+        void sendSnapshot(EnvironmentSnapshot snapshot, String json) {
+            lock.lock();
+            try {
+                if (snapshot.getVersion() <= version) {
+                    return;
+                }
+                send(SseEmitter.event().id(String.valueOf(snapshot.getVersion())).name("snapshot").data(json));
+                version = snapshot.getVersion();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void sendDelta(SnapshotUpdatedEvent event, String deltaJson, String snapshotJson) {
+            lock.lock();
+            try {
+                if (version == event.previous().getVersion()) {
+                    send(SseEmitter.event().id(String.valueOf(event.current().getVersion())).name("delta").data(deltaJson));
+                    version = event.current().getVersion();
+                } else {
+                    sendSnapshot(event.current(), snapshotJson);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void sendHeartbeat() {
+            lock.lock();
+            try {
+                send(SseEmitter.event().comment("heartbeat"));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) {
+            try {
+                emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping flag stream subscriber: env={}, user={}", key.envName(), key.userId(), e);
+                unsubscribe(this);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
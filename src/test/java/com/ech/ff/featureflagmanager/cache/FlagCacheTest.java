@@ -0,0 +1,121 @@
+package com.ech.ff.featureflagmanager.cache;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import com.ech.ff.featureflagmanager.snapshot.EnvironmentKey;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlagCacheTest {
+
+    private static final EnvironmentKey KEY = new EnvironmentKey("user-1", "prod");
+    private static final EnvironmentKey OTHER_OWNER = new EnvironmentKey("user-2", "prod");
+
+    private final FlagCache cache = new FlagCache(DataSize.ofMegabytes(1), DataSize.ofMegabytes(1));
+
+    @Test
+    void versionsOnlyGrowAcrossEvictionAndReload() {
+        cache.getFlags(KEY, loader(flag("a", "user-1"))).join();
+        long loaded = cache.getVersion(KEY).orElseThrow();
+
+        cache.putFlag(flag("b", "user-1"));
+        long written = cache.getVersion(KEY).orElseThrow();
+
+        cache.invalidateFlagsByEnvName("prod");
+        assertThat(cache.getVersion(KEY)).isEmpty();
+        cache.getFlags(KEY, loader(flag("a", "user-1"))).join();
+        long loadedAgain = cache.getVersion(KEY).orElseThrow();
+
+        cache.reloadFlags(KEY, () -> List.of(flag("c", "user-1")));
+        long reloaded = cache.getVersion(KEY).orElseThrow();
+
+        assertThat(written).isGreaterThan(loaded);
+        assertThat(loadedAgain).isGreaterThan(written);
+        assertThat(reloaded).isGreaterThan(loadedAgain);
+    }
+
+    @Test
+    void writeChainedOntoPendingLoadIsNotLost() {
+        CompletableFuture<List<FeatureFlag>> load = new CompletableFuture<>();
+        cache.getFlags(KEY, executor -> load);
+
+        cache.putFlag(flag("b", "user-1"));
+        load.complete(List.of(flag("a", "user-1")));
+
+        assertThat(names(FlagCache.join(cache.getFlags(KEY, notLoaded())))).containsExactly("a", "b");
+    }
+
+    @Test
+    void reloadKeepsEntryChangedDuringTheRead() {
+        cache.getFlags(KEY, loader(flag("a", "user-1"))).join();
+
+        List<FeatureFlag> reloaded = cache.reloadFlags(KEY, () -> {
+            cache.putFlag(flag("b", "user-1"));
+            return List.of(flag("a", "user-1"));
+        });
+
+        assertThat(names(reloaded)).containsExactly("a", "b");
+        assertThat(names(FlagCache.join(cache.getFlags(KEY, notLoaded())))).containsExactly("a", "b");
+    }
+
+    @Test
+    void writeRemovesFlagFromEnvironmentsOfOtherOwners() {
+        cache.getFlags(KEY, loader()).join();
+        cache.getFlags(OTHER_OWNER, loader(flag("a", "user-2"))).join();
+
+        cache.putFlag(flag("a", "user-1"));
+
+        assertThat(names(FlagCache.join(cache.getFlags(KEY, notLoaded())))).containsExactly("a");
+        assertThat(FlagCache.join(cache.getFlags(OTHER_OWNER, notLoaded()))).isEmpty();
+    }
+
+    @Test
+    void removedFlagIsDroppedFromEveryOwner() {
+        cache.getFlags(KEY, loader(flag("a", "user-1"))).join();
+        cache.getFlags(OTHER_OWNER, loader(flag("b", "user-2"))).join();
+
+        cache.removeFlag("prod", "a");
+        cache.removeFlag("prod", "b");
+
+        assertThat(FlagCache.join(cache.getFlags(KEY, notLoaded()))).isEmpty();
+        assertThat(FlagCache.join(cache.getFlags(OTHER_OWNER, notLoaded()))).isEmpty();
+    }
+
+    @Test
+    void writeDoesNotCacheEnvironmentThatIsNotCached() {
+        cache.putFlag(flag("a", "user-1"));
+
+        assertThat(cache.getVersion(KEY)).isEmpty();
+    }
+
+    private static Function<Executor, CompletableFuture<List<FeatureFlag>>> loader(FeatureFlag... flags) {
+        return executor -> CompletableFuture.completedFuture(List.of(flags));
+    }
+
+    private static Function<Executor, CompletableFuture<List<FeatureFlag>>> notLoaded() {
+        return executor -> {
+            throw new AssertionError("The cached feature flags were loaded again");
+        };
+    }
+
+    private static List<String> names(List<FeatureFlag> flags) {
+        return flags.stream().map(FeatureFlag::getFeatureName).toList();
+    }
+
+    private static FeatureFlag flag(String name, String userId) {
+        return FeatureFlag.builder()
+                .envName("prod")
+                .featureName(name)
+                .type("BOOLEAN")
+                .config("true")
+                .userId(userId)
+                .version(1L)
+                .build();
+    }
+}
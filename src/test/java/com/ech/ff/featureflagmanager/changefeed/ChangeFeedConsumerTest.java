@@ -0,0 +1,192 @@
+package com.ech.ff.featureflagmanager.changefeed;
+
+import com.ech.ff.featureflagmanager.cache.FlagCache;
+import com.ech.ff.featureflagmanager.dynamodb.entity.Environment;
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import com.ech.ff.featureflagmanager.security.apikey.ApiKeyVerifier;
+import com.ech.ff.featureflagmanager.snapshot.EnvironmentKey;
+import com.ech.ff.featureflagmanager.snapshot.FlagSnapshotService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.OperationType;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChangeFeedConsumerTest {
+
+    private static final EnvironmentKey KEY = new EnvironmentKey("user-1", "prod");
+
+    private final FlagSnapshotService flagSnapshotService = mock(FlagSnapshotService.class);
+    private final FlagCache flagCache = mock(FlagCache.class);
+    private final ApiKeyVerifier apiKeyVerifier = mock(ApiKeyVerifier.class);
+    private final InMemoryChangeFeedSource source = new InMemoryChangeFeedSource();
+    private ChangeFeedConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = consumer(source);
+    }
+
+    @Test
+    void putFlagIsAppliedFromItsNewImage() {
+        FeatureFlag flag = flag();
+
+        consumer.apply(new ChangeEvent(ChangeFeedConsumer.FEATURE_FLAG_TABLE, OperationType.MODIFY,
+                flagKeys(), null, TableSchema.fromBean(FeatureFlag.class).itemToMap(flag, true)));
+
+        verify(flagCache).putFlag(flag);
+        verify(flagSnapshotService).markDirty(KEY);
+    }
+
+    @Test
+    void removedFlagIsDroppedFromTheCache() {
+        consumer.apply(new ChangeEvent(ChangeFeedConsumer.FEATURE_FLAG_TABLE, OperationType.REMOVE,
+                flagKeys(), TableSchema.fromBean(FeatureFlag.class).itemToMap(flag(), true), null));
+
+        verify(flagCache).removeFlag("prod", "dark-mode");
+        verify(flagSnapshotService).markDirty(KEY);
+    }
+
+    @Test
+    void keysOnlyFlagChangeInvalidatesTheEnvironmentByName() {
+        consumer.apply(new ChangeEvent(ChangeFeedConsumer.FEATURE_FLAG_TABLE, OperationType.INSERT,
+                flagKeys(), null, null));
+
+        verify(flagCache).invalidateFlagsByEnvName("prod");
+        verify(flagCache, never()).putFlag(any());
+        verify(flagSnapshotService).markDirtyByEnvName("prod");
+        verify(flagSnapshotService, never()).markDirty(any());
+    }
+
+    @Test
+    void apiKeyChangeEvictsTheKey() {
+        consumer.apply(new ChangeEvent(ChangeFeedConsumer.API_KEY_TABLE, OperationType.REMOVE,
+                Map.of("key", AttributeValue.fromS("hash-1"), "EnvName", AttributeValue.fromS("prod")), null, null));
+
+        verify(apiKeyVerifier).evict("hash-1", "prod");
+    }
+
+    @Test
+    void putEnvironmentIsAppliedFromItsNewImage() {
+        Environment environment = Environment.builder().userId("user-1").name("prod").description("Production").build();
+
+        consumer.apply(new ChangeEvent(ChangeFeedConsumer.ENVIRONMENT_TABLE, OperationType.INSERT, environmentKeys(),
+                null, TableSchema.fromBean(Environment.class).itemToMap(environment, true)));
+
+        ArgumentCaptor<Environment> applied = ArgumentCaptor.forClass(Environment.class);
+        verify(flagCache).putEnvironment(applied.capture());
+        assertThat(applied.getValue().getDescription()).isEqualTo("Production");
+        verify(flagSnapshotService).markDirty(KEY);
+    }
+
+    @Test
+    void removedEnvironmentDropsItsSnapshot() {
+        consumer.apply(new ChangeEvent(ChangeFeedConsumer.ENVIRONMENT_TABLE, OperationType.REMOVE, environmentKeys(),
+                null, null));
+
+        verify(flagCache).removeEnvironment("user-1", "prod");
+        verify(flagSnapshotService).remove(KEY);
+        verify(flagSnapshotService, never()).markDirty(any());
+    }
+
+    @Test
+    void changeOfUnknownTableIsIgnored() {
+        consumer.apply(new ChangeEvent("Other", OperationType.INSERT, flagKeys(), null, null));
+
+        verify(flagSnapshotService, never()).markDirtyByEnvName(any());
+        verify(flagCache, never()).invalidateFlagsByEnvName(any());
+    }
+
+    @Test
+    void uncommittedPollIsReadAgain() {
+        ChangeEvent change = new ChangeEvent(ChangeFeedConsumer.FEATURE_FLAG_TABLE, OperationType.MODIFY,
+                flagKeys(), null, null);
+        source.publish(change);
+        doThrow(new IllegalStateException("Cache unavailable"))
+                .doNothing()
+                .when(flagCache).invalidateFlagsByEnvName("prod");
+
+        consumer.pollAll();
+
+        assertThat(consumer.isHealthy()).isFalse();
+
+        consumer.pollAll();
+
+        assertThat(consumer.isHealthy()).isTrue();
+        verify(flagCache, times(2)).invalidateFlagsByEnvName("prod");
+        assertThat(source.poll()).isEmpty();
+    }
+
+    @Test
+    void fallbackReloadsOnlyWhileASourceFails() {
+        consumer.pollFallback();
+
+        verify(flagSnapshotService, never()).refreshAll();
+
+        failingConsumer().pollFallback();
+
+        verify(flagSnapshotService).refreshAll();
+        verify(flagCache).invalidateAllEnvironments();
+    }
+
+    @Test
+    void fallbackReloadsAreBackedOff() {
+        ChangeFeedConsumer failing = failingConsumer();
+
+        failing.pollFallback();
+        failing.pollFallback();
+        failing.pollFallback();
+
+        verify(flagSnapshotService, times(1)).refreshAll();
+    }
+
+    private ChangeFeedConsumer failingConsumer() {
+        ChangeFeedSource failingSource = mock(ChangeFeedSource.class);
+        when(failingSource.tableName()).thenReturn(ChangeFeedConsumer.FEATURE_FLAG_TABLE);
+        when(failingSource.poll()).thenThrow(new IllegalStateException("DynamoDB Streams is not enabled"));
+        ChangeFeedConsumer failing = consumer(failingSource);
+        failing.pollAll();
+        assertThat(failing.isHealthy()).isFalse();
+        return failing;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ChangeFeedConsumer consumer(ChangeFeedSource... sources) {
+        ObjectProvider<ChangeFeedSource> provider = mock(ObjectProvider.class);
+        when(provider.orderedStream()).thenAnswer(invocation -> Stream.of(sources));
+        return new ChangeFeedConsumer(provider, flagSnapshotService, flagCache, apiKeyVerifier, 60_000, 600_000);
+    }
+
+    private static FeatureFlag flag() {
+        return FeatureFlag.builder()
+                .envName("prod")
+                .featureName("dark-mode")
+                .userId("user-1")
+                .type("BOOLEAN")
+                .config("{\"enabled\": true}")
+                .version(3L)
+                .build();
+    }
+
+    private static Map<String, AttributeValue> flagKeys() {
+        return Map.of("EnvName", AttributeValue.fromS("prod"), "FeatureName", AttributeValue.fromS("dark-mode"));
+    }
+
+    private static Map<String, AttributeValue> environmentKeys() {
+        return Map.of("userId", AttributeValue.fromS("user-1"), "name", AttributeValue.fromS("prod"));
+    }
+}
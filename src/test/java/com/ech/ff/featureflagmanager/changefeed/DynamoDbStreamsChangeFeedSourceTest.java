@@ -0,0 +1,313 @@
+package com.ech.ff.featureflagmanager.changefeed;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamResponse;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetShardIteratorRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetShardIteratorResponse;
+import software.amazon.awssdk.services.dynamodb.model.OperationType;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+import software.amazon.awssdk.services.dynamodb.model.SequenceNumberRange;
+import software.amazon.awssdk.services.dynamodb.model.Shard;
+import software.amazon.awssdk.services.dynamodb.model.StreamDescription;
+import software.amazon.awssdk.services.dynamodb.model.StreamRecord;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.TrimmedDataAccessException;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DynamoDbStreamsChangeFeedSourceTest {
+
+    private static final String TABLE = "FeatureFlag";
+    private static final String STREAM_ARN = "arn:aws:dynamodb:us-east-1:000000000000:table/FeatureFlag/stream/1";
+
+    private final FakeStreams streams = new FakeStreams();
+    private final InMemoryCheckpointStore checkpoints = new InMemoryCheckpointStore();
+
+    @Test
+    void openShardsStartAtTheTipOfTheStream() {
+        streams.shard("shard-1").add("a");
+        DynamoDbStreamsChangeFeedSource source = source(STREAM_ARN);
+
+        assertThat(ids(source.poll())).isEmpty();
+        source.commit();
+
+        streams.shard("shard-1").add("b");
+
+        assertThat(ids(source.poll())).containsExactly("b");
+    }
+
+    @Test
+    void committedPositionIsCheckpointedAndResumedAfterRestart() {
+        FakeShard shard = streams.shard("shard-1");
+        DynamoDbStreamsChangeFeedSource source = source(STREAM_ARN);
+        source.poll();
+        source.commit();
+        String b = shard.add("b");
+
+        assertThat(ids(source.poll())).containsExactly("b");
+        source.commit();
+
+        assertThat(checkpoints.get(STREAM_ARN + "/shard-1")).contains(b);
+
+        shard.add("c");
+        shard.add("d");
+        DynamoDbStreamsChangeFeedSource restarted = source(STREAM_ARN);
+
+        assertThat(ids(restarted.poll())).containsExactly("c", "d");
+    }
+
+    @Test
+    void uncommittedPollIsReadAgain() {
+        FakeShard shard = streams.shard("shard-1");
+        DynamoDbStreamsChangeFeedSource source = source(STREAM_ARN);
+        source.poll();
+        source.commit();
+        shard.add("a");
+        shard.add("b");
+
+        assertThat(ids(source.poll())).containsExactly("a", "b");
+
+        shard.add("c");
+
+        assertThat(ids(source.poll())).containsExactly("a", "b", "c");
+        source.commit();
+
+        assertThat(ids(source.poll())).isEmpty();
+    }
+
+    @Test
+    void uncommittedPollWithoutChangesKeepsItsPosition() {
+        FakeShard shard = streams.shard("shard-1");
+        DynamoDbStreamsChangeFeedSource source = source(STREAM_ARN);
+        source.poll();
+        shard.add("a");
+
+        assertThat(ids(source.poll())).containsExactly("a");
+        assertThat(ids(source.poll())).containsExactly("a");
+    }
+
+    @Test
+    void closedShardsWithoutCheckpointAreSkippedAtStart() {
+        FakeShard parent = streams.shard("shard-0");
+        parent.add("a");
+        parent.close();
+        FakeShard child = streams.shard("shard-1");
+        DynamoDbStreamsChangeFeedSource source = source(STREAM_ARN);
+
+        assertThat(ids(source.poll())).isEmpty();
+        source.commit();
+
+        child.add("b");
+
+        assertThat(ids(source.poll())).containsExactly("b");
+    }
+
+    @Test
+    void shardsThatAppearLaterAreReadFromTheirStart() {
+        FakeShard parent = streams.shard("shard-1");
+        DynamoDbStreamsChangeFeedSource source = source(STREAM_ARN);
+        source.poll();
+        source.commit();
+
+        parent.add("a");
+        parent.close();
+        FakeShard child = streams.shard("shard-2");
+        String b = child.add("b");
+
+        assertThat(ids(source.poll())).containsExactly("a", "b");
+        source.commit();
+
+        assertThat(checkpoints.get(STREAM_ARN + "/shard-1")).isEmpty();
+        assertThat(checkpoints.get(STREAM_ARN + "/shard-2")).contains(b);
+
+        child.add("c");
+
+        assertThat(ids(source.poll())).containsExactly("c");
+    }
+
+    @Test
+    void checkpointOlderThanTheRetentionReadsFromTheOldestChange() {
+        FakeShard shard = streams.shard("shard-1");
+        shard.add("a");
+        shard.add("b");
+        checkpoints.put(STREAM_ARN + "/shard-1", "trimmed");
+        DynamoDbStreamsChangeFeedSource source = source(STREAM_ARN);
+
+        assertThat(ids(source.poll())).containsExactly("a", "b");
+    }
+
+    @Test
+    void tableWithoutStreamFails() {
+        DynamoDbStreamsChangeFeedSource source = source(null);
+
+        assertThatThrownBy(source::poll)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("DynamoDB Streams is not enabled on table FeatureFlag");
+    }
+
+    private DynamoDbStreamsChangeFeedSource source(String streamArn) {
+        return new DynamoDbStreamsChangeFeedSource(new FakeDynamoDb(streamArn), streams, TABLE, checkpoints,
+                100, Duration.ZERO);
+    }
+
+    private static List<String> ids(List<ChangeEvent> events) {
+        return events.stream()
+                .map(event -> event.stringAttribute("FeatureName"))
+                .toList();
+    }
+
+    private record FakeDynamoDb(String streamArn) implements DynamoDbClient {
+
+        @Override
+        public DescribeTableResponse describeTable(DescribeTableRequest request) {
+            return DescribeTableResponse.builder()
+                    .table(TableDescription.builder().tableName(request.tableName()).latestStreamArn(streamArn).build())
+                    .build();
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Stream with shards held in memory. Iterators are "shardId@position".
+     */
+    private static final class FakeStreams implements DynamoDbStreamsClient {
+
+        private final Map<String, FakeShard> shards = new LinkedHashMap<>();
+        private int sequence;
+
+        FakeShard shard(String shardId) {
+            return shards.computeIfAbsent(shardId, id -> new FakeShard(this, id));
+        }
+
+        String nextSequenceNumber() {
+            return String.format("%021d", ++sequence);
+        }
+
+        @Override
+        public DescribeStreamResponse describeStream(DescribeStreamRequest request) {
+            assertThat(request.streamArn()).isEqualTo(STREAM_ARN);
+            return DescribeStreamResponse.builder()
+                    .streamDescription(StreamDescription.builder()
+                            .streamArn(STREAM_ARN)
+                            .shards(shards.values().stream().map(FakeShard::describe).toList())
+                            .build())
+                    .build();
+        }
+
+        @Override
+        public GetShardIteratorResponse getShardIterator(GetShardIteratorRequest request) {
+            FakeShard shard = shards.get(request.shardId());
+            int position = switch (request.shardIteratorType()) {
+                case TRIM_HORIZON -> 0;
+                case LATEST -> shard.records.size();
+                case AT_SEQUENCE_NUMBER -> shard.indexOf(request.sequenceNumber());
+                case AFTER_SEQUENCE_NUMBER -> shard.indexOf(request.sequenceNumber()) + 1;
+                default -> throw new IllegalArgumentException("Unexpected iterator type: " + request.shardIteratorType());
+            };
+            return GetShardIteratorResponse.builder().shardIterator(shard.shardId + "@" + position).build();
+        }
+
+        @Override
+        public GetRecordsResponse getRecords(GetRecordsRequest request) {
+            String[] iterator = request.shardIterator().split("@");
+            FakeShard shard = shards.get(iterator[0]);
+            int from = Integer.parseInt(iterator[1]);
+            int to = Math.min(shard.records.size(), from + request.limit());
+            boolean end = shard.closed && to == shard.records.size();
+            return GetRecordsResponse.builder()
+                    .records(List.copyOf(shard.records.subList(from, to)))
+                    .nextShardIterator(end ? null : shard.shardId + "@" + to)
+                    .build();
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class FakeShard {
+
+        private final FakeStreams streams;
+        private final String shardId;
+        private final List<Record> records = new ArrayList<>();
+        private final String startingSequenceNumber;
+        private String endingSequenceNumber;
+        private boolean closed;
+
+        FakeShard(FakeStreams streams, String shardId) {
+            this.streams = streams;
+            this.shardId = shardId;
+            this.startingSequenceNumber = streams.nextSequenceNumber();
+        }
+
+        /**
+         * Append a change of the item with the given name.
+         *
+         * @return The sequence number of the change
+         */
+        String add(String featureName) {
+            String sequenceNumber = streams.nextSequenceNumber();
+            records.add(Record.builder()
+                    .eventName(OperationType.MODIFY)
+                    .dynamodb(StreamRecord.builder()
+                            .sequenceNumber(sequenceNumber)
+                            .keys(Map.of("EnvName", AttributeValue.fromS("prod"),
+                                    "FeatureName", AttributeValue.fromS(featureName)))
+                            .build())
+                    .build());
+            return sequenceNumber;
+        }
+
+        void close() {
+            closed = true;
+            endingSequenceNumber = streams.nextSequenceNumber();
+        }
+
+        int indexOf(String sequenceNumber) {
+            for (int i = 0; i < records.size(); i++) {
+                if (records.get(i).dynamodb().sequenceNumber().equals(sequenceNumber)) {
+                    return i;
+                }
+            }
+            throw TrimmedDataAccessException.builder().message("Sequence number is trimmed: " + sequenceNumber).build();
+        }
+
+        Shard describe() {
+            return Shard.builder()
+                    .shardId(shardId)
+                    .sequenceNumberRange(SequenceNumberRange.builder()
+                            .startingSequenceNumber(startingSequenceNumber)
+                            .endingSequenceNumber(endingSequenceNumber)
+                            .build())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.ech.ff.featureflagmanager.controller;
+
+import com.ech.ff.featureflagmanager.deletion.EnvironmentDeletionService;
+import com.ech.ff.featureflagmanager.dynamodb.entity.Environment;
+import com.ech.ff.featureflagmanager.dynamodb.repository.AsyncEnvironmentRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.EnvironmentRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.ConditionalWriteException;
+import com.ech.ff.featureflagmanager.snapshot.FlagSnapshotService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class FFEnvironmentControllerTest {
+
+    private static final Jwt USER = Jwt.withTokenValue("token").header("alg", "none").subject("user-1").build();
+
+    private final AsyncEnvironmentRepository environmentRepository = mock(AsyncEnvironmentRepository.class);
+    private final FFEnvironmentController controller = new FFEnvironmentController(environmentRepository,
+            mock(EnvironmentRepository.class), mock(EnvironmentDeletionService.class), mock(FlagSnapshotService.class),
+            new ObjectMapper());
+
+    @Test
+    void updatedEnvironmentHasTheETagOfItsNewVersion() {
+        when(environmentRepository.updateEnvironment(any(), eq(3L))).thenAnswer(invocation -> {
+            Environment environment = invocation.getArgument(0);
+            environment.setVersion(4L);
+            return CompletableFuture.completedFuture(environment);
+        });
+
+        ResponseEntity<Environment> response = controller.updateEnvironment("prod", "W/\"3\"", environment(), USER).join();
+
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"4\"");
+        assertThat(response.getBody().getUserId()).isEqualTo("user-1");
+    }
+
+    @Test
+    void createOfExistingEnvironmentIsAConflict() {
+        when(environmentRepository.createEnvironment(any())).thenReturn(rejected());
+
+        assertConflict(controller.saveEnvironment(environment(), USER));
+    }
+
+    @Test
+    void updateOfChangedEnvironmentIsAConflict() {
+        when(environmentRepository.updateEnvironment(any(), eq(3L))).thenReturn(rejected());
+
+        assertConflict(controller.updateEnvironment("prod", "\"3\"", environment(), USER));
+    }
+
+    @Test
+    void updateWithoutIfMatchIsRejectedBeforeWriting() {
+        assertThatThrownBy(() -> controller.updateEnvironment("prod", null, environment(), USER))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_REQUIRED));
+        verifyNoInteractions(environmentRepository);
+    }
+
+    private static <T> CompletableFuture<T> rejected() {
+        return CompletableFuture.failedFuture(new ConditionalWriteException("Condition not met", null));
+    }
+
+    private static void assertConflict(CompletableFuture<?> response) {
+        assertThatThrownBy(response::join)
+                .isInstanceOf(CompletionException.class)
+                .cause()
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+    }
+
+    private static Environment environment() {
+        return Environment.builder().name("prod").description("Production").build();
+    }
+}
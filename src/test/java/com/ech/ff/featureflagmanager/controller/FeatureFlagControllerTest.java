@@ -0,0 +1,89 @@
+package com.ech.ff.featureflagmanager.controller;
+
+import com.ech.ff.featureflagmanager.controller.dto.FeatureFlagRequest;
+import com.ech.ff.featureflagmanager.dynamodb.repository.AsyncFeatureFlagRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.FeatureFlagRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.ConditionalWriteException;
+import com.ech.ff.featureflagmanager.snapshot.FlagSnapshotService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class FeatureFlagControllerTest {
+
+    private static final Jwt USER = Jwt.withTokenValue("token").header("alg", "none").subject("user-1").build();
+
+    private final AsyncFeatureFlagRepository featureFlagRepository = mock(AsyncFeatureFlagRepository.class);
+    private final FeatureFlagRepository featureFlagBatchRepository = mock(FeatureFlagRepository.class);
+    private final FeatureFlagController controller = new FeatureFlagController(featureFlagRepository,
+            featureFlagBatchRepository, mock(FlagSnapshotService.class), new ObjectMapper());
+
+    @Test
+    void lookupOfTooManyNamesIsRejectedBeforeReading() {
+        List<String> names = IntStream.rangeClosed(0, FeatureFlagController.MAX_LOOKUP_NAMES)
+                .mapToObj(i -> "flag-" + i)
+                .toList();
+
+        assertThatThrownBy(() -> controller.lookupFeatureFlags("prod", names, null))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST))
+                .hasMessageContaining("At most 100 feature flags can be looked up at once");
+        verifyNoInteractions(featureFlagBatchRepository);
+    }
+
+    @Test
+    void createOfExistingFlagIsAConflict() {
+        when(featureFlagRepository.create(any())).thenReturn(rejected());
+
+        assertConflict(controller.createFeatureFlag(request(), USER));
+    }
+
+    @Test
+    void updateOfChangedOrForeignFlagIsAConflict() {
+        when(featureFlagRepository.update(any(), eq(3L))).thenReturn(rejected());
+
+        assertConflict(controller.updateFeatureFlag("prod", "dark-mode", "\"3\"", request(), USER));
+    }
+
+    @Test
+    void updateWithoutIfMatchIsRejectedBeforeWriting() {
+        assertThatThrownBy(() -> controller.updateFeatureFlag("prod", "dark-mode", null, request(), USER))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_REQUIRED));
+        assertThatThrownBy(() -> controller.updateFeatureFlag("prod", "dark-mode", "\"v3\"", request(), USER))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        verifyNoInteractions(featureFlagRepository);
+    }
+
+    private static <T> CompletableFuture<T> rejected() {
+        return CompletableFuture.failedFuture(new ConditionalWriteException("Condition not met", null));
+    }
+
+    private static void assertConflict(CompletableFuture<?> response) {
+        assertThatThrownBy(response::join)
+                .isInstanceOf(CompletionException.class)
+                .cause()
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+    }
+
+    private static FeatureFlagRequest request() {
+        return new FeatureFlagRequest("prod", "BOOLEAN", "dark-mode", "{\"enabled\": true}");
+    }
+}
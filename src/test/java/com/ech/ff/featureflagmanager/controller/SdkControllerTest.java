@@ -0,0 +1,31 @@
+package com.ech.ff.featureflagmanager.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SdkControllerTest {
+
+    @Test
+    void acceptsGzipWhenListedWithoutZeroQuality() {
+        assertThat(SdkController.acceptsGzip("gzip")).isTrue();
+        assertThat(SdkController.acceptsGzip("deflate, gzip;q=0.5, br")).isTrue();
+        assertThat(SdkController.acceptsGzip("GZIP ; q=1")).isTrue();
+        assertThat(SdkController.acceptsGzip("gzip;q=0.001")).isTrue();
+    }
+
+    @Test
+    void rejectsGzipWithZeroQuality() {
+        assertThat(SdkController.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(SdkController.acceptsGzip("gzip; q=0.0")).isFalse();
+        assertThat(SdkController.acceptsGzip("br, gzip ;Q=0.000")).isFalse();
+    }
+
+    @Test
+    void rejectsGzipWhenNotListed() {
+        assertThat(SdkController.acceptsGzip(null)).isFalse();
+        assertThat(SdkController.acceptsGzip("")).isFalse();
+        assertThat(SdkController.acceptsGzip("identity, br")).isFalse();
+        assertThat(SdkController.acceptsGzip("x-gzip")).isFalse();
+    }
+}
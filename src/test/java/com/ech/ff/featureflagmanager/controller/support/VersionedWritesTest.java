@@ -0,0 +1,74 @@
+package com.ech.ff.featureflagmanager.controller.support;
+
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.ConditionalWriteException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VersionedWritesTest {
+
+    @Test
+    void quotedETagIsTheVersion() {
+        assertThat(VersionedWrites.expectedVersion("\"3\"")).isEqualTo(3);
+        assertThat(VersionedWrites.expectedVersion(VersionedWrites.etag(7L))).isEqualTo(7);
+        assertThat(VersionedWrites.expectedVersion(VersionedWrites.etag(null))).isZero();
+    }
+
+    @Test
+    void weakAndUnquotedETagsAreAccepted() {
+        assertThat(VersionedWrites.expectedVersion("W/\"3\"")).isEqualTo(3);
+        assertThat(VersionedWrites.expectedVersion(" 3 ")).isEqualTo(3);
+    }
+
+    @Test
+    void missingIfMatchIsRequired() {
+        assertStatus(null, HttpStatus.PRECONDITION_REQUIRED);
+        assertStatus("  ", HttpStatus.PRECONDITION_REQUIRED);
+    }
+
+    @Test
+    void malformedIfMatchIsRejected() {
+        assertStatus("*", HttpStatus.BAD_REQUEST);
+        assertStatus("\"\"", HttpStatus.BAD_REQUEST);
+        assertStatus("\"abc\"", HttpStatus.BAD_REQUEST);
+        assertStatus("\"-1\"", HttpStatus.BAD_REQUEST);
+        assertStatus("\"1\", \"2\"", HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void rejectedWriteIsAConflict() {
+        CompletableFuture<String> write = CompletableFuture.failedFuture(
+                new ConditionalWriteException("Condition not met", null));
+
+        assertThatThrownBy(() -> VersionedWrites.conflictOnRejectedWrite(write, "Changed").join())
+                .isInstanceOf(CompletionException.class)
+                .cause()
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> {
+                    assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+                    assertThat(e.getReason()).isEqualTo("Changed");
+                });
+    }
+
+    @Test
+    void otherFailuresAreKept() {
+        RuntimeException failure = new RuntimeException("Failed to save entity conditionally");
+
+        assertThatThrownBy(() -> VersionedWrites.conflictOnRejectedWrite(CompletableFuture.failedFuture(failure),
+                "Changed").join())
+                .isInstanceOf(CompletionException.class)
+                .cause()
+                .isSameAs(failure);
+    }
+
+    private static void assertStatus(String ifMatch, HttpStatus status) {
+        assertThatThrownBy(() -> VersionedWrites.expectedVersion(ifMatch))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(status));
+    }
+}
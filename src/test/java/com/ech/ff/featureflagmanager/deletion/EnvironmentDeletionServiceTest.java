@@ -0,0 +1,135 @@
+package com.ech.ff.featureflagmanager.deletion;
+
+import com.ech.ff.featureflagmanager.controller.dto.EnvironmentDeletionResult;
+import com.ech.ff.featureflagmanager.dynamodb.entity.ApiKey;
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import com.ech.ff.featureflagmanager.dynamodb.repository.ApiKeyRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.EnvironmentRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.FeatureFlagRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.BatchWriteItemResult;
+import com.ech.ff.featureflagmanager.job.Job;
+import com.ech.ff.featureflagmanager.job.JobRegistry;
+import com.ech.ff.featureflagmanager.security.apikey.ApiKeyVerifier;
+import com.ech.ff.featureflagmanager.snapshot.EnvironmentKey;
+import com.ech.ff.featureflagmanager.snapshot.FlagSnapshotService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EnvironmentDeletionServiceTest {
+
+    private final FeatureFlagRepository featureFlagRepository = mock(FeatureFlagRepository.class);
+    private final ApiKeyRepository apiKeyRepository = mock(ApiKeyRepository.class);
+    private final EnvironmentRepository environmentRepository = mock(EnvironmentRepository.class);
+    private final ApiKeyVerifier apiKeyVerifier = mock(ApiKeyVerifier.class);
+    private final FlagSnapshotService flagSnapshotService = mock(FlagSnapshotService.class);
+    private final JobRegistry jobRegistry = new JobRegistry(Duration.ofMinutes(1), 100);
+    private EnvironmentDeletionService service;
+
+    @BeforeEach
+    void setUp() {
+        service = service(500, 4);
+        when(featureFlagRepository.streamEnvFF("staging", "user-1", EnvironmentDeletionService.READ_PAGE_SIZE))
+                .thenReturn(Stream.of(List.of(flag("a"), flag("b"))));
+        when(featureFlagRepository.deleteAll(anyList(), eq("staging"), anyInt(), any()))
+                .thenReturn(CompletableFuture.completedFuture(List.of(deleted(), deleted())));
+        when(apiKeyRepository.streamEnvKeys("staging", "user-1", EnvironmentDeletionService.READ_PAGE_SIZE))
+                .thenReturn(Stream.of(List.of(apiKey("key-1"), apiKey("key-2"))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobRegistry.shutdown();
+    }
+
+    @Test
+    void environmentIsDeletedAfterItsChildren() throws InterruptedException {
+        when(apiKeyRepository.deleteKeys(anyList(), eq("staging"), anyInt(), any()))
+                .thenReturn(CompletableFuture.completedFuture(List.of(deleted(), deleted())));
+
+        Job job = await(service.deleteCascade("user-1", "staging"));
+
+        assertThat(job.getStatus()).isEqualTo(Job.Status.SUCCEEDED);
+        assertThat(job.getResult()).isEqualTo(new EnvironmentDeletionResult("staging", 2, 2));
+        verify(apiKeyVerifier).evict("key-1", "staging");
+        verify(apiKeyVerifier).evict("key-2", "staging");
+        verify(environmentRepository).deleteEnvironment("user-1", "staging");
+        verify(flagSnapshotService).remove(new EnvironmentKey("user-1", "staging"));
+    }
+
+    @Test
+    void environmentIsKeptWhenAChildIsNotDeleted() throws InterruptedException {
+        when(apiKeyRepository.deleteKeys(anyList(), eq("staging"), anyInt(), any()))
+                .thenReturn(CompletableFuture.completedFuture(List.of(deleted(), new BatchWriteItemResult(
+                        BatchWriteItemResult.Operation.DELETE, null, BatchWriteItemResult.Status.UNPROCESSED,
+                        "Not processed"))));
+
+        Job job = await(service.deleteCascade("user-1", "staging"));
+
+        assertThat(job.getStatus()).isEqualTo(Job.Status.FAILED);
+        assertThat(job.getProcessed()).isEqualTo(3);
+        assertThat(job.getFailed()).isEqualTo(1);
+        assertThat(job.getMessage()).contains("the environment is kept");
+        // A key whose delete failed may still have been deleted, so both are evicted
+        verify(apiKeyVerifier).evict("key-1", "staging");
+        verify(apiKeyVerifier).evict("key-2", "staging");
+        verify(environmentRepository, never()).deleteEnvironment(anyString(), anyString());
+        verify(flagSnapshotService, never()).remove(any());
+    }
+
+    @Test
+    void invalidSettingsAreRejected() {
+        assertThatThrownBy(() -> service(0, 4))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("items-per-second");
+        assertThatThrownBy(() -> service(Double.NaN, 4))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("items-per-second");
+        assertThatThrownBy(() -> service(500, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("parallelism");
+    }
+
+    private EnvironmentDeletionService service(double itemsPerSecond, int parallelism) {
+        return new EnvironmentDeletionService(featureFlagRepository, apiKeyRepository, environmentRepository,
+                apiKeyVerifier, flagSnapshotService, jobRegistry, itemsPerSecond, parallelism);
+    }
+
+    private static Job await(Job job) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (job.getStatus() == Job.Status.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return job;
+    }
+
+    private static BatchWriteItemResult deleted() {
+        return new BatchWriteItemResult(BatchWriteItemResult.Operation.DELETE, null,
+                BatchWriteItemResult.Status.SUCCEEDED, null);
+    }
+
+    private static FeatureFlag flag(String name) {
+        return FeatureFlag.builder().envName("staging").featureName(name).userId("user-1").build();
+    }
+
+    private static ApiKey apiKey(String key) {
+        return ApiKey.builder().key(key).envName("staging").userId("user-1").active(true).build();
+    }
+}
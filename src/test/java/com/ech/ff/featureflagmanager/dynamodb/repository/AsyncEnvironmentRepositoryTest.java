@@ -0,0 +1,81 @@
+package com.ech.ff.featureflagmanager.dynamodb.repository;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.Environment;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.ConditionalWriteException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AsyncEnvironmentRepositoryTest {
+
+    @SuppressWarnings("unchecked")
+    private final DynamoDbAsyncTable<Environment> table = mock(DynamoDbAsyncTable.class);
+    private AsyncEnvironmentRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        when(table.tableName()).thenReturn("Environment");
+        when(table.tableSchema()).thenReturn(TableSchema.fromBean(Environment.class));
+        when(table.putItem(any(PutItemEnhancedRequest.class))).thenReturn(CompletableFuture.completedFuture(null));
+        repository = new AsyncEnvironmentRepository(table);
+    }
+
+    @Test
+    void createRequiresTheEnvironmentToBeAbsent() {
+        Environment created = repository.createEnvironment(environment()).join();
+
+        assertThat(created.getVersion()).isEqualTo(1);
+        assertThat(condition().expression()).isEqualTo("attribute_not_exists(#key)");
+    }
+
+    @Test
+    void updateRequiresTheExpectedVersion() {
+        Environment updated = repository.updateEnvironment(environment(), 3).join();
+
+        assertThat(updated.getVersion()).isEqualTo(4);
+        assertThat(condition().expression()).isEqualTo("#version = :expectedVersion");
+        assertThat(condition().expressionValues()).containsEntry(":expectedVersion", AttributeValue.fromN("3"));
+    }
+
+    @Test
+    void rejectedUpdateFailsWithConditionalWriteException() {
+        when(table.putItem(any(PutItemEnhancedRequest.class))).thenReturn(CompletableFuture.failedFuture(
+                ConditionalCheckFailedException.builder().message("The conditional request failed").build()));
+
+        assertThatThrownBy(() -> repository.updateEnvironment(environment(), 3).join())
+                .isInstanceOf(CompletionException.class)
+                .cause()
+                .isInstanceOf(ConditionalWriteException.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Expression condition() {
+        ArgumentCaptor<PutItemEnhancedRequest<Environment>> request = ArgumentCaptor.forClass(PutItemEnhancedRequest.class);
+        verify(table).putItem(request.capture());
+        return request.getValue().conditionExpression();
+    }
+
+    private static Environment environment() {
+        return Environment.builder()
+                .name("prod")
+                .userId("user-1")
+                .description("Production")
+                .build();
+    }
+}
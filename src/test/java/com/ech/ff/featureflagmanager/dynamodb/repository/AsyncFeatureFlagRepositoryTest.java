@@ -0,0 +1,96 @@
+package com.ech.ff.featureflagmanager.dynamodb.repository;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.ConditionalWriteException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AsyncFeatureFlagRepositoryTest {
+
+    @SuppressWarnings("unchecked")
+    private final DynamoDbAsyncTable<FeatureFlag> table = mock(DynamoDbAsyncTable.class);
+    private AsyncFeatureFlagRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        when(table.tableName()).thenReturn("FeatureFlag");
+        when(table.tableSchema()).thenReturn(TableSchema.fromBean(FeatureFlag.class));
+        when(table.putItem(any(PutItemEnhancedRequest.class))).thenReturn(CompletableFuture.completedFuture(null));
+        repository = new AsyncFeatureFlagRepository(table);
+    }
+
+    @Test
+    void createRequiresTheFlagToBeAbsent() {
+        FeatureFlag created = repository.create(flag()).join();
+
+        assertThat(created.getVersion()).isEqualTo(1);
+        assertThat(condition().expression()).isEqualTo("attribute_not_exists(#key)");
+        assertThat(condition().expressionNames()).containsEntry("#key", "FeatureName");
+    }
+
+    @Test
+    void updateRequiresTheExpectedVersionAndOwner() {
+        FeatureFlag updated = repository.update(flag(), 3).join();
+
+        assertThat(updated.getVersion()).isEqualTo(4);
+        Expression condition = condition();
+        assertThat(condition.expression()).contains("#version = :expectedVersion").contains("#userId = :userId");
+        assertThat(condition.expressionValues())
+                .containsEntry(":expectedVersion", AttributeValue.fromN("3"))
+                .containsEntry(":userId", AttributeValue.fromS("user-1"));
+    }
+
+    @Test
+    void updateOfFlagWithoutVersionRequiresItToExist() {
+        repository.update(flag(), 0).join();
+
+        assertThat(condition().expression())
+                .contains("attribute_exists(#key) AND attribute_not_exists(#version)")
+                .contains("#userId = :userId");
+    }
+
+    @Test
+    void rejectedUpdateFailsWithConditionalWriteException() {
+        when(table.putItem(any(PutItemEnhancedRequest.class))).thenReturn(CompletableFuture.failedFuture(
+                ConditionalCheckFailedException.builder().message("The conditional request failed").build()));
+
+        assertThatThrownBy(() -> repository.update(flag(), 3).join())
+                .isInstanceOf(CompletionException.class)
+                .cause()
+                .isInstanceOf(ConditionalWriteException.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Expression condition() {
+        ArgumentCaptor<PutItemEnhancedRequest<FeatureFlag>> request = ArgumentCaptor.forClass(PutItemEnhancedRequest.class);
+        verify(table).putItem(request.capture());
+        return request.getValue().conditionExpression();
+    }
+
+    private static FeatureFlag flag() {
+        return FeatureFlag.builder()
+                .envName("prod")
+                .featureName("dark-mode")
+                .type("BOOLEAN")
+                .config("{\"enabled\": true}")
+                .userId("user-1")
+                .build();
+    }
+}
@@ -0,0 +1,275 @@
+package com.ech.ff.featureflagmanager.dynamodb.repository;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import com.ech.ff.featureflagmanager.dynamodb.repository.base.BatchWriteItemResult;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FeatureFlagRepositoryTest {
+
+    private static final String TABLE = "FeatureFlag";
+    private static final TableSchema<FeatureFlag> SCHEMA = TableSchema.fromBean(FeatureFlag.class);
+
+    private final FakeDynamoDb dynamoDb = new FakeDynamoDb();
+    private final FeatureFlagRepository repository = repository(dynamoDb);
+
+    @Test
+    void flagsAreSavedAtTheVersionAfterTheStoredOne() {
+        dynamoDb.store(flag("a", 4L));
+
+        List<BatchWriteItemResult> results = repository.saveAll(List.of(flag("a", null), flag("b", null))).join();
+
+        assertThat(statusByName(results)).containsOnly(
+                Map.entry("a", BatchWriteItemResult.Status.SUCCEEDED),
+                Map.entry("b", BatchWriteItemResult.Status.SUCCEEDED));
+        assertThat(dynamoDb.stored("a").getVersion()).isEqualTo(5L);
+        assertThat(dynamoDb.stored("b").getVersion()).isEqualTo(1L);
+        assertThat(dynamoDb.transactions).hasSize(1);
+        Map<String, Put> puts = dynamoDb.puts(0);
+        assertThat(puts.get("a").conditionExpression()).contains("#version = :expectedVersion");
+        assertThat(puts.get("a").expressionAttributeValues()).containsEntry(":expectedVersion", AttributeValue.fromN("4"));
+        assertThat(puts.get("b").conditionExpression()).isEqualTo("attribute_not_exists(#key)");
+    }
+
+    @Test
+    void flagChangedByAnotherWriterIsReadAndWrittenAgain() {
+        dynamoDb.store(flag("a", 1L));
+        dynamoDb.store(flag("b", 1L));
+        dynamoDb.script.add(flags -> {
+            dynamoDb.store(flag("b", 2L));
+            return Map.of("b", "ConditionalCheckFailed");
+        });
+
+        List<BatchWriteItemResult> results = repository.saveAll(List.of(flag("a", null), flag("b", null))).join();
+
+        assertThat(statusByName(results)).containsOnly(
+                Map.entry("a", BatchWriteItemResult.Status.SUCCEEDED),
+                Map.entry("b", BatchWriteItemResult.Status.SUCCEEDED));
+        assertThat(dynamoDb.stored("a").getVersion()).isEqualTo(2L);
+        assertThat(dynamoDb.stored("b").getVersion()).isEqualTo(3L);
+        assertThat(dynamoDb.transactions).hasSize(2);
+    }
+
+    @Test
+    void flagThatKeepsChangingFailsWithoutTheOthers() {
+        dynamoDb.store(flag("b", 1L));
+        for (int i = 0; i < 3; i++) {
+            dynamoDb.script.add(flags -> Map.of("b", "ConditionalCheckFailed"));
+        }
+
+        List<BatchWriteItemResult> results = repository.saveAll(List.of(flag("a", null), flag("b", null))).join();
+
+        assertThat(statusByName(results)).containsOnly(
+                Map.entry("a", BatchWriteItemResult.Status.SUCCEEDED),
+                Map.entry("b", BatchWriteItemResult.Status.FAILED));
+        assertThat(messageOf(results, "b")).isEqualTo("Changed by other writers in 3 attempts");
+        assertThat(dynamoDb.stored("a")).isNotNull();
+        assertThat(dynamoDb.stored("b").getVersion()).isEqualTo(1L);
+        assertThat(dynamoDb.transactions).hasSize(4);
+        assertThat(dynamoDb.puts(3)).containsOnlyKeys("a");
+    }
+
+    @Test
+    void transactionCancelledByAConflictIsSentAgain() {
+        dynamoDb.store(flag("a", 1L));
+        dynamoDb.script.add(flags -> Map.of("a", "TransactionConflict"));
+        dynamoDb.script.add(flags -> Map.of("b", "ThrottlingError"));
+
+        List<BatchWriteItemResult> results = repository.saveAll(List.of(flag("a", null), flag("b", null))).join();
+
+        assertThat(statusByName(results)).containsOnly(
+                Map.entry("a", BatchWriteItemResult.Status.SUCCEEDED),
+                Map.entry("b", BatchWriteItemResult.Status.SUCCEEDED));
+        assertThat(dynamoDb.transactions).hasSize(3);
+        assertThat(dynamoDb.transactions.get(2)).isEqualTo(dynamoDb.transactions.get(0));
+        assertThat(dynamoDb.stored("a").getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    void transactionCancelledForAnotherReasonFailsItsFlags() {
+        dynamoDb.script.add(flags -> Map.of("a", "ValidationError"));
+
+        List<BatchWriteItemResult> results = repository.saveAll(List.of(flag("a", null), flag("b", null))).join();
+
+        assertThat(statusByName(results)).containsOnly(
+                Map.entry("a", BatchWriteItemResult.Status.FAILED),
+                Map.entry("b", BatchWriteItemResult.Status.FAILED));
+        assertThat(messageOf(results, "a")).isEqualTo("Failed to write entities in a transaction");
+        assertThat(dynamoDb.transactions).hasSize(1);
+        assertThat(dynamoDb.stored("a")).isNull();
+    }
+
+    @Test
+    void flagsOfAnotherUserAreNotReplaced() {
+        dynamoDb.store(flag("a", 1L));
+        dynamoDb.store(flag("b", 1L, "user-2"));
+
+        List<BatchWriteItemResult> results = repository.saveAll(List.of(flag("a", null), flag("b", null))).join();
+
+        assertThat(statusByName(results)).containsOnly(
+                Map.entry("a", BatchWriteItemResult.Status.SUCCEEDED),
+                Map.entry("b", BatchWriteItemResult.Status.FAILED));
+        assertThat(messageOf(results, "b")).isEqualTo("Owned by another user");
+        assertThat(dynamoDb.stored("b").getUserId()).isEqualTo("user-2");
+        Map<String, Put> puts = dynamoDb.puts(0);
+        assertThat(puts).containsOnlyKeys("a");
+        assertThat(puts.get("a").conditionExpression()).contains("#userId = :userId");
+        assertThat(puts.get("a").expressionAttributeValues()).containsEntry(":userId", AttributeValue.fromS("user-1"));
+    }
+
+    @Test
+    void onlyFlagsOfTheUserAreDeleted() {
+        dynamoDb.store(flag("a", 1L));
+        dynamoDb.store(flag("b", 1L, "user-2"));
+
+        List<BatchWriteItemResult> results = repository.deleteAll(List.of("a", "b", "missing"), "prod", "user-1").join();
+
+        assertThat(statusByName(results)).containsOnly(
+                Map.entry("a", BatchWriteItemResult.Status.SUCCEEDED),
+                Map.entry("b", BatchWriteItemResult.Status.FAILED),
+                Map.entry("missing", BatchWriteItemResult.Status.SUCCEEDED));
+        assertThat(messageOf(results, "b")).isEqualTo("Owned by another user");
+        assertThat(dynamoDb.stored("a")).isNull();
+        assertThat(dynamoDb.stored("b")).isNotNull();
+        assertThat(dynamoDb.deleted).containsExactlyInAnyOrder("a", "missing");
+    }
+
+    private static FeatureFlagRepository repository(FakeDynamoDb dynamoDb) {
+        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder().dynamoDbClient(dynamoDb).build();
+        return new FeatureFlagRepository(enhancedClient.table(TABLE, SCHEMA), enhancedClient) {
+            @Override
+            public CompletableFuture<List<FeatureFlag>> batchGetItems(List<Key> keys) {
+                return CompletableFuture.completedFuture(keys.stream()
+                        .map(dynamoDb.items::get)
+                        .filter(Objects::nonNull)
+                        .toList());
+            }
+        };
+    }
+
+    private static FeatureFlag flag(String featureName, Long version) {
+        return flag(featureName, version, "user-1");
+    }
+
+    private static FeatureFlag flag(String featureName, Long version, String userId) {
+        return FeatureFlag.builder()
+                .envName("prod")
+                .featureName(featureName)
+                .type("BOOLEAN")
+                .config("{\"enabled\": true}")
+                .userId(userId)
+                .version(version)
+                .build();
+    }
+
+    private static Map<String, BatchWriteItemResult.Status> statusByName(List<BatchWriteItemResult> results) {
+        return results.stream().collect(Collectors.toMap(FeatureFlagRepositoryTest::nameOf,
+                BatchWriteItemResult::getStatus));
+    }
+
+    private static String messageOf(List<BatchWriteItemResult> results, String featureName) {
+        return results.stream()
+                .filter(result -> nameOf(result).equals(featureName))
+                .findFirst()
+                .orElseThrow()
+                .getMessage();
+    }
+
+    private static String nameOf(BatchWriteItemResult result) {
+        return result.getKey().sortKeyValue().map(AttributeValue::s).orElseThrow();
+    }
+
+    /**
+     * Table held in memory, batched writes only delete. Transactions follow the script, one entry per call:
+     * the entry gets the flags of the transaction and returns the cancellation reasons by feature name,
+     * none to commit.
+     */
+    private static final class FakeDynamoDb implements DynamoDbClient {
+
+        private final Map<Key, FeatureFlag> items = new HashMap<>();
+        private final List<TransactWriteItemsRequest> transactions = new ArrayList<>();
+        private final List<String> deleted = new ArrayList<>();
+        private final Deque<Function<List<FeatureFlag>, Map<String, String>>> script = new ArrayDeque<>();
+
+        void store(FeatureFlag flag) {
+            items.put(FeatureFlagRepository.keyOf(flag), flag);
+        }
+
+        FeatureFlag stored(String featureName) {
+            return items.get(Key.builder().partitionValue("prod").sortValue(featureName).build());
+        }
+
+        /**
+         * Get the puts of a transaction by feature name.
+         */
+        Map<String, Put> puts(int transaction) {
+            return transactions.get(transaction).transactItems().stream()
+                    .map(item -> item.put())
+                    .collect(Collectors.toMap(put -> put.item().get("FeatureName").s(), Function.identity()));
+        }
+
+        @Override
+        public synchronized TransactWriteItemsResponse transactWriteItems(TransactWriteItemsRequest request) {
+            transactions.add(request);
+            List<FeatureFlag> flags = request.transactItems().stream()
+                    .map(item -> SCHEMA.mapToItem(item.put().item()))
+                    .toList();
+            Map<String, String> reasons = script.isEmpty() ? Map.of() : script.poll().apply(flags);
+            if (!reasons.isEmpty()) {
+                throw TransactionCanceledException.builder()
+                        .message("Transaction cancelled")
+                        .cancellationReasons(flags.stream()
+                                .map(ff -> CancellationReason.builder()
+                                        .code(reasons.getOrDefault(ff.getFeatureName(), "None"))
+                                        .build())
+                                .toList())
+                        .build();
+            }
+            flags.forEach(this::store);
+            return TransactWriteItemsResponse.builder().build();
+        }
+
+        @Override
+        public synchronized BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+            request.requestItems().get(TABLE).forEach(write -> {
+                String featureName = write.deleteRequest().key().get("FeatureName").s();
+                deleted.add(featureName);
+                items.remove(Key.builder().partitionValue("prod").sortValue(featureName).build());
+            });
+            return BatchWriteItemResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.ech.ff.featureflagmanager.evaluation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Golden bytes of the binary flag set format. SDKs decode these bytes, so a change of any of them
+ * must come with a new {@link BinaryFlagSetEncoder#FORMAT_VERSION}.
+ */
+class BinaryFlagSetEncoderTest {
+
+    private static final String HEADER = "4646534e" // magic "FFSN"
+            + "01"; // format version
+
+    @Test
+    void encodesKnownFlagSet() {
+        byte[] encoded = BinaryFlagSetEncoder.encode("prod", 3, "\"e1\"", flags());
+
+        String expected = HEADER
+                // strings: prod, "e1", beta, off, false, on, true, u1, dark-mode
+                + "09" + "0470726f64" + "0422653122" + "0462657461" + "036f6666" + "0566616c7365"
+                + "026f6e" + "0474727565" + "027531" + "096461726b2d6d6f6465"
+                // snapshot version 3, env prod, etag "e1", 2 flags
+                + "03" + "00" + "01" + "02"
+                // beta: BOOLEAN, seed, variants off=false and on=true, 1 rule
+                + "02" + "01" + "a15c7995" + "02" + "0304" + "0506" + "01" + "01"
+                // rule: user key in [u1] serves on; fallthrough serves off to every bucket
+                + "01" + "00" + "01" + "07" + "01" + "01" + "904e"
+                + "01" + "00" + "904e"
+                // dark-mode: BOOLEAN, no seed, variants off and on, constant off with reason OFF
+                + "08" + "01" + "00000000" + "02" + "0304" + "0506" + "00" + "01" + "00";
+        assertThat(HexFormat.of().formatHex(encoded)).isEqualTo(expected);
+    }
+
+    @Test
+    void identicalFlagSetsEncodeToIdenticalBytes() {
+        byte[] first = BinaryFlagSetEncoder.encode("prod", 3, "\"e1\"", flags());
+        byte[] second = BinaryFlagSetEncoder.encode("prod", 3, "\"e1\"", flags());
+
+        assertThat(second).isEqualTo(first);
+    }
+
+    @Test
+    void encodesVarIntsAtTheirByteBoundaries() {
+        assertThat(encodedVersion(0)).isEqualTo("00");
+        assertThat(encodedVersion(127)).isEqualTo("7f");
+        assertThat(encodedVersion(128)).isEqualTo("8001");
+        assertThat(encodedVersion(16383)).isEqualTo("ff7f");
+        assertThat(encodedVersion(16384)).isEqualTo("808001");
+        assertThat(encodedVersion(Long.MAX_VALUE)).isEqualTo("ffffffffffffffff7f");
+    }
+
+    private static List<CompiledFlag> flags() {
+        return List.of(
+                FlagCompiler.compile("beta", "BOOLEAN", """
+                        {"enabled": true, "rolloutPercentage": 0, "rules": [{"users": ["u1"], "variant": "on"}]}
+                        """),
+                FlagCompiler.compile("dark-mode", "BOOLEAN", "{\"enabled\": false}"));
+    }
+
+    /**
+     * Encode an empty flag set and get the bytes of its snapshot version, the first varint after the string table.
+     */
+    private static String encodedVersion(long version) {
+        String hex = HexFormat.of().formatHex(BinaryFlagSetEncoder.encode("prod", version, "\"e\"", List.of()));
+        String prefix = HEADER + "02" + "0470726f64" + "03226522";
+        String suffix = "00" + "01" + "00";
+        assertThat(hex).startsWith(prefix);
+        assertThat(hex.endsWith(suffix)).isTrue();
+        return hex.substring(prefix.length(), hex.length() - suffix.length());
+    }
+}
@@ -0,0 +1,148 @@
+package com.ech.ff.featureflagmanager.evaluation;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Known answers of the bucketing hash. SDKs in other languages must reproduce these values,
+ * so a change of any of them is a breaking change of the rollout assignment.
+ */
+class BucketingTest {
+
+    private static final String NON_ASCII = "Zo\u00eb";
+    private static final String CJK = "\u65e5\u672c\u8a9e";
+    private static final String SURROGATE_PAIR = "\ud83d\ude00";
+
+    @Test
+    void murmur3MatchesKnownAnswers() {
+        assertThat(Bucketing.murmur3("", 0)).isEqualTo(0x00000000);
+        assertThat(Bucketing.murmur3("", 1)).isEqualTo(0x514e28b7);
+        assertThat(Bucketing.murmur3("a", 0)).isEqualTo(0x6f49d11a);
+        assertThat(Bucketing.murmur3("ab", 0)).isEqualTo(0x165860ca);
+        assertThat(Bucketing.murmur3("abc", 0)).isEqualTo(0x42b016c3);
+        assertThat(Bucketing.murmur3("abc", 0x9747b28c)).isEqualTo(0x9dc7633e);
+        assertThat(Bucketing.murmur3("user-42", 0)).isEqualTo(0xa121b969);
+        assertThat(Bucketing.murmur3("user-42", 1)).isEqualTo(0x2dc5d119);
+        assertThat(Bucketing.murmur3(NON_ASCII, 0)).isEqualTo(0x4c59cb2b);
+        assertThat(Bucketing.murmur3(CJK, 0)).isEqualTo(0x3bdc2005);
+        assertThat(Bucketing.murmur3(SURROGATE_PAIR, 0)).isEqualTo(0x56065e39);
+        assertThat(Bucketing.murmur3("user-" + SURROGATE_PAIR + "-x", 0x9747b28c)).isEqualTo(0x24bf3260);
+    }
+
+    @Test
+    void murmur3IsStandardMurmur3OverUtf16LittleEndianBytes() {
+        // The reference implementation itself, checked against published MurmurHash3 x86_32 vectors
+        assertThat(referenceMurmur3(new byte[0], 1)).isEqualTo(0x514e28b7);
+        assertThat(referenceMurmur3("hello".getBytes(StandardCharsets.UTF_8), 0)).isEqualTo(0x248bfa47);
+        assertThat(referenceMurmur3("Hello, world!".getBytes(StandardCharsets.UTF_8), 1234)).isEqualTo(0xfaf6cdb3);
+
+        for (String key : new String[]{"", "a", "ab", "abc", "user-42", NON_ASCII, CJK, SURROGATE_PAIR}) {
+            for (int seed : new int[]{0, 1, 0x9747b28c}) {
+                assertThat(Bucketing.murmur3(key, seed))
+                        .as("key %s, seed %d", key, seed)
+                        .isEqualTo(referenceMurmur3(key.getBytes(StandardCharsets.UTF_16LE), seed));
+            }
+        }
+    }
+
+    @Test
+    void seedHashesFlagNameThenSalt() {
+        assertThat(Bucketing.seed("my-flag", null)).isEqualTo(0xf19f27cc);
+        assertThat(Bucketing.seed("my-flag", "salt-1")).isEqualTo(0xf2878171);
+        assertThat(Bucketing.seed("my-flag", "salt-1")).isEqualTo(Bucketing.murmur3("salt-1", Bucketing.murmur3("my-flag", 0)));
+        assertThat(Bucketing.seed("checkout", null)).isEqualTo(0x0214fd13);
+    }
+
+    @Test
+    void bucketMatchesKnownAnswers() {
+        int seed = Bucketing.seed("my-flag", null);
+        assertThat(Bucketing.bucket(seed, "user-1")).isEqualTo(9404);
+        assertThat(Bucketing.bucket(seed, "user-2")).isEqualTo(8478);
+        assertThat(Bucketing.bucket(seed, "user-42")).isEqualTo(7008);
+        assertThat(Bucketing.bucket(seed, NON_ASCII)).isEqualTo(8117);
+        assertThat(Bucketing.bucket(seed, CJK)).isEqualTo(6747);
+        assertThat(Bucketing.bucket(seed, SURROGATE_PAIR)).isEqualTo(8721);
+
+        int salted = Bucketing.seed("my-flag", "salt-1");
+        assertThat(Bucketing.bucket(salted, "user-1")).isEqualTo(4659);
+        assertThat(Bucketing.bucket(salted, "user-42")).isEqualTo(7190);
+    }
+
+    @Test
+    void usersWithoutKeyLandInFirstBucket() {
+        assertThat(Bucketing.bucket(Bucketing.seed("my-flag", null), null)).isZero();
+    }
+
+    @Test
+    void bucketsAreEvenlyDistributed() {
+        int users = 100_000;
+        for (String salt : new String[]{null, "salt-1"}) {
+            int seed = Bucketing.seed("my-flag", salt);
+            int[] deciles = new int[10];
+            for (int i = 0; i < users; i++) {
+                int bucket = Bucketing.bucket(seed, "user-" + i);
+                assertThat(bucket).isBetween(0, Bucketing.BUCKETS - 1);
+                deciles[bucket * 10 / Bucketing.BUCKETS]++;
+            }
+            for (int count : deciles) {
+                assertThat(count).as("salt %s", salt).isBetween(users / 10 * 97 / 100, users / 10 * 103 / 100);
+            }
+        }
+    }
+
+    @Test
+    void saltReshufflesUsers() {
+        int seed = Bucketing.seed("my-flag", null);
+        int salted = Bucketing.seed("my-flag", "salt-1");
+        int users = 100_000;
+        int samePercent = 0;
+        for (int i = 0; i < users; i++) {
+            if (Bucketing.bucket(seed, "user-" + i) / 100 == Bucketing.bucket(salted, "user-" + i) / 100) {
+                samePercent++;
+            }
+        }
+        // Independent assignments keep about 1% of the users in the same percent
+        assertThat(samePercent).isLessThan(users / 50);
+    }
+
+    /**
+     * MurmurHash3 x86_32 over bytes, as published.
+     */
+    private static int referenceMurmur3(byte[] data, int seed) {
+        int h1 = seed;
+        int blocks = data.length / 4;
+        for (int i = 0; i < blocks; i++) {
+            int k1 = (data[4 * i] & 0xff) | (data[4 * i + 1] & 0xff) << 8
+                    | (data[4 * i + 2] & 0xff) << 16 | (data[4 * i + 3] & 0xff) << 24;
+            h1 ^= mixK1(k1);
+            h1 = Integer.rotateLeft(h1, 13) * 5 + 0xe6546b64;
+        }
+        int tail = blocks * 4;
+        int k1 = 0;
+        switch (data.length & 3) {
+            case 3:
+                k1 ^= (data[tail + 2] & 0xff) << 16;
+            case 2:
+                k1 ^= (data[tail + 1] & 0xff) << 8;
+            case 1:
+                k1 ^= data[tail] & 0xff;
+                h1 ^= mixK1(k1);
+            default:
+                break;
+        }
+        h1 ^= data.length;
+        h1 ^= h1 >>> 16;
+        h1 *= 0x85ebca6b;
+        h1 ^= h1 >>> 13;
+        h1 *= 0xc2b2ae35;
+        h1 ^= h1 >>> 16;
+        return h1;
+    }
+
+    private static int mixK1(int k1) {
+        return Integer.rotateLeft(k1 * 0xcc9e2d51, 15) * 0x1b873593;
+    }
+}
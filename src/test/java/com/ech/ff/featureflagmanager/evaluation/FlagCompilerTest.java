@@ -0,0 +1,332 @@
+package com.ech.ff.featureflagmanager.evaluation;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FlagCompilerTest {
+
+    private static final String NAME = "checkout";
+    private static final String COLORS = """
+            "variants": {"red": "#f00", "green": "#0f0", "blue": "#00f"}, "offVariant": "red"
+            """;
+
+    @Test
+    void booleanFlagServesOnWhenEnabled() {
+        CompiledFlag flag = compile("BOOLEAN", "{\"enabled\": true}");
+
+        Evaluation evaluation = flag.evaluate(user("user-1"));
+
+        assertThat(flag.getType()).isEqualTo(FlagType.BOOLEAN);
+        assertThat(flag.getVariants().keySet()).containsExactly("off", "on");
+        assertThat(evaluation.variant()).isEqualTo("on");
+        assertThat(evaluation.value().asBoolean()).isTrue();
+        assertThat(evaluation.reason()).isEqualTo(EvaluationReason.FALLTHROUGH);
+        assertThat(evaluation.ruleIndex()).isEqualTo(-1);
+    }
+
+    @Test
+    void disabledFlagServesOffEvenIfARuleMatches() {
+        CompiledFlag flag = compile("BOOLEAN", """
+                {"enabled": false, "rules": [{"users": ["user-1"], "variant": "on"}]}
+                """);
+
+        Evaluation evaluation = flag.evaluate(user("user-1"));
+
+        assertThat(evaluation.variant()).isEqualTo("off");
+        assertThat(evaluation.value().asBoolean()).isFalse();
+        assertThat(evaluation.reason()).isEqualTo(EvaluationReason.OFF);
+    }
+
+    @Test
+    void typeIsResolvedIgnoringCase() {
+        assertThat(compile(" boolean ", "{\"enabled\": true}").getType()).isEqualTo(FlagType.BOOLEAN);
+        assertThat(compile("multivariate", "{\"enabled\": true, " + COLORS + ", \"defaultVariant\": \"blue\"}").getType())
+                .isEqualTo(FlagType.MULTIVARIATE);
+    }
+
+    @Test
+    void percentageRolloutServesOnBelowThePercentageBucket() {
+        CompiledFlag flag = compile("PERCENTAGE_ROLLOUT", "{\"enabled\": true, \"rolloutPercentage\": 25}");
+        int seed = Bucketing.seed(NAME, null);
+
+        int on = 0;
+        for (int i = 0; i < 1000; i++) {
+            String userKey = "user-" + i;
+            Evaluation evaluation = flag.evaluate(user(userKey));
+            assertThat(evaluation.variant()).isEqualTo(Bucketing.bucket(seed, userKey) < 2500 ? "on" : "off");
+            assertThat(evaluation.reason()).isEqualTo(EvaluationReason.FALLTHROUGH);
+            if (evaluation.value().asBoolean()) {
+                on++;
+            }
+        }
+        assertThat(on).isBetween(200, 300);
+    }
+
+    @Test
+    void percentageRolloutUsesTheSalt() {
+        CompiledFlag flag = compile("PERCENTAGE_ROLLOUT",
+                "{\"enabled\": true, \"rolloutPercentage\": 50, \"salt\": \"2024\"}");
+        int seed = Bucketing.seed(NAME, "2024");
+
+        for (int i = 0; i < 100; i++) {
+            String userKey = "user-" + i;
+            assertThat(flag.evaluate(user(userKey)).variant())
+                    .isEqualTo(Bucketing.bucket(seed, userKey) < 5000 ? "on" : "off");
+        }
+    }
+
+    @Test
+    void rolloutOfZeroAndHundredPercentServesEveryoneTheSameVariant() {
+        CompiledFlag none = compile("PERCENTAGE_ROLLOUT", "{\"enabled\": true, \"rolloutPercentage\": 0}");
+        CompiledFlag all = compile("PERCENTAGE_ROLLOUT", "{\"enabled\": true, \"rolloutPercentage\": 100}");
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(none.evaluate(user("user-" + i)).variant()).isEqualTo("off");
+            assertThat(all.evaluate(user("user-" + i)).variant()).isEqualTo("on");
+        }
+    }
+
+    @Test
+    void multivariateFlagServesDefaultVariantOrOffVariant() {
+        String enabled = "{\"enabled\": true, " + COLORS + ", \"defaultVariant\": \"blue\"}";
+        String disabled = "{\"enabled\": false, " + COLORS + ", \"defaultVariant\": \"blue\"}";
+
+        Evaluation fallthrough = compile("MULTIVARIATE", enabled).evaluate(user("user-1"));
+        Evaluation off = compile("MULTIVARIATE", disabled).evaluate(user("user-1"));
+
+        assertThat(fallthrough.variant()).isEqualTo("blue");
+        assertThat(fallthrough.value().asText()).isEqualTo("#00f");
+        assertThat(fallthrough.reason()).isEqualTo(EvaluationReason.FALLTHROUGH);
+        assertThat(off.variant()).isEqualTo("red");
+        assertThat(off.reason()).isEqualTo(EvaluationReason.OFF);
+    }
+
+    @Test
+    void firstMatchingRuleWins() {
+        CompiledFlag flag = compile("MULTIVARIATE", "{\"enabled\": true, " + COLORS + """
+                , "defaultVariant": "blue", "rules": [
+                    {"attribute": "country", "values": ["DE"], "variant": "red"},
+                    {"users": ["user-1"], "variant": "green"}
+                ]}
+                """);
+
+        Evaluation both = flag.evaluate(user("user-1", "country", "DE"));
+        Evaluation second = flag.evaluate(user("user-1", "country", "FR"));
+        Evaluation none = flag.evaluate(user("user-2", "country", "FR"));
+
+        assertThat(both.variant()).isEqualTo("red");
+        assertThat(both.reason()).isEqualTo(EvaluationReason.RULE_MATCH);
+        assertThat(both.ruleIndex()).isZero();
+        assertThat(second.variant()).isEqualTo("green");
+        assertThat(second.ruleIndex()).isEqualTo(1);
+        assertThat(none.variant()).isEqualTo("blue");
+        assertThat(none.reason()).isEqualTo(EvaluationReason.FALLTHROUGH);
+    }
+
+    @Test
+    void ruleMatchesOnlyIfAllConditionsMatch() {
+        CompiledFlag flag = compile("BOOLEAN", """
+                {"enabled": true, "rolloutPercentage": 0, "rules": [
+                    {"users": ["user-1", "user-2"], "attribute": "plan", "values": ["pro"], "variant": "on"}
+                ]}
+                """);
+
+        assertThat(flag.evaluate(user("user-1", "plan", "pro")).variant()).isEqualTo("on");
+        assertThat(flag.evaluate(user("user-1", "plan", "free")).variant()).isEqualTo("off");
+        assertThat(flag.evaluate(user("user-3", "plan", "pro")).variant()).isEqualTo("off");
+    }
+
+    @Test
+    void userKeyInDoesNotMatchContextsWithoutUserKey() {
+        CompiledFlag flag = compile("BOOLEAN", """
+                {"enabled": true, "rolloutPercentage": 0, "rules": [{"users": ["user-1"], "variant": "on"}]}
+                """);
+
+        assertThat(flag.evaluate(user("user-1")).variant()).isEqualTo("on");
+        assertThat(flag.evaluate(new EvaluationContext(null, null)).variant()).isEqualTo("off");
+    }
+
+    @Test
+    void attributeInMatchesListedValues() {
+        CompiledFlag flag = compile("BOOLEAN", """
+                {"enabled": true, "rolloutPercentage": 0, "rules": [
+                    {"attribute": "country", "operator": "IN", "values": ["DE", "AT"], "variant": "on"}
+                ]}
+                """);
+
+        assertThat(flag.evaluate(user("user-1", "country", "AT")).variant()).isEqualTo("on");
+        assertThat(flag.evaluate(user("user-1", "country", "FR")).variant()).isEqualTo("off");
+        assertThat(flag.evaluate(user("user-1")).variant()).isEqualTo("off");
+    }
+
+    @Test
+    void negatedAttributeInMatchesOtherValuesButNotMissingAttributes() {
+        CompiledFlag flag = compile("BOOLEAN", """
+                {"enabled": true, "rolloutPercentage": 0, "rules": [
+                    {"attribute": "country", "operator": "not_in", "values": ["DE"], "variant": "on"}
+                ]}
+                """);
+
+        assertThat(flag.evaluate(user("user-1", "country", "FR")).variant()).isEqualTo("on");
+        assertThat(flag.evaluate(user("user-1", "country", "DE")).variant()).isEqualTo("off");
+        assertThat(flag.evaluate(user("user-1")).variant()).isEqualTo("off");
+    }
+
+    @Test
+    void rolloutSplitsUsersByWeight() {
+        CompiledFlag flag = compile("MULTIVARIATE", "{\"enabled\": true, " + COLORS + """
+                , "rollout": [{"variant": "green", "weight": 30}, {"variant": "blue", "weight": 70}]}
+                """);
+        int seed = Bucketing.seed(NAME, null);
+
+        for (int i = 0; i < 1000; i++) {
+            String userKey = "user-" + i;
+            assertThat(flag.evaluate(user(userKey)).variant())
+                    .isEqualTo(Bucketing.bucket(seed, userKey) < 3000 ? "green" : "blue");
+        }
+    }
+
+    @Test
+    void rolloutWeightsMayHaveFractions() {
+        CompiledFlag flag = compile("MULTIVARIATE", "{\"enabled\": true, " + COLORS + """
+                , "rollout": [{"variant": "red", "weight": 33.33}, {"variant": "green", "weight": 33.33},
+                              {"variant": "blue", "weight": 33.34}]}
+                """);
+
+        assertThat(flag.getVariants()).hasSize(3);
+    }
+
+    @Test
+    void rolloutWeightsMustAddUpToHundred() {
+        assertInvalid("MULTIVARIATE", "{\"enabled\": true, " + COLORS + """
+                , "rollout": [{"variant": "green", "weight": 30}, {"variant": "blue", "weight": 60}]}
+                """, "config.rollout weights must add up to 100");
+        assertInvalid("MULTIVARIATE", "{\"enabled\": true, " + COLORS + """
+                , "rollout": [{"variant": "green", "weight": 50}, {"variant": "blue", "weight": 60}]}
+                """, "config.rollout weights must add up to 100");
+        assertInvalid("MULTIVARIATE", "{\"enabled\": true, " + COLORS + """
+                , "rollout": [{"variant": "green", "weight": -10}, {"variant": "blue", "weight": 110}]}
+                """, "config.rollout weights must not be negative");
+        assertInvalid("MULTIVARIATE", "{\"enabled\": true, " + COLORS + ", \"rollout\": []}",
+                "config.rollout must not be empty");
+    }
+
+    @Test
+    void unknownVariantReferencesAreRejected() {
+        assertInvalid("MULTIVARIATE", "{\"enabled\": true, " + COLORS + ", \"defaultVariant\": \"purple\"}",
+                "config refers to unknown variant: purple");
+        assertInvalid("MULTIVARIATE", """
+                {"enabled": true, "variants": {"red": "#f00"}, "offVariant": "purple", "defaultVariant": "red"}
+                """, "config.offVariant refers to unknown variant: purple");
+        assertInvalid("MULTIVARIATE", "{\"enabled\": true, " + COLORS + """
+                , "defaultVariant": "blue", "rules": [{"users": ["user-1"], "variant": "purple"}]}
+                """, "config.rules[0] refers to unknown variant: purple");
+        assertInvalid("MULTIVARIATE", "{\"enabled\": true, " + COLORS + """
+                , "rollout": [{"variant": "purple", "weight": 100}]}
+                """, "config.rollout refers to unknown variant: purple");
+        assertInvalid("BOOLEAN", """
+                {"enabled": true, "rules": [{"users": ["user-1"], "variant": "true"}]}
+                """, "config.rules[0] refers to unknown variant: true");
+    }
+
+    @Test
+    void invalidTypesAndConfigsAreRejectedWithTheirPath() {
+        assertInvalid("TOGGLE", "{\"enabled\": true}", "Unknown feature flag type: TOGGLE");
+        assertInvalid(null, "{\"enabled\": true}", "Unknown feature flag type: null");
+        assertInvalid("BOOLEAN", null, "config is required");
+        assertInvalid("BOOLEAN", "{}", "config.enabled is required");
+        assertInvalid("BOOLEAN", "{\"enabled\": true, \"variants\": {\"a\": 1}}",
+                "BOOLEAN flags only support enabled, rolloutPercentage, salt and rules");
+        assertInvalid("PERCENTAGE_ROLLOUT", "{\"enabled\": true}", "config.rolloutPercentage is required");
+        assertInvalid("PERCENTAGE_ROLLOUT", "{\"enabled\": true, \"rolloutPercentage\": 101}",
+                "config.rolloutPercentage must be between 0 and 100");
+        assertInvalid("MULTIVARIATE", "{\"enabled\": true, \"rolloutPercentage\": 50}",
+                "MULTIVARIATE flags split users with config.rollout instead of rolloutPercentage");
+        assertInvalid("MULTIVARIATE", "{\"enabled\": true, \"variants\": {}}",
+                "config.variants must declare at least one variant");
+        assertInvalid("MULTIVARIATE", "{\"enabled\": true, \"variants\": {\"red\": \"#f00\"}, \"defaultVariant\": \"red\"}",
+                "config.offVariant is required");
+        assertInvalid("MULTIVARIATE", "{\"enabled\": true, " + COLORS + """
+                , "defaultVariant": "blue", "rollout": [{"variant": "blue", "weight": 100}]}
+                """, "config needs exactly one of defaultVariant and rollout");
+    }
+
+    @Test
+    void invalidRulesAreRejectedWithTheirIndex() {
+        assertInvalid("BOOLEAN", "{\"enabled\": true, \"rules\": [null]}", "config.rules[0] must not be null");
+        assertInvalid("BOOLEAN", """
+                {"enabled": true, "rules": [{"users": ["user-1"], "variant": "on"}, {"variant": "on"}]}
+                """, "config.rules[1] needs users or an attribute condition");
+        assertInvalid("BOOLEAN", "{\"enabled\": true, \"rules\": [{\"users\": [], \"variant\": \"on\"}]}",
+                "config.rules[0].users must not be empty");
+        assertInvalid("BOOLEAN", "{\"enabled\": true, \"rules\": [{\"attribute\": \"plan\", \"variant\": \"on\"}]}",
+                "config.rules[0].values must not be empty");
+        assertInvalid("BOOLEAN", """
+                {"enabled": true, "rules": [{"attribute": "plan", "operator": "EQ", "values": ["pro"], "variant": "on"}]}
+                """, "config.rules[0].operator must be IN or NOT_IN");
+        assertInvalid("BOOLEAN", "{\"enabled\": true, \"rules\": [{\"values\": [\"pro\"], \"variant\": \"on\"}]}",
+                "config.rules[0].attribute is required with operator and values");
+        assertInvalid("BOOLEAN", "{\"enabled\": true, \"rules\": [{\"users\": [\"user-1\"]}]}",
+                "config.rules[0] needs exactly one of variant and rollout");
+        assertInvalid("BOOLEAN", "{\"enabled\": true, \"rules\": [{\"users\": [\"user-1\", null], \"variant\": \"on\"}]}",
+                "config.rules[0].users must not contain null");
+    }
+
+    @Test
+    void malformedConfigIsRejected() {
+        assertThatThrownBy(() -> compile("BOOLEAN", "{\"enabled\": true"))
+                .isInstanceOf(InvalidFlagConfigException.class)
+                .hasMessageStartingWith("config is not valid: ");
+        assertThatThrownBy(() -> compile("BOOLEAN", "{\"enabled\": true, \"percentage\": 5}"))
+                .isInstanceOf(InvalidFlagConfigException.class)
+                .hasMessageStartingWith("config is not valid: ");
+        assertInvalid("BOOLEAN", " ", "config is required");
+    }
+
+    @Test
+    void nameIsRequired() {
+        assertThatThrownBy(() -> FlagCompiler.compile(" ", "BOOLEAN", "{\"enabled\": true}"))
+                .isInstanceOf(InvalidFlagConfigException.class)
+                .hasMessage("Feature flag name is required");
+    }
+
+    @Test
+    void invalidStoredFlagEvaluatesToError() {
+        FeatureFlag stored = FeatureFlag.builder()
+                .envName("prod")
+                .featureName(NAME)
+                .type("BOOLEAN")
+                .config("{\"enabled\": \"maybe\"}")
+                .build();
+
+        CompiledFlag flag = FlagCompiler.compileOrInvalid(stored);
+        Evaluation evaluation = flag.evaluate(user("user-1"));
+
+        assertThat(flag.getType()).isNull();
+        assertThat(evaluation.variant()).isNull();
+        assertThat(evaluation.reason()).isEqualTo(EvaluationReason.ERROR);
+    }
+
+    private static CompiledFlag compile(String type, String config) {
+        return FlagCompiler.compile(NAME, type, config);
+    }
+
+    private static void assertInvalid(String type, String config, String message) {
+        assertThatThrownBy(() -> compile(type, config))
+                .isInstanceOf(InvalidFlagConfigException.class)
+                .hasMessage(message);
+    }
+
+    private static EvaluationContext user(String userKey) {
+        return new EvaluationContext(userKey, Map.of());
+    }
+
+    private static EvaluationContext user(String userKey, String attribute, String value) {
+        return new EvaluationContext(userKey, Map.of(attribute, value));
+    }
+}
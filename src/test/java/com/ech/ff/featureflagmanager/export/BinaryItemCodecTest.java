@@ -0,0 +1,108 @@
+package com.ech.ff.featureflagmanager.export;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryItemCodecTest {
+
+    private final BinaryItemCodec codec = new BinaryItemCodec();
+
+    @Test
+    void itemsSurviveTheRoundTrip() throws IOException {
+        List<Map<String, AttributeValue>> items = List.of(item("dark-mode", 3), item("beta", 128));
+
+        assertThat(readAll(codec.encode(items, true))).isEqualTo(items);
+    }
+
+    @Test
+    void pagesAppendedToAFileAreReadAsOneFile() throws IOException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.write(codec.encode(List.of(item("a", 1)), true));
+        file.write(codec.encode(List.of(), false));
+        file.write(codec.encode(List.of(item("b", 2), item("c", 3)), false));
+
+        assertThat(readAll(file.toByteArray())).containsExactly(item("a", 1), item("b", 2), item("c", 3));
+    }
+
+    @Test
+    void stringsOfAnyLengthAndCharactersSurviveTheRoundTrip() throws IOException {
+        Map<String, AttributeValue> item = new LinkedHashMap<>();
+        item.put("empty", AttributeValue.fromS(""));
+        item.put("unicode", AttributeValue.fromS("Grüße ✓ 日本"));
+        item.put("long", AttributeValue.fromS("x".repeat(20_000)));
+        item.put("ü".repeat(100), AttributeValue.fromN("-1.5E+3"));
+
+        assertThat(readAll(codec.encode(List.of(item), true))).containsExactly(item);
+    }
+
+    @Test
+    void startOfFileWritesTheHeader() throws IOException {
+        assertThat(HexFormat.of().formatHex(codec.encode(List.of(), true))).isEqualTo("46464558" + "01");
+        assertThat(codec.encode(List.of(), false)).isEmpty();
+    }
+
+    @Test
+    void emptyFileHasNoItems() throws IOException {
+        assertThat(readAll(new byte[0])).isEmpty();
+    }
+
+    @Test
+    void fileWithoutMagicIsRejected() {
+        byte[] ndjson = "{\"EnvName\":{\"S\":\"prod\"}}\n".getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> readAll(ndjson))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Not a binary export file");
+    }
+
+    @Test
+    void unknownFormatVersionIsRejected() {
+        byte[] file = HexFormat.of().parseHex("46464558" + "02");
+
+        assertThatThrownBy(() -> readAll(file))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Unsupported binary export format version 2");
+    }
+
+    @Test
+    void unsupportedTypeIsRejected() {
+        Map<String, AttributeValue> item = Map.of("tags", AttributeValue.fromSs(List.of("a")));
+
+        assertThatThrownBy(() -> codec.encode(List.of(item), true))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unsupported type SS of attribute tags");
+    }
+
+    private List<Map<String, AttributeValue>> readAll(byte[] file) throws IOException {
+        ItemCodec.ItemReader reader = codec.reader(new ByteArrayInputStream(file));
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        Map<String, AttributeValue> item;
+        while ((item = reader.read()) != null) {
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static Map<String, AttributeValue> item(String featureName, long version) {
+        Map<String, AttributeValue> item = new LinkedHashMap<>();
+        item.put("EnvName", AttributeValue.fromS("prod"));
+        item.put("FeatureName", AttributeValue.fromS(featureName));
+        item.put("version", AttributeValue.fromN(Long.toString(version)));
+        item.put("enabled", AttributeValue.fromBool(version % 2 == 0));
+        item.put("userId", AttributeValue.fromNul(true));
+        return item;
+    }
+}
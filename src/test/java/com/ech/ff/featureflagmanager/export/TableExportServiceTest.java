@@ -0,0 +1,212 @@
+package com.ech.ff.featureflagmanager.export;
+
+import com.ech.ff.featureflagmanager.cache.FlagCache;
+import com.ech.ff.featureflagmanager.controller.dto.TableTransferResult;
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import com.ech.ff.featureflagmanager.dynamodb.repository.ApiKeyRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.EnvironmentRepository;
+import com.ech.ff.featureflagmanager.dynamodb.repository.FeatureFlagRepository;
+import com.ech.ff.featureflagmanager.job.Job;
+import com.ech.ff.featureflagmanager.job.JobRegistry;
+import com.ech.ff.featureflagmanager.snapshot.FlagSnapshotService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TableExportServiceTest {
+
+    private static final String TABLE = "FeatureFlag";
+    private static final String USER_ID = "admin-1";
+    private static final TableSchema<FeatureFlag> SCHEMA = TableSchema.fromBean(FeatureFlag.class);
+
+    private final FeatureFlagRepository featureFlagRepository = mock(FeatureFlagRepository.class);
+    private final EnvironmentRepository environmentRepository = mock(EnvironmentRepository.class);
+    private final ApiKeyRepository apiKeyRepository = mock(ApiKeyRepository.class);
+    private final JobRegistry jobRegistry = new JobRegistry(Duration.ofHours(1), 100);
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() {
+        when(featureFlagRepository.tableName()).thenReturn(TABLE);
+        when(featureFlagRepository.tableSchema()).thenReturn(SCHEMA);
+        when(environmentRepository.tableName()).thenReturn("Environment");
+        when(apiKeyRepository.tableName()).thenReturn("EnvApiKey");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobRegistry.shutdown();
+    }
+
+    @Test
+    void failedExportResumesFromTheLastCheckpoint() throws Exception {
+        Map<String, AttributeValue> afterA = key("a");
+        when(featureFlagRepository.scanSegment(0, 1, TableExportService.SCAN_PAGE_SIZE, null))
+                .thenReturn(Page.create(List.of(flag("a")), afterA));
+        when(featureFlagRepository.scanSegment(0, 1, TableExportService.SCAN_PAGE_SIZE, afterA))
+                .thenThrow(new RuntimeException("Failed to scan segment"))
+                .thenReturn(Page.create(List.of(flag("b"))));
+        TableExportService service = service(16);
+
+        Job failed = await(service.startExport(USER_ID, List.of(TABLE), ExportFormat.NDJSON, 1));
+
+        assertThat(failed.getStatus()).isEqualTo(Job.Status.FAILED);
+        String exportId = exportId();
+
+        Job resumed = await(service.resumeExport(USER_ID, exportId));
+
+        assertThat(resumed.getStatus()).isEqualTo(Job.Status.SUCCEEDED);
+        assertThat(((TableTransferResult) resumed.getResult()).itemsByTable()).containsExactly(Map.entry(TABLE, 2L));
+        verify(featureFlagRepository, times(1)).scanSegment(0, 1, TableExportService.SCAN_PAGE_SIZE, null);
+        List<String> lines = Files.readAllLines(directory.resolve(exportId).resolve(TABLE).resolve("segment-0000.ndjson"));
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).contains("\"FeatureName\":{\"S\":\"a\"}");
+        assertThat(lines.get(1)).contains("\"FeatureName\":{\"S\":\"b\"}");
+    }
+
+    @Test
+    void runningExportCannotBeResumed() throws Exception {
+        CountDownLatch scanning = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(featureFlagRepository.scanSegment(0, 1, TableExportService.SCAN_PAGE_SIZE, null)).thenAnswer(invocation -> {
+            scanning.countDown();
+            release.await();
+            return Page.create(List.of(flag("a")));
+        });
+        TableExportService service = service(16);
+
+        Job job = service.startExport(USER_ID, List.of(TABLE), ExportFormat.BINARY, 1);
+        assertThat(scanning.await(10, TimeUnit.SECONDS)).isTrue();
+        String exportId = exportId();
+
+        assertThatThrownBy(() -> service.resumeExport(USER_ID, exportId))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Export " + exportId + " is still running");
+
+        release.countDown();
+
+        assertThat(await(job).getStatus()).isEqualTo(Job.Status.SUCCEEDED);
+        assertThat(await(service.resumeExport(USER_ID, exportId)).getStatus()).isEqualTo(Job.Status.SUCCEEDED);
+    }
+
+    @Test
+    void failedSegmentStopsTheOtherSegments() throws Exception {
+        CountDownLatch otherSegmentScanning = new CountDownLatch(1);
+        AtomicInteger otherSegmentPages = new AtomicInteger();
+        when(featureFlagRepository.scanSegment(eq(0), eq(2), anyInt(), any())).thenAnswer(invocation -> {
+            otherSegmentScanning.await();
+            throw new RuntimeException("Failed to scan segment");
+        });
+        // The other segment never ends on its own
+        when(featureFlagRepository.scanSegment(eq(1), eq(2), anyInt(), any())).thenAnswer(invocation -> {
+            otherSegmentPages.incrementAndGet();
+            otherSegmentScanning.countDown();
+            Thread.sleep(5);
+            return Page.create(List.of(flag("x")), key("x"));
+        });
+        TableExportService service = service(16);
+
+        Job job = await(service.startExport(USER_ID, List.of(TABLE), ExportFormat.NDJSON, 2));
+
+        assertThat(job.getStatus()).isEqualTo(Job.Status.FAILED);
+        int pages = otherSegmentPages.get();
+        Thread.sleep(100);
+        assertThat(otherSegmentPages.get()).isEqualTo(pages);
+    }
+
+    @Test
+    void concurrentSegmentsAreLimited() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(featureFlagRepository.scanSegment(anyInt(), eq(8), anyInt(), any())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            running.decrementAndGet();
+            return Page.create(List.of(flag("s" + invocation.getArgument(0))));
+        });
+        TableExportService service = service(2);
+
+        Job job = await(service.startExport(USER_ID, List.of(TABLE), ExportFormat.BINARY, 8));
+
+        assertThat(job.getStatus()).isEqualTo(Job.Status.SUCCEEDED);
+        assertThat(((TableTransferResult) job.getResult()).itemsByTable()).containsExactly(Map.entry(TABLE, 8L));
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void segmentsAreCapped() {
+        TableExportService service = service(16);
+
+        assertThatThrownBy(() -> service.startExport(USER_ID, List.of(TABLE), ExportFormat.NDJSON,
+                TableExportService.MAX_SEGMENTS + 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("segments must be between 1 and " + TableExportService.MAX_SEGMENTS);
+    }
+
+    private TableExportService service(int maxConcurrentSegments) {
+        return new TableExportService(featureFlagRepository, environmentRepository, apiKeyRepository, jobRegistry,
+                mock(FlagCache.class), mock(FlagSnapshotService.class), new ObjectMapper(), directory, 4, 4,
+                maxConcurrentSegments);
+    }
+
+    /**
+     * Get the id of the only export in the directory.
+     */
+    private String exportId() throws IOException {
+        try (Stream<Path> exports = Files.list(directory)) {
+            return exports.findFirst().orElseThrow().getFileName().toString();
+        }
+    }
+
+    private static Job await(Job job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (job.getStatus() == Job.Status.RUNNING) {
+            assertThat(System.nanoTime()).as("job finished in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+        return job;
+    }
+
+    private static FeatureFlag flag(String featureName) {
+        return FeatureFlag.builder()
+                .envName("prod")
+                .featureName(featureName)
+                .type("BOOLEAN")
+                .config("{\"enabled\": true}")
+                .userId("user-1")
+                .version(1L)
+                .build();
+    }
+
+    private static Map<String, AttributeValue> key(String featureName) {
+        return Map.of("EnvName", AttributeValue.fromS("prod"), "FeatureName", AttributeValue.fromS(featureName));
+    }
+}
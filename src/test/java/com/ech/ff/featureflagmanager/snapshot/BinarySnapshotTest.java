@@ -0,0 +1,73 @@
+package com.ech.ff.featureflagmanager.snapshot;
+
+import com.ech.ff.featureflagmanager.dynamodb.entity.FeatureFlag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BinarySnapshotTest {
+
+    private static final EnvironmentKey KEY = new EnvironmentKey("user-1", "prod");
+
+    @Test
+    void plainAndGzipRepresentationsHaveDistinctEtags() {
+        EnvironmentSnapshot snapshot = new EnvironmentSnapshot(KEY, 1, flags());
+        String etag = snapshot.getEtag();
+        String tag = etag.substring(1, etag.length() - 1);
+
+        BinarySnapshot binary = snapshot.getBinarySnapshot();
+
+        assertThat(binary.getEtag()).isEqualTo("\"" + tag + "-bin\"");
+        assertThat(binary.getGzipEtag()).isEqualTo("\"" + tag + "-bin-gz\"");
+        assertThat(binary.getEtag()).isNotEqualTo(binary.getGzipEtag());
+        assertThat(binary.getEtag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void gzipBytesDecompressToPlainBytes() throws IOException {
+        BinarySnapshot binary = new EnvironmentSnapshot(KEY, 1, flags()).getBinarySnapshot();
+
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(binary.getGzipBytes()))) {
+            assertThat(gzip.readAllBytes()).isEqualTo(binary.getBytes());
+        }
+    }
+
+    @Test
+    void sameFlagsEncodeToSameBytesInAnyOrder() {
+        List<FeatureFlag> flags = flags();
+        BinarySnapshot first = new EnvironmentSnapshot(KEY, 1, flags).getBinarySnapshot();
+        BinarySnapshot second = new EnvironmentSnapshot(KEY, 1, flags.reversed()).getBinarySnapshot();
+
+        assertThat(second.getBytes()).isEqualTo(first.getBytes());
+        assertThat(second.getEtag()).isEqualTo(first.getEtag());
+        assertThat(second.getGzipEtag()).isEqualTo(first.getGzipEtag());
+    }
+
+    @Test
+    void binarySnapshotIsBuiltOnce() {
+        EnvironmentSnapshot snapshot = new EnvironmentSnapshot(KEY, 1, flags());
+
+        assertThat(snapshot.getBinarySnapshot()).isSameAs(snapshot.getBinarySnapshot());
+    }
+
+    private static List<FeatureFlag> flags() {
+        return List.of(
+                flag("beta", "PERCENTAGE_ROLLOUT", "{\"enabled\": true, \"rolloutPercentage\": 20}"),
+                flag("dark-mode", "BOOLEAN", "{\"enabled\": false}"));
+    }
+
+    private static FeatureFlag flag(String name, String type, String config) {
+        return FeatureFlag.builder()
+                .envName(KEY.envName())
+                .userId(KEY.userId())
+                .featureName(name)
+                .type(type)
+                .config(config)
+                .build();
+    }
+}